@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.concurrent.VirtualThreads;
+import org.rm3l.now4j.resources.deployments.Deployment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many {@link NowClient} calls at once, against a local mock server: asynchronous calls run by the dispatcher,
+ * on platform or virtual threads, versus blocking calls made from as many platform or virtual threads.
+ * <p>
+ * Virtual threads require running the benchmarks on Java 21 or above.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ConcurrentCallsBenchmark {
+
+    @Param({"100", "1000"})
+    public int concurrency;
+
+    private MockNowServer server;
+    private NowClient nowClient;
+    private NowClient virtualThreadsNowClient;
+    private ExecutorService platformThreads;
+    private ExecutorService virtualThreads;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.server = new MockNowServer(10, new byte[0]);
+        this.nowClient = NowClient.builder()
+                .token("benchmark-token")
+                .baseUrl(this.server.baseUrl())
+                .maxRequests(this.concurrency)
+                .maxRequestsPerHost(this.concurrency)
+                .build();
+        this.platformThreads = Executors.newFixedThreadPool(this.concurrency);
+        if (VirtualThreads.isSupported()) {
+            this.virtualThreadsNowClient = NowClient.builder()
+                    .token("benchmark-token")
+                    .baseUrl(this.server.baseUrl())
+                    .maxRequests(this.concurrency)
+                    .maxRequestsPerHost(this.concurrency)
+                    .virtualThreads()
+                    .build();
+            this.virtualThreads = VirtualThreads.newExecutor();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.platformThreads.shutdownNow();
+        if (this.virtualThreads != null) {
+            this.virtualThreads.shutdownNow();
+        }
+        this.server.close();
+    }
+
+    @Benchmark
+    public List<Deployment> dispatcher() {
+        return this.async(this.nowClient);
+    }
+
+    @Benchmark
+    public List<Deployment> dispatcherOnVirtualThreads() {
+        if (this.virtualThreadsNowClient == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or above");
+        }
+        return this.async(this.virtualThreadsNowClient);
+    }
+
+    @Benchmark
+    public List<Deployment> blockingOnPlatformThreads() throws Exception {
+        return this.blocking(this.platformThreads);
+    }
+
+    @Benchmark
+    public List<Deployment> blockingOnVirtualThreads() throws Exception {
+        if (this.virtualThreads == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or above");
+        }
+        return this.blocking(this.virtualThreads);
+    }
+
+    private List<Deployment> async(final NowClient client) {
+        final List<CompletableFuture<Deployment>> futures = new ArrayList<>(this.concurrency);
+        for (int i = 0; i < this.concurrency; i++) {
+            futures.add(client.async().getDeployment("dpl_" + i));
+        }
+        final List<Deployment> deployments = new ArrayList<>(this.concurrency);
+        for (final CompletableFuture<Deployment> future : futures) {
+            deployments.add(future.join());
+        }
+        return deployments;
+    }
+
+    private List<Deployment> blocking(final ExecutorService executorService)
+            throws InterruptedException, ExecutionException {
+        final List<Future<Deployment>> futures = new ArrayList<>(this.concurrency);
+        for (int i = 0; i < this.concurrency; i++) {
+            final String deploymentId = "dpl_" + i;
+            futures.add(executorService.submit(() -> this.nowClient.getDeployment(deploymentId)));
+        }
+        final List<Deployment> deployments = new ArrayList<>(this.concurrency);
+        for (final Future<Deployment> future : futures) {
+            deployments.add(future.get());
+        }
+        return deployments;
+    }
+}
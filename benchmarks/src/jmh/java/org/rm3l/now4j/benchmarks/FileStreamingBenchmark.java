@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.rm3l.now4j.NowClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Streaming of deployment files via {@link NowClient#getFileAsInputStream(String, String)},
+ * against a local mock server
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FileStreamingBenchmark {
+
+    @Param({"65536", "4194304"})
+    public int fileSize;
+
+    private MockNowServer server;
+    private NowClient nowClient;
+    private byte[] buffer;
+
+    @Setup
+    public void setUp() throws IOException {
+        final byte[] file = new byte[this.fileSize];
+        new Random(42L).nextBytes(file);
+        this.server = new MockNowServer(0, file);
+        this.nowClient = NowClient.builder()
+                .token("benchmark-token")
+                .baseUrl(this.server.baseUrl())
+                .build();
+        this.buffer = new byte[8192];
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.server.close();
+    }
+
+    @Benchmark
+    public long getFileAsInputStream() throws IOException {
+        long total = 0L;
+        try (final InputStream inputStream = this.nowClient.getFileAsInputStream("dpl_0", MockNowServer.FILE_ID)) {
+            int read;
+            while ((read = inputStream.read(this.buffer)) != -1) {
+                total += read;
+            }
+        }
+        return total;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.benchmarks;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.rm3l.now4j.cache.LruResponseCache;
+import org.rm3l.now4j.interceptors.Now4jInterceptors;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Overhead of the {@link Now4jInterceptors} chain, without any network I/O:
+ * the last interceptor answers every request with a canned response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class InterceptorChainBenchmark {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    private static final Interceptor CANNED_RESPONSE = chain -> new Response.Builder()
+            .request(chain.request())
+            .protocol(Protocol.HTTP_1_1)
+            .code(200)
+            .message("OK")
+            .body(ResponseBody.create(JSON, "{}"))
+            .build();
+
+    private Request request;
+    private OkHttpClient bare;
+    private OkHttpClient now4j;
+    private OkHttpClient now4jWithCache;
+
+    @Setup
+    public void setUp() {
+        this.request = new Request.Builder().url("https://api.zeit.co/now/deployments").build();
+        final OkHttpClient transport = new OkHttpClient();
+        this.bare = transport.newBuilder()
+                .addInterceptor(CANNED_RESPONSE)
+                .build();
+        this.now4j = now4jInterceptors(transport.newBuilder())
+                .addInterceptor(CANNED_RESPONSE)
+                .build();
+        this.now4jWithCache = now4jInterceptors(transport.newBuilder())
+                .addInterceptor(new Now4jInterceptors.ConditionalRequestInterceptor(
+                        LruResponseCache.builder().build()))
+                .addInterceptor(CANNED_RESPONSE)
+                .build();
+    }
+
+    private static OkHttpClient.Builder now4jInterceptors(final OkHttpClient.Builder builder) {
+        return builder
+                .addInterceptor(Now4jInterceptors.HEADERS_INTERCEPTOR)
+                .addInterceptor(new Now4jInterceptors.AuthenticationInterceptor("benchmark-token"))
+                .addInterceptor(new Now4jInterceptors.TeamInterceptor("benchmark-team"));
+    }
+
+    @Benchmark
+    public int bare() throws IOException {
+        return execute(this.bare);
+    }
+
+    @Benchmark
+    public int now4jInterceptors() throws IOException {
+        return execute(this.now4j);
+    }
+
+    @Benchmark
+    public int now4jInterceptorsWithCache() throws IOException {
+        return execute(this.now4jWithCache);
+    }
+
+    private int execute(final OkHttpClient client) throws IOException {
+        try (final Response response = client.newCall(this.request).execute()) {
+            return response.code();
+        }
+    }
+}
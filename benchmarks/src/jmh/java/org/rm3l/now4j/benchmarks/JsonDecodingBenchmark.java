@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.benchmarks;
+
+import com.google.gson.Gson;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.rm3l.now4j.json.Now4jTypeAdapters;
+import org.rm3l.now4j.resources.deployments.GetDeploymentsResponse;
+import org.rm3l.now4j.resources.domains.DomainRecords;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of large deployment and DNS record lists: Gson's reflective adapters
+ * versus {@link Now4jTypeAdapters}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JsonDecodingBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private Gson reflective;
+    private Gson typeAdapters;
+
+    private String deploymentsJson;
+    private String domainRecordsJson;
+
+    @Setup
+    public void setUp() {
+        this.reflective = new Gson();
+        this.typeAdapters = Now4jTypeAdapters.GSON;
+        this.deploymentsJson = Payloads.deployments(this.size);
+        this.domainRecordsJson = Payloads.domainRecords(this.size);
+    }
+
+    @Benchmark
+    public GetDeploymentsResponse deploymentsReflective() {
+        return this.reflective.fromJson(this.deploymentsJson, GetDeploymentsResponse.class);
+    }
+
+    @Benchmark
+    public GetDeploymentsResponse deploymentsTypeAdapters() {
+        return this.typeAdapters.fromJson(this.deploymentsJson, GetDeploymentsResponse.class);
+    }
+
+    @Benchmark
+    public DomainRecords domainRecordsReflective() {
+        return this.reflective.fromJson(this.domainRecordsJson, DomainRecords.class);
+    }
+
+    @Benchmark
+    public DomainRecords domainRecordsTypeAdapters() {
+        return this.typeAdapters.fromJson(this.domainRecordsJson, DomainRecords.class);
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.benchmarks;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.jetbrains.annotations.NotNull;
+
+import javax.net.ServerSocketFactory;
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Local HTTP server answering Now API requests with canned {@link Payloads}
+ */
+final class MockNowServer implements Closeable {
+
+    static final String FILE_ID = "file_0";
+
+    static {
+        //Logs every single request otherwise
+        Logger.getLogger(MockWebServer.class.getName()).setLevel(Level.WARNING);
+    }
+
+    @NotNull
+    private final MockWebServer server = new MockWebServer();
+
+    /**
+     * @param size number of items in lists
+     * @param file contents of file {@link #FILE_ID}
+     */
+    MockNowServer(final int size, @NotNull final byte[] file) throws IOException {
+        final String deployments = Payloads.deployments(size);
+        final String deployment = Payloads.deployment();
+        final String domains = Payloads.domains(size);
+        final String domainRecords = Payloads.domainRecords(size);
+        final String aliases = Payloads.aliases(size);
+        final String certificates = Payloads.certificates(size);
+        final String secrets = Payloads.secrets(size);
+        //Otherwise, small responses get delayed by Nagle's algorithm interacting with delayed ACKs
+        this.server.setServerSocketFactory(new ServerSocketFactory() {
+            @Override
+            public ServerSocket createServerSocket() throws IOException {
+                return new ServerSocket() {
+                    @Override
+                    public Socket accept() throws IOException {
+                        final Socket socket = super.accept();
+                        socket.setTcpNoDelay(true);
+                        return socket;
+                    }
+                };
+            }
+
+            @Override
+            public ServerSocket createServerSocket(final int port) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ServerSocket createServerSocket(final int port, final int backlog) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ServerSocket createServerSocket(final int port, final int backlog, final InetAddress bindAddress) {
+                throw new UnsupportedOperationException();
+            }
+        });
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) {
+                final String path = request.getPath();
+                if (path.equals("/now/deployments")) {
+                    return json(deployments);
+                }
+                if (path.endsWith("/files/" + FILE_ID)) {
+                    return new MockResponse().setBody(new Buffer().write(file));
+                }
+                if (path.startsWith("/now/deployments/")) {
+                    return json(deployment);
+                }
+                if (path.equals("/domains")) {
+                    return json(domains);
+                }
+                if (path.startsWith("/domains/") && path.endsWith("/records")) {
+                    return json(domainRecords);
+                }
+                if (path.equals("/now/aliases")) {
+                    return json(aliases);
+                }
+                if (path.startsWith("/now/certs")) {
+                    return json(certificates);
+                }
+                if (path.equals("/now/secrets")) {
+                    return json(secrets);
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        this.server.start();
+    }
+
+    @NotNull
+    private static MockResponse json(@NotNull final String body) {
+        return new MockResponse()
+                .setHeader("Content-Type", "application/json; charset=utf-8")
+                .setBody(body);
+    }
+
+    @NotNull
+    String baseUrl() {
+        return this.server.url("/").toString();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.server.shutdown();
+    }
+}
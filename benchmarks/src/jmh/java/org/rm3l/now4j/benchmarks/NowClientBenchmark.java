@@ -0,0 +1,107 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.resources.aliases.Alias;
+import org.rm3l.now4j.resources.certs.Certificate;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.domains.Domain;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+import org.rm3l.now4j.resources.secrets.Secret;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End-to-end {@link NowClient} list and get calls, against a local mock server
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class NowClientBenchmark {
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private MockNowServer server;
+    private NowClient nowClient;
+
+    @Setup
+    public void setUp() throws IOException {
+        this.server = new MockNowServer(this.size, new byte[0]);
+        this.nowClient = NowClient.builder()
+                .token("benchmark-token")
+                .baseUrl(this.server.baseUrl())
+                .build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        this.server.close();
+    }
+
+    @Benchmark
+    public List<Deployment> getDeployments() throws IOException {
+        return this.nowClient.getDeployments();
+    }
+
+    @Benchmark
+    public Deployment getDeployment() throws IOException {
+        return this.nowClient.getDeployment("dpl_0");
+    }
+
+    @Benchmark
+    public List<Domain> getDomains() throws IOException {
+        return this.nowClient.getDomains();
+    }
+
+    @Benchmark
+    public List<DomainRecord> getDomainRecords() throws IOException {
+        return this.nowClient.getDomainRecords("example.com");
+    }
+
+    @Benchmark
+    public List<Alias> getAliases() throws IOException {
+        return this.nowClient.getAliases();
+    }
+
+    @Benchmark
+    public List<Certificate> getCertificates() throws IOException {
+        return this.nowClient.getCertificates("example.com");
+    }
+
+    @Benchmark
+    public List<Secret> getSecrets() throws IOException {
+        return this.nowClient.getSecrets();
+    }
+}
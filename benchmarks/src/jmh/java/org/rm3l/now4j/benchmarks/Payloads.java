@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.benchmarks;
+
+/**
+ * Synthetic, yet realistic, API responses
+ */
+final class Payloads {
+
+    private Payloads() {
+        throw new UnsupportedOperationException("Not instantiable");
+    }
+
+    static String deployments(final int size) {
+        final StringBuilder json = new StringBuilder("{\"deployments\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            appendDeployment(json, i);
+        }
+        return json.append("]}").toString();
+    }
+
+    static String deployment() {
+        final StringBuilder json = new StringBuilder();
+        appendDeployment(json, 0);
+        return json.toString();
+    }
+
+    private static void appendDeployment(final StringBuilder json, final int i) {
+        json.append("{\"uid\":\"dpl_").append(i).append("\",")
+                .append("\"name\":\"my-app\",")
+                .append("\"url\":\"my-app-").append(i).append(".now.sh\",")
+                .append("\"host\":\"my-app-").append(i).append(".now.sh\",")
+                .append("\"created\":\"").append(1500000000000L + i).append("\",")
+                .append("\"state\":\"READY\",")
+                .append("\"stateTs\":\"").append(1500000000000L + i).append("\",")
+                .append("\"type\":\"NPM\",")
+                .append("\"scale\":{\"current\":1,\"min\":1,\"max\":10}}");
+    }
+
+    static String domainRecords(final int size) {
+        final StringBuilder json = new StringBuilder("{\"records\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"id\":\"rec_").append(i).append("\",")
+                    .append("\"slug\":\"host-").append(i).append(".example.com.-address\",")
+                    .append("\"type\":\"A\",")
+                    .append("\"name\":\"host-").append(i).append("\",")
+                    .append("\"value\":\"10.0.").append(i / 256 % 256).append('.').append(i % 256).append("\",")
+                    .append("\"created\":").append(1500000000000L + i).append(',')
+                    .append("\"updated\":").append(1500000000000L + i).append('}');
+        }
+        return json.append("]}").toString();
+    }
+
+    static String domains(final int size) {
+        final StringBuilder json = new StringBuilder("{\"domains\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"uid\":\"dom_").append(i).append("\",")
+                    .append("\"name\":\"example-").append(i).append(".com\",")
+                    .append("\"created\":\"2017-01-01T00:00:00.000Z\",")
+                    .append("\"verified\":true,")
+                    .append("\"verifyToken\":\"token-").append(i).append("\",")
+                    .append("\"isExternal\":false,")
+                    .append("\"aliases\":[\"www.example-").append(i).append(".com\"]}");
+        }
+        return json.append("]}").toString();
+    }
+
+    static String aliases(final int size) {
+        final StringBuilder json = new StringBuilder("{\"aliases\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"uid\":\"als_").append(i).append("\",")
+                    .append("\"alias\":\"my-alias-").append(i).append("\",")
+                    .append("\"created\":\"2017-01-01T00:00:00.000Z\",")
+                    .append("\"deploymentId\":\"dpl_").append(i).append("\"}");
+        }
+        return json.append("]}").toString();
+    }
+
+    static String certificates(final int size) {
+        final StringBuilder json = new StringBuilder("{\"certs\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"uid\":\"crt_").append(i).append("\",")
+                    .append("\"cn\":\"example-").append(i).append(".com\",")
+                    .append("\"created\":\"2017-01-01T00:00:00.000Z\",")
+                    .append("\"expiration\":\"2017-04-01T00:00:00.000Z\",")
+                    .append("\"autoRenew\":true}");
+        }
+        return json.append("]}").toString();
+    }
+
+    static String secrets(final int size) {
+        final StringBuilder json = new StringBuilder("{\"secrets\":[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append("{\"uid\":\"sec_").append(i).append("\",")
+                    .append("\"name\":\"my-secret-").append(i).append("\",")
+                    .append("\"created\":\"2017-01-01T00:00:00.000Z\"}");
+        }
+        return json.append("]}").toString();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.benchmarks;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.rm3l.now4j.json.Now4jTypeAdapters;
+import org.rm3l.now4j.resources.aliases.Aliases;
+import org.rm3l.now4j.resources.certs.Certificates;
+import org.rm3l.now4j.resources.deployments.GetDeploymentsResponse;
+import org.rm3l.now4j.resources.domains.DomainRecords;
+import org.rm3l.now4j.resources.domains.Domains;
+import org.rm3l.now4j.resources.secrets.GetSecretsResponse;
+import retrofit2.Converter;
+import retrofit2.Retrofit;
+import retrofit2.converter.gson.GsonConverterFactory;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of each response wrapper, from raw UTF-8 bytes, through the same converter as {@link org.rm3l.now4j.NowClient}
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ResponseDecodingBenchmark {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+
+    @Param({"10", "1000"})
+    public int size;
+
+    private Retrofit retrofit;
+
+    private byte[] deployments;
+    private byte[] domains;
+    private byte[] domainRecords;
+    private byte[] aliases;
+    private byte[] certificates;
+    private byte[] secrets;
+
+    private Converter<ResponseBody, GetDeploymentsResponse> deploymentsConverter;
+    private Converter<ResponseBody, Domains> domainsConverter;
+    private Converter<ResponseBody, DomainRecords> domainRecordsConverter;
+    private Converter<ResponseBody, Aliases> aliasesConverter;
+    private Converter<ResponseBody, Certificates> certificatesConverter;
+    private Converter<ResponseBody, GetSecretsResponse> secretsConverter;
+
+    @Setup
+    public void setUp() {
+        this.retrofit = new Retrofit.Builder()
+                .baseUrl("https://api.zeit.co/")
+                .addConverterFactory(GsonConverterFactory.create(Now4jTypeAdapters.GSON))
+                .build();
+
+        this.deployments = Payloads.deployments(this.size).getBytes(StandardCharsets.UTF_8);
+        this.domains = Payloads.domains(this.size).getBytes(StandardCharsets.UTF_8);
+        this.domainRecords = Payloads.domainRecords(this.size).getBytes(StandardCharsets.UTF_8);
+        this.aliases = Payloads.aliases(this.size).getBytes(StandardCharsets.UTF_8);
+        this.certificates = Payloads.certificates(this.size).getBytes(StandardCharsets.UTF_8);
+        this.secrets = Payloads.secrets(this.size).getBytes(StandardCharsets.UTF_8);
+
+        this.deploymentsConverter = this.converter(GetDeploymentsResponse.class);
+        this.domainsConverter = this.converter(Domains.class);
+        this.domainRecordsConverter = this.converter(DomainRecords.class);
+        this.aliasesConverter = this.converter(Aliases.class);
+        this.certificatesConverter = this.converter(Certificates.class);
+        this.secretsConverter = this.converter(GetSecretsResponse.class);
+    }
+
+    private <T> Converter<ResponseBody, T> converter(final Class<T> type) {
+        return this.retrofit.responseBodyConverter(type, new Annotation[0]);
+    }
+
+    @Benchmark
+    public GetDeploymentsResponse getDeploymentsResponse() throws IOException {
+        return this.deploymentsConverter.convert(ResponseBody.create(JSON, this.deployments));
+    }
+
+    @Benchmark
+    public Domains domains() throws IOException {
+        return this.domainsConverter.convert(ResponseBody.create(JSON, this.domains));
+    }
+
+    @Benchmark
+    public DomainRecords domainRecords() throws IOException {
+        return this.domainRecordsConverter.convert(ResponseBody.create(JSON, this.domainRecords));
+    }
+
+    @Benchmark
+    public Aliases aliases() throws IOException {
+        return this.aliasesConverter.convert(ResponseBody.create(JSON, this.aliases));
+    }
+
+    @Benchmark
+    public Certificates certificates() throws IOException {
+        return this.certificatesConverter.convert(ResponseBody.create(JSON, this.certificates));
+    }
+
+    @Benchmark
+    public GetSecretsResponse getSecretsResponse() throws IOException {
+        return this.secretsConverter.convert(ResponseBody.create(JSON, this.secrets));
+    }
+}
@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cli;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import org.jetbrains.annotations.NotNull;
+import org.rm3l.now4j.NowClient;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.UnsupportedEncodingException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs command lines read from a batch, one per line, with the same client.
+ * <p>
+ * Blank lines and lines starting with <code>#</code> are skipped. Arguments are separated by whitespace,
+ * and may be quoted with single or double quotes. Lines are independent of each other: up to
+ * <code>concurrency</code> of them run at the same time.
+ * <p>
+ * The result of each line is printed as a single line of JSON, as soon as it is known, tagged with the
+ * number of that line in the batch: <code>{"line":3,"output":...}</code> or
+ * <code>{"line":3,"error":"..."}</code>.
+ */
+final class BatchRunner {
+
+    static final int DEFAULT_CONCURRENCY = 1;
+
+    private BatchRunner() {
+        throw new UnsupportedOperationException("Not instantiable");
+    }
+
+    /**
+     * @throws IllegalStateException if any line failed, once all lines have run
+     */
+    static void run(@NotNull final BufferedReader batch,
+                    final int concurrency,
+                    @NotNull final NowClient nowClient,
+                    @NotNull final PrintStream out,
+                    @NotNull final Path workingDirectory) throws IOException {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("concurrency < 1: " + concurrency);
+        }
+        final AtomicInteger failures = new AtomicInteger();
+        final ExecutorService executorService = Executors.newFixedThreadPool(concurrency, r -> {
+            final Thread thread = new Thread(r, "now4j-batch");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final List<Future<?>> futures = new ArrayList<>();
+        int lines = 0;
+        try {
+            String line;
+            int lineNumber = 0;
+            while ((line = batch.readLine()) != null) {
+                lineNumber++;
+                final String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    continue;
+                }
+                lines++;
+                final int number = lineNumber;
+                futures.add(executorService.submit(() -> {
+                    final JsonObject result = runLine(number, trimmed, nowClient, workingDirectory);
+                    if (result.has("error")) {
+                        failures.incrementAndGet();
+                    }
+                    synchronized (out) {
+                        out.println(result.toString());
+                        out.flush();
+                    }
+                }));
+            }
+            for (final Future<?> future : futures) {
+                await(future);
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        if (failures.get() > 0) {
+            throw new IllegalStateException(failures.get() + " of " + lines + " lines failed");
+        }
+    }
+
+    @NotNull
+    private static JsonObject runLine(final int lineNumber,
+                                      @NotNull final String line,
+                                      @NotNull final NowClient nowClient,
+                                      @NotNull final Path workingDirectory) {
+        final JsonObject result = new JsonObject();
+        result.addProperty("line", lineNumber);
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (final PrintStream out = new PrintStream(buffer, false, "UTF-8")) {
+            Now.runCommand(split(line), nowClient, out, workingDirectory);
+        } catch (final UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        } catch (final Exception e) {
+            result.addProperty("error", String.valueOf(e));
+            return result;
+        }
+        result.add("output", parseOutput(new String(buffer.toByteArray(), StandardCharsets.UTF_8)));
+        return result;
+    }
+
+    @NotNull
+    private static JsonElement parseOutput(@NotNull final String output) {
+        if (output.trim().isEmpty()) {
+            return JsonNull.INSTANCE;
+        }
+        try {
+            return JsonParser.parseString(output);
+        } catch (final JsonParseException e) {
+            //Raw content, e.g. a file streamed to the output
+            return new JsonPrimitive(output);
+        }
+    }
+
+    /**
+     * Split a line into arguments, on whitespace outside of single or double quotes
+     */
+    @NotNull
+    static String[] split(@NotNull final String line) {
+        final List<String> args = new ArrayList<>();
+        final StringBuilder current = new StringBuilder();
+        boolean inArg = false;
+        char quote = 0;
+        for (int i = 0; i < line.length(); i++) {
+            final char c = line.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+                inArg = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inArg) {
+                    args.add(current.toString());
+                    current.setLength(0);
+                    inArg = false;
+                }
+            } else {
+                current.append(c);
+                inArg = true;
+            }
+        }
+        if (quote != 0) {
+            throw new IllegalArgumentException("Unterminated quote in: " + line);
+        }
+        if (inArg) {
+            args.add(current.toString());
+        }
+        return args.toArray(new String[0]);
+    }
+
+    private static void await(@NotNull final Future<?> future) throws IOException {
+        try {
+            future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted", e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+}
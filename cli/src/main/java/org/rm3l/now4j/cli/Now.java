@@ -23,34 +23,49 @@ package org.rm3l.now4j.cli;
 
 import com.beust.jcommander.JCommander;
 import com.beust.jcommander.Parameter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.rm3l.now4j.NowClient;
 import org.rm3l.now4j.cli.subcommand.AbstractCommand;
+import org.rm3l.now4j.cli.subcommand.OutputFormat;
 import org.rm3l.now4j.cli.subcommand.aliases.CommandAliases;
 import org.rm3l.now4j.cli.subcommand.certs.CommandCertificates;
 import org.rm3l.now4j.cli.subcommand.deployments.CommandDeployments;
 import org.rm3l.now4j.cli.subcommand.domains.CommandDomains;
 import org.rm3l.now4j.cli.subcommand.secrets.CommandSecrets;
-
+import org.rm3l.now4j.config.NowConfig;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
 
 public class Now {
 
-    private static final Map<String, AbstractCommand> commandMap = new HashMap<>();
-
-    static {
-        //Register available commands
-        commandMap.put("aliases", new CommandAliases());
-        commandMap.put("certs", new CommandCertificates());
-        commandMap.put("deployments", new CommandDeployments());
-        commandMap.put("domains", new CommandDomains());
-        commandMap.put("secrets", new CommandSecrets());
-    }
-
     @Parameter(names = {"--verbose", "--log", "-v", "-l"})
     private int verboseLevel = 0;
 
     public static void main(String... argv) throws Exception {
+        run(argv, System.out, Paths.get(""), null);
+    }
+
+    /**
+     * Parse then run a command line. Commands hold their parsed options, hence are created anew each time.
+     *
+     * @param daemon the daemon this command line was forwarded to, to reuse its clients,
+     *               or null to create a client for this command line only
+     */
+    static void run(@NotNull final String[] argv,
+                    @NotNull final PrintStream out,
+                    @NotNull final Path workingDirectory,
+                    @Nullable final NowDaemon daemon) throws Exception {
+
+        final Map<String, AbstractCommand> commandMap = newCommands();
 
         //Attempt to determine verbose level first
         final Now now = new Now();
@@ -71,34 +86,113 @@ public class Now {
         commander.parse(argv);
 
         if (commandMain.help) {
-            commander.usage();
+            final StringBuilder usage = new StringBuilder();
+            commander.getUsageFormatter().usage(usage);
+            out.print(usage);
+            out.flush();
             return;
         }
 
-        final NowClient nowClient;
-        final String token = commandMain.token;
-        if (token == null || token.isEmpty()) {
-            //Default Now Client, with no option => read from  /.now.json file
-            nowClient = NowClient.create();
-        } else {
-            //There is a token option
-            final String team = commandMain.team;
-            if (team == null || team.isEmpty()) {
-                //Read team from  /.now.json, if any
-                nowClient = NowClient.create(token);
+        if (commandMain.daemon) {
+            if (daemon != null) {
+                throw new IllegalArgumentException("Already running as a daemon");
+            }
+            NowDaemon.serve();
+            return;
+        }
+
+        final NowClient nowClient = daemon != null ?
+                daemon.client(commandMain.token, commandMain.team, commandMain.profile) :
+                newClient(commandMain.token, commandMain.team, commandMain.profile);
+
+        if (commandMain.batch != null && !commandMain.batch.isEmpty()) {
+            if ("-".equals(commandMain.batch)) {
+                if (daemon != null) {
+                    throw new IllegalArgumentException("Reading a batch from stdin is not supported by the daemon");
+                }
+                BatchRunner.run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                        commandMain.concurrency, nowClient, out, workingDirectory);
             } else {
-                nowClient = NowClient.create(token, team);
+                try (final BufferedReader batch = Files.newBufferedReader(
+                        workingDirectory.resolve(commandMain.batch), StandardCharsets.UTF_8)) {
+                    BatchRunner.run(batch, commandMain.concurrency, nowClient, out, workingDirectory);
+                }
             }
+            return;
         }
 
-        final String parsedCommand = commander.getParsedCommand();
+        //Indented for humans only, i.e. compact when piped, or forwarded by the now4j script
+        final boolean pretty = daemon == null && System.console() != null;
+        run(commandMap, commander.getParsedCommand(), nowClient, out, workingDirectory, commandMain.format, pretty);
+    }
+
+    /**
+     * Parse then run a single command, without any of the main options. Its output is compact JSON.
+     */
+    static void runCommand(@NotNull final String[] argv,
+                           @NotNull final NowClient nowClient,
+                           @NotNull final PrintStream out,
+                           @NotNull final Path workingDirectory) throws Exception {
+        final Map<String, AbstractCommand> commandMap = newCommands();
+        final JCommander.Builder commanderBuilder = JCommander.newBuilder();
+        for (final Map.Entry<String, AbstractCommand> commandEntry : commandMap.entrySet()) {
+            commanderBuilder.addCommand(commandEntry.getKey(), commandEntry.getValue());
+        }
+        final JCommander commander = commanderBuilder.build();
+        commander.parse(argv);
+        run(commandMap, commander.getParsedCommand(), nowClient, out, workingDirectory, OutputFormat.JSON, false);
+    }
+
+    private static void run(@NotNull final Map<String, AbstractCommand> commandMap,
+                            @Nullable final String parsedCommand,
+                            @NotNull final NowClient nowClient,
+                            @NotNull final PrintStream out,
+                            @NotNull final Path workingDirectory,
+                            @NotNull final OutputFormat format,
+                            final boolean pretty) throws Exception {
         if (!commandMap.containsKey(parsedCommand)) {
             throw new IllegalArgumentException("Unsupported command: " +
                     parsedCommand + ". Possible commands: " + commandMap.keySet());
         }
         final AbstractCommand abstractCommand = commandMap.get(parsedCommand);
         abstractCommand.setNowClient(nowClient);
+        abstractCommand.setOut(out);
+        abstractCommand.setWorkingDirectory(workingDirectory);
+        abstractCommand.setFormat(format, pretty);
         abstractCommand.work();
+        out.flush();
+    }
+
+    @NotNull
+    private static Map<String, AbstractCommand> newCommands() {
+        //Register available commands
+        final Map<String, AbstractCommand> commandMap = new HashMap<>();
+        commandMap.put("aliases", new CommandAliases());
+        commandMap.put("certs", new CommandCertificates());
+        commandMap.put("deployments", new CommandDeployments());
+        commandMap.put("domains", new CommandDomains());
+        commandMap.put("secrets", new CommandSecrets());
+        return commandMap;
+    }
+
+    @NotNull
+    static NowClient newClient(@Nullable final String token,
+                               @Nullable final String team,
+                               @Nullable final String profile) {
+        if (profile != null && !profile.isEmpty()) {
+            final NowConfig.Credentials credentials = NowConfig.defaults().getCredentials(profile);
+            return NowClient.create(credentials.getToken(), credentials.getTeam());
+        }
+        if (token == null || token.isEmpty()) {
+            //Default Now Client, with no option => read from  /.now.json file
+            return NowClient.create();
+        }
+        //There is a token option
+        if (team == null || team.isEmpty()) {
+            //Read team from  /.now.json, if any
+            return NowClient.create(token);
+        }
+        return NowClient.create(token, team);
     }
 
     private static class CommandMain {
@@ -107,12 +201,12 @@ public class Now {
                 names = {"--help", "-h"},
                 description = "Show this help",
                 help = true,
-                order = 3)
+                order = 4)
         boolean help;
 
         @Parameter(names = {"--debug", "-d"},
                 description = "Debug mode",
-                order = 2)
+                order = 3)
         boolean debug = false;
 
         @Parameter(names = {"--token", "--T"},
@@ -124,5 +218,35 @@ public class Now {
                 description = "Now API Team. Read from ~/.now.json if not specified here.",
                 order = 1)
         String team;
+
+        @Parameter(names = "--profile",
+                description = "Profile of ~/.now.json to read the token and team from, " +
+                        "instead of --token and --team",
+                order = 2)
+        String profile;
+
+        @Parameter(names = "--daemon",
+                description = "Keep running in the foreground, serving the commands forwarded by the now4j script " +
+                        "with warm clients",
+                order = 5)
+        boolean daemon = false;
+
+        @Parameter(names = "--batch",
+                description = "File to read commands from, one per line, or '-' to read them from stdin. " +
+                        "Each command runs with the same client, its result printed as a line of JSON " +
+                        "tagged with the number of its line",
+                order = 6)
+        String batch;
+
+        @Parameter(names = "--concurrency",
+                description = "Maximum number of commands of a --batch run at the same time",
+                order = 7)
+        int concurrency = BatchRunner.DEFAULT_CONCURRENCY;
+
+        @Parameter(names = "--format",
+                description = "Output format: JSON, NDJSON (one line per element of lists) or TABLE. " +
+                        "JSON is indented only when printed to a terminal",
+                order = 8)
+        OutputFormat format = OutputFormat.JSON;
     }
 }
@@ -0,0 +1,333 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cli;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.config.NowConfig;
+import org.rm3l.now4j.pool.NowClientPool;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.AclEntry;
+import java.nio.file.attribute.AclEntryPermission;
+import java.nio.file.attribute.AclEntryType;
+import java.nio.file.attribute.AclFileAttributeView;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Long-lived process keeping warm clients, so that commands forwarded by the <code>now4j</code> script
+ * do not pay for JVM startup, class loading and TLS handshakes each time.
+ * <p>
+ * Java 8 has no Unix domain sockets: the daemon listens on a random loopback port instead, and writes
+ * that port along with a random secret to <code>~/.now4j/daemon</code>, readable by the current user only.
+ * It refuses to start where access to that file cannot be restricted.
+ * <p>
+ * Each connection starts with the secret then a verb, on their own lines. Connections not sending their whole
+ * request within {@value #REQUEST_TIMEOUT_MILLIS} ms are closed, and so are the ones exceeding
+ * {@value #MAX_CONNECTIONS} concurrent connections.
+ * <ul>
+ * <li><code>run</code>, followed by the working directory and the number of arguments on their own lines,
+ * then by each argument terminated by a NUL byte. The daemon replies with the ID of the command on its own
+ * line, then streams the output of the command until it closes the connection.</li>
+ * <li><code>status</code>, followed by the ID of a command on its own line. The daemon replies with the exit
+ * code of the command on its own line, followed by the error message, if any.</li>
+ * <li><code>stop</code>, to shut the daemon down.</li>
+ * </ul>
+ */
+final class NowDaemon {
+
+    static final int REQUEST_TIMEOUT_MILLIS = 10_000;
+
+    static final int MAX_CONNECTIONS = 64;
+
+    private static final int MAX_ARGS = 1024;
+
+    private static final int MAX_STATUSES = 256;
+
+    private final NowClientPool clients = NowClientPool.builder().build();
+
+    private final AtomicLong commandIds = new AtomicLong();
+
+    private final Map<String, String> statuses = new LinkedHashMap<String, String>() {
+        @Override
+        protected boolean removeEldestEntry(final Map.Entry<String, String> eldest) {
+            return this.size() > MAX_STATUSES;
+        }
+    };
+
+    private final Path daemonFile;
+
+    private final byte[] secret;
+
+    private final ServerSocket serverSocket;
+
+    private final int requestTimeoutMillis;
+
+    NowDaemon(@NotNull final Path daemonFile, final int requestTimeoutMillis) throws IOException {
+        this.daemonFile = daemonFile;
+        this.requestTimeoutMillis = requestTimeoutMillis;
+        final byte[] random = new byte[32];
+        new SecureRandom().nextBytes(random);
+        final StringBuilder hex = new StringBuilder(random.length * 2);
+        for (final byte b : random) {
+            hex.append(String.format("%02x", b));
+        }
+        this.secret = hex.toString().getBytes(StandardCharsets.US_ASCII);
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * @return the file a running daemon advertises its port and secret in
+     */
+    @NotNull
+    static Path daemonFile() {
+        return Paths.get(System.getProperty("user.home"), ".now4j", "daemon");
+    }
+
+    /**
+     * Serve commands until asked to stop
+     */
+    static void serve() throws IOException {
+        final NowDaemon daemon = new NowDaemon(daemonFile(), REQUEST_TIMEOUT_MILLIS);
+        daemon.advertise();
+        final Thread cleanup = new Thread(daemon::close, "now4j-daemon-cleanup");
+        Runtime.getRuntime().addShutdownHook(cleanup);
+        try {
+            daemon.acceptLoop();
+        } finally {
+            daemon.close();
+            try {
+                Runtime.getRuntime().removeShutdownHook(cleanup);
+            } catch (final IllegalStateException e) {
+                //Already shutting down
+            }
+        }
+    }
+
+    /**
+     * @return a client for the given credentials, created on first use then reused by subsequent commands.
+     * Clients for credentials read from <code>~/.now.json</code> follow the changes of that file.
+     */
+    @NotNull
+    NowClient client(@Nullable final String token, @Nullable final String team, @Nullable final String profile) {
+        if (profile != null && !profile.isEmpty()) {
+            return NowConfig.defaults().client(profile);
+        }
+        if (token == null || token.isEmpty()) {
+            return NowConfig.defaults().client();
+        }
+        return this.clients.get(token, team != null && !team.isEmpty() ? team : NowConfig.defaults().getTeam());
+    }
+
+    void advertise() throws IOException {
+        Files.createDirectories(this.daemonFile.getParent());
+        Files.deleteIfExists(this.daemonFile);
+        final FileStore fileStore = Files.getFileStore(this.daemonFile.getParent());
+        if (fileStore.supportsFileAttributeView("posix")) {
+            Files.createFile(this.daemonFile,
+                    PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rw-------")));
+        } else if (fileStore.supportsFileAttributeView("acl")) {
+            //Restricted before the secret gets written
+            Files.createFile(this.daemonFile);
+            final AclFileAttributeView acl = Files.getFileAttributeView(this.daemonFile, AclFileAttributeView.class);
+            acl.setAcl(Collections.singletonList(AclEntry.newBuilder()
+                    .setType(AclEntryType.ALLOW)
+                    .setPrincipal(acl.getOwner())
+                    .setPermissions(EnumSet.allOf(AclEntryPermission.class))
+                    .build()));
+        } else {
+            throw new IOException("Cannot restrict access to " + this.daemonFile + ": refusing to write the secret");
+        }
+        final String content = this.serverSocket.getLocalPort() + "\n"
+                + new String(this.secret, StandardCharsets.US_ASCII) + "\n";
+        Files.write(this.daemonFile, content.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    void acceptLoop() throws IOException {
+        final ThreadPoolExecutor executorService = new ThreadPoolExecutor(0, MAX_CONNECTIONS,
+                60L, TimeUnit.SECONDS, new SynchronousQueue<>(), r -> {
+            final Thread thread = new Thread(r, "now4j-daemon");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            while (!this.serverSocket.isClosed()) {
+                final Socket socket;
+                try {
+                    socket = this.serverSocket.accept();
+                } catch (final SocketException e) {
+                    //Closed by a stop command
+                    break;
+                }
+                try {
+                    executorService.execute(() -> this.handle(socket));
+                } catch (final RejectedExecutionException e) {
+                    //Too many connections
+                    closeQuietly(socket);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void handle(@NotNull final Socket socket) {
+        try (final Socket s = socket) {
+            //Until the whole request is read
+            s.setSoTimeout(this.requestTimeoutMillis);
+            final InputStream in = new BufferedInputStream(s.getInputStream());
+            if (!MessageDigest.isEqual(this.secret, readUntil(in, '\n'))) {
+                return;
+            }
+            final String verb = readString(in, '\n');
+            switch (verb) {
+                case "run":
+                    this.run(s, in);
+                    break;
+                case "status":
+                    final String id = readString(in, '\n');
+                    final String status;
+                    synchronized (this.statuses) {
+                        status = this.statuses.remove(id);
+                    }
+                    final OutputStream out = s.getOutputStream();
+                    out.write((status != null ? status : "1\nUnknown command ID")
+                            .getBytes(StandardCharsets.UTF_8));
+                    out.flush();
+                    break;
+                case "stop":
+                    this.close();
+                    break;
+                default:
+                    break;
+            }
+        } catch (final IOException ignored) {
+            //Client went away
+        }
+    }
+
+    private void run(@NotNull final Socket socket, @NotNull final InputStream in) throws IOException {
+        final Path workingDirectory = Paths.get(readString(in, '\n'));
+        final int argc;
+        try {
+            argc = Integer.parseInt(readString(in, '\n'));
+        } catch (final NumberFormatException e) {
+            throw new IOException("Malformed argument count", e);
+        }
+        if (argc < 0 || argc > MAX_ARGS) {
+            throw new IOException("Unsupported argument count: " + argc);
+        }
+        final String[] argv = new String[argc];
+        for (int i = 0; i < argc; i++) {
+            argv[i] = readString(in, '\0');
+        }
+        //Nothing more to read: commands may take as long as they need
+        socket.setSoTimeout(0);
+
+        final String id = Long.toString(this.commandIds.incrementAndGet());
+        final PrintStream out = new PrintStream(new BufferedOutputStream(socket.getOutputStream()), false, "UTF-8");
+        out.print(id + "\n");
+        String status;
+        try {
+            Now.run(argv, out, workingDirectory, this);
+            status = "0\n";
+        } catch (final Exception e) {
+            status = "1\n" + e + "\n";
+        }
+        //Recorded before the connection is closed, so that the client finds it right after
+        synchronized (this.statuses) {
+            this.statuses.put(id, status);
+        }
+        out.flush();
+    }
+
+    void close() {
+        this.clients.close();
+        try {
+            this.serverSocket.close();
+        } catch (final IOException ignored) {
+            //No worries
+        }
+        try {
+            Files.deleteIfExists(this.daemonFile);
+        } catch (final IOException ignored) {
+            //No worries
+        }
+    }
+
+    private static void closeQuietly(@NotNull final Socket socket) {
+        try {
+            socket.close();
+        } catch (final IOException ignored) {
+            //No worries
+        }
+    }
+
+    @NotNull
+    private static String readString(@NotNull final InputStream in, final char delimiter) throws IOException {
+        return new String(readUntil(in, delimiter), StandardCharsets.UTF_8);
+    }
+
+    @NotNull
+    private static byte[] readUntil(@NotNull final InputStream in, final char delimiter) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != delimiter) {
+            if (b == -1) {
+                throw new EOFException();
+            }
+            if (buffer.size() >= 64 * 1024) {
+                throw new IOException("Line too long");
+            }
+            buffer.write(b);
+        }
+        return buffer.toByteArray();
+    }
+}
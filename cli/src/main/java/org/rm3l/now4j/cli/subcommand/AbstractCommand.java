@@ -22,20 +22,72 @@
 package org.rm3l.now4j.cli.subcommand;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 import org.rm3l.now4j.contract.Now;
+import org.rm3l.now4j.json.Now4jTypeAdapters;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 
 public abstract class AbstractCommand {
 
-    protected final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    protected final Gson gson = Now4jTypeAdapters.GSON;
 
     @NotNull
     protected Now nowClient;
 
+    @NotNull
+    protected PrintStream out = System.out;
+
+    @NotNull
+    private Path workingDirectory = Paths.get("");
+
+    @NotNull
+    private OutputFormat format = OutputFormat.JSON;
+
+    private boolean pretty = true;
+
     public final void setNowClient(@NotNull final Now nowClient) {
         this.nowClient = nowClient;
     }
 
+    public final void setOut(@NotNull final PrintStream out) {
+        this.out = out;
+    }
+
+    /**
+     * Set the directory relative paths given as options are resolved against.
+     * Defaults to the working directory of this process.
+     */
+    public final void setWorkingDirectory(@NotNull final Path workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * @param pretty whether to indent JSON output, e.g. for a terminal. NDJSON and tables are never indented.
+     */
+    public final void setFormat(@NotNull final OutputFormat format, final boolean pretty) {
+        this.format = format;
+        this.pretty = pretty;
+    }
+
+    /**
+     * Print a response in the requested format
+     *
+     * @param response a single value, an {@link Iterable} or a {@link org.rm3l.now4j.calls.ListStream},
+     *                 closed once printed. Nothing is printed if null.
+     */
+    protected final void print(@Nullable final Object response) throws IOException {
+        new ResponsePrinter(this.gson, this.format, this.pretty).print(response, this.out);
+    }
+
+    @NotNull
+    protected final Path path(@NotNull final String path) {
+        return this.workingDirectory.resolve(path);
+    }
+
     public abstract void work() throws Exception;
 }
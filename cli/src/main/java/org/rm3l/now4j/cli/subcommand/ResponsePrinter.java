@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cli.subcommand;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.calls.ListStream;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes responses through a buffer, element by element for lists, so that neither the whole list
+ * nor its whole serialized form is held in memory.
+ */
+final class ResponsePrinter {
+
+    @NotNull
+    private final Gson gson;
+    /**
+     * Writes null fields as well, so that the columns of a table are those of the type of its elements,
+     * whatever the fields set in the first one
+     */
+    @NotNull
+    private final Gson columnsGson;
+    @NotNull
+    private final OutputFormat format;
+    private final boolean pretty;
+
+    ResponsePrinter(@NotNull final Gson gson, @NotNull final OutputFormat format, final boolean pretty) {
+        this.gson = gson;
+        this.columnsGson = format == OutputFormat.TABLE ? gson.newBuilder().serializeNulls().create() : gson;
+        this.format = format;
+        this.pretty = pretty;
+    }
+
+    /**
+     * @param response a single value, an {@link Iterable} or a {@link ListStream}, closed once written
+     */
+    void print(@Nullable final Object response, @NotNull final PrintStream out) throws IOException {
+        if (response == null) {
+            return;
+        }
+        final Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (response instanceof ListStream) {
+            try (final ListStream<?> listStream = (ListStream<?>) response) {
+                this.printElements(new Elements() {
+                    @Override
+                    public boolean hasNext() throws IOException {
+                        return listStream.hasNext();
+                    }
+
+                    @Override
+                    public Object next() throws IOException {
+                        return listStream.next();
+                    }
+                }, writer);
+            }
+        } else if (response instanceof Iterable) {
+            final Iterator<?> iterator = ((Iterable<?>) response).iterator();
+            this.printElements(new Elements() {
+                @Override
+                public boolean hasNext() {
+                    return iterator.hasNext();
+                }
+
+                @Override
+                public Object next() {
+                    return iterator.next();
+                }
+            }, writer);
+        } else {
+            this.printSingle(response, writer);
+        }
+        writer.flush();
+    }
+
+    private void printSingle(@NotNull final Object response, @NotNull final Writer writer) throws IOException {
+        switch (this.format) {
+            case TABLE:
+                if (response instanceof CharSequence) {
+                    writer.write(response.toString());
+                    writer.write('\n');
+                } else {
+                    final List<String> columns = this.columns(response);
+                    writeHeader(columns, writer);
+                    writeRow(this.gson.toJsonTree(response), columns, writer);
+                }
+                break;
+            case NDJSON:
+                this.gson.toJson(response, writer);
+                writer.write('\n');
+                break;
+            default:
+                final JsonWriter jsonWriter = this.newJsonWriter(writer);
+                this.gson.toJson(response, response.getClass(), jsonWriter);
+                jsonWriter.flush();
+                writer.write('\n');
+                break;
+        }
+    }
+
+    private void printElements(@NotNull final Elements elements, @NotNull final Writer writer) throws IOException {
+        switch (this.format) {
+            case TABLE:
+                List<String> columns = null;
+                while (elements.hasNext()) {
+                    final Object element = elements.next();
+                    if (columns == null && element != null) {
+                        columns = this.columns(element);
+                        writeHeader(columns, writer);
+                    }
+                    writeRow(this.gson.toJsonTree(element), columns != null ? columns : Collections.<String>emptyList(), writer);
+                }
+                break;
+            case NDJSON:
+                while (elements.hasNext()) {
+                    this.gson.toJson(elements.next(), writer);
+                    writer.write('\n');
+                }
+                break;
+            default:
+                final JsonWriter jsonWriter = this.newJsonWriter(writer);
+                jsonWriter.beginArray();
+                while (elements.hasNext()) {
+                    final Object element = elements.next();
+                    if (element == null) {
+                        jsonWriter.nullValue();
+                    } else {
+                        this.gson.toJson(element, element.getClass(), jsonWriter);
+                    }
+                }
+                jsonWriter.endArray();
+                jsonWriter.flush();
+                writer.write('\n');
+                break;
+        }
+    }
+
+    @NotNull
+    private JsonWriter newJsonWriter(@NotNull final Writer writer) {
+        final JsonWriter jsonWriter = new JsonWriter(writer);
+        if (this.pretty) {
+            jsonWriter.setIndent("  ");
+        }
+        return jsonWriter;
+    }
+
+    @NotNull
+    private List<String> columns(@NotNull final Object value) {
+        final JsonElement element = this.columnsGson.toJsonTree(value);
+        final List<String> columns = new ArrayList<>();
+        if (element.isJsonObject()) {
+            for (final Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet()) {
+                columns.add(entry.getKey());
+            }
+        }
+        return columns;
+    }
+
+    private static void writeHeader(@NotNull final List<String> columns, @NotNull final Writer writer)
+            throws IOException {
+        if (!columns.isEmpty()) {
+            writer.write(String.join("\t", columns));
+            writer.write('\n');
+        }
+    }
+
+    private static void writeRow(@NotNull final JsonElement element,
+                                 @NotNull final List<String> columns,
+                                 @NotNull final Writer writer) throws IOException {
+        if (!element.isJsonObject() || columns.isEmpty()) {
+            writer.write(cell(element));
+        } else {
+            final JsonObject object = element.getAsJsonObject();
+            for (int i = 0; i < columns.size(); i++) {
+                if (i > 0) {
+                    writer.write('\t');
+                }
+                writer.write(cell(object.get(columns.get(i))));
+            }
+        }
+        writer.write('\n');
+    }
+
+    @NotNull
+    private static String cell(@Nullable final JsonElement value) {
+        if (value == null || value.isJsonNull()) {
+            return "";
+        }
+        final String cell = value.isJsonPrimitive() ? value.getAsString() : value.toString();
+        //Keep one line per element, and columns aligned on tabs
+        return cell.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private interface Elements {
+
+        boolean hasNext() throws IOException;
+
+        Object next() throws IOException;
+    }
+}
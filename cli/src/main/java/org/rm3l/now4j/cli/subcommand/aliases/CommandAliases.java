@@ -74,8 +74,6 @@ public class CommandAliases extends AbstractCommand {
         } else {
             response = null;
         }
-        if (response != null) {
-            System.out.println(gson.toJson(response));
-        }
+        this.print(response);
     }
 }
@@ -86,8 +86,6 @@ public class CommandCertificates extends AbstractCommand {
         } else {
             response = null;
         }
-        if (response != null) {
-            System.out.println(gson.toJson(response));
-        }
+        this.print(response);
     }
 }
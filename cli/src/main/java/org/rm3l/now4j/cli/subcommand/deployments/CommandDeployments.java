@@ -23,13 +23,22 @@ package org.rm3l.now4j.cli.subcommand.deployments;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
 import org.rm3l.now4j.cli.subcommand.AbstractCommand;
+import org.rm3l.now4j.transfer.DeploymentDownloader;
+import org.rm3l.now4j.transfer.DeploymentRequestBody;
+import org.rm3l.now4j.transfer.DeploymentUploader;
+import org.rm3l.now4j.transfer.DownloadSummary;
 
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @Parameters(separators = "=", commandDescription = "Manage deployments")
 public class CommandDeployments extends AbstractCommand {
 
+    private static final MediaType JSON = MediaType.parse("application/json; charset=UTF-8");
+
     @Parameter(names = {"-list", "-ls"},
             description = "List deployments. Optional: --deploymentId")
     private boolean list = false;
@@ -38,7 +47,8 @@ public class CommandDeployments extends AbstractCommand {
     private String deploymentId;
 
     @Parameter(names = "-add",
-            description = "Perform a deployment. Required: --deploymentData")
+            description = "Perform a deployment. Required: --deploymentData or --directory. " +
+                    "Optional with --directory: --inline, --name, --deploymentType and --parallelism")
     private boolean add = false;
 
     @Parameter(names = {"-remove", "-rm", "-delete", "-del"},
@@ -50,34 +60,83 @@ public class CommandDeployments extends AbstractCommand {
     private boolean listFiles = false;
 
     @Parameter(names = {"-getFile", "-dl"},
-            description = "Get file content. Required: --deploymentId and --fileId")
+            description = "Get file content. Required: --deploymentId and --fileId. " +
+                    "Optional: --output and, with a local file, --parallelism")
     private boolean dlFile = false;
 
     @Parameter(names = "--fileId", description = "ID of file")
     private String fileId;
 
+    @Parameter(names = "--output",
+            description = "Local file to stream the file content to, or '-' to stream the raw content to stdout. " +
+                    "Downloads to a local file are resumed if interrupted")
+    private String output;
+
+    @Parameter(names = "-download",
+            description = "Download all files of a deployment. Required: --deploymentId and --target. " +
+                    "Optional: --parallelism")
+    private boolean download = false;
+
+    @Parameter(names = "--target", description = "Local directory to download files into")
+    private String target;
+
+    @Parameter(names = "--parallelism",
+            description = "Maximum number of files downloaded, hashed or uploaded at the same time, " +
+                    "or of ranges of a single file downloaded at the same time")
+    private int parallelism = DeploymentDownloader.DEFAULT_PARALLELISM;
+
     @Parameter(names = "--deploymentData",
             description = "JSON-serialized description of the deployment to add. " +
                     "The keys should represent a file path, with their respective " +
                     "values containing the file contents.")
     private String deploymentData;
 
+    @Parameter(names = "--directory",
+            description = "Local directory to deploy. Only files the server does not already have are uploaded.")
+    private String directory;
+
+    @Parameter(names = "--inline",
+            description = "Send the contents of all files under --directory inline, streamed from disk, " +
+                    "instead of uploading only the files the server does not already have")
+    private boolean inline = false;
+
+    @Parameter(names = "--name", description = "Name of the deployment. Defaults to the name of the directory")
+    private String name;
+
+    @Parameter(names = "--deploymentType", description = "Type of the deployment: NPM, DOCKER or STATIC")
+    private String deploymentType;
+
     @Override
     public void work() throws Exception {
         final Object response;
         if (this.list) {
             if (this.deploymentId == null || this.deploymentId.isEmpty()) {
-                response = this.nowClient.getDeployments();
+                response = this.nowClient.streamDeployments();
             } else {
                 response = this.nowClient.getDeployment(this.deploymentId);
             }
+        } else if (this.add && this.inline) {
+            if (this.directory == null || this.directory.isEmpty()) {
+                throw new IllegalArgumentException("Missing --directory option");
+            }
+            response = this.nowClient.createDeployment(
+                    DeploymentRequestBody.builder().directory(this.path(this.directory)).build());
+        } else if (this.add && this.directory != null && !this.directory.isEmpty()) {
+            final DeploymentUploader.Builder deployment = this.nowClient.newDeployment(this.path(this.directory))
+                    .parallelism(this.parallelism);
+            if (this.name != null && !this.name.isEmpty()) {
+                deployment.name(this.name);
+            }
+            if (this.deploymentType != null && !this.deploymentType.isEmpty()) {
+                deployment.deploymentType(this.deploymentType);
+            }
+            response = deployment.deploy();
         } else if (this.add) {
             if (this.deploymentData == null || this.deploymentData.isEmpty()) {
-                throw new IllegalArgumentException("Missing --deploymentData option");
+                throw new IllegalArgumentException("Missing --deploymentData or --directory option");
             }
-            @SuppressWarnings("unchecked") final Map<String, Object> data = gson
-                    .fromJson(this.deploymentData, Map.class);
-            response = this.nowClient.createDeployment(data);
+            //Already JSON: sent as is, rather than parsed then serialized again
+            response = this.nowClient.createDeployment(RequestBody.create(JSON, this.deploymentData));
         } else if (this.remove) {
             if (this.deploymentId == null || this.deploymentId.isEmpty()) {
                 throw new IllegalArgumentException("Missing --deploymentId option");
@@ -96,13 +155,42 @@ public class CommandDeployments extends AbstractCommand {
             if (this.fileId == null || this.fileId.isEmpty()) {
                 throw new IllegalArgumentException("Missing --fileId option");
             }
-            response = this.nowClient.getFileAsString(this.deploymentId, this.fileId);
+            if (this.output == null || this.output.isEmpty()) {
+                response = this.nowClient.getFileAsString(this.deploymentId, this.fileId);
+            } else if ("-".equals(this.output)) {
+                this.nowClient.downloadFile(this.deploymentId, this.fileId, this.out);
+                response = null;
+            } else {
+                final Map<String, Object> result = new LinkedHashMap<>();
+                result.put("output", this.output);
+                result.put("bytesDownloaded", this.nowClient.newRangedFileDownload(this.deploymentId, this.fileId)
+                        .parallelism(this.parallelism)
+                        .download(this.path(this.output)));
+                response = result;
+            }
+        } else if (this.download) {
+            if (this.deploymentId == null || this.deploymentId.isEmpty()) {
+                throw new IllegalArgumentException("Missing --deploymentId option");
+            }
+            if (this.target == null || this.target.isEmpty()) {
+                throw new IllegalArgumentException("Missing --target option");
+            }
+            final DownloadSummary summary = this.nowClient.downloadDeployment(this.deploymentId,
+                    this.path(this.target), this.parallelism);
+            final Map<String, String> failed = new LinkedHashMap<>();
+            for (final Map.Entry<String, Exception> failure : summary.getFailed().entrySet()) {
+                failed.put(failure.getKey(), String.valueOf(failure.getValue().getMessage()));
+            }
+            final Map<String, Object> result = new LinkedHashMap<>();
+            result.put("downloaded", summary.getDownloaded());
+            result.put("skipped", summary.getSkipped());
+            result.put("failed", failed);
+            result.put("bytesDownloaded", summary.getBytesDownloaded());
+            response = result;
         } else {
             response = null;
         }
-        if (response != null) {
-            System.out.println(gson.toJson(response));
-        }
+        this.print(response);
     }
 
 }
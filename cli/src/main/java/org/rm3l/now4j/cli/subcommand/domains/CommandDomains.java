@@ -23,9 +23,21 @@ package org.rm3l.now4j.cli.subcommand.domains;
 
 import com.beust.jcommander.Parameter;
 import com.beust.jcommander.Parameters;
+import com.google.gson.reflect.TypeToken;
 import org.rm3l.now4j.cli.subcommand.AbstractCommand;
+import org.rm3l.now4j.dns.DomainRecordBatch;
+import org.rm3l.now4j.dns.DomainRecordBatchResult;
+import org.rm3l.now4j.dns.ZoneSyncResult;
 import org.rm3l.now4j.resources.domains.DomainRecord;
 
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 @Parameters(separators = "=", commandDescription = "Manage domains")
 public class CommandDomains extends AbstractCommand {
 
@@ -65,6 +77,24 @@ public class CommandDomains extends AbstractCommand {
     @Parameter(names = "--recordId", description = "ID of Domain Record")
     private String recordId;
 
+    @Parameter(names = "-syncRecords",
+            description = "Sync domain records with the JSON array of records in --recordsFile, " +
+                    "creating and deleting only the records that differ. Required: --domainName and --recordsFile. " +
+                    "Optional: --dryRun, --keepExtraRecords and --parallelism")
+    private boolean syncRecords = false;
+
+    @Parameter(names = "--recordsFile", description = "Path to a JSON file with the array of desired domain records")
+    private String recordsFile;
+
+    @Parameter(names = "--dryRun", description = "Only print the changes, without applying them")
+    private boolean dryRun = false;
+
+    @Parameter(names = "--keepExtraRecords", description = "Do not delete live records missing from --recordsFile")
+    private boolean keepExtraRecords = false;
+
+    @Parameter(names = "--parallelism", description = "Max number of requests in flight")
+    private int parallelism = DomainRecordBatch.DEFAULT_PARALLELISM;
+
     @Override
     public void work() throws Exception {
         final Object response;
@@ -84,7 +114,7 @@ public class CommandDomains extends AbstractCommand {
             if (this.domainName == null || this.domainName.isEmpty()) {
                 throw new IllegalArgumentException("Missing --domainName option");
             }
-            response = this.nowClient.getDomainRecords(this.domainName);
+            response = this.nowClient.streamDomainRecords(this.domainName);
         } else if (this.addRecord) {
             if (this.domainName == null || this.domainName.isEmpty()) {
                 throw new IllegalArgumentException("Missing --domainName option");
@@ -104,12 +134,52 @@ public class CommandDomains extends AbstractCommand {
             }
             this.nowClient.deleteDomainRecord(this.domainName, this.recordId);
             response = true;
+        } else if (this.syncRecords) {
+            if (this.domainName == null || this.domainName.isEmpty()) {
+                throw new IllegalArgumentException("Missing --domainName option");
+            }
+            if (this.recordsFile == null || this.recordsFile.isEmpty()) {
+                throw new IllegalArgumentException("Missing --recordsFile option");
+            }
+            final List<DomainRecord> desired;
+            try (final Reader reader = Files.newBufferedReader(this.path(this.recordsFile), StandardCharsets.UTF_8)) {
+                desired = gson.fromJson(reader, new TypeToken<List<DomainRecord>>() {
+                }.getType());
+            }
+            //With pruning, an empty record set deletes every record: only do so if explicitly asked for, with []
+            if (desired == null) {
+                throw new IllegalArgumentException("No records in --recordsFile " + this.recordsFile +
+                        ": expected a JSON array of records, [] to remove them all");
+            }
+            if (desired.contains(null)) {
+                throw new IllegalArgumentException("Null record in --recordsFile " + this.recordsFile);
+            }
+            final ZoneSyncResult syncResult = this.nowClient.newZoneSync(this.domainName)
+                    .desired(desired)
+                    .prune(!this.keepExtraRecords)
+                    .dryRun(this.dryRun)
+                    .parallelism(this.parallelism)
+                    .sync();
+            final List<String> failed = new ArrayList<>();
+            for (final DomainRecordBatchResult batchResult :
+                    new DomainRecordBatchResult[]{syncResult.getCreations(), syncResult.getDeletions()}) {
+                if (batchResult != null) {
+                    for (final DomainRecordBatchResult.Outcome outcome : batchResult.getFailed()) {
+                        failed.add(outcome.toString());
+                    }
+                }
+            }
+            final Map<String, Object> result = new LinkedHashMap<>();
+            result.put("dryRun", syncResult.isDryRun());
+            result.put("toCreate", syncResult.getPlan().getToCreate());
+            result.put("toDelete", syncResult.getPlan().getToDelete());
+            result.put("unchanged", syncResult.getPlan().getUnchanged().size());
+            result.put("failed", failed);
+            response = result;
         } else {
             response = null;
         }
-        if (response != null) {
-            System.out.println(gson.toJson(response));
-        }
+        this.print(response);
     }
 
 }
@@ -87,8 +87,6 @@ public class CommandSecrets extends AbstractCommand {
         } else {
             response = null;
         }
-        if (response != null) {
-            System.out.println(gson.toJson(response));
-        }
+        this.print(response);
     }
 }
@@ -0,0 +1,70 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cli;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class BatchRunnerTest {
+
+    @Test
+    public void splitsOnWhitespace() {
+        assertArrayEquals(new String[]{"deployments", "--list"}, BatchRunner.split("deployments --list"));
+        assertArrayEquals(new String[]{"deployments", "--list"}, BatchRunner.split("  deployments \t --list  "));
+    }
+
+    @Test
+    public void splitsBlankLinesIntoNothing() {
+        assertArrayEquals(new String[0], BatchRunner.split(""));
+        assertArrayEquals(new String[0], BatchRunner.split(" \t "));
+    }
+
+    @Test
+    public void keepsQuotedWhitespace() {
+        assertArrayEquals(new String[]{"aliases", "--alias", "my app"}, BatchRunner.split("aliases --alias \"my app\""));
+        assertArrayEquals(new String[]{"secrets", "--value", "a  b"}, BatchRunner.split("secrets --value 'a  b'"));
+    }
+
+    @Test
+    public void keepsOtherQuotesWithinQuotes() {
+        assertArrayEquals(new String[]{"it's"}, BatchRunner.split("\"it's\""));
+        assertArrayEquals(new String[]{"say \"hi\""}, BatchRunner.split("'say \"hi\"'"));
+    }
+
+    @Test
+    public void joinsAdjacentQuotedAndUnquotedParts() {
+        assertArrayEquals(new String[]{"--name=my app"}, BatchRunner.split("--name=\"my app\""));
+        assertArrayEquals(new String[]{"ab"}, BatchRunner.split("a'b'"));
+    }
+
+    @Test
+    public void keepsEmptyQuotedArguments() {
+        assertArrayEquals(new String[]{"--value", ""}, BatchRunner.split("--value \"\""));
+        assertArrayEquals(new String[]{"", ""}, BatchRunner.split("'' \"\""));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnterminatedQuotes() {
+        BatchRunner.split("secrets --value \"oops");
+    }
+}
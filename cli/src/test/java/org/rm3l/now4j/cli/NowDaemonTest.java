@@ -0,0 +1,197 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cli;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+public class NowDaemonTest {
+
+    private static final int REQUEST_TIMEOUT_MILLIS = 500;
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path daemonFile;
+
+    private NowDaemon daemon;
+
+    private Thread acceptLoop;
+
+    private int port;
+
+    private String secret;
+
+    @Before
+    public void setUp() throws Exception {
+        this.daemonFile = this.folder.getRoot().toPath().resolve(".now4j").resolve("daemon");
+        this.daemon = new NowDaemon(this.daemonFile, REQUEST_TIMEOUT_MILLIS);
+        this.daemon.advertise();
+        this.acceptLoop = new Thread(() -> {
+            try {
+                this.daemon.acceptLoop();
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.acceptLoop.start();
+        final List<String> lines = Files.readAllLines(this.daemonFile, StandardCharsets.US_ASCII);
+        this.port = Integer.parseInt(lines.get(0));
+        this.secret = lines.get(1);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.daemon.close();
+        this.acceptLoop.join(5000L);
+    }
+
+    /**
+     * @return everything the daemon answered, until it closed the connection
+     */
+    private String send(final String request) throws IOException {
+        try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port)) {
+            socket.setSoTimeout(5000);
+            final OutputStream out = socket.getOutputStream();
+            out.write(request.getBytes(StandardCharsets.UTF_8));
+            out.flush();
+            return readAll(socket.getInputStream());
+        }
+    }
+
+    private static String readAll(final InputStream in) throws IOException {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        final byte[] bytes = new byte[8192];
+        int read;
+        while ((read = in.read(bytes)) != -1) {
+            buffer.write(bytes, 0, read);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void advertisesToTheCurrentUserOnly() throws Exception {
+        assumeTrue(Files.getFileStore(this.daemonFile).supportsFileAttributeView("posix"));
+        assertEquals("rw-------", PosixFilePermissions.toString(Files.getPosixFilePermissions(this.daemonFile)));
+        assertEquals(64, this.secret.length());
+    }
+
+    @Test
+    public void ignoresWrongSecrets() throws Exception {
+        assertEquals("", this.send("not-the-secret\nstatus\n1\n"));
+    }
+
+    @Test
+    public void closesSilentConnections() throws Exception {
+        final long start = System.nanoTime();
+        try (final Socket socket = new Socket(InetAddress.getLoopbackAddress(), this.port)) {
+            socket.setSoTimeout(5000);
+            assertEquals(-1, socket.getInputStream().read());
+        }
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(4L));
+    }
+
+    @Test
+    public void closesConnectionsSendingOverlongLines() throws Exception {
+        final String line = this.secret + "\n" + new String(new char[65 * 1024]).replace('\0', 'x') + "\n";
+        try {
+            assertEquals("", this.send(line));
+        } catch (final SocketException e) {
+            //Reset, as the daemon closed the connection without reading everything
+        }
+    }
+
+    @Test
+    public void answersUnknownStatuses() throws Exception {
+        assertEquals("1\nUnknown command ID", this.send(this.secret + "\nstatus\n42\n"));
+    }
+
+    @Test
+    public void runsCommandsThenReportsTheirStatus() throws Exception {
+        final String output = this.send(this.secret + "\nrun\n" + this.folder.getRoot() + "\n1\n--help\0");
+        final String id = output.substring(0, output.indexOf('\n'));
+        assertTrue(output, output.contains("Usage:"));
+
+        assertEquals("0\n", this.send(this.secret + "\nstatus\n" + id + "\n"));
+        //Statuses are only reported once
+        assertEquals("1\nUnknown command ID", this.send(this.secret + "\nstatus\n" + id + "\n"));
+    }
+
+    @Test
+    public void reportsCommandFailures() throws Exception {
+        final String output = this.send(this.secret + "\nrun\n" + this.folder.getRoot() + "\n1\n--no-such-option\0");
+        final String id = output.substring(0, output.indexOf('\n'));
+
+        assertTrue(this.send(this.secret + "\nstatus\n" + id + "\n").startsWith("1\n"));
+    }
+
+    @Test
+    public void stops() throws Exception {
+        this.send(this.secret + "\nstop\n");
+        this.acceptLoop.join(5000L);
+        assertFalse(this.acceptLoop.isAlive());
+        assertFalse(Files.exists(this.daemonFile));
+    }
+
+    @Test
+    public void roundTripsThroughTheScript() throws Exception {
+        Path script = Paths.get("src", "main", "sh", "now4j");
+        if (!Files.exists(script)) {
+            script = Paths.get("cli").resolve(script);
+        }
+        assumeTrue(Files.exists(script) && new File("/bin/bash").canExecute());
+        final File stdout = this.folder.newFile("stdout");
+        final ProcessBuilder processBuilder = new ProcessBuilder("/bin/bash", script.toString(), "--help")
+                .redirectOutput(stdout);
+        processBuilder.environment().put("HOME", this.folder.getRoot().toString());
+        processBuilder.environment().remove("NOW4J_CLI_JAR");
+        final Process process = processBuilder.start();
+        assertTrue(process.waitFor(10L, TimeUnit.SECONDS));
+
+        assertEquals(0, process.exitValue());
+        assertTrue(new String(Files.readAllBytes(stdout.toPath()), StandardCharsets.UTF_8).contains("Usage:"));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cli.subcommand;
+
+import org.junit.Test;
+import org.rm3l.now4j.json.Now4jTypeAdapters;
+import org.rm3l.now4j.resources.deployments.Deployment;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+
+public class ResponsePrinterTest {
+
+    private static String print(final OutputFormat format, final Object response) throws Exception {
+        final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        try (final PrintStream out = new PrintStream(buffer, true, "UTF-8")) {
+            new ResponsePrinter(Now4jTypeAdapters.GSON, format, false).print(response, out);
+        }
+        return new String(buffer.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static Deployment deployment(final String uid, final String host) {
+        final Deployment deployment = new Deployment();
+        deployment.setUid(uid);
+        deployment.setHost(host);
+        return deployment;
+    }
+
+    @Test
+    public void tableColumnsDoNotDependOnTheFieldsSetInTheFirstElement() throws Exception {
+        final String[] lines = print(OutputFormat.TABLE,
+                Arrays.asList(deployment("dpl_1", null), deployment("dpl_2", "app.now.sh"))).split("\n");
+        assertEquals(3, lines.length);
+        final String[] columns = lines[0].split("\t", -1);
+        final int uid = Arrays.asList(columns).indexOf("uid");
+        final int host = Arrays.asList(columns).indexOf("host");
+        assertEquals("dpl_1", lines[1].split("\t", -1)[uid]);
+        assertEquals("", lines[1].split("\t", -1)[host]);
+        assertEquals("dpl_2", lines[2].split("\t", -1)[uid]);
+        assertEquals("app.now.sh", lines[2].split("\t", -1)[host]);
+        assertEquals(columns.length, lines[2].split("\t", -1).length);
+    }
+
+    @Test
+    public void tableOfSingleValue() throws Exception {
+        final String[] lines = print(OutputFormat.TABLE, deployment("dpl_1", null)).split("\n");
+        assertEquals(2, lines.length);
+        assertEquals(lines[0].split("\t", -1).length, lines[1].split("\t", -1).length);
+    }
+
+    @Test
+    public void emptyTable() throws Exception {
+        assertEquals("", print(OutputFormat.TABLE, Collections.emptyList()));
+    }
+
+    @Test
+    public void jsonLeavesNullFieldsOut() throws Exception {
+        assertEquals("[{\"uid\":\"dpl_1\"}]\n", print(OutputFormat.JSON,
+                Collections.singletonList(deployment("dpl_1", null))));
+        assertEquals("{\"uid\":\"dpl_1\"}\n{\"uid\":\"dpl_2\",\"host\":\"app.now.sh\"}\n", print(OutputFormat.NDJSON,
+                Arrays.asList(deployment("dpl_1", null), deployment("dpl_2", "app.now.sh"))));
+    }
+}
@@ -0,0 +1,324 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.rm3l.now4j.api.NowService;
+import org.rm3l.now4j.calls.CallFuture;
+import org.rm3l.now4j.contract.NowAsync;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.aliases.Alias;
+import org.rm3l.now4j.resources.aliases.Aliases;
+import org.rm3l.now4j.resources.aliases.DeleteAliasResponse;
+import org.rm3l.now4j.resources.certs.Certificate;
+import org.rm3l.now4j.resources.certs.CertificateCreationOrUpdateRequest;
+import org.rm3l.now4j.resources.certs.CertificateCreationOrUpdateResponse;
+import org.rm3l.now4j.resources.certs.Certificates;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.deployments.DeploymentFileStructure;
+import org.rm3l.now4j.resources.deployments.GetDeploymentsResponse;
+import org.rm3l.now4j.resources.domains.*;
+import org.rm3l.now4j.resources.secrets.CreateOrUpdateSecretRequest;
+import org.rm3l.now4j.resources.secrets.GetSecretsResponse;
+import org.rm3l.now4j.resources.secrets.Secret;
+import retrofit2.Response;
+
+import java.io.InputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link NowAsync} implementation, sharing the {@link NowService} of a {@link NowClient}
+ */
+final class NowAsyncClient implements NowAsync {
+
+    @NotNull
+    private final NowService nowService;
+
+    NowAsyncClient(@NotNull final NowService nowService) {
+        this.nowService = nowService;
+    }
+
+    @NotNull
+    private static <T> T requireBody(@NotNull final Response<T> response) {
+        final T body = response.body();
+        if (body == null) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        return body;
+    }
+
+    private static Void discardBody(@NotNull final Response<ResponseBody> response) {
+        final ResponseBody body = response.body();
+        if (body != null) {
+            body.close();
+        }
+        return null;
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<List<Deployment>> getDeployments() {
+        return CallFuture.enqueue(this.nowService.getDeployments(), response -> {
+            final GetDeploymentsResponse body = response.body();
+            return body != null ? body.getDeployments() : Collections.<Deployment>emptyList();
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Deployment> getDeployment(@NotNull final String deploymentId) {
+        return CallFuture.enqueue(this.nowService.getDeployment(deploymentId), Response::body);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Deployment> createDeployment(@NotNull final Map<String, Object> body) {
+        return CallFuture.enqueue(this.nowService.createDeployment(body), Response::body);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Deployment> createDeployment(@NotNull final RequestBody body) {
+        return CallFuture.enqueue(this.nowService.createDeployment(body), Response::body);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Void> deleteDeployment(@NotNull final String deploymentId) {
+        return CallFuture.enqueue(this.nowService.deleteDeployment(deploymentId), NowAsyncClient::discardBody);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<List<DeploymentFileStructure>> getFiles(@NotNull final String deploymentId) {
+        return CallFuture.enqueue(this.nowService.getFiles(deploymentId), Response::body);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<String> getFileAsString(@NotNull final String deploymentId,
+                                                     @NotNull final String fileId) {
+        return CallFuture.enqueue(this.nowService.getFile(deploymentId, fileId), response -> {
+            final ResponseBody responseBody = response.body();
+            return responseBody != null ? responseBody.string() : null;
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<InputStream> getFileAsInputStream(@NotNull final String deploymentId,
+                                                               @NotNull final String fileId) {
+        return CallFuture.enqueue(this.nowService.getFile(deploymentId, fileId), response -> {
+            final ResponseBody responseBody = response.body();
+            return responseBody != null ? responseBody.byteStream() : null;
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<List<Domain>> getDomains() {
+        return CallFuture.enqueue(this.nowService.getDomains(), response -> {
+            final Domains body = response.body();
+            return body != null ? body.getDomains() : Collections.<Domain>emptyList();
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Domain> addDomain(@NotNull final String name, final boolean isExternalDNS) {
+        final Domain newDomain = new Domain();
+        newDomain.setName(name);
+        newDomain.setExternal(isExternalDNS);
+        return CallFuture.enqueue(this.nowService.createDomain(newDomain), NowAsyncClient::requireBody);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<String> deleteDomain(@NotNull final String name) {
+        return CallFuture.enqueue(this.nowService.deleteDomain(name), response -> {
+            final Domain body = response.body();
+            return body != null ? body.getUid() : null;
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<List<DomainRecord>> getDomainRecords(@NotNull final String name) {
+        return CallFuture.enqueue(this.nowService.getDomainRecords(name), response -> {
+            final DomainRecords body = response.body();
+            return body != null ? body.getRecords() : Collections.<DomainRecord>emptyList();
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<DomainRecord> addDomainRecord(@NotNull final String name,
+                                                           @NotNull final DomainRecord record) {
+        final DomainRecordCreationRequest domainRecordCreationRequest = new DomainRecordCreationRequest();
+        domainRecordCreationRequest.setData(record);
+        return CallFuture.enqueue(this.nowService.createDomainRecord(name, domainRecordCreationRequest),
+                NowAsyncClient::requireBody);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Void> deleteDomainRecord(@NotNull final String domainName,
+                                                      @NotNull final String recordId) {
+        return CallFuture.enqueue(this.nowService.deleteDomainRecord(domainName, recordId),
+                NowAsyncClient::discardBody);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<List<Certificate>> getCertificates() {
+        return CallFuture.enqueue(this.nowService.getCertificates(), response -> {
+            final Certificates certificates = response.body();
+            return certificates != null ? certificates.getCerts() : Collections.<Certificate>emptyList();
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<List<Certificate>> getCertificates(@NotNull final String commonName) {
+        return CallFuture.enqueue(this.nowService.getCertificates(commonName), response -> {
+            final Certificates certificates = response.body();
+            return certificates != null ? certificates.getCerts() : Collections.<Certificate>emptyList();
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<String> createCertificate(@NotNull final List<String> domains) {
+        final CertificateCreationOrUpdateRequest request = new CertificateCreationOrUpdateRequest();
+        request.setDomains(domains);
+        return CallFuture.enqueue(this.nowService.issueCertificate(request),
+                response -> requireBody(response).getUid());
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<String> renewCertificate(@NotNull final List<String> domains) {
+        final CertificateCreationOrUpdateRequest request = new CertificateCreationOrUpdateRequest();
+        request.setDomains(domains);
+        request.setRenew(true);
+        return CallFuture.enqueue(this.nowService.createOrReplaceCertificate(request),
+                response -> requireBody(response).getUid());
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<String> replaceCertificate(@NotNull final List<String> domains,
+                                                        @NotNull final String ca,
+                                                        @NotNull final String cert,
+                                                        @NotNull final String key) {
+        final CertificateCreationOrUpdateRequest request = new CertificateCreationOrUpdateRequest();
+        request.setDomains(domains);
+        request.setCa(ca);
+        request.setCert(cert);
+        request.setKey(key);
+        return CallFuture.enqueue(this.nowService.createOrReplaceCertificate(request),
+                response -> {
+                    final CertificateCreationOrUpdateResponse body = requireBody(response);
+                    return body.getCreated_at();
+                });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Void> deleteCertificate(@NotNull final String commonName) {
+        return CallFuture.enqueue(this.nowService.deleteCertificate(commonName), NowAsyncClient::discardBody);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<List<Alias>> getAliases() {
+        return CallFuture.enqueue(this.nowService.getAliases(), response -> {
+            final Aliases body = response.body();
+            return body != null ? body.getAliases() : Collections.<Alias>emptyList();
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<String> deleteAlias(@NotNull final String aliasId) {
+        return CallFuture.enqueue(this.nowService.deleteAlias(aliasId), response -> {
+            final DeleteAliasResponse body = requireBody(response);
+            return body.getStatus();
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<List<Alias>> getDeploymentAliases(@NotNull final String deploymentId) {
+        return CallFuture.enqueue(this.nowService.getDeploymentAliases(deploymentId), response -> {
+            final Aliases body = response.body();
+            return body != null ? body.getAliases() : Collections.<Alias>emptyList();
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Alias> createDeploymentAlias(@NotNull final String deploymentId,
+                                                          @NotNull final String alias) {
+        final Alias aliasToCreate = new Alias();
+        aliasToCreate.setAlias(alias);
+        return CallFuture.enqueue(this.nowService.createDeploymentAliases(deploymentId, aliasToCreate),
+                Response::body);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<List<Secret>> getSecrets() {
+        return CallFuture.enqueue(this.nowService.getSecrets(), response -> {
+            final GetSecretsResponse body = response.body();
+            return body != null ? body.getSecrets() : Collections.<Secret>emptyList();
+        });
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Secret> createSecret(@NotNull final String name, @NotNull final String value) {
+        final CreateOrUpdateSecretRequest request = new CreateOrUpdateSecretRequest();
+        request.setName(name);
+        request.setValue(value);
+        return CallFuture.enqueue(this.nowService.createSecret(request), Response::body);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Secret> renameSecret(@NotNull final String uidOrName, @NotNull final String newName) {
+        final CreateOrUpdateSecretRequest request = new CreateOrUpdateSecretRequest();
+        request.setName(newName);
+        return CallFuture.enqueue(this.nowService.editSecret(uidOrName, request), Response::body);
+    }
+
+    @NotNull
+    @Override
+    public CompletableFuture<Secret> deleteSecret(@NotNull final String uidOrName) {
+        return CallFuture.enqueue(this.nowService.deleteSecret(uidOrName), Response::body);
+    }
+}
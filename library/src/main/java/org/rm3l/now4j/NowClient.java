@@ -21,16 +21,33 @@
  */
 package org.rm3l.now4j;
 
-import com.google.gson.Gson;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
 import okhttp3.OkHttpClient;
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.rm3l.now4j.api.NowService;
+import org.rm3l.now4j.cache.CachingCallAdapterFactory;
+import org.rm3l.now4j.cache.ResponseCache;
+import org.rm3l.now4j.calls.ListStream;
+import org.rm3l.now4j.circuitbreaker.CircuitBreakers;
+import org.rm3l.now4j.circuitbreaker.CircuitBreakingCallAdapterFactory;
+import org.rm3l.now4j.concurrent.VirtualThreads;
+import org.rm3l.now4j.config.NowConfig;
 import org.rm3l.now4j.contract.ClientCallback;
 import org.rm3l.now4j.contract.Now;
+import org.rm3l.now4j.contract.NowAsync;
+import org.rm3l.now4j.dns.DomainRecordBatch;
+import org.rm3l.now4j.dns.ZoneSync;
 import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.index.NowResourceIndex;
 import org.rm3l.now4j.interceptors.Now4jInterceptors;
+import org.rm3l.now4j.json.Now4jTypeAdapters;
+import org.rm3l.now4j.metrics.NowMetrics;
+import org.rm3l.now4j.ratelimit.RateLimitingCallAdapterFactory;
+import org.rm3l.now4j.ratelimit.RateLimits;
 import org.rm3l.now4j.resources.aliases.Alias;
 import org.rm3l.now4j.resources.aliases.Aliases;
 import org.rm3l.now4j.resources.aliases.DeleteAliasResponse;
@@ -45,6 +62,13 @@ import org.rm3l.now4j.resources.domains.*;
 import org.rm3l.now4j.resources.secrets.CreateOrUpdateSecretRequest;
 import org.rm3l.now4j.resources.secrets.GetSecretsResponse;
 import org.rm3l.now4j.resources.secrets.Secret;
+import org.rm3l.now4j.retry.RetryPolicy;
+import org.rm3l.now4j.transfer.DeploymentDownloader;
+import org.rm3l.now4j.transfer.DeploymentUploader;
+import org.rm3l.now4j.transfer.DownloadSummary;
+import org.rm3l.now4j.transfer.FileTransfers;
+import org.rm3l.now4j.transfer.RangedFileDownloader;
+import org.rm3l.now4j.watch.DeploymentWatcher;
 import retrofit2.Call;
 import retrofit2.Callback;
 import retrofit2.Response;
@@ -52,103 +76,92 @@ import retrofit2.Retrofit;
 import retrofit2.converter.gson.GsonConverterFactory;
 
 import java.io.*;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
+import static java.net.HttpURLConnection.HTTP_PARTIAL;
 import static org.rm3l.now4j.interceptors.Now4jInterceptors.TeamInterceptor.NO_TEAM;
 
-public final class NowClient implements Now {
+public final class NowClient implements Now, Closeable {
 
-    private static final String NOW_TOKEN = "NOW_TOKEN";
-    private static final String NOW_TEAM = "NOW_TEAM";
-    private static final String TOKEN = "token";
-    private static final String TEAM = "team";
-    private static final String HOME_DIR = System.getProperty("user.home");
-    private static final String NOW_JSON = ".now.json";
     private static final String BASE_API_URL = "https://api.zeit.co/";
 
     @NotNull
     private final String token;
     @Nullable
     private final String team;
+    @NotNull
+    private final String baseUrl;
+    @NotNull
+    private final OkHttpClient transport;
+    @Nullable
+    private final ResponseCache responseCache;
+    @Nullable
+    private final NowMetrics metrics;
+    @Nullable
+    private final RetryPolicy retryPolicy;
+    @Nullable
+    private final RateLimits rateLimits;
+    @Nullable
+    private final CircuitBreakers circuitBreakers;
+    @NotNull
+    private final Now4jInterceptors.LifecycleInterceptor lifecycle = new Now4jInterceptors.LifecycleInterceptor();
     private NowService nowService;
 
-    private NowClient() {
-        //Read from ~/.now.json or NOW_TOKEN variable
-        Object tokenFound;
-        Object teamFound;
-        final File nowJsonFile = new File(HOME_DIR, NOW_JSON);
-        if (nowJsonFile.exists()) {
-            final Gson gson = new Gson();
-            final Map fromJson;
-            try {
-                fromJson = gson.fromJson(new FileReader(nowJsonFile), Map.class);
-            } catch (FileNotFoundException e) {
-                throw new IllegalStateException(e);
-            }
-            tokenFound = fromJson.get(TOKEN);
-            teamFound = fromJson.get(TEAM);
-        } else {
-            tokenFound = System.getProperty(NOW_TOKEN);
-            if (tokenFound == null || tokenFound.toString().trim().isEmpty()) {
-                tokenFound = System.getenv(NOW_TOKEN);
-            }
-            teamFound = System.getProperty(NOW_TEAM);
-            if (teamFound == null || teamFound.toString().trim().isEmpty()) {
-                teamFound = System.getenv(NOW_TEAM);
-            }
-        }
-        if (tokenFound != null && tokenFound.toString().trim().isEmpty()) {
-            tokenFound = null;
-        }
-        if (teamFound != null && teamFound.toString().trim().isEmpty()) {
-            teamFound = null;
-        }
-
-        if (tokenFound == null) {
-            throw new IllegalStateException("Token not found");
-        }
-        this.token = tokenFound.toString();
-        this.team = teamFound != null ? tokenFound.toString() : null;
-        this.buildNowService();
+    private NowClient(@NotNull final String token, @Nullable final String team) {
+        this(new Builder().token(token).team(team), SharedTransport.INSTANCE);
     }
 
-    private NowClient(@NotNull final String token, @Nullable final String team) {
-        if (token.trim().isEmpty()) {
+    private NowClient(@NotNull final Builder builder, @NotNull final OkHttpClient transport) {
+        if (builder.token == null || builder.token.trim().isEmpty()) {
             throw new IllegalArgumentException("Token cannot be NULL or blank");
         }
-        this.token = token;
-        this.team = team;
+        this.token = builder.token;
+        this.team = builder.team;
+        this.baseUrl = builder.baseUrl;
+        this.transport = transport;
+        this.responseCache = builder.responseCache;
+        this.metrics = builder.metrics;
+        this.retryPolicy = builder.retryPolicy;
+        this.rateLimits = builder.rateLimits;
+        this.circuitBreakers = builder.circuitBreakers;
         this.buildNowService();
     }
 
     private NowClient(@NotNull final OkHttpClient httpClient) {
         this.token = "";
         this.team = null;
-        this.buildNowService(httpClient);
+        this.baseUrl = BASE_API_URL;
+        this.transport = httpClient;
+        this.responseCache = null;
+        this.metrics = null;
+        this.retryPolicy = null;
+        this.rateLimits = null;
+        this.circuitBreakers = null;
+        this.buildNowService(httpClient.newBuilder().addInterceptor(this.lifecycle).build());
     }
 
+    /**
+     * @return a new client for the default credentials of {@link NowConfig#defaults()},
+     * i.e. read from <code>~/.now.json</code>, or from the <code>NOW_TOKEN</code> and <code>NOW_TEAM</code>
+     * system properties or environment variables
+     * @throws IllegalStateException if no token is configured
+     */
     public static NowClient create() {
-        return new NowClient();
+        final NowConfig.Credentials credentials = NowConfig.defaults().getCredentials();
+        return new NowClient(credentials.getToken(), credentials.getTeam());
     }
 
+    /**
+     * @return a new client for the given token, and the default team of {@link NowConfig#defaults()}, if any
+     */
     public static NowClient create(@NotNull final String token) {
-        //Read team from  /.now.json, if any
-        Object teamFound = null;
-        final File nowJsonFile = new File(HOME_DIR, NOW_JSON);
-        if (nowJsonFile.exists()) {
-            final Gson gson = new Gson();
-            final Map fromJson;
-            try {
-                fromJson = gson.fromJson(new FileReader(nowJsonFile), Map.class);
-                teamFound = fromJson.get(TEAM);
-            } catch (FileNotFoundException e) {
-                //No worries
-            }
-        }
-        return new NowClient(token,
-                teamFound != null ? teamFound.toString() : null);
+        return new NowClient(token, NowConfig.defaults().getTeam());
     }
 
     public static NowClient create(@NotNull final String token,
@@ -160,24 +173,112 @@ public final class NowClient implements Now {
         return new NowClient(httpClient);
     }
 
+    /**
+     * @return a new {@link Builder}, sharing the default transport unless
+     * told otherwise
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return a new {@link Builder} initialized from this client. Clients built from it
+     * share the same connection pool and dispatcher as this client.
+     */
+    public Builder newBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * @return the transport this client derives its HTTP client from, shared with other clients
+     */
+    @NotNull
+    OkHttpClient getTransport() {
+        return this.transport;
+    }
+
+    /**
+     * @return a {@link NowAsync} view of this client, based on {@link java.util.concurrent.CompletableFuture}
+     */
+    @NotNull
+    public NowAsync async() {
+        return new NowAsyncClient(this.nowService);
+    }
+
+    @Override
+    @NotNull
+    public DeploymentUploader.Builder newDeployment(@NotNull Path directory) {
+        return DeploymentUploader.builder(this.nowService, directory);
+    }
+
+    @Override
+    @NotNull
+    public DeploymentWatcher.Builder newDeploymentWatcher() {
+        return DeploymentWatcher.builder(this.nowService);
+    }
+
+    @Override
+    @NotNull
+    public NowResourceIndex.Builder newResourceIndex() {
+        return NowResourceIndex.builder(this.nowService);
+    }
+
+    /**
+     * Makes any subsequent call of this client fail. Calls in progress are left to complete.
+     * <p>
+     * The transport is left open, as it is shared with other clients.
+     */
+    @Override
+    public void close() {
+        this.lifecycle.close();
+    }
+
+    /**
+     * @return whether {@link #close()} was called
+     */
+    public boolean isClosed() {
+        return this.lifecycle.isClosed();
+    }
+
     private void buildNowService() {
-        final OkHttpClient httpClient = new OkHttpClient.Builder()
+        //Derive from the (shared) transport, so that the connection pool and dispatcher are reused
+        final OkHttpClient.Builder httpClientBuilder = this.transport.newBuilder()
+                .addInterceptor(this.lifecycle)
                 .addInterceptor(Now4jInterceptors.HEADERS_INTERCEPTOR)
                 .addInterceptor(new Now4jInterceptors.AuthenticationInterceptor(
                         this.token))
                 .addInterceptor(new Now4jInterceptors.TeamInterceptor(
-                        this.team != null ? this.team : NO_TEAM))
-                .build();
-        this.buildNowService(httpClient);
+                        this.team != null ? this.team : NO_TEAM));
+        if (this.responseCache != null) {
+            httpClientBuilder.addInterceptor(
+                    new Now4jInterceptors.ConditionalRequestInterceptor(this.responseCache));
+        }
+        if (this.retryPolicy != null) {
+            httpClientBuilder.addInterceptor(
+                    new Now4jInterceptors.RetryInterceptor(this.retryPolicy, this.metrics));
+        }
+        if (this.metrics != null) {
+            httpClientBuilder.addInterceptor(new Now4jInterceptors.MetricsInterceptor(this.metrics));
+        }
+        this.buildNowService(httpClientBuilder.build());
     }
 
     private void buildNowService(@NotNull final OkHttpClient httpClient) {
-        final Retrofit retrofit = new Retrofit.Builder()
-                .baseUrl(BASE_API_URL)
-                .addConverterFactory(GsonConverterFactory.create())
-                .client(httpClient)
-                .build();
-        this.nowService = retrofit.create(NowService.class);
+        final Retrofit.Builder retrofitBuilder = new Retrofit.Builder()
+                .baseUrl(this.baseUrl)
+                .addConverterFactory(GsonConverterFactory.create(Now4jTypeAdapters.GSON))
+                .client(httpClient);
+        //Open circuits reject calls before they consume any permit from the rate limits
+        if (this.circuitBreakers != null) {
+            retrofitBuilder.addCallAdapterFactory(CircuitBreakingCallAdapterFactory.create(this.circuitBreakers));
+        }
+        if (this.rateLimits != null) {
+            retrofitBuilder.addCallAdapterFactory(RateLimitingCallAdapterFactory.create(this.rateLimits));
+        }
+        if (this.responseCache != null) {
+            retrofitBuilder.addCallAdapterFactory(CachingCallAdapterFactory.create(this.responseCache));
+        }
+        this.nowService = retrofitBuilder.build().create(NowService.class);
     }
 
 
@@ -192,6 +293,12 @@ public final class NowClient implements Now {
         return body != null ? body.getDeployments() : Collections.<Deployment>emptyList();
     }
 
+    @Override
+    @NotNull
+    public ListStream<Deployment> streamDeployments() {
+        return new ListStream<>(this.nowService.streamDeployments(), "deployments", Deployment.class);
+    }
+
     @Override
     public void getDeployments(@NotNull final ClientCallback<List<Deployment>> callback) throws IOException {
         this.nowService.getDeployments()
@@ -273,6 +380,36 @@ public final class NowClient implements Now {
                 });
     }
 
+    @Override
+    public Deployment createDeployment(@NotNull RequestBody body) throws IOException {
+        final Response<Deployment> response =
+                this.nowService.createDeployment(body).execute();
+        if (!response.isSuccessful()) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        return response.body();
+    }
+
+    @Override
+    public void createDeployment(@NotNull RequestBody body, @NotNull final ClientCallback<Deployment> callback) throws IOException {
+        this.nowService.createDeployment(body)
+                .enqueue(new Callback<Deployment>() {
+                    @Override
+                    public void onResponse(Call<Deployment> call, Response<Deployment> response) {
+                        if (!response.isSuccessful()) {
+                            this.onFailure(call, new UnsuccessfulResponseException(response.code(), response.message()));
+                            return;
+                        }
+                        callback.onSuccess(response.body());
+                    }
+
+                    @Override
+                    public void onFailure(Call<Deployment> call, Throwable t) {
+                        callback.onFailure(t);
+                    }
+                });
+    }
+
     @Override
     public void deleteDeployment(@NotNull String deploymentId) throws IOException {
         final Response<ResponseBody> response =
@@ -405,6 +542,83 @@ public final class NowClient implements Now {
                 });
     }
 
+    @Override
+    public InputStream getFileRangeAsInputStream(@NotNull String deploymentId,
+                                                 @NotNull String fileId,
+                                                 long start,
+                                                 long end) throws IOException {
+        if (start < 0L) {
+            throw new IllegalArgumentException("start < 0: " + start);
+        }
+        final Response<ResponseBody> response = this.nowService.getFileRange(deploymentId, fileId,
+                "bytes=" + start + "-" + (end >= 0L ? end : "")).execute();
+        if (!response.isSuccessful()) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        final ResponseBody responseBody = response.body();
+        if (response.code() != HTTP_PARTIAL) {
+            if (responseBody != null) {
+                responseBody.close();
+            }
+            throw new IOException("Range not honoured for file " + fileId);
+        }
+        return responseBody != null ? responseBody.byteStream() : null;
+    }
+
+    @Override
+    public long downloadFile(@NotNull String deploymentId,
+                             @NotNull String fileId,
+                             @NotNull Path target) throws IOException {
+        return FileTransfers.writeTo(this.getFileBody(deploymentId, fileId), target);
+    }
+
+    @Override
+    public long downloadFile(@NotNull String deploymentId,
+                             @NotNull String fileId,
+                             @NotNull WritableByteChannel channel) throws IOException {
+        return FileTransfers.writeTo(this.getFileBody(deploymentId, fileId), channel);
+    }
+
+    @Override
+    public long downloadFile(@NotNull String deploymentId,
+                             @NotNull String fileId,
+                             @NotNull OutputStream outputStream) throws IOException {
+        return FileTransfers.writeTo(this.getFileBody(deploymentId, fileId), outputStream);
+    }
+
+    @NotNull
+    private ResponseBody getFileBody(@NotNull String deploymentId, @NotNull String fileId) throws IOException {
+        final Response<ResponseBody> response =
+                this.nowService.getFile(deploymentId, fileId).execute();
+        if (!response.isSuccessful()) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        final ResponseBody responseBody = response.body();
+        if (responseBody == null) {
+            throw new IOException("Empty body for file " + fileId);
+        }
+        return responseBody;
+    }
+
+    @Override
+    @NotNull
+    public RangedFileDownloader.Builder newRangedFileDownload(@NotNull String deploymentId, @NotNull String fileId) {
+        return RangedFileDownloader.builder(this.nowService, deploymentId, fileId);
+    }
+
+    @Override
+    public DownloadSummary downloadDeployment(@NotNull String deploymentId,
+                                              @NotNull Path target) throws IOException {
+        return this.downloadDeployment(deploymentId, target, DeploymentDownloader.DEFAULT_PARALLELISM);
+    }
+
+    @Override
+    public DownloadSummary downloadDeployment(@NotNull String deploymentId,
+                                              @NotNull Path target,
+                                              int parallelism) throws IOException {
+        return new DeploymentDownloader(this.nowService, parallelism).download(deploymentId, target);
+    }
+
     @Override
     public @NotNull List<Domain> getDomains() throws IOException {
         final Response<Domains> response = this.nowService.getDomains().execute();
@@ -514,6 +728,12 @@ public final class NowClient implements Now {
         return body != null ? body.getRecords() : Collections.<DomainRecord>emptyList();
     }
 
+    @Override
+    @NotNull
+    public ListStream<DomainRecord> streamDomainRecords(@NotNull String name) {
+        return new ListStream<>(this.nowService.streamDomainRecords(name), "records", DomainRecord.class);
+    }
+
     @Override
     public void getDomainRecords(@NotNull String name, @NotNull final ClientCallback<List<DomainRecord>> callback) throws IOException {
         this.nowService.getDomainRecords(name)
@@ -599,6 +819,49 @@ public final class NowClient implements Now {
                 });
     }
 
+    @Override
+    @NotNull
+    public DomainRecordBatch.Builder newDomainRecordBatch(@NotNull String domainName) {
+        return DomainRecordBatch.builder(this.nowService, domainName);
+    }
+
+    @Override
+    @NotNull
+    public ZoneSync.Builder newZoneSync(@NotNull String domainName) {
+        return ZoneSync.builder(this.nowService, domainName);
+    }
+
+    @Override
+    public List<Certificate> getCertificates() throws IOException {
+        final Response<Certificates> response = this.nowService.getCertificates().execute();
+        if (!response.isSuccessful()) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        final Certificates certificates = response.body();
+        return certificates != null ? certificates.getCerts() : Collections.<Certificate>emptyList();
+    }
+
+    @Override
+    public void getCertificates(@NotNull final ClientCallback<List<Certificate>> callback) throws IOException {
+        this.nowService.getCertificates()
+                .enqueue(new Callback<Certificates>() {
+                    @Override
+                    public void onResponse(Call<Certificates> call, Response<Certificates> response) {
+                        if (!response.isSuccessful()) {
+                            this.onFailure(call, new UnsuccessfulResponseException(response.code(), response.message()));
+                            return;
+                        }
+                        final Certificates certificates = response.body();
+                        callback.onSuccess(certificates != null ? certificates.getCerts() : Collections.<Certificate>emptyList());
+                    }
+
+                    @Override
+                    public void onFailure(Call<Certificates> call, Throwable t) {
+                        callback.onFailure(t);
+                    }
+                });
+    }
+
     @Override
     public List<Certificate> getCertificates(@NotNull String commonName) throws IOException {
         final Response<Certificates> response = this.nowService.getCertificates(commonName).execute();
@@ -1025,4 +1288,265 @@ public final class NowClient implements Now {
                     }
                 });
     }
+
+    /**
+     * Lazily-initialized transport shared by all clients not configured otherwise
+     */
+    private static final class SharedTransport {
+        static final OkHttpClient INSTANCE = new OkHttpClient();
+    }
+
+    /**
+     * Builder for {@link NowClient} instances.
+     * <p>
+     * By default, all clients share a single transport (connection pool, dispatcher threads
+     * and TLS sessions), whatever their token and team. Tuning the connection pool or the dispatcher
+     * creates a dedicated transport, which can in turn be shared by other clients via
+     * {@link NowClient#newBuilder()} or {@link #httpClient(OkHttpClient)}.
+     */
+    public static final class Builder {
+
+        @Nullable
+        private String token;
+        @Nullable
+        private String team;
+        @NotNull
+        private String baseUrl = BASE_API_URL;
+        @Nullable
+        private OkHttpClient httpClient;
+        @Nullable
+        private ResponseCache responseCache;
+        @Nullable
+        private NowMetrics metrics;
+        @Nullable
+        private RetryPolicy retryPolicy;
+        @Nullable
+        private RateLimits rateLimits;
+        @Nullable
+        private CircuitBreakers circuitBreakers;
+
+        @Nullable
+        private Integer maxIdleConnections;
+        @Nullable
+        private Long keepAliveDurationMillis;
+        @Nullable
+        private Integer maxRequests;
+        @Nullable
+        private Integer maxRequestsPerHost;
+        @Nullable
+        private ExecutorService dispatcherExecutor;
+
+        Builder() {
+        }
+
+        Builder(@NotNull final NowClient nowClient) {
+            this.token = nowClient.token.isEmpty() ? null : nowClient.token;
+            this.team = nowClient.team;
+            this.baseUrl = nowClient.baseUrl;
+            this.httpClient = nowClient.transport;
+            this.responseCache = nowClient.responseCache;
+            this.metrics = nowClient.metrics;
+            this.retryPolicy = nowClient.retryPolicy;
+            this.rateLimits = nowClient.rateLimits;
+            this.circuitBreakers = nowClient.circuitBreakers;
+        }
+
+        public Builder token(@NotNull final String token) {
+            this.token = token;
+            return this;
+        }
+
+        public Builder team(@Nullable final String team) {
+            this.team = team;
+            return this;
+        }
+
+        public Builder baseUrl(@NotNull final String baseUrl) {
+            this.baseUrl = baseUrl;
+            return this;
+        }
+
+        /**
+         * Transport to share. Its connection pool and dispatcher are reused as is,
+         * unless any of the tuning methods of this builder is called.
+         *
+         * @param httpClient the transport
+         * @return this builder
+         */
+        public Builder httpClient(@NotNull final OkHttpClient httpClient) {
+            this.httpClient = httpClient;
+            return this;
+        }
+
+        /**
+         * Caches GET responses, and revalidates them with conditional requests.
+         * <p>
+         * Cache keys are scoped by token and team, so a same cache may be shared by several clients.
+         *
+         * @param responseCache the cache, e.g., {@link org.rm3l.now4j.cache.LruResponseCache}
+         * @return this builder
+         */
+        public Builder responseCache(@Nullable final ResponseCache responseCache) {
+            this.responseCache = responseCache;
+            return this;
+        }
+
+        /**
+         * Records metrics about every request: latency, response code, bytes sent and received, per endpoint.
+         *
+         * @param metrics where to record metrics, e.g., {@link org.rm3l.now4j.metrics.InMemoryNowMetrics}
+         * @return this builder
+         */
+        public Builder metrics(@Nullable final NowMetrics metrics) {
+            this.metrics = metrics;
+            return this;
+        }
+
+        /**
+         * Retries requests failing with network errors or transient error responses,
+         * such as <code>429 Too Many Requests</code> or <code>503 Service Unavailable</code>.
+         *
+         * @param retryPolicy which requests to retry, and when, e.g., {@link RetryPolicy#create()}
+         * @return this builder
+         */
+        public Builder retryPolicy(@Nullable final RetryPolicy retryPolicy) {
+            this.retryPolicy = retryPolicy;
+            return this;
+        }
+
+        /**
+         * Holds requests back locally, rather than exceeding the request budget of their endpoint group.
+         * <p>
+         * Share a same instance between clients using the same account, so that they share the budget.
+         *
+         * @param rateLimits the budgets, per endpoint group
+         * @return this builder
+         */
+        public Builder rateLimits(@Nullable final RateLimits rateLimits) {
+            this.rateLimits = rateLimits;
+            return this;
+        }
+
+        /**
+         * Rejects calls right away, with a {@link org.rm3l.now4j.exceptions.CircuitBreakerOpenException},
+         * while their endpoint group keeps failing or responding slowly.
+         *
+         * @param circuitBreakers the circuit breakers, per endpoint group, e.g., {@link CircuitBreakers#create()}
+         * @return this builder
+         */
+        public Builder circuitBreakers(@Nullable final CircuitBreakers circuitBreakers) {
+            this.circuitBreakers = circuitBreakers;
+            return this;
+        }
+
+        /**
+         * Tunes the connection pool of the transport to create
+         *
+         * @param maxIdleConnections max number of idle connections to keep in the pool
+         * @param keepAliveDuration  how long idle connections are kept alive
+         * @param timeUnit           unit of {@code keepAliveDuration}
+         * @return this builder
+         */
+        public Builder connectionPool(final int maxIdleConnections,
+                                      final long keepAliveDuration,
+                                      @NotNull final TimeUnit timeUnit) {
+            if (maxIdleConnections < 0) {
+                throw new IllegalArgumentException("maxIdleConnections < 0: " + maxIdleConnections);
+            }
+            if (keepAliveDuration <= 0) {
+                throw new IllegalArgumentException("keepAliveDuration <= 0: " + keepAliveDuration);
+            }
+            this.maxIdleConnections = maxIdleConnections;
+            this.keepAliveDurationMillis = timeUnit.toMillis(keepAliveDuration);
+            return this;
+        }
+
+        /**
+         * @param maxRequests max number of requests to execute concurrently by the dispatcher
+         * @return this builder
+         */
+        public Builder maxRequests(final int maxRequests) {
+            if (maxRequests < 1) {
+                throw new IllegalArgumentException("maxRequests < 1: " + maxRequests);
+            }
+            this.maxRequests = maxRequests;
+            return this;
+        }
+
+        /**
+         * @param maxRequestsPerHost max number of requests to execute concurrently against the Now API
+         * @return this builder
+         */
+        public Builder maxRequestsPerHost(final int maxRequestsPerHost) {
+            if (maxRequestsPerHost < 1) {
+                throw new IllegalArgumentException("maxRequestsPerHost < 1: " + maxRequestsPerHost);
+            }
+            this.maxRequestsPerHost = maxRequestsPerHost;
+            return this;
+        }
+
+        /**
+         * Runs asynchronous calls on the given executor, rather than on the threads of the default dispatcher
+         *
+         * @param dispatcherExecutor the executor, e.g., {@link VirtualThreads#newExecutor()}
+         * @return this builder
+         */
+        public Builder dispatcherExecutor(@NotNull final ExecutorService dispatcherExecutor) {
+            this.dispatcherExecutor = dispatcherExecutor;
+            return this;
+        }
+
+        /**
+         * Runs asynchronous calls on virtual threads, on Java 21 and above.
+         * <p>
+         * Blocking methods may also be called from virtual threads. now4j holds no monitor around I/O,
+         * but OkHttp 3 does, e.g., in its connection pool and HTTP/2 streams: before Java 24, a virtual thread
+         * blocked there pins its carrier thread, which caps the number of such calls running at the same time
+         * to the number of carriers. Consider raising {@link #maxRequestsPerHost(int)}
+         * to run many more calls at the same time.
+         *
+         * @return this builder
+         * @throws UnsupportedOperationException if the running JVM does not support virtual threads
+         */
+        public Builder virtualThreads() {
+            return this.dispatcherExecutor(VirtualThreads.newExecutor());
+        }
+
+        public NowClient build() {
+            return new NowClient(this, this.buildTransport());
+        }
+
+        @NotNull
+        private OkHttpClient buildTransport() {
+            final OkHttpClient base = this.httpClient != null ? this.httpClient : SharedTransport.INSTANCE;
+            if (this.maxIdleConnections == null && this.keepAliveDurationMillis == null
+                    && this.maxRequests == null && this.maxRequestsPerHost == null && this.dispatcherExecutor == null) {
+                return base;
+            }
+            final OkHttpClient.Builder transportBuilder = base.newBuilder();
+            if (this.maxIdleConnections != null && this.keepAliveDurationMillis != null) {
+                transportBuilder.connectionPool(new ConnectionPool(
+                        this.maxIdleConnections, this.keepAliveDurationMillis, TimeUnit.MILLISECONDS));
+            }
+            if (this.maxRequests != null || this.maxRequestsPerHost != null || this.dispatcherExecutor != null) {
+                final Dispatcher dispatcher = this.dispatcherExecutor != null ?
+                        new Dispatcher(this.dispatcherExecutor) : new Dispatcher();
+                if (this.maxRequests != null) {
+                    dispatcher.setMaxRequests(this.maxRequests);
+                }
+                if (this.maxRequestsPerHost != null) {
+                    dispatcher.setMaxRequestsPerHost(this.maxRequestsPerHost);
+                }
+                transportBuilder.dispatcher(dispatcher);
+            }
+            //Subsequent builds, from this builder or via NowClient#newBuilder(), will share this new transport
+            this.httpClient = transportBuilder.build();
+            this.maxIdleConnections = null;
+            this.keepAliveDurationMillis = null;
+            this.maxRequests = null;
+            this.maxRequestsPerHost = null;
+            this.dispatcherExecutor = null;
+            return this.httpClient;
+        }
+    }
 }
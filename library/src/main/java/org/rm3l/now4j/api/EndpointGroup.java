@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.api;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Groups of {@link NowService} endpoints, by the resources they operate on
+ */
+public enum EndpointGroup {
+
+    DEPLOYMENTS("deployments", "files"),
+    DOMAINS("domains"),
+    CERTIFICATES("certs"),
+    ALIASES("aliases"),
+    SECRETS("secrets");
+
+    @NotNull
+    private final String[] pathSegments;
+
+    EndpointGroup(@NotNull final String... pathSegments) {
+        this.pathSegments = pathSegments;
+    }
+
+    /**
+     * @param relativeUrl relative URL of the endpoint, as declared in {@link NowService},
+     *                    e.g., <code>deployments/{deployment_id}/aliases</code>
+     * @return the group of the endpoint, i.e., the group of the last resource in its URL,
+     * or {@code null} if none matches
+     */
+    @Nullable
+    public static EndpointGroup of(@NotNull final String relativeUrl) {
+        final String[] segments = relativeUrl.split("/");
+        for (int i = segments.length - 1; i >= 0; i--) {
+            for (final EndpointGroup group : values()) {
+                for (final String pathSegment : group.pathSegments) {
+                    if (pathSegment.equals(segments[i])) {
+                        return group;
+                    }
+                }
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.api;
+
+import okhttp3.Request;
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import retrofit2.Invocation;
+import retrofit2.http.*;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Helpers to identify which {@link NowService} endpoint a request is for
+ */
+public final class Endpoints {
+
+    private Endpoints() {
+        throw new UnsupportedOperationException("Not instantiable");
+    }
+
+    /**
+     * @param request the request
+     * @return the name of the {@link NowService} method that created this request,
+     * or {@code null} if the request was not created by {@link NowService}
+     */
+    @Nullable
+    public static String nameOf(@NotNull final Request request) {
+        final Invocation invocation = request.tag(Invocation.class);
+        return invocation != null ? invocation.method().getName() : null;
+    }
+
+    /**
+     * @param request the request
+     * @return whether the request was created by a {@link NowService} method handing over the raw response body,
+     * e.g., to stream it, rather than a deserialized one
+     */
+    public static boolean hasRawBody(@NotNull final Request request) {
+        final Invocation invocation = request.tag(Invocation.class);
+        if (invocation == null) {
+            return false;
+        }
+        final Method method = invocation.method();
+        if (method.isAnnotationPresent(Streaming.class)) {
+            return true;
+        }
+        final Type returnType = method.getGenericReturnType();
+        return returnType instanceof ParameterizedType
+                && ((ParameterizedType) returnType).getActualTypeArguments()[0] == ResponseBody.class;
+    }
+
+    /**
+     * @param annotations annotations of a {@link NowService} method
+     * @return the relative URL of the endpoint, as declared in its HTTP method annotation,
+     * or {@code null} if none is found
+     */
+    @Nullable
+    public static String relativeUrlOf(@NotNull final Annotation[] annotations) {
+        for (final Annotation annotation : annotations) {
+            if (annotation instanceof GET) {
+                return ((GET) annotation).value();
+            }
+            if (annotation instanceof POST) {
+                return ((POST) annotation).value();
+            }
+            if (annotation instanceof PUT) {
+                return ((PUT) annotation).value();
+            }
+            if (annotation instanceof DELETE) {
+                return ((DELETE) annotation).value();
+            }
+            if (annotation instanceof PATCH) {
+                return ((PATCH) annotation).value();
+            }
+            if (annotation instanceof HEAD) {
+                return ((HEAD) annotation).value();
+            }
+        }
+        return null;
+    }
+}
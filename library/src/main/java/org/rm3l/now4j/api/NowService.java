@@ -21,6 +21,7 @@
  */
 package org.rm3l.now4j.api;
 
+import okhttp3.RequestBody;
 import okhttp3.ResponseBody;
 import org.rm3l.now4j.resources.aliases.Alias;
 import org.rm3l.now4j.resources.aliases.Aliases;
@@ -30,6 +31,7 @@ import org.rm3l.now4j.resources.certs.CertificateCreationOrUpdateResponse;
 import org.rm3l.now4j.resources.certs.Certificates;
 import org.rm3l.now4j.resources.deployments.Deployment;
 import org.rm3l.now4j.resources.deployments.DeploymentFileStructure;
+import org.rm3l.now4j.resources.deployments.DeploymentManifest;
 import org.rm3l.now4j.resources.deployments.GetDeploymentsResponse;
 import org.rm3l.now4j.resources.domains.*;
 import org.rm3l.now4j.resources.secrets.CreateOrUpdateSecretRequest;
@@ -49,6 +51,10 @@ public interface NowService {
     @GET("now/deployments")
     Call<GetDeploymentsResponse> getDeployments();
 
+    @Streaming
+    @GET("now/deployments")
+    Call<ResponseBody> streamDeployments();
+
     @GET("now/deployments/{deployment_id}")
     Call<Deployment> getDeployment(@Path("deployment_id") String deploymentId);
 
@@ -58,14 +64,38 @@ public interface NowService {
     @POST("now/deployments")
     Call<Deployment> createDeployment(@Body Map<String, Object> body);
 
+    @POST("now/deployments")
+    Call<Deployment> createDeployment(@Body RequestBody body);
+
+    @POST("v3/now/deployments")
+    Call<Deployment> createDeployment(@Body DeploymentManifest manifest);
+
+    @POST("v2/now/files")
+    Call<ResponseBody> uploadFile(@Header("x-now-digest") String sha,
+                                  @Header("x-now-size") long size,
+                                  @Body RequestBody body);
+
     @GET("now/deployments/{deployment_id}/files")
     Call<List<DeploymentFileStructure>> getFiles(@Path("deployment_id") String deploymentId);
 
+    @Streaming
     @GET("now/deployments/{deployment_id}/files/{file_id}")
     Call<ResponseBody> getFile(
             @Path("deployment_id") String deploymentId,
             @Path("file_id") String fileId);
 
+    @HEAD("now/deployments/{deployment_id}/files/{file_id}")
+    Call<Void> getFileHead(
+            @Path("deployment_id") String deploymentId,
+            @Path("file_id") String fileId);
+
+    @Streaming
+    @GET("now/deployments/{deployment_id}/files/{file_id}")
+    Call<ResponseBody> getFileRange(
+            @Path("deployment_id") String deploymentId,
+            @Path("file_id") String fileId,
+            @Header("Range") String range);
+
     @GET("domains")
     Call<Domains> getDomains();
 
@@ -78,6 +108,10 @@ public interface NowService {
     @GET("domains/{domain_name}/records")
     Call<DomainRecords> getDomainRecords(@Path("domain_name") String domainName);
 
+    @Streaming
+    @GET("domains/{domain_name}/records")
+    Call<ResponseBody> streamDomainRecords(@Path("domain_name") String domainName);
+
     @POST("domains/{domain_name}/records")
     Call<DomainRecord> createDomainRecord(@Path("domain_name") String domainName,
                                           @Body DomainRecordCreationRequest body);
@@ -86,6 +120,9 @@ public interface NowService {
     Call<ResponseBody> deleteDomainRecord(@Path("domain_name") String domainName,
                                           @Path("record_id") String recordId);
 
+    @GET("now/certs")
+    Call<Certificates> getCertificates();
+
     @GET("now/certs/{common_name}")
     Call<Certificates> getCertificates(@Path("common_name") String commonName);
 
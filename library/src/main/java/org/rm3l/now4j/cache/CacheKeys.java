@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cache;
+
+import okhttp3.Request;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Computes {@link ResponseCache} keys.
+ * <p>
+ * Keys are scoped by credentials, so that a same cache can safely be shared by clients
+ * for different tokens and teams.
+ */
+public final class CacheKeys {
+
+    private CacheKeys() {
+        throw new UnsupportedOperationException("Not instantiable");
+    }
+
+    /**
+     * @param request the request
+     * @return the key under which the response to this request is cached
+     */
+    @NotNull
+    public static String of(@NotNull final Request request) {
+        return prefixOf(request) + request.url();
+    }
+
+    /**
+     * @param request the request
+     * @return the prefix shared by keys of all requests made with the same credentials
+     */
+    @NotNull
+    public static String prefixOf(@NotNull final Request request) {
+        final String authorization = request.header("Authorization");
+        return (authorization != null ? authorization : "") + ' ';
+    }
+}
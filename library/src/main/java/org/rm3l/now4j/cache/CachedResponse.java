@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * An encoded response body, along with the validators needed to revalidate it.
+ * <p>
+ * Bodies are decoded anew for each cache hit, so that no two callers ever share the same objects.
+ */
+public final class CachedResponse {
+
+    @NotNull
+    private final String endpoint;
+    @Nullable
+    private final byte[] body;
+    @Nullable
+    private final String etag;
+    @Nullable
+    private final String lastModified;
+    private final long expiresAtMillis;
+
+    public CachedResponse(@NotNull final String endpoint,
+                          @Nullable final byte[] body,
+                          @Nullable final String etag,
+                          @Nullable final String lastModified,
+                          final long expiresAtMillis) {
+        this.endpoint = endpoint;
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.expiresAtMillis = expiresAtMillis;
+    }
+
+    @NotNull
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return the encoded body, which must not be modified
+     */
+    @Nullable
+    public byte[] getBody() {
+        return body;
+    }
+
+    @Nullable
+    public String getEtag() {
+        return etag;
+    }
+
+    @Nullable
+    public String getLastModified() {
+        return lastModified;
+    }
+
+    public long getExpiresAtMillis() {
+        return expiresAtMillis;
+    }
+
+    public boolean isFresh(final long nowMillis) {
+        return nowMillis < this.expiresAtMillis;
+    }
+
+    public boolean hasValidators() {
+        return this.etag != null || this.lastModified != null;
+    }
+
+    /**
+     * @param expiresAtMillis the new expiration time
+     * @return a copy of this entry, expiring at the time specified
+     */
+    @NotNull
+    public CachedResponse withExpiresAtMillis(final long expiresAtMillis) {
+        return new CachedResponse(this.endpoint, this.body, this.etag, this.lastModified, expiresAtMillis);
+    }
+
+    @Override
+    public String toString() {
+        return "CachedResponse{" +
+                "endpoint='" + endpoint + '\'' +
+                ", etag='" + etag + '\'' +
+                ", lastModified='" + lastModified + '\'' +
+                ", expiresAtMillis=" + expiresAtMillis +
+                '}';
+    }
+}
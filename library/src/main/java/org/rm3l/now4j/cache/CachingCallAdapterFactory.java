@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cache;
+
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.Endpoints;
+import org.rm3l.now4j.calls.ForwardingCall;
+import retrofit2.*;
+import retrofit2.http.GET;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+
+/**
+ * Retrofit {@link CallAdapter.Factory} storing GET responses into a {@link ResponseCache},
+ * and serving them back when the server answers that they were not modified.
+ * <p>
+ * Responses are stored encoded with the converters of the {@link Retrofit} instance, and decoded for each cache hit:
+ * callers therefore get their own copies, which they are free to modify.
+ * <p>
+ * Works hand in hand with {@link org.rm3l.now4j.interceptors.Now4jInterceptors.ConditionalRequestInterceptor},
+ * which issues the conditional requests, and tags the responses to serve from the cache.
+ */
+public final class CachingCallAdapterFactory extends CallAdapter.Factory {
+
+    @NotNull
+    private final ResponseCache cache;
+
+    private CachingCallAdapterFactory(@NotNull final ResponseCache cache) {
+        this.cache = cache;
+    }
+
+    public static CachingCallAdapterFactory create(@NotNull final ResponseCache cache) {
+        return new CachingCallAdapterFactory(cache);
+    }
+
+    @Nullable
+    @Override
+    public CallAdapter<?, ?> get(@NotNull final Type returnType,
+                                 @NotNull final Annotation[] annotations,
+                                 @NotNull final Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class || !(returnType instanceof ParameterizedType)) {
+            return null;
+        }
+        boolean isGet = false;
+        for (final Annotation annotation : annotations) {
+            if (annotation instanceof GET) {
+                isGet = true;
+                break;
+            }
+        }
+        //Raw bodies are streamed, and as such cannot be cached
+        if (!isGet ||
+                getRawType(getParameterUpperBound(0, (ParameterizedType) returnType)) == ResponseBody.class) {
+            return null;
+        }
+        @SuppressWarnings("unchecked") final CallAdapter<Object, Call<Object>> delegate =
+                (CallAdapter<Object, Call<Object>>) retrofit.nextCallAdapter(this, returnType, annotations);
+        final Converter<Object, RequestBody> encoder =
+                retrofit.requestBodyConverter(delegate.responseType(), new Annotation[0], annotations);
+        final Converter<ResponseBody, Object> decoder =
+                retrofit.responseBodyConverter(delegate.responseType(), annotations);
+        return new CallAdapter<Object, Call<Object>>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Call<Object> adapt(@NotNull final Call<Object> call) {
+                return new CachingCall<>(delegate.adapt(call), CachingCallAdapterFactory.this.cache,
+                        encoder, decoder);
+            }
+        };
+    }
+
+    static final class CachingCall<T> extends ForwardingCall<T> {
+
+        @NotNull
+        private final ResponseCache cache;
+        @NotNull
+        private final Converter<T, RequestBody> encoder;
+        @NotNull
+        private final Converter<ResponseBody, T> decoder;
+
+        CachingCall(@NotNull final Call<T> delegate,
+                    @NotNull final ResponseCache cache,
+                    @NotNull final Converter<T, RequestBody> encoder,
+                    @NotNull final Converter<ResponseBody, T> decoder) {
+            super(delegate);
+            this.cache = cache;
+            this.encoder = encoder;
+            this.decoder = decoder;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            return this.process(this.delegate.execute());
+        }
+
+        @Override
+        public void enqueue(final Callback<T> callback) {
+            this.delegate.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(Call<T> call, Response<T> response) {
+                    final Response<T> processedResponse;
+                    try {
+                        processedResponse = CachingCall.this.process(response);
+                    } catch (final IOException e) {
+                        callback.onFailure(CachingCall.this, e);
+                        return;
+                    }
+                    callback.onResponse(CachingCall.this, processedResponse);
+                }
+
+                @Override
+                public void onFailure(Call<T> call, Throwable t) {
+                    callback.onFailure(CachingCall.this, t);
+                }
+            });
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new CachingCall<>(this.delegate.clone(), this.cache, this.encoder, this.decoder);
+        }
+
+        @NotNull
+        private Response<T> process(@NotNull final Response<T> response) throws IOException {
+            final okhttp3.Response rawResponse = response.raw();
+            final CachedResponse cachedResponse = rawResponse.request().tag(CachedResponse.class);
+            if (cachedResponse != null) {
+                //Served from the cache
+                final byte[] cachedBody = cachedResponse.getBody();
+                return Response.success(
+                        cachedBody != null ? this.decoder.convert(ResponseBody.create(null, cachedBody)) : null,
+                        rawResponse);
+            }
+            final String endpoint;
+            if (!response.isSuccessful() || (endpoint = Endpoints.nameOf(rawResponse.request())) == null) {
+                return response;
+            }
+            final long timeToLiveMillis = this.cache.getTimeToLiveMillis(endpoint);
+            final String etag = rawResponse.header("ETag");
+            final String lastModified = rawResponse.header("Last-Modified");
+            if (etag == null && lastModified == null && timeToLiveMillis <= 0L) {
+                //Nothing to revalidate against
+                return response;
+            }
+            this.cache.put(CacheKeys.of(rawResponse.request()),
+                    new CachedResponse(endpoint, this.encode(response.body()), etag, lastModified,
+                            System.currentTimeMillis() + timeToLiveMillis));
+            return response;
+        }
+
+        @Nullable
+        private byte[] encode(@Nullable final T body) throws IOException {
+            if (body == null) {
+                return null;
+            }
+            final Buffer buffer = new Buffer();
+            this.encoder.convert(body).writeTo(buffer);
+            return buffer.readByteArray();
+        }
+    }
+}
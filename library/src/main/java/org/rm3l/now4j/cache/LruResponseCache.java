@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory {@link ResponseCache}, bounded in number of entries and evicting the least recently used ones.
+ * <p>
+ * Each endpoint can be given its own time-to-live. By default, entries are revalidated on every request.
+ */
+public final class LruResponseCache implements ResponseCache {
+
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private final int maxEntries;
+    private final long defaultTimeToLiveMillis;
+    @NotNull
+    private final Map<String, Long> timeToLiveMillisByEndpoint;
+    @NotNull
+    private final LinkedHashMap<String, CachedResponse> entries;
+
+    private LruResponseCache(@NotNull final Builder builder) {
+        this.maxEntries = builder.maxEntries;
+        this.defaultTimeToLiveMillis = builder.defaultTimeToLiveMillis;
+        this.timeToLiveMillisByEndpoint = new HashMap<>(builder.timeToLiveMillisByEndpoint);
+        this.entries = new LinkedHashMap<String, CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(final Map.Entry<String, CachedResponse> eldest) {
+                return this.size() > LruResponseCache.this.maxEntries;
+            }
+        };
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nullable
+    @Override
+    public CachedResponse get(@NotNull final String key) {
+        synchronized (this.entries) {
+            return this.entries.get(key);
+        }
+    }
+
+    @Override
+    public void put(@NotNull final String key, @NotNull final CachedResponse response) {
+        synchronized (this.entries) {
+            this.entries.put(key, response);
+        }
+    }
+
+    @Override
+    public void invalidate(@NotNull final String keyPrefix) {
+        synchronized (this.entries) {
+            final Iterator<String> keys = this.entries.keySet().iterator();
+            while (keys.hasNext()) {
+                if (keys.next().startsWith(keyPrefix)) {
+                    keys.remove();
+                }
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        synchronized (this.entries) {
+            this.entries.clear();
+        }
+    }
+
+    @Override
+    public long getTimeToLiveMillis(@NotNull final String endpoint) {
+        final Long timeToLiveMillis = this.timeToLiveMillisByEndpoint.get(endpoint);
+        return timeToLiveMillis != null ? timeToLiveMillis : this.defaultTimeToLiveMillis;
+    }
+
+    public int size() {
+        synchronized (this.entries) {
+            return this.entries.size();
+        }
+    }
+
+    public static final class Builder {
+
+        private int maxEntries = DEFAULT_MAX_ENTRIES;
+        private long defaultTimeToLiveMillis = 0L;
+        @NotNull
+        private final Map<String, Long> timeToLiveMillisByEndpoint = new HashMap<>();
+
+        private Builder() {
+        }
+
+        public Builder maxEntries(final int maxEntries) {
+            if (maxEntries < 1) {
+                throw new IllegalArgumentException("maxEntries < 1: " + maxEntries);
+            }
+            this.maxEntries = maxEntries;
+            return this;
+        }
+
+        /**
+         * @param timeToLive for how long entries can be served without revalidation, unless
+         *                   overridden for their endpoint
+         * @param timeUnit   unit of {@code timeToLive}
+         * @return this builder
+         */
+        public Builder defaultTimeToLive(final long timeToLive, @NotNull final TimeUnit timeUnit) {
+            if (timeToLive < 0) {
+                throw new IllegalArgumentException("timeToLive < 0: " + timeToLive);
+            }
+            this.defaultTimeToLiveMillis = timeUnit.toMillis(timeToLive);
+            return this;
+        }
+
+        /**
+         * @param endpoint   name of the {@link org.rm3l.now4j.api.NowService} method, e.g., <code>getDeployments</code>
+         * @param timeToLive for how long entries for this endpoint can be served without revalidation
+         * @param timeUnit   unit of {@code timeToLive}
+         * @return this builder
+         */
+        public Builder timeToLive(@NotNull final String endpoint,
+                                  final long timeToLive,
+                                  @NotNull final TimeUnit timeUnit) {
+            if (timeToLive < 0) {
+                throw new IllegalArgumentException("timeToLive < 0: " + timeToLive);
+            }
+            this.timeToLiveMillisByEndpoint.put(endpoint, timeUnit.toMillis(timeToLive));
+            return this;
+        }
+
+        public LruResponseCache build() {
+            return new LruResponseCache(this);
+        }
+    }
+}
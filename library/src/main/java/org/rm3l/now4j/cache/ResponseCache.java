@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.cache;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Contract for caches of deserialized responses to GET requests.
+ * <p>
+ * Entries are revalidated against the server with conditional requests
+ * (<code>If-None-Match</code> / <code>If-Modified-Since</code>) once their time-to-live has elapsed.
+ * A <code>304 Not Modified</code> answer is then served from the cache, without parsing anything.
+ * <p>
+ * Implementations must be thread-safe.
+ *
+ * @see LruResponseCache
+ */
+public interface ResponseCache {
+
+    /**
+     * @param key the cache key, as computed by {@link CacheKeys#of(okhttp3.Request)}
+     * @return the entry cached for this key, or {@code null} if none
+     */
+    @Nullable
+    CachedResponse get(@NotNull String key);
+
+    /**
+     * Caches an entry, replacing the previous one for the same key, if any
+     *
+     * @param key      the cache key
+     * @param response the entry to cache
+     */
+    void put(@NotNull String key, @NotNull CachedResponse response);
+
+    /**
+     * Removes all entries whose key starts with the prefix specified
+     *
+     * @param keyPrefix the key prefix, as computed by {@link CacheKeys#prefixOf(okhttp3.Request)}
+     */
+    void invalidate(@NotNull String keyPrefix);
+
+    /**
+     * Removes all entries
+     */
+    void clear();
+
+    /**
+     * @param endpoint the endpoint name, i.e., the name of the {@link org.rm3l.now4j.api.NowService} method
+     * @return for how long, in milliseconds, entries for this endpoint can be served without revalidation
+     */
+    long getTimeToLiveMillis(@NotNull String endpoint);
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.calls;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * {@link CompletableFuture} of the result of a Retrofit {@link Call}.
+ * <p>
+ * The call is enqueued, and the future is completed from the HTTP client threads.
+ * Cancelling the future cancels the call.
+ *
+ * @param <T> the result type
+ */
+public final class CallFuture<T> extends CompletableFuture<T> {
+
+    @NotNull
+    private final Call<?> call;
+
+    private CallFuture(@NotNull final Call<?> call) {
+        this.call = call;
+    }
+
+    /**
+     * Enqueues a call
+     *
+     * @param call    the call to enqueue
+     * @param handler converts successful responses into results
+     * @param <R>     the response type
+     * @param <T>     the result type
+     * @return the future of the result. It is failed with an {@link UnsuccessfulResponseException}
+     * if the response is not successful.
+     */
+    @NotNull
+    public static <R, T> CallFuture<T> enqueue(@NotNull final Call<R> call,
+                                               @NotNull final ResponseHandler<R, T> handler) {
+        final CallFuture<T> future = new CallFuture<>(call);
+        call.enqueue(new Callback<R>() {
+            @Override
+            public void onResponse(Call<R> c, Response<R> response) {
+                if (!response.isSuccessful()) {
+                    future.completeExceptionally(
+                            new UnsuccessfulResponseException(response.code(), response.message()));
+                    return;
+                }
+                try {
+                    future.complete(handler.handle(response));
+                } catch (final Exception e) {
+                    future.completeExceptionally(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Call<R> c, Throwable t) {
+                future.completeExceptionally(t);
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public boolean cancel(final boolean mayInterruptIfRunning) {
+        final boolean cancelled = super.cancel(mayInterruptIfRunning);
+        if (cancelled) {
+            this.call.cancel();
+        }
+        return cancelled;
+    }
+
+    /**
+     * Converts a successful response into a result
+     *
+     * @param <R> the response type
+     * @param <T> the result type
+     */
+    public interface ResponseHandler<R, T> {
+
+        /**
+         * @param response the successful response
+         * @return the result
+         * @throws IOException if the response could not be read
+         * @throws UnsuccessfulResponseException if the response is not usable
+         */
+        @Nullable
+        T handle(@NotNull Response<R> response) throws IOException;
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.calls;
+
+import okhttp3.Request;
+import okio.Timeout;
+import org.jetbrains.annotations.NotNull;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.io.IOException;
+
+/**
+ * {@link Call} forwarding all its methods to another call.
+ * <p>
+ * Subclasses override the methods they want to decorate.
+ *
+ * @param <T> the response type
+ */
+public abstract class ForwardingCall<T> implements Call<T> {
+
+    @NotNull
+    protected final Call<T> delegate;
+
+    protected ForwardingCall(@NotNull final Call<T> delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Response<T> execute() throws IOException {
+        return this.delegate.execute();
+    }
+
+    @Override
+    public void enqueue(final Callback<T> callback) {
+        this.delegate.enqueue(callback);
+    }
+
+    @Override
+    public boolean isExecuted() {
+        return this.delegate.isExecuted();
+    }
+
+    @Override
+    public void cancel() {
+        this.delegate.cancel();
+    }
+
+    @Override
+    public boolean isCanceled() {
+        return this.delegate.isCanceled();
+    }
+
+    @Override
+    public abstract Call<T> clone();
+
+    @Override
+    public Request request() {
+        return this.delegate.request();
+    }
+
+    @Override
+    public Timeout timeout() {
+        return this.delegate.timeout();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.calls;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.json.Now4jTypeAdapters;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.NoSuchElementException;
+
+/**
+ * Elements of a JSON array from a streamed response, each decoded as soon as it is read,
+ * rather than after the whole list is built.
+ * <p>
+ * The call is executed upon the first call to {@link #hasNext()}. Instances are not thread-safe,
+ * except for {@link #cancel()}, which may be called from any thread to cancel the underlying call.
+ *
+ * @param <T> the element type
+ */
+public final class ListStream<T> implements Closeable {
+
+    @NotNull
+    private final Call<ResponseBody> call;
+    @NotNull
+    private final String property;
+    @NotNull
+    private final TypeAdapter<T> typeAdapter;
+
+    @Nullable
+    private JsonReader reader;
+    private boolean exhausted;
+
+    /**
+     * @param call     the call, whose response is an object holding the array
+     * @param property name of the array property in the response object
+     * @param type     the element type
+     */
+    public ListStream(@NotNull final Call<ResponseBody> call,
+                      @NotNull final String property,
+                      @NotNull final Class<T> type) {
+        this.call = call;
+        this.property = property;
+        this.typeAdapter = Now4jTypeAdapters.GSON.getAdapter(type);
+    }
+
+    /**
+     * @return whether there is another element. Reading the first one executes the call.
+     * @throws IOException                   if a problem occurred talking to the server, or decoding its response.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    public boolean hasNext() throws IOException {
+        if (this.exhausted) {
+            return false;
+        }
+        final JsonReader jsonReader = this.reader != null ? this.reader : this.open();
+        if (jsonReader == null || !jsonReader.hasNext()) {
+            this.exhausted = true;
+            this.close();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the next element, decoded
+     * @throws IOException            if a problem occurred talking to the server, or decoding its response.
+     * @throws NoSuchElementException if there is no other element
+     */
+    public T next() throws IOException {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException();
+        }
+        try {
+            //noinspection ConstantConditions
+            return this.typeAdapter.read(this.reader);
+        } catch (final JsonParseException | IllegalStateException e) {
+            throw new IOException("Malformed element in '" + this.property + "'", e);
+        }
+    }
+
+    /**
+     * Cancels the call, so that any thread blocked reading the response fails right away
+     */
+    public void cancel() {
+        this.call.cancel();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.exhausted = true;
+        if (this.reader != null) {
+            this.reader.close();
+        } else {
+            this.call.cancel();
+        }
+    }
+
+    /**
+     * @return a reader positioned at the first element of the array, or {@code null} if there is no array
+     */
+    @Nullable
+    private JsonReader open() throws IOException {
+        final Response<ResponseBody> response = this.call.execute();
+        if (!response.isSuccessful()) {
+            final ResponseBody errorBody = response.errorBody();
+            if (errorBody != null) {
+                errorBody.close();
+            }
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        final ResponseBody body = response.body();
+        if (body == null) {
+            return null;
+        }
+        final JsonReader jsonReader = new JsonReader(body.charStream());
+        this.reader = jsonReader;
+        try {
+            jsonReader.beginObject();
+            while (jsonReader.hasNext()) {
+                if (this.property.equals(jsonReader.nextName()) && jsonReader.peek() == JsonToken.BEGIN_ARRAY) {
+                    jsonReader.beginArray();
+                    return jsonReader;
+                }
+                jsonReader.skipValue();
+            }
+            return null;
+        } catch (final IllegalStateException e) {
+            throw new IOException("Malformed response: expected an object with '" + this.property + "'", e);
+        }
+    }
+}
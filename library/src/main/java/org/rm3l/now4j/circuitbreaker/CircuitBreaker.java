@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.circuitbreaker;
+
+import org.jetbrains.annotations.NotNull;
+import org.rm3l.now4j.api.EndpointGroup;
+
+/**
+ * Circuit breaker for a group of endpoints.
+ * <p>
+ * While {@link State#CLOSED}, the outcomes of the last calls are recorded in a sliding window. Once the rate of
+ * failures or of slow calls in this window reaches its threshold, the circuit opens: calls are then rejected
+ * without reaching the server. After a while, the circuit turns half-open, and lets a few trial calls through.
+ * Depending on their outcomes, the circuit closes again, or re-opens.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private static final byte FAILURE = 1;
+    private static final byte SLOW = 2;
+
+    @NotNull
+    private final EndpointGroup group;
+    @NotNull
+    private final CircuitBreakers settings;
+
+    @NotNull
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+
+    //Sliding window of the outcomes of the last calls, while closed
+    private final byte[] outcomes;
+    private int next;
+    private int size;
+    private int failures;
+    private int slowCalls;
+
+    //Trial calls, while half-open
+    private int trialCallsPermitted;
+    private int trialCalls;
+    private int trialFailures;
+    private int trialSlowCalls;
+
+    CircuitBreaker(@NotNull final EndpointGroup group, @NotNull final CircuitBreakers settings) {
+        this.group = group;
+        this.settings = settings;
+        this.outcomes = new byte[settings.getSlidingWindowSize()];
+    }
+
+    @NotNull
+    public EndpointGroup getGroup() {
+        return group;
+    }
+
+    @NotNull
+    public synchronized State getState() {
+        if (this.state == State.OPEN && this.isWaitInOpenStateOver()) {
+            return State.HALF_OPEN;
+        }
+        return this.state;
+    }
+
+    /**
+     * @return whether a call may proceed. If so, its outcome must then be reported, with either
+     * {@link #onSuccess(long)}, {@link #onFailure(long)} or {@link #onIgnored()}.
+     */
+    public synchronized boolean tryAcquirePermission() {
+        switch (this.state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (!this.isWaitInOpenStateOver()) {
+                    return false;
+                }
+                this.transitionToHalfOpen();
+                return this.tryAcquireTrialPermission();
+            case HALF_OPEN:
+            default:
+                return this.tryAcquireTrialPermission();
+        }
+    }
+
+    /**
+     * @param durationNanos duration of the call
+     */
+    public void onSuccess(final long durationNanos) {
+        this.onResult(false, durationNanos);
+    }
+
+    /**
+     * @param durationNanos duration of the call
+     */
+    public void onFailure(final long durationNanos) {
+        this.onResult(true, durationNanos);
+    }
+
+    /**
+     * Reports a call which did not tell anything about the health of the server, e.g., a cancelled call
+     */
+    public synchronized void onIgnored() {
+        if (this.state == State.HALF_OPEN && this.trialCallsPermitted > this.trialCalls) {
+            this.trialCallsPermitted--;
+        }
+    }
+
+    /**
+     * Closes the circuit, and forgets about all the calls recorded
+     */
+    public synchronized void reset() {
+        this.transitionToClosed();
+    }
+
+    private synchronized void onResult(final boolean failure, final long durationNanos) {
+        final boolean slow = durationNanos >= this.settings.getSlowCallDurationThresholdNanos();
+        switch (this.state) {
+            case CLOSED:
+                this.record((byte) ((failure ? FAILURE : 0) | (slow ? SLOW : 0)));
+                if (this.size >= this.settings.getMinimumNumberOfCalls()
+                        && this.exceedsThresholds(this.failures, this.slowCalls, this.size)) {
+                    this.transitionToOpen();
+                }
+                break;
+            case HALF_OPEN:
+                this.trialCalls++;
+                if (failure) {
+                    this.trialFailures++;
+                }
+                if (slow) {
+                    this.trialSlowCalls++;
+                }
+                if (this.exceedsThresholds(this.trialFailures, this.trialSlowCalls,
+                        this.settings.getPermittedCallsInHalfOpenState())) {
+                    this.transitionToOpen();
+                } else if (this.trialCalls >= this.settings.getPermittedCallsInHalfOpenState()) {
+                    this.transitionToClosed();
+                }
+                break;
+            case OPEN:
+            default:
+                //Call permitted before the circuit opened
+                break;
+        }
+    }
+
+    private boolean tryAcquireTrialPermission() {
+        if (this.trialCallsPermitted >= this.settings.getPermittedCallsInHalfOpenState()) {
+            return false;
+        }
+        this.trialCallsPermitted++;
+        return true;
+    }
+
+    private void record(final byte outcome) {
+        if (this.size == this.outcomes.length) {
+            final byte evicted = this.outcomes[this.next];
+            if ((evicted & FAILURE) != 0) {
+                this.failures--;
+            }
+            if ((evicted & SLOW) != 0) {
+                this.slowCalls--;
+            }
+        } else {
+            this.size++;
+        }
+        this.outcomes[this.next] = outcome;
+        this.next = (this.next + 1) % this.outcomes.length;
+        if ((outcome & FAILURE) != 0) {
+            this.failures++;
+        }
+        if ((outcome & SLOW) != 0) {
+            this.slowCalls++;
+        }
+    }
+
+    private boolean exceedsThresholds(final int failures, final int slowCalls, final int calls) {
+        return failures * 100.0f / calls >= this.settings.getFailureRateThreshold()
+                || slowCalls * 100.0f / calls >= this.settings.getSlowCallRateThreshold();
+    }
+
+    private boolean isWaitInOpenStateOver() {
+        return System.nanoTime() - this.openedAtNanos >= this.settings.getWaitDurationInOpenStateNanos();
+    }
+
+    private void transitionToOpen() {
+        this.state = State.OPEN;
+        this.openedAtNanos = System.nanoTime();
+    }
+
+    private void transitionToHalfOpen() {
+        this.state = State.HALF_OPEN;
+        this.trialCallsPermitted = 0;
+        this.trialCalls = 0;
+        this.trialFailures = 0;
+        this.trialSlowCalls = 0;
+    }
+
+    private void transitionToClosed() {
+        this.state = State.CLOSED;
+        this.next = 0;
+        this.size = 0;
+        this.failures = 0;
+        this.slowCalls = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "CircuitBreaker{" +
+                "group=" + group +
+                ", state=" + getState() +
+                '}';
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.circuitbreaker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.EndpointGroup;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link CircuitBreaker} per {@link EndpointGroup}, all with the same settings.
+ * <p>
+ * Calls failing with network errors or <code>5xx</code> responses count as failures.
+ * Calls taking longer than {@link Builder#slowCallDurationThreshold} count as slow calls.
+ */
+public final class CircuitBreakers {
+
+    private final int slidingWindowSize;
+    private final int minimumNumberOfCalls;
+    private final float failureRateThreshold;
+    private final long slowCallDurationThresholdNanos;
+    private final float slowCallRateThreshold;
+    private final long waitDurationInOpenStateNanos;
+    private final int permittedCallsInHalfOpenState;
+    @NotNull
+    private final Map<EndpointGroup, CircuitBreaker> circuitBreakers;
+
+    private CircuitBreakers(@NotNull final Builder builder) {
+        this.slidingWindowSize = builder.slidingWindowSize;
+        this.minimumNumberOfCalls = Math.min(builder.minimumNumberOfCalls, builder.slidingWindowSize);
+        this.failureRateThreshold = builder.failureRateThreshold;
+        this.slowCallDurationThresholdNanos = builder.slowCallDurationThresholdNanos;
+        this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.waitDurationInOpenStateNanos = builder.waitDurationInOpenStateNanos;
+        this.permittedCallsInHalfOpenState = builder.permittedCallsInHalfOpenState;
+        final Map<EndpointGroup, CircuitBreaker> map = new EnumMap<>(EndpointGroup.class);
+        for (final EndpointGroup group : builder.groups) {
+            map.put(group, new CircuitBreaker(group, this));
+        }
+        this.circuitBreakers = Collections.unmodifiableMap(map);
+    }
+
+    /**
+     * @return circuit breakers for all endpoint groups, with the default settings
+     */
+    public static CircuitBreakers create() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param group the endpoint group
+     * @return the circuit breaker of this group, or {@code null} if none
+     */
+    @Nullable
+    public CircuitBreaker getCircuitBreaker(@NotNull final EndpointGroup group) {
+        return this.circuitBreakers.get(group);
+    }
+
+    public int getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public int getMinimumNumberOfCalls() {
+        return minimumNumberOfCalls;
+    }
+
+    public float getFailureRateThreshold() {
+        return failureRateThreshold;
+    }
+
+    public long getSlowCallDurationThresholdNanos() {
+        return slowCallDurationThresholdNanos;
+    }
+
+    public float getSlowCallRateThreshold() {
+        return slowCallRateThreshold;
+    }
+
+    public long getWaitDurationInOpenStateNanos() {
+        return waitDurationInOpenStateNanos;
+    }
+
+    public int getPermittedCallsInHalfOpenState() {
+        return permittedCallsInHalfOpenState;
+    }
+
+    public static final class Builder {
+
+        private int slidingWindowSize = 20;
+        private int minimumNumberOfCalls = 10;
+        private float failureRateThreshold = 50.0f;
+        private long slowCallDurationThresholdNanos = TimeUnit.SECONDS.toNanos(10L);
+        private float slowCallRateThreshold = 80.0f;
+        private long waitDurationInOpenStateNanos = TimeUnit.SECONDS.toNanos(30L);
+        private int permittedCallsInHalfOpenState = 3;
+        @NotNull
+        private Set<EndpointGroup> groups = EnumSet.allOf(EndpointGroup.class);
+
+        private Builder() {
+        }
+
+        /**
+         * @param slidingWindowSize number of calls whose outcomes are recorded while closed. Defaults to 20.
+         * @return this builder
+         */
+        public Builder slidingWindowSize(final int slidingWindowSize) {
+            if (slidingWindowSize < 1) {
+                throw new IllegalArgumentException("slidingWindowSize < 1: " + slidingWindowSize);
+            }
+            this.slidingWindowSize = slidingWindowSize;
+            return this;
+        }
+
+        /**
+         * @param minimumNumberOfCalls number of calls to record before the circuit may open. Defaults to 10.
+         * @return this builder
+         */
+        public Builder minimumNumberOfCalls(final int minimumNumberOfCalls) {
+            if (minimumNumberOfCalls < 1) {
+                throw new IllegalArgumentException("minimumNumberOfCalls < 1: " + minimumNumberOfCalls);
+            }
+            this.minimumNumberOfCalls = minimumNumberOfCalls;
+            return this;
+        }
+
+        /**
+         * @param failureRateThreshold percentage of failures opening the circuit. Defaults to 50.
+         * @return this builder
+         */
+        public Builder failureRateThreshold(final float failureRateThreshold) {
+            if (failureRateThreshold <= 0.0f || failureRateThreshold > 100.0f) {
+                throw new IllegalArgumentException("failureRateThreshold not in ]0, 100]: " + failureRateThreshold);
+            }
+            this.failureRateThreshold = failureRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param slowCallDurationThreshold duration from which calls are considered slow. Defaults to 10 seconds.
+         * @param timeUnit                  unit of {@code slowCallDurationThreshold}
+         * @return this builder
+         */
+        public Builder slowCallDurationThreshold(final long slowCallDurationThreshold,
+                                                 @NotNull final TimeUnit timeUnit) {
+            if (slowCallDurationThreshold <= 0L) {
+                throw new IllegalArgumentException("slowCallDurationThreshold <= 0: " + slowCallDurationThreshold);
+            }
+            this.slowCallDurationThresholdNanos = timeUnit.toNanos(slowCallDurationThreshold);
+            return this;
+        }
+
+        /**
+         * @param slowCallRateThreshold percentage of slow calls opening the circuit. Defaults to 80.
+         * @return this builder
+         */
+        public Builder slowCallRateThreshold(final float slowCallRateThreshold) {
+            if (slowCallRateThreshold <= 0.0f || slowCallRateThreshold > 100.0f) {
+                throw new IllegalArgumentException("slowCallRateThreshold not in ]0, 100]: " + slowCallRateThreshold);
+            }
+            this.slowCallRateThreshold = slowCallRateThreshold;
+            return this;
+        }
+
+        /**
+         * @param waitDurationInOpenState how long the circuit stays open before letting trial calls through.
+         *                                Defaults to 30 seconds.
+         * @param timeUnit                unit of {@code waitDurationInOpenState}
+         * @return this builder
+         */
+        public Builder waitDurationInOpenState(final long waitDurationInOpenState, @NotNull final TimeUnit timeUnit) {
+            if (waitDurationInOpenState < 0L) {
+                throw new IllegalArgumentException("waitDurationInOpenState < 0: " + waitDurationInOpenState);
+            }
+            this.waitDurationInOpenStateNanos = timeUnit.toNanos(waitDurationInOpenState);
+            return this;
+        }
+
+        /**
+         * @param permittedCallsInHalfOpenState number of trial calls let through while half-open. Defaults to 3.
+         * @return this builder
+         */
+        public Builder permittedCallsInHalfOpenState(final int permittedCallsInHalfOpenState) {
+            if (permittedCallsInHalfOpenState < 1) {
+                throw new IllegalArgumentException(
+                        "permittedCallsInHalfOpenState < 1: " + permittedCallsInHalfOpenState);
+            }
+            this.permittedCallsInHalfOpenState = permittedCallsInHalfOpenState;
+            return this;
+        }
+
+        /**
+         * @param first  an endpoint group to protect
+         * @param others other endpoint groups to protect. All groups are protected by default.
+         * @return this builder
+         */
+        public Builder groups(@NotNull final EndpointGroup first, @NotNull final EndpointGroup... others) {
+            this.groups = EnumSet.of(first, others);
+            return this;
+        }
+
+        public CircuitBreakers build() {
+            return new CircuitBreakers(this);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.circuitbreaker;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.EndpointGroup;
+import org.rm3l.now4j.api.Endpoints;
+import org.rm3l.now4j.calls.ForwardingCall;
+import org.rm3l.now4j.exceptions.CircuitBreakerOpenException;
+import retrofit2.*;
+
+import java.io.IOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Retrofit {@link CallAdapter.Factory} guarding calls with the {@link CircuitBreaker} of their {@link EndpointGroup}.
+ * <p>
+ * Calls rejected by an open circuit fail right away with a {@link CircuitBreakerOpenException},
+ * be they synchronous or asynchronous.
+ */
+public final class CircuitBreakingCallAdapterFactory extends CallAdapter.Factory {
+
+    @NotNull
+    private final CircuitBreakers circuitBreakers;
+
+    private CircuitBreakingCallAdapterFactory(@NotNull final CircuitBreakers circuitBreakers) {
+        this.circuitBreakers = circuitBreakers;
+    }
+
+    public static CircuitBreakingCallAdapterFactory create(@NotNull final CircuitBreakers circuitBreakers) {
+        return new CircuitBreakingCallAdapterFactory(circuitBreakers);
+    }
+
+    @Nullable
+    @Override
+    public CallAdapter<?, ?> get(@NotNull final Type returnType,
+                                 @NotNull final Annotation[] annotations,
+                                 @NotNull final Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class) {
+            return null;
+        }
+        final String relativeUrl = Endpoints.relativeUrlOf(annotations);
+        final EndpointGroup group = relativeUrl != null ? EndpointGroup.of(relativeUrl) : null;
+        final CircuitBreaker circuitBreaker = group != null ? this.circuitBreakers.getCircuitBreaker(group) : null;
+        if (circuitBreaker == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked") final CallAdapter<Object, Call<Object>> delegate =
+                (CallAdapter<Object, Call<Object>>) retrofit.nextCallAdapter(this, returnType, annotations);
+        return new CallAdapter<Object, Call<Object>>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Call<Object> adapt(@NotNull final Call<Object> call) {
+                return new CircuitBreakingCall<>(call, delegate, circuitBreaker);
+            }
+        };
+    }
+
+    /**
+     * Call guarded by a circuit breaker. The calls adapted further down the chain, e.g., held back by a rate limit,
+     * only reach the server once the underlying call gets dispatched: durations are measured from then on.
+     */
+    static final class CircuitBreakingCall<T> extends ForwardingCall<T> {
+
+        @NotNull
+        private final DispatchTimingCall<T> call;
+        @NotNull
+        private final CallAdapter<T, Call<T>> adapter;
+        @NotNull
+        private final CircuitBreaker circuitBreaker;
+
+        CircuitBreakingCall(@NotNull final Call<T> call,
+                            @NotNull final CallAdapter<T, Call<T>> adapter,
+                            @NotNull final CircuitBreaker circuitBreaker) {
+            this(new DispatchTimingCall<>(call), adapter, circuitBreaker);
+        }
+
+        private CircuitBreakingCall(@NotNull final DispatchTimingCall<T> call,
+                                    @NotNull final CallAdapter<T, Call<T>> adapter,
+                                    @NotNull final CircuitBreaker circuitBreaker) {
+            super(adapter.adapt(call));
+            this.call = call;
+            this.adapter = adapter;
+            this.circuitBreaker = circuitBreaker;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            this.acquirePermission();
+            final Response<T> response;
+            try {
+                response = this.delegate.execute();
+            } catch (final IOException e) {
+                this.onFailure(e);
+                throw e;
+            } catch (final RuntimeException e) {
+                this.circuitBreaker.onIgnored();
+                throw e;
+            }
+            this.onResponse(response);
+            return response;
+        }
+
+        @Override
+        public void enqueue(final Callback<T> callback) {
+            try {
+                this.acquirePermission();
+            } catch (final CircuitBreakerOpenException e) {
+                callback.onFailure(this, e);
+                return;
+            }
+            this.delegate.enqueue(new Callback<T>() {
+                @Override
+                public void onResponse(Call<T> call, Response<T> response) {
+                    CircuitBreakingCall.this.onResponse(response);
+                    callback.onResponse(CircuitBreakingCall.this, response);
+                }
+
+                @Override
+                public void onFailure(Call<T> call, Throwable t) {
+                    CircuitBreakingCall.this.onFailure(t);
+                    callback.onFailure(CircuitBreakingCall.this, t);
+                }
+            });
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new CircuitBreakingCall<>(this.call.clone(), this.adapter, this.circuitBreaker);
+        }
+
+        private void acquirePermission() {
+            if (!this.circuitBreaker.tryAcquirePermission()) {
+                throw new CircuitBreakerOpenException("Circuit breaker open for " + this.circuitBreaker.getGroup());
+            }
+        }
+
+        private void onResponse(@NotNull final Response<T> response) {
+            final long durationNanos = this.call.durationNanos();
+            if (response.code() >= 500) {
+                this.circuitBreaker.onFailure(durationNanos);
+            } else {
+                this.circuitBreaker.onSuccess(durationNanos);
+            }
+        }
+
+        private void onFailure(@NotNull final Throwable t) {
+            if (t instanceof IOException && this.call.dispatched && !this.delegate.isCanceled()) {
+                this.circuitBreaker.onFailure(this.call.durationNanos());
+            } else {
+                //Cancelled, or failed before reaching the server, e.g., rejected by the rate limiter
+                this.circuitBreaker.onIgnored();
+            }
+        }
+    }
+
+    /**
+     * Innermost call, recording when it gets dispatched to the server
+     */
+    static final class DispatchTimingCall<T> extends ForwardingCall<T> {
+
+        private volatile long dispatchedAtNanos;
+        private volatile boolean dispatched;
+
+        DispatchTimingCall(@NotNull final Call<T> delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            this.markDispatched();
+            return this.delegate.execute();
+        }
+
+        @Override
+        public void enqueue(final Callback<T> callback) {
+            this.markDispatched();
+            this.delegate.enqueue(callback);
+        }
+
+        @Override
+        public DispatchTimingCall<T> clone() {
+            return new DispatchTimingCall<>(this.delegate.clone());
+        }
+
+        /**
+         * @return time elapsed since the call got dispatched, or <code>0</code> if it never was
+         */
+        long durationNanos() {
+            return this.dispatched ? System.nanoTime() - this.dispatchedAtNanos : 0L;
+        }
+
+        private void markDispatched() {
+            this.dispatchedAtNanos = System.nanoTime();
+            this.dispatched = true;
+        }
+    }
+}
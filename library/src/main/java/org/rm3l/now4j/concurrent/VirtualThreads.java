@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.concurrent;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Virtual threads of Java 21 and above, looked up at runtime, as the library itself targets Java 8
+ */
+public final class VirtualThreads {
+
+    @Nullable
+    private static final Method NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR = lookup();
+
+    private VirtualThreads() {
+        throw new UnsupportedOperationException("Not instantiable");
+    }
+
+    /**
+     * @return whether the running JVM supports virtual threads
+     */
+    public static boolean isSupported() {
+        return NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR != null;
+    }
+
+    /**
+     * @return a new executor starting a virtual thread per task
+     * @throws UnsupportedOperationException if the running JVM does not support virtual threads
+     */
+    @NotNull
+    public static ExecutorService newExecutor() {
+        if (NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR == null) {
+            throw new UnsupportedOperationException("Virtual threads require Java 21 or above");
+        }
+        final ExecutorService executorService = newExecutor(NEW_VIRTUAL_THREAD_PER_TASK_EXECUTOR);
+        if (executorService == null) {
+            throw new UnsupportedOperationException("Virtual threads are not enabled");
+        }
+        return executorService;
+    }
+
+    @Nullable
+    private static Method lookup() {
+        final Method method;
+        try {
+            method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+        } catch (final NoSuchMethodException e) {
+            return null;
+        }
+        //Java 19 and 20 have it as a preview feature, unusable unless enabled
+        final ExecutorService probe = newExecutor(method);
+        if (probe == null) {
+            return null;
+        }
+        probe.shutdown();
+        return method;
+    }
+
+    @Nullable
+    private static ExecutorService newExecutor(@NotNull final Method method) {
+        try {
+            return (ExecutorService) method.invoke(null);
+        } catch (final IllegalAccessException | InvocationTargetException e) {
+            return null;
+        }
+    }
+}
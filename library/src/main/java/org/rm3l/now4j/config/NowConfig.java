@@ -0,0 +1,406 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.config;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.NowClient;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Credentials read from a <code>now.json</code> file, by default <code>~/.now.json</code>.
+ * <p>
+ * The file is parsed once, then again only when its modification time or size changes,
+ * which is checked at most once per second. Besides the top-level <code>token</code> and <code>team</code>,
+ * it may define named profiles:
+ * <pre>
+ * {
+ *   "token": "...",
+ *   "team": "...",
+ *   "profiles": {
+ *     "staging": { "token": "...", "team": "..." }
+ *   }
+ * }
+ * </pre>
+ * If the file does not exist, the default credentials are read from the <code>NOW_TOKEN</code> and
+ * <code>NOW_TEAM</code> system properties or environment variables.
+ * <p>
+ * Instances are thread-safe, and resolving credentials or clients is cheap once the file is loaded.
+ */
+public final class NowConfig {
+
+    private static final String NOW_TOKEN = "NOW_TOKEN";
+    private static final String NOW_TEAM = "NOW_TEAM";
+    private static final String TOKEN = "token";
+    private static final String TEAM = "team";
+    private static final String PROFILES = "profiles";
+    private static final String NOW_JSON = ".now.json";
+
+    private static final long CHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+    @NotNull
+    private final Path file;
+
+    private final ReentrantLock reloadLock = new ReentrantLock();
+
+    private final ConcurrentMap<Credentials, NowClient> clients = new ConcurrentHashMap<>();
+
+    @Nullable
+    private volatile Snapshot snapshot;
+
+    private NowConfig(@NotNull final Path file) {
+        this.file = file;
+    }
+
+    /**
+     * @return the configuration from <code>~/.now.json</code>, shared by all callers
+     */
+    @NotNull
+    public static NowConfig defaults() {
+        return Defaults.INSTANCE;
+    }
+
+    /**
+     * @param file the JSON file to read credentials from. It does not need to exist yet.
+     * @return the configuration from the given file
+     */
+    @NotNull
+    public static NowConfig of(@NotNull final Path file) {
+        return new NowConfig(file);
+    }
+
+    /**
+     * @return the default credentials
+     * @throws IllegalStateException if no token is configured, or the file is malformed
+     */
+    @NotNull
+    public Credentials getCredentials() {
+        final Snapshot current = this.snapshot();
+        final String token = current.exists ? current.token : property(NOW_TOKEN);
+        if (token == null) {
+            throw new IllegalStateException("Token not found");
+        }
+        return new Credentials(token, this.getTeam());
+    }
+
+    /**
+     * @param profile name of a profile
+     * @return the credentials of that profile
+     * @throws IllegalArgumentException if there is no such profile
+     * @throws IllegalStateException    if the profile has no token, or the file is malformed
+     */
+    @NotNull
+    public Credentials getCredentials(@NotNull final String profile) {
+        final String[] tokenAndTeam = this.snapshot().profiles.get(profile);
+        if (tokenAndTeam == null) {
+            throw new IllegalArgumentException("Unknown profile: " + profile);
+        }
+        if (tokenAndTeam[0] == null) {
+            throw new IllegalStateException("Token not found in profile: " + profile);
+        }
+        return new Credentials(tokenAndTeam[0], tokenAndTeam[1]);
+    }
+
+    /**
+     * @return the default team, if any, whether or not a default token is configured
+     */
+    @Nullable
+    public String getTeam() {
+        final Snapshot current = this.snapshot();
+        return current.exists ? current.team : property(NOW_TEAM);
+    }
+
+    /**
+     * @return the names of the profiles defined
+     */
+    @NotNull
+    public Set<String> getProfiles() {
+        return this.snapshot().profiles.keySet();
+    }
+
+    /**
+     * @return a client for the default credentials. The same client is returned as long as they are configured,
+     * hence is not to be closed. Once they are not anymore, it gets closed: its calls in progress complete,
+     * but new ones fail. Get the client for each unit of work, rather than holding on to it.
+     * @throws IllegalStateException if no token is configured, or the file is malformed
+     */
+    @NotNull
+    public NowClient client() {
+        return this.client(this::getCredentials);
+    }
+
+    /**
+     * @param profile name of a profile
+     * @return a client for the credentials of that profile. The same client is returned
+     * as long as they are configured, hence is not to be closed, like {@link #client()}.
+     * @throws IllegalArgumentException if there is no such profile
+     * @throws IllegalStateException    if the profile has no token, or the file is malformed
+     */
+    @NotNull
+    public NowClient client(@NotNull final String profile) {
+        return this.client(() -> this.getCredentials(profile));
+    }
+
+    @NotNull
+    private NowClient client(@NotNull final Supplier<Credentials> credentials) {
+        final NowClient existing = this.clients.get(credentials.get());
+        if (existing != null) {
+            return existing;
+        }
+        //Resolved again and registered under the reload lock: otherwise, a reload could close the clients
+        //of credentials gone right before a client for stale credentials gets registered, and never closed
+        this.reloadLock.lock();
+        try {
+            return this.clients.computeIfAbsent(credentials.get(),
+                    c -> NowClient.create(c.getToken(), c.getTeam()));
+        } finally {
+            this.reloadLock.unlock();
+        }
+    }
+
+    @NotNull
+    private Snapshot snapshot() {
+        final Snapshot current = this.snapshot;
+        if (current != null && System.nanoTime() - current.checkedAt < CHECK_INTERVAL_NANOS) {
+            return current;
+        }
+        this.reloadLock.lock();
+        try {
+            final Snapshot latest = this.snapshot;
+            final long now = System.nanoTime();
+            if (latest != null && now - latest.checkedAt < CHECK_INTERVAL_NANOS) {
+                return latest;
+            }
+            BasicFileAttributes attributes;
+            try {
+                attributes = Files.readAttributes(this.file, BasicFileAttributes.class);
+            } catch (final NoSuchFileException e) {
+                attributes = null;
+            } catch (final IOException e) {
+                throw new IllegalStateException("Could not read " + this.file, e);
+            }
+            final Snapshot reloaded;
+            if (latest != null && latest.isSameFile(attributes)) {
+                reloaded = latest.checkedAgainAt(now);
+            } else {
+                reloaded = this.load(attributes, now);
+                //Credentials may have changed: close the clients for those gone, letting their calls complete
+                final Iterator<Map.Entry<Credentials, NowClient>> iterator = this.clients.entrySet().iterator();
+                while (iterator.hasNext()) {
+                    final Map.Entry<Credentials, NowClient> entry = iterator.next();
+                    if (!reloaded.provides(entry.getKey())) {
+                        iterator.remove();
+                        entry.getValue().close();
+                    }
+                }
+            }
+            this.snapshot = reloaded;
+            return reloaded;
+        } finally {
+            this.reloadLock.unlock();
+        }
+    }
+
+    @NotNull
+    private Snapshot load(@Nullable final BasicFileAttributes attributes, final long now) {
+        if (attributes == null) {
+            return new Snapshot(null, -1L, now, false, null, null, Collections.<String, String[]>emptyMap());
+        }
+        final JsonObject json;
+        try (final Reader reader = Files.newBufferedReader(this.file, StandardCharsets.UTF_8)) {
+            final JsonElement element = JsonParser.parseReader(reader);
+            json = element.isJsonObject() ? element.getAsJsonObject() : new JsonObject();
+        } catch (final IOException | JsonParseException e) {
+            throw new IllegalStateException("Could not read " + this.file, e);
+        }
+        final Map<String, String[]> profiles = new LinkedHashMap<>();
+        final JsonElement profilesElement = json.get(PROFILES);
+        if (profilesElement != null && profilesElement.isJsonObject()) {
+            for (final Map.Entry<String, JsonElement> entry : profilesElement.getAsJsonObject().entrySet()) {
+                if (entry.getValue().isJsonObject()) {
+                    final JsonObject profile = entry.getValue().getAsJsonObject();
+                    profiles.put(entry.getKey(), new String[]{string(profile, TOKEN), string(profile, TEAM)});
+                }
+            }
+        }
+        return new Snapshot(attributes.lastModifiedTime(), attributes.size(), now, true,
+                string(json, TOKEN), string(json, TEAM), Collections.unmodifiableMap(profiles));
+    }
+
+    @Nullable
+    private static String string(@NotNull final JsonObject json, @NotNull final String property) {
+        final JsonElement element = json.get(property);
+        if (element == null || !element.isJsonPrimitive()) {
+            return null;
+        }
+        final String value = element.getAsString();
+        return value.trim().isEmpty() ? null : value;
+    }
+
+    @Nullable
+    private static String property(@NotNull final String name) {
+        String value = System.getProperty(name);
+        if (value == null || value.trim().isEmpty()) {
+            value = System.getenv(name);
+        }
+        return value == null || value.trim().isEmpty() ? null : value;
+    }
+
+    /**
+     * Token and team to build clients for
+     */
+    public static final class Credentials {
+
+        @NotNull
+        private final String token;
+        @Nullable
+        private final String team;
+
+        private Credentials(@NotNull final String token, @Nullable final String team) {
+            this.token = token;
+            this.team = team;
+        }
+
+        @NotNull
+        public String getToken() {
+            return token;
+        }
+
+        @Nullable
+        public String getTeam() {
+            return team;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Credentials that = (Credentials) o;
+            return token.equals(that.token) && Objects.equals(team, that.team);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(token, team);
+        }
+
+        @Override
+        public String toString() {
+            //Never leak the token itself
+            return "Credentials{team='" + team + "'}";
+        }
+    }
+
+    private static final class Snapshot {
+
+        @Nullable
+        final FileTime lastModified;
+        final long size;
+        final long checkedAt;
+        final boolean exists;
+        @Nullable
+        final String token;
+        @Nullable
+        final String team;
+        @NotNull
+        final Map<String, String[]> profiles;
+
+        Snapshot(@Nullable final FileTime lastModified,
+                 final long size,
+                 final long checkedAt,
+                 final boolean exists,
+                 @Nullable final String token,
+                 @Nullable final String team,
+                 @NotNull final Map<String, String[]> profiles) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.checkedAt = checkedAt;
+            this.exists = exists;
+            this.token = token;
+            this.team = team;
+            this.profiles = profiles;
+        }
+
+        boolean isSameFile(@Nullable final BasicFileAttributes attributes) {
+            if (attributes == null) {
+                return !this.exists;
+            }
+            return this.exists
+                    && attributes.lastModifiedTime().equals(this.lastModified)
+                    && attributes.size() == this.size;
+        }
+
+        /**
+         * @return whether the credentials are configured, by default or in a profile
+         */
+        boolean provides(@NotNull final Credentials credentials) {
+            final String defaultToken = this.exists ? this.token : property(NOW_TOKEN);
+            final String defaultTeam = this.exists ? this.team : property(NOW_TEAM);
+            if (credentials.token.equals(defaultToken) && Objects.equals(credentials.team, defaultTeam)) {
+                return true;
+            }
+            for (final String[] tokenAndTeam : this.profiles.values()) {
+                if (credentials.token.equals(tokenAndTeam[0]) && Objects.equals(credentials.team, tokenAndTeam[1])) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @NotNull
+        Snapshot checkedAgainAt(final long now) {
+            return new Snapshot(this.lastModified, this.size, now, this.exists, this.token, this.team, this.profiles);
+        }
+    }
+
+    private static final class Defaults {
+        static final NowConfig INSTANCE = new NowConfig(Paths.get(System.getProperty("user.home"), NOW_JSON));
+    }
+}
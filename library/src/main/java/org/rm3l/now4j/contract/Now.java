@@ -21,8 +21,13 @@
  */
 package org.rm3l.now4j.contract;
 
+import okhttp3.RequestBody;
 import org.jetbrains.annotations.NotNull;
+import org.rm3l.now4j.calls.ListStream;
+import org.rm3l.now4j.dns.DomainRecordBatch;
+import org.rm3l.now4j.dns.ZoneSync;
 import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.index.NowResourceIndex;
 import org.rm3l.now4j.resources.aliases.Alias;
 import org.rm3l.now4j.resources.certs.Certificate;
 import org.rm3l.now4j.resources.deployments.Deployment;
@@ -30,9 +35,17 @@ import org.rm3l.now4j.resources.deployments.DeploymentFileStructure;
 import org.rm3l.now4j.resources.domains.Domain;
 import org.rm3l.now4j.resources.domains.DomainRecord;
 import org.rm3l.now4j.resources.secrets.Secret;
+import org.rm3l.now4j.transfer.DeploymentRequestBody;
+import org.rm3l.now4j.transfer.DeploymentUploader;
+import org.rm3l.now4j.transfer.DownloadSummary;
+import org.rm3l.now4j.transfer.RangedFileDownloader;
+import org.rm3l.now4j.watch.DeploymentWatcher;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
 
@@ -64,6 +77,16 @@ public interface Now {
      */
     void getDeployments(@NotNull final ClientCallback<List<Deployment>> callback) throws IOException;
 
+    /**
+     * Get all deployments, each decoded as soon as it is read from the response.
+     * <p>
+     * The request is sent upon the first call to {@link ListStream#hasNext()}.
+     *
+     * @return a stream of all deployments, to close once consumed
+     */
+    @NotNull
+    ListStream<Deployment> streamDeployments();
+
     /**
      * Get a given deployment
      *
@@ -112,6 +135,33 @@ public interface Now {
     void createDeployment(@NotNull Map<String, Object> body,
                           @NotNull final ClientCallback<Deployment> callback) throws IOException;
 
+    /**
+     * Creates a new deployment out of a request body written as it is being sent,
+     * e.g., a {@link DeploymentRequestBody} streaming file contents from disk
+     *
+     * @param body JSON object whose keys represent a file path, with their respective values containing
+     *             the file contents.
+     * @return the deployment created
+     * @throws IOException                   if a problem occurred talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    Deployment createDeployment(@NotNull RequestBody body) throws IOException;
+
+    /**
+     * Creates a new deployment out of a request body written as it is being sent, asynchronously
+     * <p>
+     * You are notified (with either a result or an exception)
+     * via the callback provided.
+     *
+     * @param body     JSON object whose keys represent a file path, with their respective values containing
+     *                 the file contents.
+     * @param callback Callback object will be called asynchronously
+     * @throws IOException                   if a problem occurred talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    void createDeployment(@NotNull RequestBody body,
+                          @NotNull final ClientCallback<Deployment> callback) throws IOException;
+
     /**
      * Deletes a deployment
      *
@@ -215,6 +265,135 @@ public interface Now {
                               @NotNull String fileId,
                               @NotNull final ClientCallback<InputStream> callback) throws IOException;
 
+    /**
+     * Returns a byte range of the content of a file as an {@link InputStream}
+     *
+     * @param deploymentId ID of deployment
+     * @param fileId       ID of the file
+     * @param start        first byte of the range
+     * @param end          last byte of the range, inclusive, or <code>-1</code> for the end of the file
+     * @return the range of the content of the file as an {@link InputStream}
+     * @throws IOException                   if a problem occurred talking to the server,
+     *                                       or if the server did not honour the range.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    InputStream getFileRangeAsInputStream(@NotNull String deploymentId,
+                                          @NotNull String fileId,
+                                          long start,
+                                          long end) throws IOException;
+
+    /**
+     * Downloads a file to a local path, streaming it straight to disk.
+     * <p>
+     * The file is first written to a sibling <code>.part</code> file, then moved atomically in place.
+     *
+     * @param deploymentId ID of deployment
+     * @param fileId       ID of the file
+     * @param target       local file to write. Parent directories are created if needed.
+     * @return the number of bytes written
+     * @throws IOException                   if a problem occurred talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    long downloadFile(@NotNull String deploymentId,
+                      @NotNull String fileId,
+                      @NotNull Path target) throws IOException;
+
+    /**
+     * Downloads a file to a channel, streaming it without buffering the whole content in memory
+     *
+     * @param deploymentId ID of deployment
+     * @param fileId       ID of the file
+     * @param channel      channel to write to. It is left open.
+     * @return the number of bytes written
+     * @throws IOException                   if a problem occurred talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    long downloadFile(@NotNull String deploymentId,
+                      @NotNull String fileId,
+                      @NotNull WritableByteChannel channel) throws IOException;
+
+    /**
+     * Downloads a file to a stream, streaming it without buffering the whole content in memory
+     *
+     * @param deploymentId ID of deployment
+     * @param fileId       ID of the file
+     * @param outputStream stream to write to. It is flushed, but left open.
+     * @return the number of bytes written
+     * @throws IOException                   if a problem occurred talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    long downloadFile(@NotNull String deploymentId,
+                      @NotNull String fileId,
+                      @NotNull OutputStream outputStream) throws IOException;
+
+    /**
+     * Prepares the download of a file with HTTP range requests, resuming any interrupted download of it
+     * and optionally fetching parts of it concurrently
+     *
+     * @param deploymentId ID of deployment
+     * @param fileId       ID of the file
+     * @return a builder to tune, before calling {@link RangedFileDownloader.Builder#download(Path)}
+     */
+    @NotNull
+    RangedFileDownloader.Builder newRangedFileDownload(@NotNull String deploymentId, @NotNull String fileId);
+
+    /**
+     * Downloads all files of a deployment into a local directory, concurrently.
+     * <p>
+     * Files already present locally are skipped, so that an interrupted download can be resumed.
+     *
+     * @param deploymentId ID of deployment
+     * @param target       local directory to download files into
+     * @return a summary of the download
+     * @throws IOException                   if a problem occurred talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    DownloadSummary downloadDeployment(@NotNull String deploymentId, @NotNull Path target) throws IOException;
+
+    /**
+     * Downloads all files of a deployment into a local directory, with the parallelism specified.
+     * <p>
+     * Files already present locally are skipped, so that an interrupted download can be resumed.
+     *
+     * @param deploymentId ID of deployment
+     * @param target       local directory to download files into
+     * @param parallelism  maximum number of files downloaded at the same time
+     * @return a summary of the download
+     * @throws IOException                   if a problem occurred talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    DownloadSummary downloadDeployment(@NotNull String deploymentId,
+                                       @NotNull Path target,
+                                       int parallelism) throws IOException;
+
+    /**
+     * Prepares the deployment of a local directory. Files are referenced by their SHA-1 digest,
+     * and only those the server does not already have are uploaded.
+     *
+     * @param directory the local directory to deploy
+     * @return a builder, to further configure and perform the deployment
+     */
+    @NotNull
+    DeploymentUploader.Builder newDeployment(@NotNull Path directory);
+
+    /**
+     * Prepares a watcher of deployment states, polling deployments until they are ready or failed.
+     * Watchers should be closed once no longer needed.
+     *
+     * @return a builder, to further configure the watcher
+     */
+    @NotNull
+    DeploymentWatcher.Builder newDeploymentWatcher();
+
+    /**
+     * Prepares an in-memory index of the deployments, aliases, domains and certificates of the account,
+     * for lookups without any network call. Indexes should be closed once no longer needed.
+     *
+     * @return a builder, to further configure the index
+     */
+    @NotNull
+    NowResourceIndex.Builder newResourceIndex();
+
     /**
      * Returns a list with all domain names and related aliases
      *
@@ -314,6 +493,17 @@ public interface Now {
     void getDomainRecords(@NotNull String name,
                           @NotNull final ClientCallback<List<DomainRecord>> callback) throws IOException;
 
+    /**
+     * Returns all DNS records configured for a domain name, each decoded as soon as it is read from the response.
+     * <p>
+     * The request is sent upon the first call to {@link ListStream#hasNext()}.
+     *
+     * @param name Domain name
+     * @return a stream of all DNS records configured for a domain name, to close once consumed
+     */
+    @NotNull
+    ListStream<DomainRecord> streamDomainRecords(@NotNull String name);
+
     /**
      * Adds a new DNS record for a domain
      *
@@ -369,6 +559,46 @@ public interface Now {
                             @NotNull String recordId,
                             @NotNull final ClientCallback<Void> callback) throws IOException;
 
+    /**
+     * Prepares the creation and deletion of many DNS records of a domain, sent in parallel
+     *
+     * @param domainName the domain name
+     * @return a builder, to add operations to the batch, then execute it
+     */
+    @NotNull
+    DomainRecordBatch.Builder newDomainRecordBatch(@NotNull String domainName);
+
+    /**
+     * Prepares the sync of the DNS records of a domain with a desired record set,
+     * applying only the changes needed
+     *
+     * @param domainName the domain name
+     * @return a builder, to set the desired records, then sync
+     */
+    @NotNull
+    ZoneSync.Builder newZoneSync(@NotNull String domainName);
+
+    /**
+     * Returns a list of all certificates
+     *
+     * @return the list of all certificates
+     * @throws IOException                   if a problem occurred talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    List<Certificate> getCertificates() throws IOException;
+
+    /**
+     * Returns a list of all certificates, asynchronously
+     * <p>
+     * You are notified (with either a result or an exception)
+     * via the callback provided.
+     *
+     * @param callback Callback object will be called asynchronously
+     * @throws IOException                   if a problem occurred talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    void getCertificates(@NotNull final ClientCallback<List<Certificate>> callback) throws IOException;
+
     /**
      * Returns a list of all certificates
      *
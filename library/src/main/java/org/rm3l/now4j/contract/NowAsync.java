@@ -0,0 +1,317 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.contract;
+
+import okhttp3.RequestBody;
+import org.jetbrains.annotations.NotNull;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.aliases.Alias;
+import org.rm3l.now4j.resources.certs.Certificate;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.deployments.DeploymentFileStructure;
+import org.rm3l.now4j.resources.domains.Domain;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+import org.rm3l.now4j.resources.secrets.Secret;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Asynchronous contract API for Now Clients, based on {@link CompletableFuture}.
+ * <p>
+ * Each operation is enqueued right away, and the future returned is completed from the HTTP client
+ * threads, either with the result or with the error (an {@link java.io.IOException} if a problem occurred
+ * talking to the server, or an {@link UnsuccessfulResponseException} if response code got from the server
+ * was not successful). No thread is blocked waiting for a response, so futures can be freely composed.
+ * <p>
+ * Cancelling a future returned by any of these methods cancels the underlying HTTP call.
+ *
+ * @see Now
+ */
+@SuppressWarnings("unused")
+public interface NowAsync {
+
+    /**
+     * Get all deployments
+     *
+     * @return a future of the list of all deployments
+     */
+    @NotNull
+    CompletableFuture<List<Deployment>> getDeployments();
+
+    /**
+     * Get a given deployment
+     *
+     * @param deploymentId ID of deployment
+     * @return a future of the deployment
+     */
+    @NotNull
+    CompletableFuture<Deployment> getDeployment(@NotNull String deploymentId);
+
+    /**
+     * Creates a new deployment
+     *
+     * @param body The keys should represent a file path, with their respective values containing the file contents.
+     * @return a future of the deployment created
+     */
+    @NotNull
+    CompletableFuture<Deployment> createDeployment(@NotNull Map<String, Object> body);
+
+    /**
+     * Creates a new deployment out of a request body written as it is being sent,
+     * e.g., a {@link org.rm3l.now4j.transfer.DeploymentRequestBody} streaming file contents from disk
+     *
+     * @param body JSON object whose keys represent a file path, with their respective values containing
+     *             the file contents.
+     * @return a future of the deployment created
+     */
+    @NotNull
+    CompletableFuture<Deployment> createDeployment(@NotNull RequestBody body);
+
+    /**
+     * Deletes a deployment
+     *
+     * @param deploymentId ID of deployment
+     * @return a future completed once the deployment is deleted
+     */
+    @NotNull
+    CompletableFuture<Void> deleteDeployment(@NotNull String deploymentId);
+
+    /**
+     * Returns a list with the deployment file structure
+     *
+     * @param deploymentId ID of deployment
+     * @return a future of the list with the deployment file structure
+     */
+    @NotNull
+    CompletableFuture<List<DeploymentFileStructure>> getFiles(@NotNull String deploymentId);
+
+    /**
+     * Returns the content of a file as a {@link String}
+     *
+     * @param deploymentId ID of deployment
+     * @param fileId       ID of the file
+     * @return a future of the content of the file
+     */
+    @NotNull
+    CompletableFuture<String> getFileAsString(@NotNull String deploymentId, @NotNull String fileId);
+
+    /**
+     * Returns the content of a file as an {@link InputStream}
+     *
+     * @param deploymentId ID of deployment
+     * @param fileId       ID of the file
+     * @return a future of the content of the file, to be closed by the caller
+     */
+    @NotNull
+    CompletableFuture<InputStream> getFileAsInputStream(@NotNull String deploymentId, @NotNull String fileId);
+
+    /**
+     * Returns a list with all domain names and related aliases
+     *
+     * @return a future of the list of all domains
+     */
+    @NotNull
+    CompletableFuture<List<Domain>> getDomains();
+
+    /**
+     * Adds a new domain
+     *
+     * @param name          the domain name
+     * @param isExternalDNS whether this is an external DNS or not
+     * @return a future of the domain added
+     */
+    @NotNull
+    CompletableFuture<Domain> addDomain(@NotNull String name, boolean isExternalDNS);
+
+    /**
+     * Deletes a domain name
+     *
+     * @param name Domain name
+     * @return a future of the domain ID
+     */
+    @NotNull
+    CompletableFuture<String> deleteDomain(@NotNull String name);
+
+    /**
+     * Returns a list with all DNS records configured for a domain name
+     *
+     * @param name Domain name
+     * @return a future of the list with all DNS records configured for the domain name
+     */
+    @NotNull
+    CompletableFuture<List<DomainRecord>> getDomainRecords(@NotNull String name);
+
+    /**
+     * Adds a new DNS record for a domain
+     *
+     * @param name   Domain name
+     * @param record the record data
+     * @return a future of the record created
+     */
+    @NotNull
+    CompletableFuture<DomainRecord> addDomainRecord(@NotNull String name, @NotNull DomainRecord record);
+
+    /**
+     * Deletes a DNS record associated with a domain
+     *
+     * @param domainName Domain name
+     * @param recordId   Record ID
+     * @return a future completed once the record is deleted
+     */
+    @NotNull
+    CompletableFuture<Void> deleteDomainRecord(@NotNull String domainName, @NotNull String recordId);
+
+    /**
+     * Returns a list of all certificates
+     *
+     * @return a future of the list of all certificates
+     */
+    @NotNull
+    CompletableFuture<List<Certificate>> getCertificates();
+
+    /**
+     * Returns a list of all certificates
+     *
+     * @param commonName Common Name
+     * @return a future of the list of all certificates
+     */
+    @NotNull
+    CompletableFuture<List<Certificate>> getCertificates(@NotNull String commonName);
+
+    /**
+     * Creates a new certificate for the given domains registered to the user
+     *
+     * @param domains the list of domains
+     * @return a future of the certificate ID
+     */
+    @NotNull
+    CompletableFuture<String> createCertificate(@NotNull List<String> domains);
+
+    /**
+     * Renews an existing certificate
+     *
+     * @param domains the list of domains
+     * @return a future of the certificate ID
+     */
+    @NotNull
+    CompletableFuture<String> renewCertificate(@NotNull List<String> domains);
+
+    /**
+     * Replace an existing certificate
+     *
+     * @param domains the list of domains
+     * @param ca      X.509 certificate
+     * @param cert    CA certificate chain
+     * @param key     Private key for the certificate
+     * @return a future of the date at which the certificate has been replaced
+     */
+    @NotNull
+    CompletableFuture<String> replaceCertificate(@NotNull List<String> domains,
+                                                 @NotNull String ca,
+                                                 @NotNull String cert,
+                                                 @NotNull String key);
+
+    /**
+     * Deletes a certificate
+     *
+     * @param commonName Common Name
+     * @return a future completed once the certificate is deleted
+     */
+    @NotNull
+    CompletableFuture<Void> deleteCertificate(@NotNull String commonName);
+
+    /**
+     * Returns a list of all aliases
+     *
+     * @return a future of the list of all aliases
+     */
+    @NotNull
+    CompletableFuture<List<Alias>> getAliases();
+
+    /**
+     * Deletes an alias
+     *
+     * @param aliasId ID of alias
+     * @return a future of the deletion status
+     */
+    @NotNull
+    CompletableFuture<String> deleteAlias(@NotNull String aliasId);
+
+    /**
+     * Returns a list of all aliases for a given deployment
+     *
+     * @param deploymentId ID of deployment
+     * @return a future of the list of all aliases for the deployment
+     */
+    @NotNull
+    CompletableFuture<List<Alias>> getDeploymentAliases(@NotNull String deploymentId);
+
+    /**
+     * Creates a new alias for a given deployment
+     *
+     * @param deploymentId ID of deployment
+     * @param alias        Hostname or custom url for the alias
+     * @return a future of the alias created
+     */
+    @NotNull
+    CompletableFuture<Alias> createDeploymentAlias(@NotNull String deploymentId, @NotNull String alias);
+
+    /**
+     * Returns a list of all secrets
+     *
+     * @return a future of the list of all secrets
+     */
+    @NotNull
+    CompletableFuture<List<Secret>> getSecrets();
+
+    /**
+     * Creates a new secret
+     *
+     * @param name  Secret name
+     * @param value Secret value
+     * @return a future of the secret created
+     */
+    @NotNull
+    CompletableFuture<Secret> createSecret(@NotNull String name, @NotNull String value);
+
+    /**
+     * Renames a secret
+     *
+     * @param uidOrName UID or name of secret
+     * @param newName   new name
+     * @return a future of the secret renamed
+     */
+    @NotNull
+    CompletableFuture<Secret> renameSecret(@NotNull String uidOrName, @NotNull String newName);
+
+    /**
+     * Deletes a secret
+     *
+     * @param uidOrName UID or name of secret
+     * @return a future of the secret deleted
+     */
+    @NotNull
+    CompletableFuture<Secret> deleteSecret(@NotNull String uidOrName);
+}
@@ -0,0 +1,318 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.dns;
+
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.NowService;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+import org.rm3l.now4j.resources.domains.DomainRecordCreationRequest;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Creates and deletes many DNS records of a domain, with a bounded number of requests in flight.
+ * <p>
+ * Requests are sent asynchronously, over the connection pool and dispatcher of the client, so the effective
+ * parallelism is also capped by its max number of requests per host. A failed operation does not stop the others:
+ * the outcome of each operation is reported in the {@link DomainRecordBatchResult}.
+ */
+public final class DomainRecordBatch {
+
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    @NotNull
+    private final NowService nowService;
+    @NotNull
+    private final String domainName;
+    @NotNull
+    private final List<Operation> operations;
+    private final int parallelism;
+
+    private DomainRecordBatch(@NotNull final Builder builder) {
+        this.nowService = builder.nowService;
+        this.domainName = builder.domainName;
+        this.operations = Collections.unmodifiableList(new ArrayList<>(builder.operations));
+        this.parallelism = builder.parallelism;
+    }
+
+    public static Builder builder(@NotNull final NowService nowService, @NotNull final String domainName) {
+        return new Builder(nowService, domainName);
+    }
+
+    @NotNull
+    public String getDomainName() {
+        return domainName;
+    }
+
+    @NotNull
+    public List<Operation> getOperations() {
+        return operations;
+    }
+
+    /**
+     * Performs all operations, and waits for them to complete
+     *
+     * @return the outcome of each operation, in the order they were added
+     * @throws InterruptedIOException if interrupted while waiting. Operations already sent may still complete.
+     */
+    @NotNull
+    public DomainRecordBatchResult execute() throws InterruptedIOException {
+        final DomainRecordBatchResult.Outcome[] outcomes = new DomainRecordBatchResult.Outcome[this.operations.size()];
+        final Semaphore permits = new Semaphore(this.parallelism);
+        final CountDownLatch done = new CountDownLatch(this.operations.size());
+        try {
+            for (int i = 0; i < this.operations.size(); i++) {
+                permits.acquire();
+                final int index = i;
+                final Operation operation = this.operations.get(i);
+                this.send(operation, (created, error) -> {
+                    outcomes[index] = new DomainRecordBatchResult.Outcome(operation, created, error);
+                    permits.release();
+                    done.countDown();
+                });
+            }
+            done.await();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            final InterruptedIOException interruptedIOException =
+                    new InterruptedIOException("Interrupted while waiting for DNS record operations");
+            interruptedIOException.initCause(e);
+            throw interruptedIOException;
+        }
+        return new DomainRecordBatchResult(Arrays.asList(outcomes));
+    }
+
+    private void send(@NotNull final Operation operation, @NotNull final OutcomeListener listener) {
+        try {
+            switch (operation.getType()) {
+                case CREATE:
+                    final DomainRecordCreationRequest request = new DomainRecordCreationRequest();
+                    request.setData(operation.getRecord());
+                    this.nowService.createDomainRecord(this.domainName, request)
+                            .enqueue(new Callback<DomainRecord>() {
+                                @Override
+                                public void onResponse(Call<DomainRecord> call, Response<DomainRecord> response) {
+                                    if (!response.isSuccessful()) {
+                                        listener.onOutcome(null,
+                                                new UnsuccessfulResponseException(response.code(), response.message()));
+                                        return;
+                                    }
+                                    listener.onOutcome(response.body(), null);
+                                }
+
+                                @Override
+                                public void onFailure(Call<DomainRecord> call, Throwable t) {
+                                    listener.onOutcome(null, t);
+                                }
+                            });
+                    break;
+                case DELETE:
+                default:
+                    this.nowService.deleteDomainRecord(this.domainName, operation.getRecordId())
+                            .enqueue(new Callback<ResponseBody>() {
+                                @Override
+                                public void onResponse(Call<ResponseBody> call, Response<ResponseBody> response) {
+                                    final ResponseBody body = response.body();
+                                    if (body != null) {
+                                        body.close();
+                                    }
+                                    if (!response.isSuccessful()) {
+                                        listener.onOutcome(null,
+                                                new UnsuccessfulResponseException(response.code(), response.message()));
+                                        return;
+                                    }
+                                    listener.onOutcome(null, null);
+                                }
+
+                                @Override
+                                public void onFailure(Call<ResponseBody> call, Throwable t) {
+                                    listener.onOutcome(null, t);
+                                }
+                            });
+                    break;
+            }
+        } catch (final RuntimeException e) {
+            //e.g., dispatcher shut down
+            listener.onOutcome(null, e);
+        }
+    }
+
+    private interface OutcomeListener {
+        void onOutcome(@Nullable DomainRecord created, @Nullable Throwable error);
+    }
+
+    /**
+     * Creation or deletion of a DNS record
+     */
+    public static final class Operation {
+
+        public enum Type {
+            CREATE,
+            DELETE
+        }
+
+        @NotNull
+        private final Type type;
+        @NotNull
+        private final DomainRecord record;
+
+        private Operation(@NotNull final Type type, @NotNull final DomainRecord record) {
+            this.type = type;
+            this.record = record;
+        }
+
+        @NotNull
+        public static Operation create(@NotNull final DomainRecord record) {
+            return new Operation(Type.CREATE, record);
+        }
+
+        /**
+         * @param record the record to delete, identified by its {@link DomainRecord#getId()}
+         * @return the deletion
+         */
+        @NotNull
+        public static Operation delete(@NotNull final DomainRecord record) {
+            if (record.getId() == null) {
+                throw new IllegalArgumentException("Record ID cannot be NULL");
+            }
+            return new Operation(Type.DELETE, record);
+        }
+
+        @NotNull
+        public static Operation delete(@NotNull final String recordId) {
+            final DomainRecord record = new DomainRecord();
+            record.setId(recordId);
+            return new Operation(Type.DELETE, record);
+        }
+
+        @NotNull
+        public Type getType() {
+            return type;
+        }
+
+        /**
+         * @return the record to create, or the record to delete
+         */
+        @NotNull
+        public DomainRecord getRecord() {
+            return record;
+        }
+
+        @Nullable
+        public String getRecordId() {
+            return record.getId();
+        }
+
+        @Override
+        public String toString() {
+            if (type == Type.DELETE) {
+                return type + " " + record.getId();
+            }
+            return type + " " + record.getType() + " " + record.getName() + " " + record.getValue();
+        }
+    }
+
+    public static final class Builder {
+
+        @NotNull
+        private final NowService nowService;
+        @NotNull
+        private final String domainName;
+        @NotNull
+        private final List<Operation> operations = new ArrayList<>();
+        private int parallelism = DEFAULT_PARALLELISM;
+
+        private Builder(@NotNull final NowService nowService, @NotNull final String domainName) {
+            this.nowService = nowService;
+            this.domainName = domainName;
+        }
+
+        public Builder create(@NotNull final DomainRecord record) {
+            this.operations.add(Operation.create(record));
+            return this;
+        }
+
+        public Builder create(@NotNull final Collection<DomainRecord> records) {
+            for (final DomainRecord record : records) {
+                this.create(record);
+            }
+            return this;
+        }
+
+        public Builder delete(@NotNull final String recordId) {
+            this.operations.add(Operation.delete(recordId));
+            return this;
+        }
+
+        public Builder delete(@NotNull final Collection<DomainRecord> records) {
+            for (final DomainRecord record : records) {
+                this.operations.add(Operation.delete(record));
+            }
+            return this;
+        }
+
+        public Builder operation(@NotNull final Operation operation) {
+            this.operations.add(operation);
+            return this;
+        }
+
+        /**
+         * @param parallelism max number of requests in flight. Defaults to {@link DomainRecordBatch#DEFAULT_PARALLELISM}.
+         * @return this builder
+         */
+        public Builder parallelism(final int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism < 1: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public DomainRecordBatch build() {
+            return new DomainRecordBatch(this);
+        }
+
+        /**
+         * Builds the batch, then performs it
+         *
+         * @return the outcome of each operation
+         * @throws InterruptedIOException if interrupted while waiting
+         */
+        @NotNull
+        public DomainRecordBatchResult execute() throws InterruptedIOException {
+            return this.build().execute();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.dns;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of a {@link DomainRecordBatch}, operation by operation
+ */
+public final class DomainRecordBatchResult {
+
+    @NotNull
+    private final List<Outcome> outcomes;
+    @NotNull
+    private final List<Outcome> failed;
+
+    DomainRecordBatchResult(@NotNull final List<Outcome> outcomes) {
+        this.outcomes = Collections.unmodifiableList(outcomes);
+        final List<Outcome> failed = new ArrayList<>();
+        for (final Outcome outcome : outcomes) {
+            if (!outcome.isSuccessful()) {
+                failed.add(outcome);
+            }
+        }
+        this.failed = Collections.unmodifiableList(failed);
+    }
+
+    /**
+     * @return the outcomes of all operations, in the order they were added to the batch
+     */
+    @NotNull
+    public List<Outcome> getOutcomes() {
+        return outcomes;
+    }
+
+    /**
+     * @return the outcomes of the operations that failed
+     */
+    @NotNull
+    public List<Outcome> getFailed() {
+        return failed;
+    }
+
+    public int getSucceededCount() {
+        return this.outcomes.size() - this.failed.size();
+    }
+
+    public int getFailedCount() {
+        return this.failed.size();
+    }
+
+    /**
+     * @return whether all operations succeeded
+     */
+    public boolean isComplete() {
+        return this.failed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "DomainRecordBatchResult{" +
+                "succeeded=" + getSucceededCount() +
+                ", failed=" + failed +
+                '}';
+    }
+
+    /**
+     * Outcome of a single operation
+     */
+    public static final class Outcome {
+
+        @NotNull
+        private final DomainRecordBatch.Operation operation;
+        @Nullable
+        private final DomainRecord created;
+        @Nullable
+        private final Throwable error;
+
+        Outcome(@NotNull final DomainRecordBatch.Operation operation,
+                @Nullable final DomainRecord created,
+                @Nullable final Throwable error) {
+            this.operation = operation;
+            this.created = created;
+            this.error = error;
+        }
+
+        @NotNull
+        public DomainRecordBatch.Operation getOperation() {
+            return operation;
+        }
+
+        /**
+         * @return the record returned by the server for a successful creation, {@code null} otherwise
+         */
+        @Nullable
+        public DomainRecord getCreated() {
+            return created;
+        }
+
+        /**
+         * @return why the operation failed, or {@code null} if it succeeded
+         */
+        @Nullable
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccessful() {
+            return this.error == null;
+        }
+
+        @Override
+        public String toString() {
+            return operation + (error != null ? ": " + error : "");
+        }
+    }
+}
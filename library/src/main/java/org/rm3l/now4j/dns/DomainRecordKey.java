@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.dns;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * What identifies a DNS record when comparing record sets: its type, name, value and MX priority.
+ * <p>
+ * Server-assigned fields, such as the record ID or timestamps, are left out.
+ * Types are compared case-insensitively, and an empty name is the same as <code>@</code>, i.e., the zone apex.
+ */
+public final class DomainRecordKey {
+
+    private static final String APEX = "@";
+
+    @Nullable
+    private final String type;
+    @NotNull
+    private final String name;
+    @Nullable
+    private final String value;
+    @Nullable
+    private final Long mxPriority;
+
+    private DomainRecordKey(@NotNull final DomainRecord record) {
+        this.type = record.getType() != null ? record.getType().toUpperCase(Locale.US) : null;
+        this.name = record.getName() == null || record.getName().isEmpty() ? APEX : record.getName();
+        this.value = record.getValue();
+        //MX priority only makes sense for MX records
+        this.mxPriority = "MX".equals(this.type) ? record.getMxPriority() : null;
+    }
+
+    @NotNull
+    public static DomainRecordKey of(@NotNull final DomainRecord record) {
+        return new DomainRecordKey(record);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        final DomainRecordKey that = (DomainRecordKey) o;
+        return Objects.equals(type, that.type) &&
+                name.equals(that.name) &&
+                Objects.equals(value, that.value) &&
+                Objects.equals(mxPriority, that.mxPriority);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(type, name, value, mxPriority);
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + name + " " + value + (mxPriority != null ? " " + mxPriority : "");
+    }
+}
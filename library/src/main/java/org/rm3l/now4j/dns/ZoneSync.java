@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.dns;
+
+import org.jetbrains.annotations.NotNull;
+import org.rm3l.now4j.api.NowService;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+import org.rm3l.now4j.resources.domains.DomainRecords;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Converges the DNS records of a domain onto a desired record set, applying only the changes needed
+ * (see {@link ZoneSyncPlan}).
+ * <p>
+ * Missing records are created first, then records not desired are deleted, both in parallel, so that names
+ * keep resolving throughout the sync. Deletions are skipped if any creation failed.
+ */
+public final class ZoneSync {
+
+    @NotNull
+    private final NowService nowService;
+    @NotNull
+    private final String domainName;
+    @NotNull
+    private final List<DomainRecord> desired;
+    private final boolean prune;
+    private final boolean dryRun;
+    private final int parallelism;
+
+    private ZoneSync(@NotNull final Builder builder) {
+        this.nowService = builder.nowService;
+        this.domainName = builder.domainName;
+        this.desired = Collections.unmodifiableList(new ArrayList<>(builder.desired));
+        this.prune = builder.prune;
+        this.dryRun = builder.dryRun;
+        this.parallelism = builder.parallelism;
+    }
+
+    public static Builder builder(@NotNull final NowService nowService, @NotNull final String domainName) {
+        return new Builder(nowService, domainName);
+    }
+
+    /**
+     * Fetches the live records, and compares them with the desired ones, without applying any change
+     *
+     * @return the changes to apply
+     * @throws IOException if a problem occurred talking to the server.
+     */
+    @NotNull
+    public ZoneSyncPlan plan() throws IOException {
+        final Response<DomainRecords> response = this.nowService.getDomainRecords(this.domainName).execute();
+        final DomainRecords body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        final List<DomainRecord> live = body.getRecords();
+        return ZoneSyncPlan.of(live != null ? live : Collections.<DomainRecord>emptyList(), this.desired, this.prune);
+    }
+
+    /**
+     * Computes the changes to apply, then applies them, unless in dry-run mode
+     *
+     * @return the plan, and the outcome of each change applied
+     * @throws IOException if a problem occurred talking to the server.
+     */
+    @NotNull
+    public ZoneSyncResult sync() throws IOException {
+        final ZoneSyncPlan plan = this.plan();
+        if (this.dryRun || plan.isEmpty()) {
+            return new ZoneSyncResult(plan, this.dryRun, null, null);
+        }
+        DomainRecordBatchResult creations = null;
+        if (!plan.getToCreate().isEmpty()) {
+            creations = DomainRecordBatch.builder(this.nowService, this.domainName)
+                    .create(plan.getToCreate())
+                    .parallelism(this.parallelism)
+                    .execute();
+            if (!creations.isComplete()) {
+                return new ZoneSyncResult(plan, false, creations, null);
+            }
+        }
+        DomainRecordBatchResult deletions = null;
+        if (!plan.getToDelete().isEmpty()) {
+            deletions = DomainRecordBatch.builder(this.nowService, this.domainName)
+                    .delete(plan.getToDelete())
+                    .parallelism(this.parallelism)
+                    .execute();
+        }
+        return new ZoneSyncResult(plan, false, creations, deletions);
+    }
+
+    public static final class Builder {
+
+        @NotNull
+        private final NowService nowService;
+        @NotNull
+        private final String domainName;
+        @NotNull
+        private final List<DomainRecord> desired = new ArrayList<>();
+        private boolean prune = true;
+        private boolean dryRun;
+        private int parallelism = DomainRecordBatch.DEFAULT_PARALLELISM;
+
+        private Builder(@NotNull final NowService nowService, @NotNull final String domainName) {
+            this.nowService = nowService;
+            this.domainName = domainName;
+        }
+
+        /**
+         * @param records records wanted on the server
+         * @return this builder
+         */
+        public Builder desired(@NotNull final Collection<DomainRecord> records) {
+            this.desired.addAll(records);
+            return this;
+        }
+
+        public Builder desired(@NotNull final DomainRecord record) {
+            this.desired.add(record);
+            return this;
+        }
+
+        /**
+         * @param prune whether to delete live records not desired. Defaults to {@code true}.
+         * @return this builder
+         */
+        public Builder prune(final boolean prune) {
+            this.prune = prune;
+            return this;
+        }
+
+        /**
+         * @param dryRun whether to only compute the changes, without applying them
+         * @return this builder
+         */
+        public Builder dryRun(final boolean dryRun) {
+            this.dryRun = dryRun;
+            return this;
+        }
+
+        /**
+         * @param parallelism max number of requests in flight, while applying changes
+         * @return this builder
+         */
+        public Builder parallelism(final int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism < 1: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public ZoneSync build() {
+            return new ZoneSync(this);
+        }
+
+        /**
+         * Builds the sync, then performs it
+         *
+         * @return the plan, and the outcome of each change applied
+         * @throws IOException if a problem occurred talking to the server.
+         */
+        @NotNull
+        public ZoneSyncResult sync() throws IOException {
+            return this.build().sync();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.dns;
+
+import org.jetbrains.annotations.NotNull;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Minimal set of changes converging the live DNS records of a domain onto a desired record set,
+ * records being compared by {@link DomainRecordKey}
+ */
+public final class ZoneSyncPlan {
+
+    @NotNull
+    private final List<DomainRecord> toCreate;
+    @NotNull
+    private final List<DomainRecord> toDelete;
+    @NotNull
+    private final List<DomainRecord> unchanged;
+
+    private ZoneSyncPlan(@NotNull final List<DomainRecord> toCreate,
+                         @NotNull final List<DomainRecord> toDelete,
+                         @NotNull final List<DomainRecord> unchanged) {
+        this.toCreate = Collections.unmodifiableList(toCreate);
+        this.toDelete = Collections.unmodifiableList(toDelete);
+        this.unchanged = Collections.unmodifiableList(unchanged);
+    }
+
+    /**
+     * @param live    the records currently on the server
+     * @param desired the records wanted
+     * @param prune   whether to delete live records not wanted
+     * @return the plan
+     */
+    @NotNull
+    public static ZoneSyncPlan of(@NotNull final Collection<DomainRecord> live,
+                                  @NotNull final Collection<DomainRecord> desired,
+                                  final boolean prune) {
+        //A same key may appear several times: match records one for one
+        final Map<DomainRecordKey, Deque<DomainRecord>> liveByKey = new HashMap<>();
+        for (final DomainRecord record : live) {
+            liveByKey.computeIfAbsent(DomainRecordKey.of(record), key -> new ArrayDeque<>()).add(record);
+        }
+        final List<DomainRecord> toCreate = new ArrayList<>();
+        final List<DomainRecord> unchanged = new ArrayList<>();
+        for (final DomainRecord record : desired) {
+            final Deque<DomainRecord> matches = liveByKey.get(DomainRecordKey.of(record));
+            if (matches != null && !matches.isEmpty()) {
+                unchanged.add(matches.pollFirst());
+            } else {
+                toCreate.add(record);
+            }
+        }
+        final List<DomainRecord> toDelete = new ArrayList<>();
+        if (prune) {
+            for (final DomainRecord record : live) {
+                final Deque<DomainRecord> remaining = liveByKey.get(DomainRecordKey.of(record));
+                if (remaining.remove(record)) {
+                    toDelete.add(record);
+                }
+            }
+        }
+        return new ZoneSyncPlan(toCreate, toDelete, unchanged);
+    }
+
+    /**
+     * @return the desired records missing from the server
+     */
+    @NotNull
+    public List<DomainRecord> getToCreate() {
+        return toCreate;
+    }
+
+    /**
+     * @return the live records not desired
+     */
+    @NotNull
+    public List<DomainRecord> getToDelete() {
+        return toDelete;
+    }
+
+    /**
+     * @return the live records already as desired
+     */
+    @NotNull
+    public List<DomainRecord> getUnchanged() {
+        return unchanged;
+    }
+
+    /**
+     * @return whether the live records are already as desired
+     */
+    public boolean isEmpty() {
+        return this.toCreate.isEmpty() && this.toDelete.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "ZoneSyncPlan{" +
+                "toCreate=" + toCreate.size() +
+                ", toDelete=" + toDelete.size() +
+                ", unchanged=" + unchanged.size() +
+                '}';
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.dns;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Outcome of a {@link ZoneSync}
+ */
+public final class ZoneSyncResult {
+
+    @NotNull
+    private final ZoneSyncPlan plan;
+    private final boolean dryRun;
+    @Nullable
+    private final DomainRecordBatchResult creations;
+    @Nullable
+    private final DomainRecordBatchResult deletions;
+
+    ZoneSyncResult(@NotNull final ZoneSyncPlan plan,
+                   final boolean dryRun,
+                   @Nullable final DomainRecordBatchResult creations,
+                   @Nullable final DomainRecordBatchResult deletions) {
+        this.plan = plan;
+        this.dryRun = dryRun;
+        this.creations = creations;
+        this.deletions = deletions;
+    }
+
+    @NotNull
+    public ZoneSyncPlan getPlan() {
+        return plan;
+    }
+
+    /**
+     * @return whether the plan was only computed, and not applied
+     */
+    public boolean isDryRun() {
+        return dryRun;
+    }
+
+    /**
+     * @return the outcome of the creations, or {@code null} if not applied
+     */
+    @Nullable
+    public DomainRecordBatchResult getCreations() {
+        return creations;
+    }
+
+    /**
+     * @return the outcome of the deletions, or {@code null} if not applied, either because of a dry run,
+     * or because some creations failed
+     */
+    @Nullable
+    public DomainRecordBatchResult getDeletions() {
+        return deletions;
+    }
+
+    /**
+     * @return whether the live records are now as desired
+     */
+    public boolean isComplete() {
+        if (this.plan.isEmpty()) {
+            return true;
+        }
+        return !this.dryRun
+                && (this.plan.getToCreate().isEmpty() || (this.creations != null && this.creations.isComplete()))
+                && (this.plan.getToDelete().isEmpty() || (this.deletions != null && this.deletions.isComplete()));
+    }
+
+    @Override
+    public String toString() {
+        return "ZoneSyncResult{" +
+                "plan=" + plan +
+                ", dryRun=" + dryRun +
+                ", creations=" + creations +
+                ", deletions=" + deletions +
+                '}';
+    }
+}
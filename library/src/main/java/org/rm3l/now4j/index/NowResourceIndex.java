@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.index;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.NowService;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.aliases.Alias;
+import org.rm3l.now4j.resources.certs.Certificate;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.domains.Domain;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+import retrofit2.Call;
+import retrofit2.Response;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory snapshot of the deployments, aliases, domains (with their DNS records) and certificates of an account,
+ * indexed for lookups in constant time, without any network call.
+ * <p>
+ * The snapshot is loaded once with {@link #refresh()}, then refreshed in the background, if a refresh interval is
+ * set. Each refresh lists all resources again, but only fetches the DNS records of new domains, plus those of a
+ * few other domains, in turn. Lookups always see a consistent snapshot, swapped atomically after each refresh.
+ * Domains whose records could not be fetched keep their previous ones, and their error is reported by
+ * {@link #getDomainRecordsErrors()}, without failing the refresh.
+ * <p>
+ * Combined with a {@link org.rm3l.now4j.cache.ResponseCache} on the client, listings that did not change are
+ * revalidated with conditional requests.
+ */
+public final class NowResourceIndex implements Closeable {
+
+    public static final int DEFAULT_RECORDS_REFRESH_BATCH_SIZE = 10;
+
+    private static final String WILDCARD_PREFIX = "*.";
+
+    @NotNull
+    private final NowService nowService;
+    private final long refreshIntervalMillis;
+    private final boolean includeRecords;
+    private final int recordsRefreshBatchSize;
+    @Nullable
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+
+    @NotNull
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    @Nullable
+    private volatile Exception lastRefreshError;
+    @Nullable
+    private ScheduledFuture<?> refreshTask;
+
+    //Rather than a monitor, which would pin virtual threads while refreshing
+    @NotNull
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    //Domains whose records were refreshed the longest ago come first. Only accessed while refreshing.
+    @NotNull
+    private final Deque<String> recordsRefreshQueue = new ArrayDeque<>();
+
+    private NowResourceIndex(@NotNull final Builder builder) {
+        this.nowService = builder.nowService;
+        this.refreshIntervalMillis = builder.refreshIntervalMillis;
+        this.includeRecords = builder.includeRecords;
+        this.recordsRefreshBatchSize = builder.recordsRefreshBatchSize;
+        if (builder.refreshIntervalMillis <= 0L) {
+            this.scheduler = null;
+            this.ownsScheduler = false;
+        } else {
+            this.ownsScheduler = builder.scheduler == null;
+            this.scheduler = builder.scheduler != null ? builder.scheduler :
+                    Executors.newSingleThreadScheduledExecutor(r -> {
+                        final Thread thread = new Thread(r, "now4j-resource-index");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+        }
+    }
+
+    public static Builder builder(@NotNull final NowService nowService) {
+        return new Builder(nowService);
+    }
+
+    /**
+     * Loads a fresh snapshot, then schedules background refreshes, if a refresh interval is set
+     *
+     * @throws IOException if a problem occurred talking to the server.
+     */
+    public void refresh() throws IOException {
+        this.refreshLock.lock();
+        try {
+            this.doRefresh();
+            if (this.scheduler != null && this.refreshTask == null) {
+                this.refreshTask = this.scheduler.scheduleWithFixedDelay(() -> {
+                    this.refreshLock.lock();
+                    try {
+                        this.doRefresh();
+                    } catch (final Exception e) {
+                        //Keep serving the previous snapshot
+                        this.lastRefreshError = e;
+                    } finally {
+                        this.refreshLock.unlock();
+                    }
+                }, this.refreshIntervalMillis, this.refreshIntervalMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            this.refreshLock.unlock();
+        }
+    }
+
+    private void doRefresh() throws IOException {
+        final Snapshot previous = this.snapshot;
+        final List<Deployment> deployments = body(this.nowService.getDeployments()).getDeployments();
+        final List<Alias> aliases = body(this.nowService.getAliases()).getAliases();
+        final List<Domain> domains = body(this.nowService.getDomains()).getDomains();
+        final List<Certificate> certificates = body(this.nowService.getCertificates()).getCerts();
+
+        final Map<String, Domain> domainsByName = new HashMap<>();
+        if (domains != null) {
+            for (final Domain domain : domains) {
+                domainsByName.put(domain.getName(), domain);
+            }
+        }
+        final Map<String, List<DomainRecord>> recordsByDomain = new HashMap<>();
+        final Map<String, Exception> recordsErrors = new HashMap<>();
+        if (this.includeRecords) {
+            final Set<String> toFetch = new HashSet<>();
+            for (final String name : domainsByName.keySet()) {
+                final List<DomainRecord> records = previous.recordsByDomain.get(name);
+                if (records != null) {
+                    recordsByDomain.put(name, records);
+                } else {
+                    toFetch.add(name);
+                }
+            }
+            this.recordsRefreshQueue.retainAll(domainsByName.keySet());
+            final Iterator<String> oldestRefreshed = this.recordsRefreshQueue.iterator();
+            for (int i = 0; i < this.recordsRefreshBatchSize && oldestRefreshed.hasNext(); i++) {
+                toFetch.add(oldestRefreshed.next());
+            }
+            for (final String name : toFetch) {
+                try {
+                    final List<DomainRecord> records = body(this.nowService.getDomainRecords(name)).getRecords();
+                    recordsByDomain.put(name, records != null ?
+                            Collections.unmodifiableList(new ArrayList<>(records)) : Collections.emptyList());
+                } catch (final IOException | RuntimeException e) {
+                    //Keep the previous records, if any, rather than throwing away the whole snapshot
+                    recordsErrors.put(name, e);
+                }
+                this.recordsRefreshQueue.remove(name);
+                this.recordsRefreshQueue.addLast(name);
+            }
+        }
+        this.snapshot = new Snapshot(deployments, aliases, domainsByName, recordsByDomain, recordsErrors,
+                certificates);
+        this.lastRefreshError = null;
+    }
+
+    @NotNull
+    private static <T> T body(@NotNull final Call<T> call) throws IOException {
+        final Response<T> response = call.execute();
+        final T body = response.body();
+        if (!response.isSuccessful() || body == null) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        return body;
+    }
+
+    /**
+     * @return when the current snapshot was loaded, in milliseconds since the epoch, or <code>0</code> if never
+     */
+    public long getLastRefreshMillis() {
+        return this.snapshot.createdAtMillis;
+    }
+
+    /**
+     * @return the error of the last background refresh, or {@code null} if it succeeded
+     */
+    @Nullable
+    public Exception getLastRefreshError() {
+        return lastRefreshError;
+    }
+
+    /**
+     * @return the errors of the last attempts at fetching DNS records, by domain name. Those domains keep the records
+     * fetched before, if any, and are attempted again on subsequent refreshes.
+     */
+    @NotNull
+    public Map<String, Exception> getDomainRecordsErrors() {
+        return this.snapshot.recordsErrors;
+    }
+
+    @Nullable
+    public Deployment getDeployment(@NotNull final String deploymentId) {
+        return this.snapshot.deploymentsById.get(deploymentId);
+    }
+
+    @Nullable
+    public Alias getAlias(@NotNull final String alias) {
+        return this.snapshot.aliasesByName.get(alias);
+    }
+
+    /**
+     * @param alias the alias, e.g., <code>my-app.now.sh</code>
+     * @return the deployment the alias points at, or {@code null} if unknown
+     */
+    @Nullable
+    public Deployment getDeploymentForAlias(@NotNull final String alias) {
+        final Alias found = this.snapshot.aliasesByName.get(alias);
+        return found != null && found.getDeploymentId() != null ?
+                this.snapshot.deploymentsById.get(found.getDeploymentId()) : null;
+    }
+
+    /**
+     * @param deploymentId the deployment identifier
+     * @return the aliases pointing at the deployment
+     */
+    @NotNull
+    public List<Alias> getAliasesForDeployment(@NotNull final String deploymentId) {
+        final List<Alias> aliases = this.snapshot.aliasesByDeploymentId.get(deploymentId);
+        return aliases != null ? aliases : Collections.emptyList();
+    }
+
+    @Nullable
+    public Domain getDomain(@NotNull final String domainName) {
+        return this.snapshot.domainsByName.get(domainName);
+    }
+
+    /**
+     * @param domainName the domain name
+     * @return the DNS records of the domain, empty if unknown or if records are not indexed
+     */
+    @NotNull
+    public List<DomainRecord> getDomainRecords(@NotNull final String domainName) {
+        final List<DomainRecord> records = this.snapshot.recordsByDomain.get(domainName);
+        return records != null ? records : Collections.emptyList();
+    }
+
+    /**
+     * @param commonName the common name, e.g., <code>example.com</code> or <code>*.example.com</code>
+     * @return the certificate with this exact common name, or {@code null} if none
+     */
+    @Nullable
+    public Certificate getCertificate(@NotNull final String commonName) {
+        return this.snapshot.certificatesByCn.get(commonName);
+    }
+
+    /**
+     * @param hostname the hostname
+     * @return the certificate for this hostname, or else the wildcard certificate covering it, if any
+     */
+    @Nullable
+    public Certificate findCertificate(@NotNull final String hostname) {
+        return findCertificate(this.snapshot.certificatesByCn, hostname);
+    }
+
+    /**
+     * @return the domains not covered by any certificate
+     */
+    @NotNull
+    public List<Domain> getDomainsWithoutCertificate() {
+        return this.snapshot.domainsWithoutCertificate;
+    }
+
+    @NotNull
+    public List<Deployment> getDeployments() {
+        return this.snapshot.deployments;
+    }
+
+    @NotNull
+    public List<Alias> getAliases() {
+        return this.snapshot.aliases;
+    }
+
+    @NotNull
+    public List<Domain> getDomains() {
+        return this.snapshot.domains;
+    }
+
+    @NotNull
+    public List<Certificate> getCertificates() {
+        return this.snapshot.certificates;
+    }
+
+    /**
+     * Stops refreshing in the background. The last snapshot remains available.
+     */
+    @Override
+    public void close() {
+        this.refreshLock.lock();
+        try {
+            if (this.refreshTask != null) {
+                this.refreshTask.cancel(false);
+                this.refreshTask = null;
+            }
+            if (this.ownsScheduler && this.scheduler != null) {
+                this.scheduler.shutdownNow();
+            }
+        } finally {
+            this.refreshLock.unlock();
+        }
+    }
+
+    @Nullable
+    private static Certificate findCertificate(@NotNull final Map<String, Certificate> certificatesByCn,
+                                               @NotNull final String hostname) {
+        final Certificate certificate = certificatesByCn.get(hostname);
+        if (certificate != null) {
+            return certificate;
+        }
+        final int dot = hostname.indexOf('.');
+        return dot > 0 ? certificatesByCn.get(WILDCARD_PREFIX + hostname.substring(dot + 1)) : null;
+    }
+
+    private static final class Snapshot {
+
+        private static final Snapshot EMPTY = new Snapshot(null, null,
+                Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(), null, 0L);
+
+        @NotNull
+        private final List<Deployment> deployments;
+        @NotNull
+        private final List<Alias> aliases;
+        @NotNull
+        private final List<Domain> domains;
+        @NotNull
+        private final List<Certificate> certificates;
+        @NotNull
+        private final Map<String, Deployment> deploymentsById = new HashMap<>();
+        @NotNull
+        private final Map<String, Alias> aliasesByName = new HashMap<>();
+        @NotNull
+        private final Map<String, List<Alias>> aliasesByDeploymentId = new HashMap<>();
+        @NotNull
+        private final Map<String, Domain> domainsByName;
+        @NotNull
+        private final Map<String, List<DomainRecord>> recordsByDomain;
+        @NotNull
+        private final Map<String, Exception> recordsErrors;
+        @NotNull
+        private final Map<String, Certificate> certificatesByCn = new HashMap<>();
+        @NotNull
+        private final List<Domain> domainsWithoutCertificate;
+        private final long createdAtMillis;
+
+        private Snapshot(@Nullable final List<Deployment> deployments,
+                         @Nullable final List<Alias> aliases,
+                         @NotNull final Map<String, Domain> domainsByName,
+                         @NotNull final Map<String, List<DomainRecord>> recordsByDomain,
+                         @NotNull final Map<String, Exception> recordsErrors,
+                         @Nullable final List<Certificate> certificates) {
+            this(deployments, aliases, domainsByName, recordsByDomain, recordsErrors, certificates,
+                    System.currentTimeMillis());
+        }
+
+        private Snapshot(@Nullable final List<Deployment> deployments,
+                         @Nullable final List<Alias> aliases,
+                         @NotNull final Map<String, Domain> domainsByName,
+                         @NotNull final Map<String, List<DomainRecord>> recordsByDomain,
+                         @NotNull final Map<String, Exception> recordsErrors,
+                         @Nullable final List<Certificate> certificates,
+                         final long createdAtMillis) {
+            this.deployments = unmodifiableCopy(deployments);
+            this.aliases = unmodifiableCopy(aliases);
+            this.domains = unmodifiableCopy(domainsByName.values());
+            this.certificates = unmodifiableCopy(certificates);
+            this.domainsByName = domainsByName;
+            this.recordsByDomain = recordsByDomain;
+            this.recordsErrors = Collections.unmodifiableMap(recordsErrors);
+            this.createdAtMillis = createdAtMillis;
+            for (final Deployment deployment : this.deployments) {
+                this.deploymentsById.put(deployment.getUid(), deployment);
+            }
+            final Map<String, List<Alias>> aliasesByDeploymentId = new HashMap<>();
+            for (final Alias alias : this.aliases) {
+                this.aliasesByName.put(alias.getAlias(), alias);
+                if (alias.getDeploymentId() != null) {
+                    aliasesByDeploymentId.computeIfAbsent(alias.getDeploymentId(), id -> new ArrayList<>()).add(alias);
+                }
+            }
+            for (final Map.Entry<String, List<Alias>> entry : aliasesByDeploymentId.entrySet()) {
+                this.aliasesByDeploymentId.put(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+            }
+            for (final Certificate certificate : this.certificates) {
+                this.certificatesByCn.put(certificate.getCn(), certificate);
+            }
+            final List<Domain> domainsWithoutCertificate = new ArrayList<>();
+            for (final Domain domain : this.domains) {
+                if (findCertificate(this.certificatesByCn, domain.getName()) == null) {
+                    domainsWithoutCertificate.add(domain);
+                }
+            }
+            this.domainsWithoutCertificate = Collections.unmodifiableList(domainsWithoutCertificate);
+        }
+
+        @NotNull
+        private static <T> List<T> unmodifiableCopy(@Nullable final Collection<T> collection) {
+            return collection != null ? Collections.unmodifiableList(new ArrayList<>(collection)) :
+                    Collections.emptyList();
+        }
+    }
+
+    public static final class Builder {
+
+        @NotNull
+        private final NowService nowService;
+        private long refreshIntervalMillis;
+        private boolean includeRecords = true;
+        private int recordsRefreshBatchSize = DEFAULT_RECORDS_REFRESH_BATCH_SIZE;
+        @Nullable
+        private ScheduledExecutorService scheduler;
+
+        private Builder(@NotNull final NowService nowService) {
+            this.nowService = nowService;
+        }
+
+        /**
+         * @param refreshInterval interval between background refreshes. <code>0</code>, the default,
+         *                        disables background refreshes.
+         * @param timeUnit        unit of {@code refreshInterval}
+         * @return this builder
+         */
+        public Builder refreshInterval(final long refreshInterval, @NotNull final TimeUnit timeUnit) {
+            if (refreshInterval < 0L) {
+                throw new IllegalArgumentException("refreshInterval < 0: " + refreshInterval);
+            }
+            this.refreshIntervalMillis = timeUnit.toMillis(refreshInterval);
+            return this;
+        }
+
+        /**
+         * @param includeRecords whether to index the DNS records of domains, which takes one request per domain.
+         *                       Defaults to {@code true}.
+         * @return this builder
+         */
+        public Builder includeRecords(final boolean includeRecords) {
+            this.includeRecords = includeRecords;
+            return this;
+        }
+
+        /**
+         * @param recordsRefreshBatchSize number of known domains whose DNS records are fetched again on each refresh.
+         *                                Defaults to 10.
+         * @return this builder
+         */
+        public Builder recordsRefreshBatchSize(final int recordsRefreshBatchSize) {
+            if (recordsRefreshBatchSize < 0) {
+                throw new IllegalArgumentException("recordsRefreshBatchSize < 0: " + recordsRefreshBatchSize);
+            }
+            this.recordsRefreshBatchSize = recordsRefreshBatchSize;
+            return this;
+        }
+
+        /**
+         * @param scheduler scheduler for background refreshes, left running on {@link NowResourceIndex#close()}.
+         *                  Defaults to a dedicated single daemon thread.
+         * @return this builder
+         */
+        public Builder scheduler(@NotNull final ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public NowResourceIndex build() {
+            return new NowResourceIndex(this);
+        }
+    }
+}
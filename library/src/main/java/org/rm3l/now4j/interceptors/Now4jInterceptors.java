@@ -21,15 +21,29 @@
  */
 package org.rm3l.now4j.interceptors;
 
-import okhttp3.HttpUrl;
-import okhttp3.Interceptor;
-import okhttp3.Request;
-import okhttp3.Response;
+import okhttp3.*;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.ForwardingSource;
+import okio.Okio;
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.api.Endpoints;
+import org.rm3l.now4j.cache.CacheKeys;
+import org.rm3l.now4j.cache.CachedResponse;
+import org.rm3l.now4j.cache.ResponseCache;
+import org.rm3l.now4j.metrics.NowMetrics;
+import org.rm3l.now4j.retry.RetryBudget;
+import org.rm3l.now4j.retry.RetryPolicy;
 
 import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import static java.net.HttpURLConnection.HTTP_NOT_MODIFIED;
+import static java.net.HttpURLConnection.HTTP_OK;
 
 public final class Now4jInterceptors {
 
@@ -97,4 +111,346 @@ public final class Now4jInterceptors {
         }
     }
 
+    /**
+     * Revalidates cached responses to GET requests with conditional requests.
+     * <p>
+     * Responses still fresh or reported as not modified by the server are answered with an empty
+     * JSON body, and a request tagged with the {@link CachedResponse} to serve instead
+     * (see {@link org.rm3l.now4j.cache.CachingCallAdapterFactory}).
+     * Requests handing over the raw response body, such as streamed listings, always get the actual response.
+     */
+    public static final class ConditionalRequestInterceptor implements Interceptor {
+
+        private static final MediaType JSON = MediaType.parse("application/json; charset=utf-8");
+        private static final String NULL_JSON = "null";
+
+        @NotNull
+        private final ResponseCache cache;
+
+        public ConditionalRequestInterceptor(@NotNull final ResponseCache cache) {
+            this.cache = cache;
+        }
+
+        @Override
+        public Response intercept(final Chain chain) throws IOException {
+            final Request request = chain.request();
+            if (isMutation(request.method())) {
+                final Response response = chain.proceed(request);
+                if (response.isSuccessful()) {
+                    //Any mutation may affect the listings cached for the same credentials
+                    this.cache.invalidate(CacheKeys.prefixOf(request));
+                }
+                return response;
+            }
+            if (!"GET".equals(request.method())) {
+                //HEAD and OPTIONS neither change nor get cached listings
+                return chain.proceed(request);
+            }
+            if (Endpoints.hasRawBody(request)) {
+                //Streamed listings share their URL with the cached ones, but need the actual body
+                return chain.proceed(request);
+            }
+            final String key = CacheKeys.of(request);
+            final CachedResponse cachedResponse = this.cache.get(key);
+            if (cachedResponse == null) {
+                return chain.proceed(request);
+            }
+            final long now = System.currentTimeMillis();
+            if (cachedResponse.isFresh(now)) {
+                return new Response.Builder()
+                        .request(request.newBuilder().tag(CachedResponse.class, cachedResponse).build())
+                        .protocol(Protocol.HTTP_1_1)
+                        .code(HTTP_OK)
+                        .message("OK")
+                        .sentRequestAtMillis(now)
+                        .receivedResponseAtMillis(now)
+                        .body(ResponseBody.create(JSON, NULL_JSON))
+                        .build();
+            }
+            if (!cachedResponse.hasValidators()) {
+                return chain.proceed(request);
+            }
+            final Request.Builder conditionalRequestBuilder = request.newBuilder();
+            if (cachedResponse.getEtag() != null) {
+                conditionalRequestBuilder.header("If-None-Match", cachedResponse.getEtag());
+            }
+            if (cachedResponse.getLastModified() != null) {
+                conditionalRequestBuilder.header("If-Modified-Since", cachedResponse.getLastModified());
+            }
+            final Response response = chain.proceed(conditionalRequestBuilder.build());
+            if (response.code() != HTTP_NOT_MODIFIED) {
+                return response;
+            }
+            response.close();
+            final CachedResponse revalidatedResponse = cachedResponse.withExpiresAtMillis(
+                    System.currentTimeMillis() + this.cache.getTimeToLiveMillis(cachedResponse.getEndpoint()));
+            this.cache.put(key, revalidatedResponse);
+            return response.newBuilder()
+                    .request(response.request().newBuilder()
+                            .tag(CachedResponse.class, revalidatedResponse)
+                            .build())
+                    .code(HTTP_OK)
+                    .message("OK")
+                    .body(ResponseBody.create(JSON, NULL_JSON))
+                    .build();
+        }
+
+        private static boolean isMutation(@NotNull final String method) {
+            switch (method) {
+                case "POST":
+                case "PUT":
+                case "PATCH":
+                case "DELETE":
+                    return true;
+                default:
+                    return false;
+            }
+        }
+    }
+
+    /**
+     * Makes the calls of a client fail once it is closed. Calls already in progress are left to complete.
+     */
+    public static final class LifecycleInterceptor implements Interceptor {
+
+        private volatile boolean closed;
+
+        @Override
+        public Response intercept(final Chain chain) throws IOException {
+            if (this.closed) {
+                throw new IOException("Client closed");
+            }
+            return chain.proceed(chain.request());
+        }
+
+        public boolean isClosed() {
+            return this.closed;
+        }
+
+        public void close() {
+            this.closed = true;
+        }
+    }
+
+    /**
+     * Retries failed requests, as per a {@link RetryPolicy}.
+     * <p>
+     * Waiting between attempts blocks the calling thread, i.e., a thread from the dispatcher for asynchronous calls.
+     */
+    public static final class RetryInterceptor implements Interceptor {
+
+        @NotNull
+        private final RetryPolicy retryPolicy;
+        @Nullable
+        private final NowMetrics metrics;
+
+        public RetryInterceptor(@NotNull final RetryPolicy retryPolicy, @Nullable final NowMetrics metrics) {
+            this.retryPolicy = retryPolicy;
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Response intercept(final Chain chain) throws IOException {
+            final Request request = chain.request();
+            final RetryBudget budget = this.retryPolicy.getBudget();
+            budget.onRequest();
+            if (!this.retryPolicy.isRetryable(request)) {
+                return chain.proceed(request);
+            }
+            int retry = 0;
+            while (true) {
+                retry++;
+                long delayMillis;
+                try {
+                    final Response response = chain.proceed(request);
+                    if (!this.retryPolicy.isRetryable(response)
+                            || retry > this.retryPolicy.getMaxRetries()
+                            || chain.call().isCanceled()) {
+                        return response;
+                    }
+                    delayMillis = this.retryPolicy.delayMillis(response, retry);
+                    if (delayMillis < 0L || !budget.tryAcquire()) {
+                        return response;
+                    }
+                    response.close();
+                } catch (final IOException e) {
+                    if (retry > this.retryPolicy.getMaxRetries()
+                            || chain.call().isCanceled()
+                            || !budget.tryAcquire()) {
+                        throw e;
+                    }
+                    delayMillis = this.retryPolicy.backoffMillis(retry);
+                }
+                if (this.metrics != null) {
+                    final String name = Endpoints.nameOf(request);
+                    this.metrics.onRetry(name != null ? name : NowMetrics.UNKNOWN_ENDPOINT);
+                }
+                try {
+                    Thread.sleep(delayMillis);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    final InterruptedIOException interruptedIOException =
+                            new InterruptedIOException("Interrupted while waiting to retry");
+                    interruptedIOException.initCause(e);
+                    throw interruptedIOException;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records {@link NowMetrics} about each request going through the chain: latency, response code,
+     * and bytes sent and received, per {@link org.rm3l.now4j.api.NowService} endpoint.
+     * <p>
+     * Placed after any retrying interceptor, it records each attempt separately.
+     */
+    public static final class MetricsInterceptor implements Interceptor {
+
+        @NotNull
+        private final NowMetrics metrics;
+
+        public MetricsInterceptor(@NotNull final NowMetrics metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Response intercept(final Chain chain) throws IOException {
+            Request request = chain.request();
+            final String name = Endpoints.nameOf(request);
+            final String endpoint = name != null ? name : NowMetrics.UNKNOWN_ENDPOINT;
+            final RequestBody requestBody = request.body();
+            final CountingRequestBody countingRequestBody;
+            if (requestBody != null) {
+                countingRequestBody = new CountingRequestBody(requestBody);
+                request = request.newBuilder().method(request.method(), countingRequestBody).build();
+            } else {
+                countingRequestBody = null;
+            }
+            this.metrics.onRequestStart(endpoint);
+            final long start = System.nanoTime();
+            final Response response;
+            try {
+                response = chain.proceed(request);
+            } catch (final IOException | RuntimeException e) {
+                this.metrics.onFailure(endpoint, System.nanoTime() - start, e);
+                throw e;
+            }
+            this.metrics.onResponse(endpoint, response.code(), System.nanoTime() - start,
+                    countingRequestBody != null ? countingRequestBody.bytesWritten : 0L);
+            final ResponseBody responseBody = response.body();
+            if (responseBody == null) {
+                return response;
+            }
+            return response.newBuilder()
+                    .body(new CountingResponseBody(responseBody, this.metrics, endpoint))
+                    .build();
+        }
+
+        private static final class CountingRequestBody extends RequestBody {
+
+            @NotNull
+            private final RequestBody delegate;
+            private volatile long bytesWritten;
+
+            private CountingRequestBody(@NotNull final RequestBody delegate) {
+                this.delegate = delegate;
+            }
+
+            @Nullable
+            @Override
+            public MediaType contentType() {
+                return this.delegate.contentType();
+            }
+
+            @Override
+            public long contentLength() throws IOException {
+                return this.delegate.contentLength();
+            }
+
+            @Override
+            public boolean isDuplex() {
+                return this.delegate.isDuplex();
+            }
+
+            @Override
+            public boolean isOneShot() {
+                return this.delegate.isOneShot();
+            }
+
+            @Override
+            public void writeTo(@NotNull final BufferedSink sink) throws IOException {
+                //Only the last write counts, should the body be written more than once
+                final long[] count = new long[1];
+                final BufferedSink countingSink = Okio.buffer(new ForwardingSink(sink) {
+                    @Override
+                    public void write(@NotNull final Buffer source, final long byteCount) throws IOException {
+                        super.write(source, byteCount);
+                        count[0] += byteCount;
+                    }
+                });
+                this.delegate.writeTo(countingSink);
+                countingSink.emit();
+                this.bytesWritten = count[0];
+            }
+        }
+
+        private static final class CountingResponseBody extends ResponseBody {
+
+            @NotNull
+            private final ResponseBody delegate;
+            @NotNull
+            private final BufferedSource source;
+
+            private CountingResponseBody(@NotNull final ResponseBody delegate,
+                                         @NotNull final NowMetrics metrics,
+                                         @NotNull final String endpoint) {
+                this.delegate = delegate;
+                this.source = Okio.buffer(new ForwardingSource(delegate.source()) {
+                    private long bytesRead;
+                    private boolean reported;
+
+                    @Override
+                    public long read(@NotNull final Buffer sink, final long byteCount) throws IOException {
+                        final long read = super.read(sink, byteCount);
+                        if (read == -1L) {
+                            this.report();
+                        } else {
+                            this.bytesRead += read;
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        this.report();
+                        super.close();
+                    }
+
+                    private void report() {
+                        if (!this.reported) {
+                            this.reported = true;
+                            metrics.onResponseBodyRead(endpoint, this.bytesRead);
+                        }
+                    }
+                });
+            }
+
+            @Nullable
+            @Override
+            public MediaType contentType() {
+                return this.delegate.contentType();
+            }
+
+            @Override
+            public long contentLength() {
+                return this.delegate.contentLength();
+            }
+
+            @NotNull
+            @Override
+            public BufferedSource source() {
+                return this.source;
+            }
+        }
+    }
 }
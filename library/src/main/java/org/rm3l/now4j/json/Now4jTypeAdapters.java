@@ -0,0 +1,1089 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonSyntaxException;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.resources.aliases.Alias;
+import org.rm3l.now4j.resources.aliases.Aliases;
+import org.rm3l.now4j.resources.aliases.DeleteAliasResponse;
+import org.rm3l.now4j.resources.certs.Certificate;
+import org.rm3l.now4j.resources.certs.CertificateCreationOrUpdateRequest;
+import org.rm3l.now4j.resources.certs.CertificateCreationOrUpdateResponse;
+import org.rm3l.now4j.resources.certs.Certificates;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.deployments.DeploymentFileStructure;
+import org.rm3l.now4j.resources.deployments.DeploymentManifest;
+import org.rm3l.now4j.resources.deployments.GetDeploymentsResponse;
+import org.rm3l.now4j.resources.domains.Domain;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+import org.rm3l.now4j.resources.domains.DomainRecordCreationRequest;
+import org.rm3l.now4j.resources.domains.DomainRecords;
+import org.rm3l.now4j.resources.domains.Domains;
+import org.rm3l.now4j.resources.secrets.CreateOrUpdateSecretRequest;
+import org.rm3l.now4j.resources.secrets.GetSecretsResponse;
+import org.rm3l.now4j.resources.secrets.Secret;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hand-written Gson {@link TypeAdapter}s for all classes in {@link org.rm3l.now4j.resources},
+ * so that responses are (de)serialized without any reflection.
+ * <p>
+ * They produce and accept the same JSON as Gson's reflective adapters: fields are named after
+ * the Java fields, unknown fields are ignored, and null fields are omitted unless the {@link Gson} instance
+ * is told otherwise.
+ */
+public final class Now4jTypeAdapters {
+
+    /**
+     * Factory of the adapters for all resource classes
+     */
+    public static final TypeAdapterFactory FACTORY = new Factory();
+
+    /**
+     * Shared, preconfigured {@link Gson} instance, with {@link #FACTORY} registered
+     */
+    public static final Gson GSON = new GsonBuilder().registerTypeAdapterFactory(FACTORY).create();
+
+    private Now4jTypeAdapters() {
+        throw new UnsupportedOperationException("Not instantiable");
+    }
+
+    private static final class Factory implements TypeAdapterFactory {
+
+        @NotNull
+        private final Map<Class<?>, TypeAdapter<?>> adapters;
+
+        private Factory() {
+            final Map<Class<?>, TypeAdapter<?>> adapters = new HashMap<>();
+            adapters.put(Alias.class, AliasAdapter.INSTANCE);
+            adapters.put(Aliases.class, AliasesAdapter.INSTANCE);
+            adapters.put(DeleteAliasResponse.class, DeleteAliasResponseAdapter.INSTANCE);
+            adapters.put(Certificate.class, CertificateAdapter.INSTANCE);
+            adapters.put(CertificateCreationOrUpdateRequest.class, CertificateCreationOrUpdateRequestAdapter.INSTANCE);
+            adapters.put(CertificateCreationOrUpdateResponse.class, CertificateCreationOrUpdateResponseAdapter.INSTANCE);
+            adapters.put(Certificates.class, CertificatesAdapter.INSTANCE);
+            adapters.put(Deployment.class, DeploymentAdapter.INSTANCE);
+            adapters.put(Deployment.State.class, DeploymentStateAdapter.INSTANCE);
+            adapters.put(DeploymentFileStructure.class, DeploymentFileStructureAdapter.INSTANCE);
+            adapters.put(DeploymentFileStructure.Child.class, DeploymentFileStructureChildAdapter.INSTANCE);
+            adapters.put(DeploymentManifest.class, DeploymentManifestAdapter.INSTANCE);
+            adapters.put(DeploymentManifest.File.class, DeploymentManifestFileAdapter.INSTANCE);
+            adapters.put(GetDeploymentsResponse.class, GetDeploymentsResponseAdapter.INSTANCE);
+            adapters.put(Domain.class, DomainAdapter.INSTANCE);
+            adapters.put(DomainRecord.class, DomainRecordAdapter.INSTANCE);
+            adapters.put(DomainRecordCreationRequest.class, DomainRecordCreationRequestAdapter.INSTANCE);
+            adapters.put(DomainRecords.class, DomainRecordsAdapter.INSTANCE);
+            adapters.put(Domains.class, DomainsAdapter.INSTANCE);
+            adapters.put(CreateOrUpdateSecretRequest.class, CreateOrUpdateSecretRequestAdapter.INSTANCE);
+            adapters.put(GetSecretsResponse.class, GetSecretsResponseAdapter.INSTANCE);
+            adapters.put(Secret.class, SecretAdapter.INSTANCE);
+            this.adapters = Collections.unmodifiableMap(adapters);
+        }
+
+        @Nullable
+        @Override
+        public <T> TypeAdapter<T> create(@NotNull final Gson gson, @NotNull final TypeToken<T> type) {
+            @SuppressWarnings("unchecked") final TypeAdapter<T> adapter =
+                    (TypeAdapter<T>) this.adapters.get(type.getRawType());
+            return adapter;
+        }
+    }
+
+    /**
+     * Base adapter for JSON objects mapped to a mutable resource class
+     */
+    private abstract static class ResourceAdapter<T> extends TypeAdapter<T> {
+
+        @NotNull
+        abstract T newInstance();
+
+        /**
+         * Reads the value of the field named, skipping it if unknown
+         */
+        abstract void readField(@NotNull JsonReader in, @NotNull String name, @NotNull T target) throws IOException;
+
+        abstract void writeFields(@NotNull JsonWriter out, @NotNull T value) throws IOException;
+
+        @Override
+        public final void write(final JsonWriter out, final T value) throws IOException {
+            if (value == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            this.writeFields(out, value);
+            out.endObject();
+        }
+
+        @Override
+        public final T read(final JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            final T target = this.newInstance();
+            in.beginObject();
+            while (in.hasNext()) {
+                this.readField(in, in.nextName(), target);
+            }
+            in.endObject();
+            return target;
+        }
+    }
+
+    private static final TypeAdapter<String> STRING = new TypeAdapter<String>() {
+        @Override
+        public void write(final JsonWriter out, final String value) throws IOException {
+            out.value(value);
+        }
+
+        @Override
+        public String read(final JsonReader in) throws IOException {
+            return readString(in);
+        }
+    };
+
+    @Nullable
+    private static String readString(@NotNull final JsonReader in) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.BOOLEAN) {
+            return Boolean.toString(in.nextBoolean());
+        }
+        return in.nextString();
+    }
+
+    @Nullable
+    private static Boolean readBoolean(@NotNull final JsonReader in) throws IOException {
+        final JsonToken token = in.peek();
+        if (token == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        if (token == JsonToken.STRING) {
+            return Boolean.parseBoolean(in.nextString());
+        }
+        return in.nextBoolean();
+    }
+
+    @Nullable
+    private static Long readLong(@NotNull final JsonReader in) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        try {
+            return in.nextLong();
+        } catch (final NumberFormatException e) {
+            throw new JsonSyntaxException(e);
+        }
+    }
+
+    @Nullable
+    private static <T> List<T> readList(@NotNull final JsonReader in,
+                                        @NotNull final TypeAdapter<T> elementAdapter) throws IOException {
+        if (in.peek() == JsonToken.NULL) {
+            in.nextNull();
+            return null;
+        }
+        final List<T> list = new ArrayList<>();
+        in.beginArray();
+        while (in.hasNext()) {
+            list.add(elementAdapter.read(in));
+        }
+        in.endArray();
+        return list;
+    }
+
+    private static <T> void writeList(@NotNull final JsonWriter out,
+                                      @Nullable final List<T> list,
+                                      @NotNull final TypeAdapter<T> elementAdapter) throws IOException {
+        if (list == null) {
+            out.nullValue();
+            return;
+        }
+        out.beginArray();
+        for (final T element : list) {
+            elementAdapter.write(out, element);
+        }
+        out.endArray();
+    }
+
+    //Aliases
+
+    private static final class AliasAdapter extends ResourceAdapter<Alias> {
+
+        static final AliasAdapter INSTANCE = new AliasAdapter();
+
+        @NotNull
+        @Override
+        Alias newInstance() {
+            return new Alias();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final Alias target)
+                throws IOException {
+            switch (name) {
+                case "oldId":
+                    target.setOldId(readString(in));
+                    break;
+                case "uid":
+                    target.setUid(readString(in));
+                    break;
+                case "alias":
+                    target.setAlias(readString(in));
+                    break;
+                case "created":
+                    target.setCreated(readString(in));
+                    break;
+                case "deploymentId":
+                    target.setDeploymentId(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final Alias value) throws IOException {
+            out.name("oldId").value(value.getOldId());
+            out.name("uid").value(value.getUid());
+            out.name("alias").value(value.getAlias());
+            out.name("created").value(value.getCreated());
+            out.name("deploymentId").value(value.getDeploymentId());
+        }
+    }
+
+    private static final class AliasesAdapter extends ResourceAdapter<Aliases> {
+
+        static final AliasesAdapter INSTANCE = new AliasesAdapter();
+
+        @NotNull
+        @Override
+        Aliases newInstance() {
+            return new Aliases();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final Aliases target)
+                throws IOException {
+            if ("aliases".equals(name)) {
+                target.setAliases(readList(in, AliasAdapter.INSTANCE));
+            } else {
+                in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final Aliases value) throws IOException {
+            out.name("aliases");
+            writeList(out, value.getAliases(), AliasAdapter.INSTANCE);
+        }
+    }
+
+    private static final class DeleteAliasResponseAdapter extends ResourceAdapter<DeleteAliasResponse> {
+
+        static final DeleteAliasResponseAdapter INSTANCE = new DeleteAliasResponseAdapter();
+
+        @NotNull
+        @Override
+        DeleteAliasResponse newInstance() {
+            return new DeleteAliasResponse();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final DeleteAliasResponse target) throws IOException {
+            if ("status".equals(name)) {
+                target.setStatus(readString(in));
+            } else {
+                in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final DeleteAliasResponse value)
+                throws IOException {
+            out.name("status").value(value.getStatus());
+        }
+    }
+
+    //Certificates
+
+    private static final class CertificateAdapter extends ResourceAdapter<Certificate> {
+
+        static final CertificateAdapter INSTANCE = new CertificateAdapter();
+
+        @NotNull
+        @Override
+        Certificate newInstance() {
+            return new Certificate();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final Certificate target)
+                throws IOException {
+            switch (name) {
+                case "cn":
+                    target.setCn(readString(in));
+                    break;
+                case "uid":
+                    target.setUid(readString(in));
+                    break;
+                case "created":
+                    target.setCreated(readString(in));
+                    break;
+                case "expiration":
+                    target.setExpiration(readString(in));
+                    break;
+                case "autoRenew":
+                    target.setAutoRenew(readBoolean(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final Certificate value) throws IOException {
+            out.name("cn").value(value.getCn());
+            out.name("uid").value(value.getUid());
+            out.name("created").value(value.getCreated());
+            out.name("expiration").value(value.getExpiration());
+            out.name("autoRenew").value(value.getAutoRenew());
+        }
+    }
+
+    private static final class CertificateCreationOrUpdateRequestAdapter
+            extends ResourceAdapter<CertificateCreationOrUpdateRequest> {
+
+        static final CertificateCreationOrUpdateRequestAdapter INSTANCE =
+                new CertificateCreationOrUpdateRequestAdapter();
+
+        @NotNull
+        @Override
+        CertificateCreationOrUpdateRequest newInstance() {
+            return new CertificateCreationOrUpdateRequest();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final CertificateCreationOrUpdateRequest target) throws IOException {
+            switch (name) {
+                case "domains":
+                    target.setDomains(readList(in, STRING));
+                    break;
+                case "renew":
+                    target.setRenew(readBoolean(in));
+                    break;
+                case "ca":
+                    target.setCa(readString(in));
+                    break;
+                case "cert":
+                    target.setCert(readString(in));
+                    break;
+                case "key":
+                    target.setKey(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final CertificateCreationOrUpdateRequest value)
+                throws IOException {
+            out.name("domains");
+            writeList(out, value.getDomains(), STRING);
+            out.name("renew").value(value.getRenew());
+            out.name("ca").value(value.getCa());
+            out.name("cert").value(value.getCert());
+            out.name("key").value(value.getKey());
+        }
+    }
+
+    private static final class CertificateCreationOrUpdateResponseAdapter
+            extends ResourceAdapter<CertificateCreationOrUpdateResponse> {
+
+        static final CertificateCreationOrUpdateResponseAdapter INSTANCE =
+                new CertificateCreationOrUpdateResponseAdapter();
+
+        @NotNull
+        @Override
+        CertificateCreationOrUpdateResponse newInstance() {
+            return new CertificateCreationOrUpdateResponse();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final CertificateCreationOrUpdateResponse target) throws IOException {
+            switch (name) {
+                case "uid":
+                    target.setUid(readString(in));
+                    break;
+                case "created_at":
+                    target.setCreated_at(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final CertificateCreationOrUpdateResponse value)
+                throws IOException {
+            out.name("uid").value(value.getUid());
+            out.name("created_at").value(value.getCreated_at());
+        }
+    }
+
+    private static final class CertificatesAdapter extends ResourceAdapter<Certificates> {
+
+        static final CertificatesAdapter INSTANCE = new CertificatesAdapter();
+
+        @NotNull
+        @Override
+        Certificates newInstance() {
+            return new Certificates();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final Certificates target)
+                throws IOException {
+            if ("certs".equals(name)) {
+                target.setCerts(readList(in, CertificateAdapter.INSTANCE));
+            } else {
+                in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final Certificates value) throws IOException {
+            out.name("certs");
+            writeList(out, value.getCerts(), CertificateAdapter.INSTANCE);
+        }
+    }
+
+    //Deployments
+
+    private static final class DeploymentStateAdapter extends TypeAdapter<Deployment.State> {
+
+        static final DeploymentStateAdapter INSTANCE = new DeploymentStateAdapter();
+
+        @NotNull
+        private final Map<String, Deployment.State> statesByName;
+
+        private DeploymentStateAdapter() {
+            final Map<String, Deployment.State> statesByName = new HashMap<>();
+            for (final Deployment.State state : Deployment.State.values()) {
+                statesByName.put(state.name(), state);
+            }
+            this.statesByName = Collections.unmodifiableMap(statesByName);
+        }
+
+        @Override
+        public void write(final JsonWriter out, final Deployment.State value) throws IOException {
+            out.value(value != null ? value.name() : null);
+        }
+
+        @Override
+        public Deployment.State read(final JsonReader in) throws IOException {
+            final String name = readString(in);
+            //Unknown states are read as null, like Gson does
+            return name != null ? this.statesByName.get(name) : null;
+        }
+    }
+
+    private static final class DeploymentAdapter extends ResourceAdapter<Deployment> {
+
+        static final DeploymentAdapter INSTANCE = new DeploymentAdapter();
+
+        @NotNull
+        @Override
+        Deployment newInstance() {
+            return new Deployment();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final Deployment target)
+                throws IOException {
+            switch (name) {
+                case "uid":
+                    target.setUid(readString(in));
+                    break;
+                case "host":
+                    target.setHost(readString(in));
+                    break;
+                case "state":
+                    target.setState(DeploymentStateAdapter.INSTANCE.read(in));
+                    break;
+                case "stateTs":
+                    target.setStateTs(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final Deployment value) throws IOException {
+            out.name("uid").value(value.getUid());
+            out.name("host").value(value.getHost());
+            out.name("state");
+            DeploymentStateAdapter.INSTANCE.write(out, value.getState());
+            out.name("stateTs").value(value.getStateTs());
+        }
+    }
+
+    private static final class DeploymentFileStructureAdapter extends ResourceAdapter<DeploymentFileStructure> {
+
+        static final DeploymentFileStructureAdapter INSTANCE = new DeploymentFileStructureAdapter();
+
+        @NotNull
+        @Override
+        DeploymentFileStructure newInstance() {
+            return new DeploymentFileStructure();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final DeploymentFileStructure target) throws IOException {
+            switch (name) {
+                case "type":
+                    target.setType(readString(in));
+                    break;
+                case "name":
+                    target.setName(readString(in));
+                    break;
+                case "uid":
+                    target.setUid(readString(in));
+                    break;
+                case "children":
+                    target.setChildren(readList(in, DeploymentFileStructureChildAdapter.INSTANCE));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final DeploymentFileStructure value)
+                throws IOException {
+            out.name("type").value(value.getType());
+            out.name("name").value(value.getName());
+            out.name("uid").value(value.getUid());
+            out.name("children");
+            writeList(out, value.getChildren(), DeploymentFileStructureChildAdapter.INSTANCE);
+        }
+    }
+
+    private static final class DeploymentFileStructureChildAdapter
+            extends ResourceAdapter<DeploymentFileStructure.Child> {
+
+        static final DeploymentFileStructureChildAdapter INSTANCE = new DeploymentFileStructureChildAdapter();
+
+        @NotNull
+        @Override
+        DeploymentFileStructure.Child newInstance() {
+            return new DeploymentFileStructure.Child();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final DeploymentFileStructure.Child target) throws IOException {
+            switch (name) {
+                case "type":
+                    target.setType(readString(in));
+                    break;
+                case "name":
+                    target.setName(readString(in));
+                    break;
+                case "uid":
+                    target.setUid(readString(in));
+                    break;
+                case "children":
+                    target.setChildren(readList(in, this));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final DeploymentFileStructure.Child value)
+                throws IOException {
+            out.name("type").value(value.getType());
+            out.name("name").value(value.getName());
+            out.name("uid").value(value.getUid());
+            out.name("children");
+            writeList(out, value.getChildren(), this);
+        }
+    }
+
+    private static final class DeploymentManifestAdapter extends ResourceAdapter<DeploymentManifest> {
+
+        static final DeploymentManifestAdapter INSTANCE = new DeploymentManifestAdapter();
+
+        @NotNull
+        @Override
+        DeploymentManifest newInstance() {
+            return new DeploymentManifest();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final DeploymentManifest target) throws IOException {
+            switch (name) {
+                case "name":
+                    target.setName(readString(in));
+                    break;
+                case "deploymentType":
+                    target.setDeploymentType(readString(in));
+                    break;
+                case "files":
+                    target.setFiles(readList(in, DeploymentManifestFileAdapter.INSTANCE));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final DeploymentManifest value)
+                throws IOException {
+            out.name("name").value(value.getName());
+            out.name("deploymentType").value(value.getDeploymentType());
+            out.name("files");
+            writeList(out, value.getFiles(), DeploymentManifestFileAdapter.INSTANCE);
+        }
+    }
+
+    private static final class DeploymentManifestFileAdapter extends ResourceAdapter<DeploymentManifest.File> {
+
+        static final DeploymentManifestFileAdapter INSTANCE = new DeploymentManifestFileAdapter();
+
+        @NotNull
+        @Override
+        DeploymentManifest.File newInstance() {
+            return new DeploymentManifest.File();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final DeploymentManifest.File target) throws IOException {
+            switch (name) {
+                case "file":
+                    target.setFile(readString(in));
+                    break;
+                case "sha":
+                    target.setSha(readString(in));
+                    break;
+                case "size":
+                    final Long size = readLong(in);
+                    if (size != null) {
+                        target.setSize(size);
+                    }
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final DeploymentManifest.File value)
+                throws IOException {
+            out.name("file").value(value.getFile());
+            out.name("sha").value(value.getSha());
+            out.name("size").value(value.getSize());
+        }
+    }
+
+    private static final class GetDeploymentsResponseAdapter extends ResourceAdapter<GetDeploymentsResponse> {
+
+        static final GetDeploymentsResponseAdapter INSTANCE = new GetDeploymentsResponseAdapter();
+
+        @NotNull
+        @Override
+        GetDeploymentsResponse newInstance() {
+            return new GetDeploymentsResponse();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final GetDeploymentsResponse target) throws IOException {
+            if ("deployments".equals(name)) {
+                target.setDeployments(readList(in, DeploymentAdapter.INSTANCE));
+            } else {
+                in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final GetDeploymentsResponse value)
+                throws IOException {
+            out.name("deployments");
+            writeList(out, value.getDeployments(), DeploymentAdapter.INSTANCE);
+        }
+    }
+
+    //Domains
+
+    private static final class DomainAdapter extends ResourceAdapter<Domain> {
+
+        static final DomainAdapter INSTANCE = new DomainAdapter();
+
+        @NotNull
+        @Override
+        Domain newInstance() {
+            return new Domain();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final Domain target)
+                throws IOException {
+            switch (name) {
+                case "uid":
+                    target.setUid(readString(in));
+                    break;
+                case "verified":
+                    target.setVerified(readBoolean(in));
+                    break;
+                case "verifyToken":
+                    target.setVerifyToken(readString(in));
+                    break;
+                case "created":
+                    target.setCreated(readString(in));
+                    break;
+                case "isExternal":
+                    target.setExternal(readBoolean(in));
+                    break;
+                case "name":
+                    target.setName(readString(in));
+                    break;
+                case "aliases":
+                    target.setAliases(readList(in, STRING));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final Domain value) throws IOException {
+            out.name("uid").value(value.getUid());
+            out.name("verified").value(value.getVerified());
+            out.name("verifyToken").value(value.getVerifyToken());
+            out.name("created").value(value.getCreated());
+            out.name("isExternal").value(value.getExternal());
+            out.name("name").value(value.getName());
+            out.name("aliases");
+            writeList(out, value.getAliases(), STRING);
+        }
+    }
+
+    private static final class DomainRecordAdapter extends ResourceAdapter<DomainRecord> {
+
+        static final DomainRecordAdapter INSTANCE = new DomainRecordAdapter();
+
+        @NotNull
+        @Override
+        DomainRecord newInstance() {
+            return new DomainRecord();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final DomainRecord target)
+                throws IOException {
+            switch (name) {
+                case "id":
+                    target.setId(readString(in));
+                    break;
+                case "slug":
+                    target.setSlug(readString(in));
+                    break;
+                case "type":
+                    target.setType(readString(in));
+                    break;
+                case "name":
+                    target.setName(readString(in));
+                    break;
+                case "value":
+                    target.setValue(readString(in));
+                    break;
+                case "created":
+                    target.setCreated(readLong(in));
+                    break;
+                case "updated":
+                    target.setUpdated(readLong(in));
+                    break;
+                case "mxPriority":
+                    target.setMxPriority(readLong(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final DomainRecord value) throws IOException {
+            out.name("id").value(value.getId());
+            out.name("slug").value(value.getSlug());
+            out.name("type").value(value.getType());
+            out.name("name").value(value.getName());
+            out.name("value").value(value.getValue());
+            out.name("created").value(value.getCreated());
+            out.name("updated").value(value.getUpdated());
+            out.name("mxPriority").value(value.getMxPriority());
+        }
+    }
+
+    private static final class DomainRecordCreationRequestAdapter
+            extends ResourceAdapter<DomainRecordCreationRequest> {
+
+        static final DomainRecordCreationRequestAdapter INSTANCE = new DomainRecordCreationRequestAdapter();
+
+        @NotNull
+        @Override
+        DomainRecordCreationRequest newInstance() {
+            return new DomainRecordCreationRequest();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final DomainRecordCreationRequest target) throws IOException {
+            if ("data".equals(name)) {
+                target.setData(DomainRecordAdapter.INSTANCE.read(in));
+            } else {
+                in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final DomainRecordCreationRequest value)
+                throws IOException {
+            out.name("data");
+            DomainRecordAdapter.INSTANCE.write(out, value.getData());
+        }
+    }
+
+    private static final class DomainRecordsAdapter extends ResourceAdapter<DomainRecords> {
+
+        static final DomainRecordsAdapter INSTANCE = new DomainRecordsAdapter();
+
+        @NotNull
+        @Override
+        DomainRecords newInstance() {
+            return new DomainRecords();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final DomainRecords target)
+                throws IOException {
+            if ("records".equals(name)) {
+                target.setRecords(readList(in, DomainRecordAdapter.INSTANCE));
+            } else {
+                in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final DomainRecords value) throws IOException {
+            out.name("records");
+            writeList(out, value.getRecords(), DomainRecordAdapter.INSTANCE);
+        }
+    }
+
+    private static final class DomainsAdapter extends ResourceAdapter<Domains> {
+
+        static final DomainsAdapter INSTANCE = new DomainsAdapter();
+
+        @NotNull
+        @Override
+        Domains newInstance() {
+            return new Domains();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final Domains target)
+                throws IOException {
+            if ("domains".equals(name)) {
+                target.setDomains(readList(in, DomainAdapter.INSTANCE));
+            } else {
+                in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final Domains value) throws IOException {
+            out.name("domains");
+            writeList(out, value.getDomains(), DomainAdapter.INSTANCE);
+        }
+    }
+
+    //Secrets
+
+    private static final class CreateOrUpdateSecretRequestAdapter
+            extends ResourceAdapter<CreateOrUpdateSecretRequest> {
+
+        static final CreateOrUpdateSecretRequestAdapter INSTANCE = new CreateOrUpdateSecretRequestAdapter();
+
+        @NotNull
+        @Override
+        CreateOrUpdateSecretRequest newInstance() {
+            return new CreateOrUpdateSecretRequest();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final CreateOrUpdateSecretRequest target) throws IOException {
+            switch (name) {
+                case "name":
+                    target.setName(readString(in));
+                    break;
+                case "value":
+                    target.setValue(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final CreateOrUpdateSecretRequest value)
+                throws IOException {
+            out.name("name").value(value.getName());
+            out.name("value").value(value.getValue());
+        }
+    }
+
+    private static final class GetSecretsResponseAdapter extends ResourceAdapter<GetSecretsResponse> {
+
+        static final GetSecretsResponseAdapter INSTANCE = new GetSecretsResponseAdapter();
+
+        @NotNull
+        @Override
+        GetSecretsResponse newInstance() {
+            return new GetSecretsResponse();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in,
+                       @NotNull final String name,
+                       @NotNull final GetSecretsResponse target) throws IOException {
+            if ("secrets".equals(name)) {
+                target.setSecrets(readList(in, SecretAdapter.INSTANCE));
+            } else {
+                in.skipValue();
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final GetSecretsResponse value)
+                throws IOException {
+            out.name("secrets");
+            writeList(out, value.getSecrets(), SecretAdapter.INSTANCE);
+        }
+    }
+
+    private static final class SecretAdapter extends ResourceAdapter<Secret> {
+
+        static final SecretAdapter INSTANCE = new SecretAdapter();
+
+        @NotNull
+        @Override
+        Secret newInstance() {
+            return new Secret();
+        }
+
+        @Override
+        void readField(@NotNull final JsonReader in, @NotNull final String name, @NotNull final Secret target)
+                throws IOException {
+            switch (name) {
+                case "uid":
+                    target.setUid(readString(in));
+                    break;
+                case "name":
+                    target.setName(readString(in));
+                    break;
+                case "created":
+                    target.setCreated(readString(in));
+                    break;
+                case "oldName":
+                    target.setOldName(readString(in));
+                    break;
+                default:
+                    in.skipValue();
+                    break;
+            }
+        }
+
+        @Override
+        void writeFields(@NotNull final JsonWriter out, @NotNull final Secret value) throws IOException {
+            out.name("uid").value(value.getUid());
+            out.name("name").value(value.getName());
+            out.name("created").value(value.getCreated());
+            out.name("oldName").value(value.getOldName());
+        }
+    }
+}
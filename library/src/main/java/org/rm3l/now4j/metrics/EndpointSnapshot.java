@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Point-in-time view of the metrics recorded for an endpoint by {@link InMemoryNowMetrics}
+ */
+public final class EndpointSnapshot {
+
+    @NotNull
+    private final String endpoint;
+    private final long inFlight;
+    private final long requests;
+    private final long failures;
+    private final long retries;
+    private final long bytesOut;
+    private final long bytesIn;
+    @NotNull
+    private final Map<Integer, Long> responseCodes;
+    @NotNull
+    private final Histogram latencyHistogram;
+
+    EndpointSnapshot(@NotNull final String endpoint,
+                     final long inFlight,
+                     final long requests,
+                     final long failures,
+                     final long retries,
+                     final long bytesOut,
+                     final long bytesIn,
+                     @NotNull final Map<Integer, Long> responseCodes,
+                     @NotNull final Histogram latencyHistogram) {
+        this.endpoint = endpoint;
+        this.inFlight = inFlight;
+        this.requests = requests;
+        this.failures = failures;
+        this.retries = retries;
+        this.bytesOut = bytesOut;
+        this.bytesIn = bytesIn;
+        this.responseCodes = Collections.unmodifiableMap(new TreeMap<>(responseCodes));
+        this.latencyHistogram = latencyHistogram;
+    }
+
+    @NotNull
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    /**
+     * @return number of requests sent, but not completed yet
+     */
+    public long getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * @return number of requests completed, with either a response or a failure
+     */
+    public long getRequests() {
+        return requests;
+    }
+
+    /**
+     * @return number of requests that failed without any response
+     */
+    public long getFailures() {
+        return failures;
+    }
+
+    public long getRetries() {
+        return retries;
+    }
+
+    public long getBytesOut() {
+        return bytesOut;
+    }
+
+    public long getBytesIn() {
+        return bytesIn;
+    }
+
+    /**
+     * @return number of responses, by response code
+     */
+    @NotNull
+    public Map<Integer, Long> getResponseCodes() {
+        return responseCodes;
+    }
+
+    /**
+     * @return a copy of the histogram of latencies, in nanoseconds, of completed requests
+     */
+    @NotNull
+    public Histogram getLatencyHistogram() {
+        return latencyHistogram.copy();
+    }
+
+    /**
+     * @param percentile the percentile, between 0 and 100
+     * @param timeUnit   the unit to express the latency in
+     * @return the latency at the percentile specified
+     */
+    public long getLatencyAtPercentile(final double percentile, @NotNull final TimeUnit timeUnit) {
+        return timeUnit.convert(latencyHistogram.getValueAtPercentile(percentile), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param timeUnit the unit to express the latency in
+     * @return the highest latency recorded
+     */
+    public long getMaxLatency(@NotNull final TimeUnit timeUnit) {
+        return timeUnit.convert(latencyHistogram.getMaxValue(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public String toString() {
+        return "EndpointSnapshot{" +
+                "endpoint='" + endpoint + '\'' +
+                ", inFlight=" + inFlight +
+                ", requests=" + requests +
+                ", failures=" + failures +
+                ", retries=" + retries +
+                ", bytesOut=" + bytesOut +
+                ", bytesIn=" + bytesIn +
+                ", responseCodes=" + responseCodes +
+                ", p50Ms=" + getLatencyAtPercentile(50.0, TimeUnit.MILLISECONDS) +
+                ", p99Ms=" + getLatencyAtPercentile(99.0, TimeUnit.MILLISECONDS) +
+                ", maxMs=" + getMaxLatency(TimeUnit.MILLISECONDS) +
+                '}';
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.metrics;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * {@link NowMetrics} kept in memory, with latencies recorded in
+ * <a href="http://hdrhistogram.org/">HDR histograms</a>, per endpoint.
+ * <p>
+ * Latencies are tracked up to 10 minutes, with a precision of 2 significant digits.
+ */
+public final class InMemoryNowMetrics implements NowMetrics {
+
+    private static final long HIGHEST_TRACKABLE_LATENCY_NANOS = TimeUnit.MINUTES.toNanos(10L);
+    private static final int NUMBER_OF_SIGNIFICANT_VALUE_DIGITS = 2;
+
+    @NotNull
+    private final ConcurrentMap<String, EndpointMetrics> endpoints = new ConcurrentHashMap<>();
+
+    @NotNull
+    private EndpointMetrics of(@NotNull final String endpoint) {
+        return this.endpoints.computeIfAbsent(endpoint, name -> new EndpointMetrics());
+    }
+
+    @Override
+    public void onRequestStart(@NotNull final String endpoint) {
+        this.of(endpoint).inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void onResponse(@NotNull final String endpoint, final int code, final long latencyNanos, final long bytesOut) {
+        final EndpointMetrics metrics = this.of(endpoint);
+        metrics.complete(latencyNanos);
+        metrics.bytesOut.add(bytesOut);
+        metrics.responseCodes.computeIfAbsent(code, c -> new LongAdder()).increment();
+    }
+
+    @Override
+    public void onFailure(@NotNull final String endpoint, final long latencyNanos, @NotNull final Exception error) {
+        final EndpointMetrics metrics = this.of(endpoint);
+        metrics.complete(latencyNanos);
+        metrics.failures.increment();
+    }
+
+    @Override
+    public void onResponseBodyRead(@NotNull final String endpoint, final long bytesIn) {
+        this.of(endpoint).bytesIn.add(bytesIn);
+    }
+
+    @Override
+    public void onRetry(@NotNull final String endpoint) {
+        this.of(endpoint).retries.increment();
+    }
+
+    /**
+     * @param endpoint the endpoint, i.e., the name of the {@link org.rm3l.now4j.api.NowService} method
+     * @return the metrics recorded so far for this endpoint, or {@code null} if none
+     */
+    @Nullable
+    public EndpointSnapshot snapshot(@NotNull final String endpoint) {
+        final EndpointMetrics metrics = this.endpoints.get(endpoint);
+        return metrics != null ? metrics.snapshot(endpoint) : null;
+    }
+
+    /**
+     * @return the metrics recorded so far, by endpoint
+     */
+    @NotNull
+    public Map<String, EndpointSnapshot> snapshot() {
+        final Map<String, EndpointSnapshot> snapshots = new TreeMap<>();
+        for (final Map.Entry<String, EndpointMetrics> entry : this.endpoints.entrySet()) {
+            snapshots.put(entry.getKey(), entry.getValue().snapshot(entry.getKey()));
+        }
+        return snapshots;
+    }
+
+    /**
+     * Forgets all metrics recorded so far, except for requests in flight
+     */
+    public void reset() {
+        for (final EndpointMetrics metrics : this.endpoints.values()) {
+            metrics.reset();
+        }
+    }
+
+    private static final class EndpointMetrics {
+
+        private final AtomicLong inFlight = new AtomicLong();
+        private final LongAdder failures = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder bytesOut = new LongAdder();
+        private final LongAdder bytesIn = new LongAdder();
+        private final ConcurrentMap<Integer, LongAdder> responseCodes = new ConcurrentHashMap<>();
+        private final ConcurrentHistogram latencies =
+                new ConcurrentHistogram(HIGHEST_TRACKABLE_LATENCY_NANOS, NUMBER_OF_SIGNIFICANT_VALUE_DIGITS);
+
+        private void complete(final long latencyNanos) {
+            this.inFlight.decrementAndGet();
+            this.latencies.recordValue(Math.max(0L, Math.min(latencyNanos, HIGHEST_TRACKABLE_LATENCY_NANOS)));
+        }
+
+        private void reset() {
+            this.failures.reset();
+            this.retries.reset();
+            this.bytesOut.reset();
+            this.bytesIn.reset();
+            this.responseCodes.clear();
+            this.latencies.reset();
+        }
+
+        @NotNull
+        private EndpointSnapshot snapshot(@NotNull final String endpoint) {
+            final Map<Integer, Long> codes = new HashMap<>();
+            for (final Map.Entry<Integer, LongAdder> entry : this.responseCodes.entrySet()) {
+                codes.put(entry.getKey(), entry.getValue().sum());
+            }
+            final Histogram histogram = this.latencies.copy();
+            return new EndpointSnapshot(endpoint,
+                    this.inFlight.get(),
+                    histogram.getTotalCount(),
+                    this.failures.sum(),
+                    this.retries.sum(),
+                    this.bytesOut.sum(),
+                    this.bytesIn.sum(),
+                    codes,
+                    histogram);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.metrics;
+
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Contract for recording metrics about the requests sent to the Now API.
+ * <p>
+ * Endpoints are named after the {@link org.rm3l.now4j.api.NowService} methods, e.g., <code>getDeployments</code>.
+ * Each attempt is recorded as a request of its own, so a request retried twice counts as three requests
+ * and two retries.
+ * <p>
+ * All methods do nothing by default. Implementations must be thread-safe, and should return quickly,
+ * as they are called on the threads performing the requests.
+ *
+ * @see InMemoryNowMetrics
+ */
+public interface NowMetrics {
+
+    /**
+     * Name of the endpoint for requests not issued by {@link org.rm3l.now4j.api.NowService}
+     */
+    String UNKNOWN_ENDPOINT = "unknown";
+
+    /**
+     * A request is about to be sent
+     *
+     * @param endpoint the endpoint
+     */
+    default void onRequestStart(@NotNull String endpoint) {
+    }
+
+    /**
+     * A response was received
+     *
+     * @param endpoint     the endpoint
+     * @param code         the response code
+     * @param latencyNanos time elapsed between sending the request and receiving the response headers
+     * @param bytesOut     number of bytes of request body sent
+     */
+    default void onResponse(@NotNull String endpoint, int code, long latencyNanos, long bytesOut) {
+    }
+
+    /**
+     * A request failed without any response, e.g., because of a network issue
+     *
+     * @param endpoint     the endpoint
+     * @param latencyNanos time elapsed between sending the request and the failure
+     * @param error        the failure
+     */
+    default void onFailure(@NotNull String endpoint, long latencyNanos, @NotNull Exception error) {
+    }
+
+    /**
+     * A response body was read, up to its end or until closed
+     *
+     * @param endpoint the endpoint
+     * @param bytesIn  number of bytes of response body read
+     */
+    default void onResponseBodyRead(@NotNull String endpoint, long bytesIn) {
+    }
+
+    /**
+     * A request is about to be retried
+     *
+     * @param endpoint the endpoint
+     */
+    default void onRetry(@NotNull String endpoint) {
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.pool;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.NowClient;
+
+import java.io.Closeable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Clients keyed by token and team, e.g. one per tenant of a multi-tenant service.
+ * <p>
+ * Clients are derived from a template client, hence share its transport and settings, and are created on
+ * first use. The pool holds at most <code>maxSize</code> clients, evicting the least recently used ones,
+ * and evicts those unused for longer than the idle timeout. Evicted clients are closed:
+ * their calls in progress complete, but subsequent ones fail.
+ * <p>
+ * Get a client from the pool for each unit of work, rather than holding on to it.
+ */
+public final class NowClientPool implements Closeable {
+
+    public static final int DEFAULT_MAX_SIZE = 1024;
+    public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10L);
+
+    private static final long MIN_SWEEP_INTERVAL_MILLIS = 1000L;
+
+    @Nullable
+    private final NowClient template;
+    private final int maxSize;
+    private final long idleTimeoutNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    @NotNull
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean closed;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    @NotNull
+    private final ScheduledFuture<?> sweep;
+
+    private NowClientPool(@NotNull final Builder builder) {
+        this.template = builder.template;
+        this.maxSize = builder.maxSize;
+        this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(builder.idleTimeoutMillis);
+        final long sweepIntervalMillis = Math.max(MIN_SWEEP_INTERVAL_MILLIS, builder.idleTimeoutMillis / 2);
+        final Sweeper sweeper = new Sweeper(this);
+        this.sweep = Scheduler.INSTANCE.scheduleWithFixedDelay(sweeper,
+                sweepIntervalMillis, sweepIntervalMillis, TimeUnit.MILLISECONDS);
+        sweeper.sweep = this.sweep;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @return the client for the given token and team, created if needed
+     * @throws IllegalStateException if this pool is closed
+     */
+    @NotNull
+    public NowClient get(@NotNull final String token, @Nullable final String team) {
+        final Key key = new Key(token, team);
+        final List<NowClient> evicted = new ArrayList<>();
+        this.lock.lock();
+        try {
+            final NowClient client = this.lookup(key, System.nanoTime(), evicted);
+            if (client != null) {
+                this.hits.increment();
+                return client;
+            }
+        } finally {
+            this.lock.unlock();
+            close(evicted);
+        }
+        this.misses.increment();
+
+        //Built without holding the lock, so that other tenants are not kept waiting
+        final NowClient created = this.template != null ?
+                this.template.newBuilder().token(token).team(team).build() :
+                NowClient.builder().token(token).team(team).build();
+        this.lock.lock();
+        try {
+            if (this.closed) {
+                evicted.add(created);
+            }
+            final NowClient client = this.lookup(key, System.nanoTime(), evicted);
+            if (client != null) {
+                //Created concurrently by another thread
+                evicted.add(created);
+                return client;
+            }
+            this.entries.put(key, new Entry(created, System.nanoTime()));
+            final Iterator<Entry> eldest = this.entries.values().iterator();
+            while (this.entries.size() > this.maxSize && eldest.hasNext()) {
+                evicted.add(eldest.next().client);
+                eldest.remove();
+                this.evictions.increment();
+            }
+            return created;
+        } finally {
+            this.lock.unlock();
+            close(evicted);
+        }
+    }
+
+    /**
+     * Evict and close the clients unused for longer than the idle timeout.
+     * Called periodically, and upon {@link #get(String, String)} for the requested client.
+     */
+    public void evictIdle() {
+        final List<NowClient> evicted = new ArrayList<>();
+        this.lock.lock();
+        try {
+            final long now = System.nanoTime();
+            final Iterator<Entry> iterator = this.entries.values().iterator();
+            while (iterator.hasNext()) {
+                final Entry entry = iterator.next();
+                if (now - entry.lastUsedNanos >= this.idleTimeoutNanos) {
+                    evicted.add(entry.client);
+                    iterator.remove();
+                    this.evictions.increment();
+                }
+            }
+        } finally {
+            this.lock.unlock();
+            close(evicted);
+        }
+    }
+
+    /**
+     * @return the number of clients in this pool
+     */
+    public int size() {
+        this.lock.lock();
+        try {
+            return this.entries.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return the number of requests served with a client already in this pool
+     */
+    public long getHitCount() {
+        return this.hits.sum();
+    }
+
+    /**
+     * @return the number of requests for which a client had to be created
+     */
+    public long getMissCount() {
+        return this.misses.sum();
+    }
+
+    /**
+     * @return the number of clients evicted, for exceeding the maximum size or for being idle
+     */
+    public long getEvictionCount() {
+        return this.evictions.sum();
+    }
+
+    /**
+     * Close all the clients of this pool, and stop evicting idle ones in the background.
+     * Subsequent requests for clients fail, as do subsequent calls of the clients already handed out.
+     */
+    @Override
+    public void close() {
+        final List<NowClient> clients = new ArrayList<>();
+        this.lock.lock();
+        try {
+            this.closed = true;
+            for (final Entry entry : this.entries.values()) {
+                clients.add(entry.client);
+            }
+            this.entries.clear();
+        } finally {
+            this.lock.unlock();
+        }
+        this.sweep.cancel(false);
+        close(clients);
+    }
+
+    @Nullable
+    private NowClient lookup(@NotNull final Key key, final long now, @NotNull final List<NowClient> evicted) {
+        if (this.closed) {
+            throw new IllegalStateException("Pool closed");
+        }
+        final Entry entry = this.entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (now - entry.lastUsedNanos >= this.idleTimeoutNanos) {
+            this.entries.remove(key);
+            this.evictions.increment();
+            evicted.add(entry.client);
+            return null;
+        }
+        entry.lastUsedNanos = now;
+        return entry.client;
+    }
+
+    private static void close(@NotNull final List<NowClient> clients) {
+        for (final NowClient client : clients) {
+            client.close();
+        }
+        clients.clear();
+    }
+
+    /**
+     * Evicts the idle clients of a pool periodically, without preventing a pool never closed
+     * from being garbage-collected
+     */
+    private static final class Sweeper implements Runnable {
+
+        @NotNull
+        private final WeakReference<NowClientPool> pool;
+        @Nullable
+        private volatile ScheduledFuture<?> sweep;
+
+        Sweeper(@NotNull final NowClientPool pool) {
+            this.pool = new WeakReference<>(pool);
+        }
+
+        @Override
+        public void run() {
+            final NowClientPool pool = this.pool.get();
+            if (pool != null) {
+                pool.evictIdle();
+                return;
+            }
+            final ScheduledFuture<?> sweep = this.sweep;
+            if (sweep != null) {
+                sweep.cancel(false);
+            }
+        }
+    }
+
+    private static final class Key {
+
+        @NotNull
+        private final String token;
+        @Nullable
+        private final String team;
+
+        Key(@NotNull final String token, @Nullable final String team) {
+            this.token = token;
+            this.team = team;
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            final Key that = (Key) o;
+            return token.equals(that.token) && Objects.equals(team, that.team);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(token, team);
+        }
+    }
+
+    private static final class Entry {
+
+        @NotNull
+        final NowClient client;
+        //Guarded by the pool lock
+        long lastUsedNanos;
+
+        Entry(@NotNull final NowClient client, final long lastUsedNanos) {
+            this.client = client;
+            this.lastUsedNanos = lastUsedNanos;
+        }
+    }
+
+    public static final class Builder {
+
+        @Nullable
+        private NowClient template;
+        private int maxSize = DEFAULT_MAX_SIZE;
+        private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+
+        private Builder() {
+        }
+
+        /**
+         * @param template client to derive the clients of the pool from, sharing its transport, response cache,
+         *                 metrics, retry policy, rate limits and circuit breakers.
+         *                 By default, clients share the default transport only.
+         * @return this builder
+         */
+        public Builder template(@NotNull final NowClient template) {
+            this.template = template;
+            return this;
+        }
+
+        public Builder maxSize(final int maxSize) {
+            if (maxSize < 1) {
+                throw new IllegalArgumentException("maxSize < 1: " + maxSize);
+            }
+            this.maxSize = maxSize;
+            return this;
+        }
+
+        /**
+         * @param idleTimeout for how long a client can stay unused before being evicted
+         * @param timeUnit    unit of {@code idleTimeout}
+         * @return this builder
+         */
+        public Builder idleTimeout(final long idleTimeout, @NotNull final TimeUnit timeUnit) {
+            if (idleTimeout < 1) {
+                throw new IllegalArgumentException("idleTimeout < 1: " + idleTimeout);
+            }
+            this.idleTimeoutMillis = timeUnit.toMillis(idleTimeout);
+            return this;
+        }
+
+        public NowClientPool build() {
+            return new NowClientPool(this);
+        }
+    }
+
+    private static final class Scheduler {
+
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "now4j-client-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private Scheduler() {
+            throw new UnsupportedOperationException("Not instantiable");
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.ratelimit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.EndpointGroup;
+import org.rm3l.now4j.api.Endpoints;
+import org.rm3l.now4j.calls.ForwardingCall;
+import org.rm3l.now4j.exceptions.RateLimitExceededException;
+import retrofit2.*;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Retrofit {@link CallAdapter.Factory} holding calls back until their {@link EndpointGroup} has a permit
+ * available in the {@link RateLimits}.
+ * <p>
+ * Synchronous calls wait on the calling thread. Asynchronous calls are enqueued later, from a scheduler,
+ * so that waiting for a permit never blocks any thread from the dispatcher.
+ */
+public final class RateLimitingCallAdapterFactory extends CallAdapter.Factory {
+
+    @NotNull
+    private final RateLimits rateLimits;
+
+    private RateLimitingCallAdapterFactory(@NotNull final RateLimits rateLimits) {
+        this.rateLimits = rateLimits;
+    }
+
+    public static RateLimitingCallAdapterFactory create(@NotNull final RateLimits rateLimits) {
+        return new RateLimitingCallAdapterFactory(rateLimits);
+    }
+
+    @Nullable
+    @Override
+    public CallAdapter<?, ?> get(@NotNull final Type returnType,
+                                 @NotNull final Annotation[] annotations,
+                                 @NotNull final Retrofit retrofit) {
+        if (getRawType(returnType) != Call.class) {
+            return null;
+        }
+        final String relativeUrl = Endpoints.relativeUrlOf(annotations);
+        final EndpointGroup group = relativeUrl != null ? EndpointGroup.of(relativeUrl) : null;
+        final TokenBucket bucket = group != null ? this.rateLimits.getBucket(group) : null;
+        if (bucket == null) {
+            return null;
+        }
+        @SuppressWarnings("unchecked") final CallAdapter<Object, Call<Object>> delegate =
+                (CallAdapter<Object, Call<Object>>) retrofit.nextCallAdapter(this, returnType, annotations);
+        final long maxWaitNanos = this.rateLimits.getMaxWaitNanos();
+        return new CallAdapter<Object, Call<Object>>() {
+            @Override
+            public Type responseType() {
+                return delegate.responseType();
+            }
+
+            @Override
+            public Call<Object> adapt(@NotNull final Call<Object> call) {
+                return new RateLimitedCall<>(delegate.adapt(call), group, bucket, maxWaitNanos);
+            }
+        };
+    }
+
+    static final class RateLimitedCall<T> extends ForwardingCall<T> {
+
+        @NotNull
+        private final EndpointGroup group;
+        @NotNull
+        private final TokenBucket bucket;
+        private final long maxWaitNanos;
+        private final AtomicBoolean executed = new AtomicBoolean(false);
+
+        RateLimitedCall(@NotNull final Call<T> delegate,
+                        @NotNull final EndpointGroup group,
+                        @NotNull final TokenBucket bucket,
+                        final long maxWaitNanos) {
+            super(delegate);
+            this.group = group;
+            this.bucket = bucket;
+            this.maxWaitNanos = maxWaitNanos;
+        }
+
+        @Override
+        public Response<T> execute() throws IOException {
+            this.markExecuted();
+            final long waitNanos = this.reserve();
+            if (waitNanos > 0L) {
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitNanos);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    final InterruptedIOException interruptedIOException =
+                            new InterruptedIOException("Interrupted while waiting for a permit");
+                    interruptedIOException.initCause(e);
+                    throw interruptedIOException;
+                }
+            }
+            return this.delegate.execute();
+        }
+
+        @Override
+        public void enqueue(final Callback<T> callback) {
+            this.markExecuted();
+            final long waitNanos;
+            try {
+                waitNanos = this.reserve();
+            } catch (final RateLimitExceededException e) {
+                callback.onFailure(this, e);
+                return;
+            }
+            final Callback<T> forwardingCallback = new Callback<T>() {
+                @Override
+                public void onResponse(Call<T> call, Response<T> response) {
+                    callback.onResponse(RateLimitedCall.this, response);
+                }
+
+                @Override
+                public void onFailure(Call<T> call, Throwable t) {
+                    callback.onFailure(RateLimitedCall.this, t);
+                }
+            };
+            if (waitNanos == 0L) {
+                this.delegate.enqueue(forwardingCallback);
+            } else {
+                Scheduler.INSTANCE.schedule(() -> this.delegate.enqueue(forwardingCallback),
+                        waitNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+
+        @Override
+        public boolean isExecuted() {
+            return this.executed.get();
+        }
+
+        @Override
+        public Call<T> clone() {
+            return new RateLimitedCall<>(this.delegate.clone(), this.group, this.bucket, this.maxWaitNanos);
+        }
+
+        private void markExecuted() {
+            if (!this.executed.compareAndSet(false, true)) {
+                throw new IllegalStateException("Already executed.");
+            }
+        }
+
+        private long reserve() {
+            final long waitNanos = this.bucket.reserve(this.maxWaitNanos);
+            if (waitNanos < 0L) {
+                throw new RateLimitExceededException("Rate limit exceeded for " + this.group);
+            }
+            return waitNanos;
+        }
+    }
+
+    private static final class Scheduler {
+
+        private static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+            final Thread thread = new Thread(r, "now4j-rate-limiter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private Scheduler() {
+            throw new UnsupportedOperationException("Not instantiable");
+        }
+    }
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.ratelimit;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.EndpointGroup;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Client-side request budgets, per {@link EndpointGroup}.
+ * <p>
+ * Requests beyond the budget of their group wait locally for a permit, for up to {@link Builder#maxWait},
+ * or fail fast with a {@link RateLimitExceededException}. Endpoints in groups without any limit are not limited.
+ * <p>
+ * Budgets live in this object, so a same instance may be shared by several clients using the same account.
+ */
+public final class RateLimits {
+
+    @NotNull
+    private final Map<EndpointGroup, TokenBucket> buckets;
+    private final long maxWaitNanos;
+
+    private RateLimits(@NotNull final Builder builder) {
+        this.buckets = Collections.unmodifiableMap(new EnumMap<>(builder.buckets));
+        this.maxWaitNanos = builder.maxWaitNanos;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * @param group the endpoint group
+     * @return the bucket for this group, or {@code null} if not limited
+     */
+    @Nullable
+    public TokenBucket getBucket(@NotNull final EndpointGroup group) {
+        return this.buckets.get(group);
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public static final class Builder {
+
+        @NotNull
+        private final Map<EndpointGroup, TokenBucket> buckets = new EnumMap<>(EndpointGroup.class);
+        private long maxWaitNanos = TimeUnit.SECONDS.toNanos(30L);
+
+        private Builder() {
+        }
+
+        /**
+         * Limits the requests to a group of endpoints
+         *
+         * @param group    the endpoint group
+         * @param permits  max number of requests per {@code period}
+         * @param period   length of the period
+         * @param timeUnit unit of {@code period}
+         * @return this builder
+         */
+        public Builder limit(@NotNull final EndpointGroup group,
+                             final int permits,
+                             final long period,
+                             @NotNull final TimeUnit timeUnit) {
+            return this.limit(group, permits, period, timeUnit, permits);
+        }
+
+        /**
+         * Limits the requests to a group of endpoints
+         *
+         * @param group    the endpoint group
+         * @param permits  max number of requests per {@code period}, in the long run
+         * @param period   length of the period
+         * @param timeUnit unit of {@code period}
+         * @param burst    max number of requests that may be sent at once, after a quiet period
+         * @return this builder
+         */
+        public Builder limit(@NotNull final EndpointGroup group,
+                             final int permits,
+                             final long period,
+                             @NotNull final TimeUnit timeUnit,
+                             final int burst) {
+            this.buckets.put(group, new TokenBucket(permits, period, timeUnit, burst));
+            return this;
+        }
+
+        /**
+         * Limits the requests to all groups of endpoints, each group having its own budget
+         *
+         * @param permits  max number of requests per {@code period}, per group
+         * @param period   length of the period
+         * @param timeUnit unit of {@code period}
+         * @return this builder
+         */
+        public Builder limitAll(final int permits, final long period, @NotNull final TimeUnit timeUnit) {
+            for (final EndpointGroup group : EndpointGroup.values()) {
+                this.limit(group, permits, period, timeUnit);
+            }
+            return this;
+        }
+
+        /**
+         * @param maxWait  max time a request may wait for a permit before failing.
+         *                 <code>0</code> makes requests beyond the budget fail fast.
+         * @param timeUnit unit of {@code maxWait}
+         * @return this builder
+         */
+        public Builder maxWait(final long maxWait, @NotNull final TimeUnit timeUnit) {
+            if (maxWait < 0L) {
+                throw new IllegalArgumentException("maxWait < 0: " + maxWait);
+            }
+            this.maxWaitNanos = timeUnit.toNanos(maxWait);
+            return this;
+        }
+
+        public RateLimits build() {
+            return new RateLimits(this);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket, refilled at a constant rate, up to its capacity.
+ * <p>
+ * Permits are handed out by reservation: a caller may take a permit not available yet, provided it waits
+ * for the returned delay before proceeding. Reservations are served in order, so waiting callers are not starved.
+ */
+public final class TokenBucket {
+
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param permits  number of permits per {@code period}
+     * @param period   length of the period
+     * @param timeUnit unit of {@code period}
+     * @param burst    max number of permits that may be taken at once, after a quiet period
+     */
+    public TokenBucket(final int permits, final long period, final TimeUnit timeUnit, final int burst) {
+        if (permits < 1) {
+            throw new IllegalArgumentException("permits < 1: " + permits);
+        }
+        if (period <= 0L) {
+            throw new IllegalArgumentException("period <= 0: " + period);
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst < 1: " + burst);
+        }
+        this.permitsPerNano = ((double) permits) / timeUnit.toNanos(period);
+        this.capacity = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Reserves a permit, unless it would mean waiting for longer than {@code maxWaitNanos}
+     *
+     * @param maxWaitNanos max time the caller accepts to wait for the permit
+     * @return how long to wait, in nanoseconds, before using the permit reserved,
+     * or <code>-1</code> if no permit was reserved
+     */
+    public synchronized long reserve(final long maxWaitNanos) {
+        final long now = System.nanoTime();
+        this.tokens = Math.min(this.capacity, this.tokens + (now - this.lastRefillNanos) * this.permitsPerNano);
+        this.lastRefillNanos = now;
+        if (this.tokens >= 1.0) {
+            this.tokens -= 1.0;
+            return 0L;
+        }
+        //Tokens go negative to account for the permits already reserved
+        final long waitNanos = (long) Math.ceil((1.0 - this.tokens) / this.permitsPerNano);
+        if (waitNanos > maxWaitNanos) {
+            return -1L;
+        }
+        this.tokens -= 1.0;
+        return waitNanos;
+    }
+}
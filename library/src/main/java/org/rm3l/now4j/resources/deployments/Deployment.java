@@ -60,13 +60,27 @@ public final class Deployment {
         this.stateTs = stateTs;
     }
 
-    enum State {
+    public enum State {
         DEPLOYING,
         BOOTED,
         BUILDING,
         BUILD_ERROR,
         READY,
         FROZEN,
-        DEPLOYMENT_ERROR
+        DEPLOYMENT_ERROR;
+
+        /**
+         * @return whether the deployment is done, and will not change state by itself anymore
+         */
+        public boolean isTerminal() {
+            return this == READY || this == FROZEN || this.isError();
+        }
+
+        /**
+         * @return whether the deployment failed
+         */
+        public boolean isError() {
+            return this == BUILD_ERROR || this == DEPLOYMENT_ERROR;
+        }
     }
 }
@@ -66,6 +66,7 @@ public final class DeploymentFileStructure {
         private String type;
         private String name;
         private String uid;
+        private List<Child> children;
 
         public String getType() {
             return type;
@@ -91,6 +92,14 @@ public final class DeploymentFileStructure {
             this.uid = uid;
         }
 
+        public List<Child> getChildren() {
+            return children;
+        }
+
+        public void setChildren(List<Child> children) {
+            this.children = children;
+        }
+
         @Override
         public boolean equals(Object o) {
             if (this == o) return true;
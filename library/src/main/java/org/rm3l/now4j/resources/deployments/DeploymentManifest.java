@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.resources.deployments;
+
+import java.util.List;
+
+/**
+ * Description of a deployment referencing its files by SHA-1 digest,
+ * instead of embedding their contents
+ */
+public final class DeploymentManifest {
+
+    private String name;
+    private String deploymentType;
+    private List<File> files;
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getDeploymentType() {
+        return deploymentType;
+    }
+
+    public void setDeploymentType(String deploymentType) {
+        this.deploymentType = deploymentType;
+    }
+
+    public List<File> getFiles() {
+        return files;
+    }
+
+    public void setFiles(List<File> files) {
+        this.files = files;
+    }
+
+    @Override
+    public String toString() {
+        return "DeploymentManifest{" +
+                "name='" + name + '\'' +
+                ", deploymentType='" + deploymentType + '\'' +
+                ", files=" + (files != null ? files.size() : 0) +
+                '}';
+    }
+
+    public static final class File {
+
+        private String file;
+        private String sha;
+        private long size;
+
+        public File() {
+        }
+
+        public File(String file, String sha, long size) {
+            this.file = file;
+            this.sha = sha;
+            this.size = size;
+        }
+
+        public String getFile() {
+            return file;
+        }
+
+        public void setFile(String file) {
+            this.file = file;
+        }
+
+        public String getSha() {
+            return sha;
+        }
+
+        public void setSha(String sha) {
+            this.sha = sha;
+        }
+
+        public long getSize() {
+            return size;
+        }
+
+        public void setSize(long size) {
+            this.size = size;
+        }
+
+        @Override
+        public String toString() {
+            return "File{" +
+                    "file='" + file + '\'' +
+                    ", sha='" + sha + '\'' +
+                    ", size=" + size +
+                    '}';
+        }
+    }
+}
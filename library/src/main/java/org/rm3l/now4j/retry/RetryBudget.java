@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.retry;
+
+/**
+ * Caps the number of retries relative to the number of requests, so that retries cannot amplify
+ * the load on a server already struggling.
+ * <p>
+ * Each request deposits a fraction of a token, and each retry withdraws a whole one.
+ * The budget starts full, allowing for bursts of retries up to its capacity.
+ * For example, a budget with a ratio of <code>0.2</code> sustains at most one retry for every five requests.
+ * <p>
+ * A budget may be shared by several clients, so as to cap their retries as a whole.
+ */
+public final class RetryBudget {
+
+    private final double ratio;
+    private final double capacity;
+    private double tokens;
+
+    private RetryBudget(final double ratio, final int capacity) {
+        this.ratio = ratio;
+        this.capacity = capacity;
+        this.tokens = capacity;
+    }
+
+    /**
+     * @param ratio    number of retries allowed per request, in the long run
+     * @param capacity max number of retries allowed in a burst
+     * @return a new, full, budget
+     */
+    public static RetryBudget create(final double ratio, final int capacity) {
+        if (ratio < 0.0 || Double.isNaN(ratio)) {
+            throw new IllegalArgumentException("ratio < 0: " + ratio);
+        }
+        if (capacity < 0) {
+            throw new IllegalArgumentException("capacity < 0: " + capacity);
+        }
+        return new RetryBudget(ratio, capacity);
+    }
+
+    /**
+     * Deposits a fraction of a token, for a request about to be sent for the first time
+     */
+    public synchronized void onRequest() {
+        this.tokens = Math.min(this.capacity, this.tokens + this.ratio);
+    }
+
+    /**
+     * @return whether a retry is allowed, in which case a token is withdrawn
+     */
+    public synchronized boolean tryAcquire() {
+        if (this.tokens < 1.0) {
+            return false;
+        }
+        this.tokens -= 1.0;
+        return true;
+    }
+
+    /**
+     * @return number of retries currently allowed
+     */
+    public synchronized int available() {
+        return (int) this.tokens;
+    }
+
+    @Override
+    public String toString() {
+        return "RetryBudget{" +
+                "ratio=" + ratio +
+                ", capacity=" + capacity +
+                ", available=" + available() +
+                '}';
+    }
+}
@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.retry;
+
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * When and how long to wait before retrying requests to the Now API.
+ * <p>
+ * By default, only idempotent requests (<code>GET</code>, <code>HEAD</code>, <code>PUT</code>,
+ * <code>DELETE</code> and <code>OPTIONS</code>) are retried, up to 3 times, on network failures and on
+ * <code>429</code>, <code>500</code>, <code>502</code>, <code>503</code> and <code>504</code> responses.
+ * <p>
+ * The delay between attempts grows exponentially, with full jitter, unless the server tells how long to wait,
+ * with either a <code>Retry-After</code> header, or an exhausted rate limit (<code>X-RateLimit-Remaining</code>
+ * and <code>X-RateLimit-Reset</code> headers). Responses asking to wait longer than {@link Builder#maxDelay} are
+ * not retried. All retries are also subject to a {@link RetryBudget}.
+ */
+public final class RetryPolicy {
+
+    public static final int DEFAULT_MAX_RETRIES = 3;
+    public static final long DEFAULT_INITIAL_BACKOFF_MILLIS = 500L;
+    public static final long DEFAULT_MAX_DELAY_MILLIS = TimeUnit.SECONDS.toMillis(30L);
+
+    private static final Set<String> DEFAULT_METHODS =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList("GET", "HEAD", "PUT", "DELETE", "OPTIONS")));
+    private static final Set<Integer> DEFAULT_STATUS_CODES =
+            Collections.unmodifiableSet(new HashSet<>(Arrays.asList(429, 500, 502, 503, 504)));
+
+    private final int maxRetries;
+    private final long initialBackoffMillis;
+    private final long maxDelayMillis;
+    @NotNull
+    private final Set<String> methods;
+    @NotNull
+    private final Set<Integer> statusCodes;
+    @NotNull
+    private final RetryBudget budget;
+
+    private RetryPolicy(@NotNull final Builder builder) {
+        this.maxRetries = builder.maxRetries;
+        this.initialBackoffMillis = builder.initialBackoffMillis;
+        this.maxDelayMillis = builder.maxDelayMillis;
+        this.methods = Collections.unmodifiableSet(new HashSet<>(builder.methods));
+        this.statusCodes = Collections.unmodifiableSet(new HashSet<>(builder.statusCodes));
+        this.budget = builder.budget != null ? builder.budget : RetryBudget.create(0.2, 10);
+    }
+
+    /**
+     * @return a policy with all the defaults
+     */
+    public static RetryPolicy create() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public int getMaxRetries() {
+        return maxRetries;
+    }
+
+    @NotNull
+    public RetryBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * @param request the request
+     * @return whether the request may be retried at all
+     */
+    public boolean isRetryable(@NotNull final Request request) {
+        if (!this.methods.contains(request.method())) {
+            return false;
+        }
+        final RequestBody body = request.body();
+        return body == null || !body.isOneShot();
+    }
+
+    /**
+     * @param response the response
+     * @return whether the response calls for a retry
+     */
+    public boolean isRetryable(@NotNull final Response response) {
+        return this.statusCodes.contains(response.code());
+    }
+
+    /**
+     * @param retry number of the retry to come, starting at 1
+     * @return how long to wait before this retry, following a network failure
+     */
+    public long backoffMillis(final int retry) {
+        final long exponential = this.initialBackoffMillis << Math.min(retry - 1, 30);
+        final long capped = exponential <= 0L ? this.maxDelayMillis : Math.min(exponential, this.maxDelayMillis);
+        //Full jitter
+        return ThreadLocalRandom.current().nextLong(capped + 1L);
+    }
+
+    /**
+     * @param response the response calling for a retry
+     * @param retry    number of the retry to come, starting at 1
+     * @return how long to wait before this retry, or <code>-1</code> if the server asks to wait
+     * for longer than allowed
+     */
+    public long delayMillis(@NotNull final Response response, final int retry) {
+        final long nowMillis = System.currentTimeMillis();
+        long serverDelayMillis = parseRetryAfter(response.header("Retry-After"), nowMillis);
+        if (serverDelayMillis < 0L && ("0".equals(response.header("X-RateLimit-Remaining"))
+                || response.code() == 429)) {
+            serverDelayMillis = parseRateLimitReset(response.header("X-RateLimit-Reset"), nowMillis);
+        }
+        if (serverDelayMillis < 0L) {
+            return this.backoffMillis(retry);
+        }
+        return serverDelayMillis <= this.maxDelayMillis ? serverDelayMillis : -1L;
+    }
+
+    /**
+     * @return the delay, in milliseconds, or <code>-1</code> if none or invalid
+     */
+    static long parseRetryAfter(@Nullable final String retryAfter, final long nowMillis) {
+        if (retryAfter == null || retryAfter.trim().isEmpty()) {
+            return -1L;
+        }
+        final String value = retryAfter.trim();
+        try {
+            return Math.max(0L, TimeUnit.SECONDS.toMillis(Long.parseLong(value)));
+        } catch (final NumberFormatException e) {
+            //Not delay-seconds: must be an HTTP-date then
+        }
+        try {
+            final ZonedDateTime date = ZonedDateTime.parse(value,
+                    DateTimeFormatter.RFC_1123_DATE_TIME.withLocale(Locale.US));
+            return Math.max(0L, date.toInstant().toEpochMilli() - nowMillis);
+        } catch (final DateTimeParseException e) {
+            return -1L;
+        }
+    }
+
+    /**
+     * @return the delay, in milliseconds, until the rate limit window resets, or <code>-1</code> if none or invalid
+     */
+    static long parseRateLimitReset(@Nullable final String rateLimitReset, final long nowMillis) {
+        if (rateLimitReset == null || rateLimitReset.trim().isEmpty()) {
+            return -1L;
+        }
+        try {
+            //Epoch, in seconds
+            return Math.max(0L, TimeUnit.SECONDS.toMillis(Long.parseLong(rateLimitReset.trim())) - nowMillis);
+        } catch (final NumberFormatException e) {
+            return -1L;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "RetryPolicy{" +
+                "maxRetries=" + maxRetries +
+                ", initialBackoffMillis=" + initialBackoffMillis +
+                ", maxDelayMillis=" + maxDelayMillis +
+                ", methods=" + methods +
+                ", statusCodes=" + statusCodes +
+                ", budget=" + budget +
+                '}';
+    }
+
+    public static final class Builder {
+
+        private int maxRetries = DEFAULT_MAX_RETRIES;
+        private long initialBackoffMillis = DEFAULT_INITIAL_BACKOFF_MILLIS;
+        private long maxDelayMillis = DEFAULT_MAX_DELAY_MILLIS;
+        @NotNull
+        private Set<String> methods = DEFAULT_METHODS;
+        @NotNull
+        private Set<Integer> statusCodes = DEFAULT_STATUS_CODES;
+        @Nullable
+        private RetryBudget budget;
+
+        private Builder() {
+        }
+
+        /**
+         * @param maxRetries max number of retries per request, <code>0</code> disabling retries
+         * @return this builder
+         */
+        public Builder maxRetries(final int maxRetries) {
+            if (maxRetries < 0) {
+                throw new IllegalArgumentException("maxRetries < 0: " + maxRetries);
+            }
+            this.maxRetries = maxRetries;
+            return this;
+        }
+
+        /**
+         * @param initialBackoff upper bound of the delay before the first retry, doubled for every further retry
+         * @param timeUnit       unit of {@code initialBackoff}
+         * @return this builder
+         */
+        public Builder initialBackoff(final long initialBackoff, @NotNull final TimeUnit timeUnit) {
+            if (initialBackoff <= 0L) {
+                throw new IllegalArgumentException("initialBackoff <= 0: " + initialBackoff);
+            }
+            this.initialBackoffMillis = timeUnit.toMillis(initialBackoff);
+            return this;
+        }
+
+        /**
+         * @param maxDelay max delay before a retry. Responses asking to wait longer are not retried.
+         * @param timeUnit unit of {@code maxDelay}
+         * @return this builder
+         */
+        public Builder maxDelay(final long maxDelay, @NotNull final TimeUnit timeUnit) {
+            if (maxDelay < 0L) {
+                throw new IllegalArgumentException("maxDelay < 0: " + maxDelay);
+            }
+            this.maxDelayMillis = timeUnit.toMillis(maxDelay);
+            return this;
+        }
+
+        /**
+         * @param methods HTTP methods of the requests to retry. Only retry non-idempotent methods, such as
+         *                <code>POST</code>, if duplicates are acceptable.
+         * @return this builder
+         */
+        public Builder methods(@NotNull final String... methods) {
+            final Set<String> set = new HashSet<>();
+            for (final String method : methods) {
+                set.add(method.toUpperCase(Locale.US));
+            }
+            this.methods = set;
+            return this;
+        }
+
+        /**
+         * @param statusCodes response codes to retry
+         * @return this builder
+         */
+        public Builder statusCodes(@NotNull final Integer... statusCodes) {
+            this.statusCodes = new HashSet<>(Arrays.asList(statusCodes));
+            return this;
+        }
+
+        /**
+         * @param budget the budget to draw retries from. Defaults to a budget allowing one retry
+         *               for every five requests, in bursts of up to 10 retries.
+         * @return this builder
+         */
+        public Builder budget(@NotNull final RetryBudget budget) {
+            this.budget = budget;
+            return this;
+        }
+
+        public RetryPolicy build() {
+            return new RetryPolicy(this);
+        }
+    }
+}
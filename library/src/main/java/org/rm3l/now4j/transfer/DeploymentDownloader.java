@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.NowService;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.deployments.DeploymentFileStructure;
+import retrofit2.Response;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Downloads the whole file tree of a deployment into a local directory.
+ * <p>
+ * Files are downloaded concurrently, with a bounded parallelism, and streamed straight to disk.
+ * Each file is first written next to its final location, then atomically moved into place,
+ * so that an interrupted download never leaves truncated files behind.
+ * Files already present locally, with the same SHA-1 digest or, failing that, with the same size, are skipped,
+ * without downloading them.
+ */
+public final class DeploymentDownloader {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private static final String TYPE_FILE = "file";
+    private static final String TYPE_DIRECTORY = "directory";
+
+    @NotNull
+    private final NowService nowService;
+    private final int parallelism;
+
+    public DeploymentDownloader(@NotNull final NowService nowService, final int parallelism) {
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism < 1: " + parallelism);
+        }
+        this.nowService = nowService;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Download all files of a deployment
+     *
+     * @param deploymentId the deployment
+     * @param target       the local directory to download files into. Created if needed.
+     * @return a summary of the download
+     * @throws IOException if the file tree could not be fetched, or the target directory could not be created.
+     *                     Failures to download individual files are reported in the summary returned.
+     */
+    @NotNull
+    public DownloadSummary download(@NotNull final String deploymentId, @NotNull final Path target)
+            throws IOException {
+        final Response<List<DeploymentFileStructure>> response =
+                this.nowService.getFiles(deploymentId).execute();
+        if (!response.isSuccessful()) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        final Path root = target.toAbsolutePath().normalize();
+        Files.createDirectories(root);
+
+        final Map<String, String> files = new LinkedHashMap<>();
+        final List<DeploymentFileStructure> tree = response.body();
+        if (tree != null) {
+            for (final DeploymentFileStructure node : tree) {
+                this.collect(files, "", node.getType(), node.getName(), node.getUid(), node.getChildren());
+            }
+        }
+
+        final List<String> downloaded = Collections.synchronizedList(new ArrayList<String>());
+        final List<String> skipped = Collections.synchronizedList(new ArrayList<String>());
+        final Map<String, Exception> failed = new LinkedHashMap<>();
+        final AtomicLong bytesDownloaded = new AtomicLong();
+
+        final ExecutorService executorService =
+                Executors.newFixedThreadPool(Math.min(this.parallelism, Math.max(1, files.size())));
+        try {
+            final Map<String, Future<?>> futures = new LinkedHashMap<>();
+            for (final Map.Entry<String, String> file : files.entrySet()) {
+                final String relativePath = file.getKey();
+                final String fileId = file.getValue();
+                final Path destination = root.resolve(relativePath).normalize();
+                if (!destination.startsWith(root)) {
+                    failed.put(relativePath, new IOException("Path outside of target directory: " + relativePath));
+                    continue;
+                }
+                futures.put(relativePath, executorService.submit(() -> {
+                    final long written = this.downloadFile(deploymentId, fileId, destination);
+                    if (written < 0L) {
+                        skipped.add(relativePath);
+                    } else {
+                        bytesDownloaded.addAndGet(written);
+                        downloaded.add(relativePath);
+                    }
+                    return null;
+                }));
+            }
+            for (final Map.Entry<String, Future<?>> future : futures.entrySet()) {
+                try {
+                    future.getValue().get();
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    failed.put(future.getKey(), cause instanceof Exception ? (Exception) cause : e);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Interrupted while downloading deployment " + deploymentId, e);
+                }
+            }
+        } finally {
+            executorService.shutdownNow();
+        }
+        return new DownloadSummary(new ArrayList<>(downloaded), new ArrayList<>(skipped), failed,
+                bytesDownloaded.get());
+    }
+
+    private void collect(@NotNull final Map<String, String> files,
+                         @NotNull final String parentPath,
+                         @Nullable final String type,
+                         @Nullable final String name,
+                         @Nullable final String uid,
+                         @Nullable final List<DeploymentFileStructure.Child> children) {
+        if (name == null || name.isEmpty()) {
+            return;
+        }
+        final String path = parentPath + name;
+        if (TYPE_DIRECTORY.equals(type) || children != null) {
+            if (children != null) {
+                for (final DeploymentFileStructure.Child child : children) {
+                    this.collect(files, path + "/",
+                            child.getType(), child.getName(), child.getUid(), child.getChildren());
+                }
+            }
+        } else if (TYPE_FILE.equals(type) && uid != null) {
+            files.put(path, uid);
+        }
+    }
+
+    /**
+     * @return the number of bytes written, or <code>-1</code> if the file was already present
+     */
+    private long downloadFile(@NotNull final String deploymentId,
+                              @NotNull final String fileId,
+                              @NotNull final Path destination) throws IOException {
+        if (Files.isRegularFile(destination)) {
+            if (FileDigests.isSha1(fileId)) {
+                if (fileId.equalsIgnoreCase(FileDigests.sha1(destination))) {
+                    return -1L;
+                }
+            } else if (this.getContentLength(deploymentId, fileId) == Files.size(destination)) {
+                return -1L;
+            }
+        }
+        final Response<ResponseBody> response = this.nowService.getFile(deploymentId, fileId).execute();
+        if (!response.isSuccessful()) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        final ResponseBody body = response.body();
+        if (body == null) {
+            throw new IOException("Empty body for file " + fileId);
+        }
+        return FileTransfers.writeTo(body, destination);
+    }
+
+    /**
+     * @return the size of a file as per a HEAD request, not to download a file only to find out it is already present,
+     * or <code>-1</code> if unknown
+     */
+    private long getContentLength(@NotNull final String deploymentId, @NotNull final String fileId)
+            throws IOException {
+        final Response<Void> response = this.nowService.getFileHead(deploymentId, fileId).execute();
+        final String contentEncoding = response.headers().get("Content-Encoding");
+        final String contentLength = response.headers().get("Content-Length");
+        if (!response.isSuccessful() || contentLength == null
+                || (contentEncoding != null && !"identity".equalsIgnoreCase(contentEncoding))) {
+            return -1L;
+        }
+        try {
+            return Long.parseLong(contentLength.trim());
+        } catch (final NumberFormatException e) {
+            return -1L;
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import com.google.gson.stream.JsonWriter;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okio.BufferedSink;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Request body for {@link org.rm3l.now4j.contract.Now#createDeployment(RequestBody)},
+ * streaming file contents straight from disk.
+ * <p>
+ * Like the map passed to {@link org.rm3l.now4j.contract.Now#createDeployment(Map)}, it is a JSON object
+ * whose keys are file paths, with their respective values containing the file contents.
+ * But files are only read while the body is being written to the network, a chunk at a time,
+ * so memory usage does not depend on the size of the deployment.
+ * <p>
+ * Files are read as UTF-8 text.
+ */
+public final class DeploymentRequestBody extends RequestBody {
+
+    private static final MediaType JSON = MediaType.parse("application/json; charset=UTF-8");
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    /**
+     * Values are either a {@link Path} to read the contents from, or the contents as a {@link String}
+     */
+    @NotNull
+    private final Map<String, Object> entries;
+
+    private DeploymentRequestBody(@NotNull final Builder builder) {
+        this.entries = new LinkedHashMap<>(builder.entries);
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    @Nullable
+    @Override
+    public MediaType contentType() {
+        return JSON;
+    }
+
+    @Override
+    public void writeTo(@NotNull final BufferedSink sink) throws IOException {
+        //Not closed on purpose, so as to leave the sink open
+        final Writer writer = new OutputStreamWriter(sink.outputStream(), StandardCharsets.UTF_8);
+        final JsonWriter jsonWriter = new JsonWriter(writer);
+        jsonWriter.beginObject();
+        final char[] buffer = new char[BUFFER_SIZE];
+        for (final Map.Entry<String, Object> entry : this.entries.entrySet()) {
+            jsonWriter.name(entry.getKey());
+            final Object value = entry.getValue();
+            if (value instanceof String) {
+                jsonWriter.value((String) value);
+                continue;
+            }
+            //JsonWriter cannot stream a string value: let it write the opening quote (along with
+            //any separator needed), then write the escaped contents and the closing quote ourselves
+            jsonWriter.jsonValue("\"");
+            try (final Reader reader = new InputStreamReader(
+                    Files.newInputStream((Path) value), StandardCharsets.UTF_8)) {
+                int read;
+                while ((read = reader.read(buffer)) != -1) {
+                    writeEscaped(writer, buffer, read);
+                }
+            }
+            writer.write('"');
+        }
+        jsonWriter.endObject();
+        jsonWriter.flush();
+    }
+
+    private static void writeEscaped(@NotNull final Writer writer,
+                                     @NotNull final char[] chars,
+                                     final int length) throws IOException {
+        int last = 0;
+        for (int i = 0; i < length; i++) {
+            final char c = chars[i];
+            final String replacement;
+            if (c == '"') {
+                replacement = "\\\"";
+            } else if (c == '\\') {
+                replacement = "\\\\";
+            } else if (c == '\n') {
+                replacement = "\\n";
+            } else if (c == '\r') {
+                replacement = "\\r";
+            } else if (c == '\t') {
+                replacement = "\\t";
+            } else if (c < 0x20 || c == '\u2028' || c == '\u2029') {
+                replacement = String.format("\\u%04x", (int) c);
+            } else {
+                continue;
+            }
+            if (last < i) {
+                writer.write(chars, last, i - last);
+            }
+            writer.write(replacement);
+            last = i + 1;
+        }
+        if (last < length) {
+            writer.write(chars, last, length - last);
+        }
+    }
+
+    public static final class Builder {
+
+        @NotNull
+        private final Map<String, Object> entries = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds all files under a local directory, keyed by their path relative to this directory
+         *
+         * @param directory the local directory
+         * @return this builder
+         * @throws IOException if the directory could not be walked
+         */
+        public Builder directory(@NotNull final Path directory) throws IOException {
+            final Path root = directory.toAbsolutePath().normalize();
+            final List<Path> paths;
+            try (final Stream<Path> walk = Files.walk(root)) {
+                paths = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+            }
+            for (final Path path : paths) {
+                this.entries.put(root.relativize(path).toString().replace(File.separatorChar, '/'), path);
+            }
+            return this;
+        }
+
+        /**
+         * @param name path of the file in the deployment
+         * @param file local file to read the contents from
+         * @return this builder
+         */
+        public Builder file(@NotNull final String name, @NotNull final Path file) {
+            this.entries.put(name, file);
+            return this;
+        }
+
+        /**
+         * @param name     path of the file in the deployment
+         * @param contents contents of the file
+         * @return this builder
+         */
+        public Builder file(@NotNull final String name, @NotNull final String contents) {
+            this.entries.put(name, contents);
+            return this;
+        }
+
+        public DeploymentRequestBody build() {
+            return new DeploymentRequestBody(this);
+        }
+    }
+}
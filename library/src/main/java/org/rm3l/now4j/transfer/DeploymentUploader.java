@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import com.google.gson.JsonParseException;
+import okhttp3.MediaType;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.NowService;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.json.Now4jTypeAdapters;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.deployments.DeploymentManifest;
+import retrofit2.Response;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Deploys a local directory, uploading only the files the server does not already have.
+ * <p>
+ * Files are hashed concurrently, then a manifest referencing them by SHA-1 digest is posted.
+ * If the server answers that some of them are missing, only those are uploaded, before posting the manifest again.
+ * Redeploying an application where only a few files changed therefore only uploads those files.
+ */
+public final class DeploymentUploader {
+
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private static final String MISSING_FILES_ERROR_CODE = "missing_files";
+    private static final MediaType OCTET_STREAM = MediaType.parse("application/octet-stream");
+
+    @NotNull
+    private final NowService nowService;
+    @NotNull
+    private final Path directory;
+    @NotNull
+    private final String name;
+    @NotNull
+    private final String deploymentType;
+    private final int parallelism;
+
+    private DeploymentUploader(@NotNull final Builder builder) {
+        this.nowService = builder.nowService;
+        this.directory = builder.directory;
+        this.name = builder.name != null ? builder.name :
+                String.valueOf(builder.directory.toAbsolutePath().normalize().getFileName());
+        this.deploymentType = builder.deploymentType;
+        this.parallelism = builder.parallelism;
+    }
+
+    /**
+     * @param nowService the service to deploy with
+     * @param directory  the local directory to deploy
+     * @return a new {@link Builder}
+     */
+    public static Builder builder(@NotNull final NowService nowService, @NotNull final Path directory) {
+        return new Builder(nowService, directory);
+    }
+
+    /**
+     * Deploy the directory
+     *
+     * @return the deployment created
+     * @throws IOException                   if a problem occurred reading files or talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    public Deployment deploy() throws IOException {
+        final Path root = this.directory.toAbsolutePath().normalize();
+        final List<Path> paths;
+        try (final Stream<Path> walk = Files.walk(root)) {
+            paths = walk.filter(Files::isRegularFile).sorted().collect(Collectors.toList());
+        }
+        if (paths.isEmpty()) {
+            throw new IllegalArgumentException("No file to deploy in " + root);
+        }
+
+        final ExecutorService executorService =
+                Executors.newFixedThreadPool(Math.min(this.parallelism, paths.size()));
+        try {
+            final List<Future<DeploymentManifest.File>> hashes = new ArrayList<>(paths.size());
+            for (final Path path : paths) {
+                final String relativePath = root.relativize(path).toString().replace(File.separatorChar, '/');
+                hashes.add(executorService.submit(() ->
+                        new DeploymentManifest.File(relativePath, FileDigests.sha1(path), Files.size(path))));
+            }
+            final List<DeploymentManifest.File> files = new ArrayList<>(paths.size());
+            //Identical files are uploaded only once
+            final Map<String, Path> blobs = new LinkedHashMap<>();
+            for (int i = 0; i < paths.size(); i++) {
+                final DeploymentManifest.File file = await(hashes.get(i));
+                files.add(file);
+                blobs.put(file.getSha(), paths.get(i));
+            }
+
+            final DeploymentManifest manifest = new DeploymentManifest();
+            manifest.setName(this.name);
+            manifest.setDeploymentType(this.deploymentType);
+            manifest.setFiles(files);
+
+            Response<Deployment> response = this.nowService.createDeployment(manifest).execute();
+            if (!response.isSuccessful()) {
+                final List<String> missing = missingFiles(response);
+                if (missing == null) {
+                    throw new UnsuccessfulResponseException(response.code(), response.message());
+                }
+                final List<Future<Void>> uploads = new ArrayList<>(missing.size());
+                for (final String sha : missing) {
+                    final Path blob = blobs.get(sha);
+                    if (blob == null) {
+                        throw new IOException("Server asked for an unknown file: " + sha);
+                    }
+                    uploads.add(executorService.submit(() -> {
+                        this.upload(sha, blob);
+                        return null;
+                    }));
+                }
+                for (final Future<Void> upload : uploads) {
+                    await(upload);
+                }
+                response = this.nowService.createDeployment(manifest).execute();
+                if (!response.isSuccessful()) {
+                    throw new UnsuccessfulResponseException(response.code(), response.message());
+                }
+            }
+            return response.body();
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void upload(@NotNull final String sha, @NotNull final Path blob) throws IOException {
+        final Response<ResponseBody> response = this.nowService
+                .uploadFile(sha, Files.size(blob), RequestBody.create(OCTET_STREAM, blob.toFile()))
+                .execute();
+        final ResponseBody body = response.isSuccessful() ? response.body() : response.errorBody();
+        if (body != null) {
+            body.close();
+        }
+        if (!response.isSuccessful()) {
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+    }
+
+    /**
+     * @return the digests of the files the server does not have, or {@code null} if the request
+     * failed for another reason
+     */
+    @Nullable
+    private static List<String> missingFiles(@NotNull final Response<?> response) throws IOException {
+        try (final ResponseBody errorBody = response.errorBody()) {
+            if (errorBody == null) {
+                return null;
+            }
+            final ErrorResponse errorResponse = Now4jTypeAdapters.GSON.fromJson(errorBody.charStream(), ErrorResponse.class);
+            if (errorResponse == null || errorResponse.error == null
+                    || !MISSING_FILES_ERROR_CODE.equals(errorResponse.error.code)) {
+                return null;
+            }
+            return errorResponse.error.missing;
+        } catch (final JsonParseException e) {
+            return null;
+        }
+    }
+
+    private static <T> T await(@NotNull final Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while deploying");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private static final class ErrorResponse {
+        private Error error;
+    }
+
+    private static final class Error {
+        private String code;
+        private List<String> missing;
+    }
+
+    public static final class Builder {
+
+        @NotNull
+        private final NowService nowService;
+        @NotNull
+        private final Path directory;
+        @Nullable
+        private String name;
+        @NotNull
+        private String deploymentType = "NPM";
+        private int parallelism = DEFAULT_PARALLELISM;
+
+        private Builder(@NotNull final NowService nowService, @NotNull final Path directory) {
+            if (!Files.isDirectory(directory)) {
+                throw new IllegalArgumentException("Not a directory: " + directory);
+            }
+            this.nowService = nowService;
+            this.directory = directory;
+        }
+
+        /**
+         * @param name name of the deployment. Defaults to the name of the directory.
+         * @return this builder
+         */
+        public Builder name(@NotNull final String name) {
+            this.name = name;
+            return this;
+        }
+
+        /**
+         * @param deploymentType type of the deployment: <code>NPM</code> (the default), <code>DOCKER</code>
+         *                       or <code>STATIC</code>
+         * @return this builder
+         */
+        public Builder deploymentType(@NotNull final String deploymentType) {
+            this.deploymentType = deploymentType;
+            return this;
+        }
+
+        /**
+         * @param parallelism maximum number of files hashed or uploaded at the same time
+         * @return this builder
+         */
+        public Builder parallelism(final int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism < 1: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        public DeploymentUploader build() {
+            return new DeploymentUploader(this);
+        }
+
+        /**
+         * Shortcut for <code>build().deploy()</code>
+         *
+         * @return the deployment created
+         * @throws IOException if a problem occurred reading files or talking to the server.
+         */
+        public Deployment deploy() throws IOException {
+            return this.build().deploy();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Outcome of the download of a whole deployment.
+ * <p>
+ * Paths are relative to the target directory. Downloading again into the same directory
+ * resumes where it left off: files already present locally are skipped.
+ */
+public final class DownloadSummary {
+
+    @NotNull
+    private final List<String> downloaded;
+    @NotNull
+    private final List<String> skipped;
+    @NotNull
+    private final Map<String, Exception> failed;
+    private final long bytesDownloaded;
+
+    DownloadSummary(@NotNull final List<String> downloaded,
+                    @NotNull final List<String> skipped,
+                    @NotNull final Map<String, Exception> failed,
+                    final long bytesDownloaded) {
+        this.downloaded = Collections.unmodifiableList(downloaded);
+        this.skipped = Collections.unmodifiableList(skipped);
+        this.failed = Collections.unmodifiableMap(failed);
+        this.bytesDownloaded = bytesDownloaded;
+    }
+
+    /**
+     * @return the files downloaded
+     */
+    @NotNull
+    public List<String> getDownloaded() {
+        return downloaded;
+    }
+
+    /**
+     * @return the files skipped, because already present locally
+     */
+    @NotNull
+    public List<String> getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * @return the files that could not be downloaded, along with the reason why
+     */
+    @NotNull
+    public Map<String, Exception> getFailed() {
+        return failed;
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded;
+    }
+
+    /**
+     * @return whether all files of the deployment are now present locally
+     */
+    public boolean isComplete() {
+        return this.failed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "DownloadSummary{" +
+                "downloaded=" + downloaded.size() +
+                ", skipped=" + skipped.size() +
+                ", failed=" + failed.keySet() +
+                ", bytesDownloaded=" + bytesDownloaded +
+                '}';
+    }
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.Okio;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Moves response bodies to their destination, straight from the underlying source,
+ * without ever holding the whole payload in memory
+ */
+public final class FileTransfers {
+
+    private static final String PARTIAL_FILE_SUFFIX = ".part";
+
+    private static final int CHANNEL_BUFFER_SIZE = 64 * 1024;
+
+    private FileTransfers() {
+        throw new UnsupportedOperationException("Not instantiable");
+    }
+
+    /**
+     * Writes a body to a file. Bytes are written to a sibling <code>.part</code> file first,
+     * then moved atomically in place, so the destination is never left half-written.
+     *
+     * @param body        the body, closed once written
+     * @param destination the file to write. Parent directories are created if needed.
+     * @return the number of bytes written
+     * @throws IOException if the body could not be read, or the file written
+     */
+    public static long writeTo(@NotNull final ResponseBody body, @NotNull final Path destination) throws IOException {
+        try (final ResponseBody toClose = body) {
+            final Path parent = destination.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            final Path partialFile = destination.resolveSibling(destination.getFileName() + PARTIAL_FILE_SUFFIX);
+            final long written;
+            try (final FileChannel channel = FileChannel.open(partialFile,
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                written = transfer(toClose.source(), channel, 0L, Long.MAX_VALUE);
+            } catch (final IOException e) {
+                //Nothing to resume from: do not leave the truncated file behind
+                try {
+                    Files.deleteIfExists(partialFile);
+                } catch (final IOException deletionFailure) {
+                    e.addSuppressed(deletionFailure);
+                }
+                throw e;
+            }
+            Files.move(partialFile, destination,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return written;
+        }
+    }
+
+    /**
+     * Writes a body to a channel, from the current position of the channel if it is a {@link FileChannel}
+     *
+     * @param body    the body, closed once written
+     * @param channel the channel, left open
+     * @return the number of bytes written
+     * @throws IOException if the body could not be read, or the channel written
+     */
+    public static long writeTo(@NotNull final ResponseBody body, @NotNull final WritableByteChannel channel)
+            throws IOException {
+        try (final ResponseBody toClose = body) {
+            final BufferedSource source = toClose.source();
+            if (channel instanceof FileChannel) {
+                final FileChannel fileChannel = (FileChannel) channel;
+                final long position = fileChannel.position();
+                final long written = transfer(source, fileChannel, position, Long.MAX_VALUE);
+                fileChannel.position(position + written);
+                return written;
+            }
+            final ByteBuffer buffer = ByteBuffer.allocate(CHANNEL_BUFFER_SIZE);
+            long written = 0L;
+            while (source.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    written += channel.write(buffer);
+                }
+                buffer.clear();
+            }
+            return written;
+        }
+    }
+
+    /**
+     * Writes up to <code>maxBytes</code> of a source at a given position of a file.
+     * Unlike {@link FileChannel#transferFrom(java.nio.channels.ReadableByteChannel, long, long)},
+     * which returns a short count when the source fails after some bytes were read,
+     * a connection lost midway is reported, so a truncated body is never taken for a complete one.
+     *
+     * @return the number of bytes written, less than <code>maxBytes</code> only if the source got exhausted
+     */
+    static long transfer(@NotNull final BufferedSource source,
+                         @NotNull final FileChannel channel,
+                         final long position,
+                         final long maxBytes) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate((int) Math.min(CHANNEL_BUFFER_SIZE, maxBytes));
+        long written = 0L;
+        while (written < maxBytes) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), maxBytes - written));
+            if (source.read(buffer) == -1) {
+                break;
+            }
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                written += channel.write(buffer, position + written);
+            }
+        }
+        return written;
+    }
+
+    /**
+     * Writes a body to an output stream
+     *
+     * @param body         the body, closed once written
+     * @param outputStream the stream, flushed but left open
+     * @return the number of bytes written
+     * @throws IOException if the body could not be read, or the stream written
+     */
+    public static long writeTo(@NotNull final ResponseBody body, @NotNull final OutputStream outputStream)
+            throws IOException {
+        try (final ResponseBody toClose = body) {
+            //Segments are handed over to the stream as they are, without any intermediate copy
+            final long written = toClose.source().readAll(Okio.sink(outputStream));
+            outputStream.flush();
+            return written;
+        }
+    }
+}
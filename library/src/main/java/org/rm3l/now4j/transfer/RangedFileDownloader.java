@@ -0,0 +1,542 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import okhttp3.ResponseBody;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.NowService;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import retrofit2.Response;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.RandomAccessFile;
+import java.net.SocketTimeoutException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static java.net.HttpURLConnection.HTTP_PARTIAL;
+
+/**
+ * Downloads a single file with HTTP range requests.
+ * <p>
+ * The file is written to a sibling <code>.part</code> file, then moved atomically in place.
+ * A <code>.part</code> file left over by an interrupted download is resumed from its last byte,
+ * and a range cut short by a network failure is requested again from where it stopped.
+ * With a parallelism greater than 1, large files are split into parts fetched concurrently,
+ * each written at its own offset of the preallocated <code>.part</code> file. The parts completed are then
+ * listed in a sibling <code>.parts</code> file, so that resuming only fetches the others.
+ * <p>
+ * Files are addressed by the SHA-1 digest of their content, so ranges fetched at different times always match.
+ * If the server does not honour ranges, the whole file is fetched in one go.
+ */
+public final class RangedFileDownloader {
+
+    public static final long DEFAULT_PART_SIZE = 8L * 1024L * 1024L;
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final String PARTIAL_FILE_SUFFIX = ".part";
+    private static final String PARTS_FILE_SUFFIX = ".parts";
+    private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+    private static final Pattern CONTENT_RANGE = Pattern.compile("bytes (\\d+)-(\\d+)/(\\d+|\\*)");
+
+    @NotNull
+    private final NowService nowService;
+    @NotNull
+    private final String deploymentId;
+    @NotNull
+    private final String fileId;
+    private final int parallelism;
+    private final long partSize;
+    private final boolean resume;
+    private final int maxAttempts;
+
+    private RangedFileDownloader(@NotNull final Builder builder) {
+        this.nowService = builder.nowService;
+        this.deploymentId = builder.deploymentId;
+        this.fileId = builder.fileId;
+        this.parallelism = builder.parallelism;
+        this.partSize = builder.partSize;
+        this.resume = builder.resume;
+        this.maxAttempts = builder.maxAttempts;
+    }
+
+    /**
+     * @param nowService   the service to download with
+     * @param deploymentId ID of deployment
+     * @param fileId       ID of the file
+     * @return a new {@link Builder}
+     */
+    public static Builder builder(@NotNull final NowService nowService,
+                                  @NotNull final String deploymentId,
+                                  @NotNull final String fileId) {
+        return new Builder(nowService, deploymentId, fileId);
+    }
+
+    /**
+     * Download the file
+     *
+     * @param destination the local file to write. Parent directories are created if needed.
+     * @return the number of bytes fetched, which excludes those already present in a resumed <code>.part</code> file
+     * @throws IOException                   if a problem occurred writing the file or talking to the server.
+     * @throws UnsuccessfulResponseException if response code got from the server was not successful
+     */
+    public long download(@NotNull final Path destination) throws IOException {
+        final Path parent = destination.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        final Path partialFile = destination.resolveSibling(destination.getFileName() + PARTIAL_FILE_SUFFIX);
+        final Path partsFile = destination.resolveSibling(destination.getFileName() + PARTS_FILE_SUFFIX);
+        final boolean resumable = this.resume && Files.isRegularFile(partialFile);
+        //A parallel download preallocates the whole file: only its parts file tells what was fetched
+        Parts parts = resumable && Files.isRegularFile(partsFile) ? Parts.read(partsFile) : null;
+        if (parts != null && Files.size(partialFile) != parts.total) {
+            parts = null;
+        }
+        long offset = resumable && !Files.exists(partsFile) ? Files.size(partialFile) : 0L;
+        final long fetched;
+        try (final RandomAccessFile file = new RandomAccessFile(partialFile.toFile(), "rw")) {
+            if (parts != null) {
+                fetched = this.fetchParts(file.getChannel(), parts, null);
+            } else {
+                Files.deleteIfExists(partsFile);
+                Response<ResponseBody> response = this.request(offset, -1L);
+                if (response.code() == HTTP_RANGE_NOT_SATISFIABLE && offset > 0L) {
+                    //Left over by a download interrupted right before its move, or by a parallel one: start over
+                    close(response);
+                    offset = 0L;
+                    response = this.request(offset, -1L);
+                }
+                fetched = this.download(file, response, offset, partsFile);
+            }
+        }
+        Files.move(partialFile, destination,
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        Files.deleteIfExists(partsFile);
+        return fetched;
+    }
+
+    private long download(@NotNull final RandomAccessFile file,
+                          @NotNull final Response<ResponseBody> response,
+                          final long offset,
+                          @NotNull final Path partsFile) throws IOException {
+        final FileChannel channel = file.getChannel();
+        if (response.isSuccessful() && response.code() != HTTP_PARTIAL) {
+            //Ranges not honoured: the whole file comes in
+            try (final ResponseBody body = response.body()) {
+                if (body == null) {
+                    throw new IOException("Empty body for file " + this.fileId);
+                }
+                file.setLength(0L);
+                return FileTransfers.transfer(body.source(), channel, 0L, Long.MAX_VALUE);
+            }
+        }
+        final ContentRange range = this.contentRange(response, offset);
+        if (this.parallelism == 1 || range.total < 0L || range.total - offset <= this.partSize) {
+            file.setLength(offset);
+            return this.fetch(channel, offset, -1L, response);
+        }
+
+        final Parts parts = new Parts(this.resume ? partsFile : null, offset, this.partSize, range.total);
+        parts.write();
+        file.setLength(range.total);
+        return this.fetchParts(channel, parts, response);
+    }
+
+    /**
+     * Fetches the parts not completed yet, with up to {@link #parallelism} of them at the same time
+     *
+     * @param response response to read the first part missing from, on the calling thread, if already received
+     * @return the number of bytes fetched
+     */
+    private long fetchParts(@NotNull final FileChannel channel,
+                            @NotNull final Parts parts,
+                            @Nullable final Response<ResponseBody> response) throws IOException {
+        final List<Integer> missing = parts.missing();
+        final int first = response != null && !missing.isEmpty() ? 1 : 0;
+        final int submitted = missing.size() - first;
+        final ExecutorService executorService = submitted > 0 ?
+                Executors.newFixedThreadPool(Math.max(1, Math.min(this.parallelism - first, submitted))) : null;
+        try {
+            final List<Future<Long>> futures = new ArrayList<>(submitted);
+            for (final int part : missing.subList(first, missing.size())) {
+                futures.add(executorService.submit(() -> this.fetchPart(channel, parts, part, null)));
+            }
+            long fetched = first > 0 ? this.fetchPart(channel, parts, missing.get(0), response) : 0L;
+            for (final Future<Long> future : futures) {
+                fetched += await(future);
+            }
+            return fetched;
+        } finally {
+            if (executorService != null) {
+                executorService.shutdownNow();
+            }
+        }
+    }
+
+    private long fetchPart(@NotNull final FileChannel channel,
+                           @NotNull final Parts parts,
+                           final int part,
+                           @Nullable final Response<ResponseBody> response) throws IOException {
+        final long fetched = this.fetch(channel, parts.start(part), parts.end(part), response);
+        //Only list the part as completed once its bytes are on disk
+        channel.force(false);
+        parts.complete(part);
+        return fetched;
+    }
+
+    /**
+     * Writes a range of the file at its offset, requesting what is left of it again after a network failure
+     *
+     * @param end      last byte of the range, or <code>-1</code> for the end of the file
+     * @param response response to read first, if already received
+     * @return the number of bytes fetched
+     */
+    private long fetch(@NotNull final FileChannel channel,
+                       final long start,
+                       final long end,
+                       @Nullable final Response<ResponseBody> response) throws IOException {
+        long position = start;
+        long last = end;
+        Response<ResponseBody> next = response;
+        int failures = 0;
+        while (last < 0L || position <= last) {
+            try {
+                final Response<ResponseBody> current = next != null ? next : this.request(position, last);
+                next = null;
+                final ContentRange range = this.contentRange(current, position);
+                if (last < 0L) {
+                    last = range.total >= 0L ? range.total - 1L : range.end;
+                }
+                try (final ResponseBody body = current.body()) {
+                    final long rangeEnd = Math.min(last, range.end);
+                    while (position <= rangeEnd) {
+                        final long transferred =
+                                FileTransfers.transfer(body.source(), channel, position, rangeEnd - position + 1L);
+                        if (transferred <= 0L) {
+                            throw new EOFException("Unexpected end of file " + this.fileId + " at byte " + position);
+                        }
+                        position += transferred;
+                    }
+                }
+            } catch (final IOException e) {
+                final boolean interrupted = e instanceof InterruptedIOException && !(e instanceof SocketTimeoutException);
+                if (interrupted || ++failures >= this.maxAttempts) {
+                    throw e;
+                }
+            }
+        }
+        return position - start;
+    }
+
+    @NotNull
+    private Response<ResponseBody> request(final long start, final long end) throws IOException {
+        return this.nowService.getFileRange(this.deploymentId, this.fileId,
+                "bytes=" + start + "-" + (end >= 0L ? end : "")).execute();
+    }
+
+    /**
+     * @return the range of a successful partial response, whose body is then left open
+     */
+    @NotNull
+    private ContentRange contentRange(@NotNull final Response<ResponseBody> response, final long expectedStart)
+            throws IOException {
+        if (!response.isSuccessful()) {
+            close(response);
+            throw new UnsuccessfulResponseException(response.code(), response.message());
+        }
+        if (response.body() == null) {
+            throw new IOException("Empty body for file " + this.fileId);
+        }
+        final String header = response.headers().get("Content-Range");
+        final ContentRange range = response.code() == HTTP_PARTIAL ? ContentRange.parse(header) : null;
+        if (range == null || range.start != expectedStart) {
+            close(response);
+            throw new IOException("Unexpected range for file " + this.fileId + " from byte " + expectedStart +
+                    ": " + header);
+        }
+        return range;
+    }
+
+    private static void close(@NotNull final Response<ResponseBody> response) {
+        final ResponseBody body = response.isSuccessful() ? response.body() : response.errorBody();
+        if (body != null) {
+            body.close();
+        }
+    }
+
+    private static <T> T await(@NotNull final Future<T> future) throws IOException {
+        try {
+            return future.get();
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while downloading");
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    static final class ContentRange {
+        final long start;
+        final long end;
+        /**
+         * <code>-1</code> if unknown
+         */
+        final long total;
+
+        private ContentRange(final long start, final long end, final long total) {
+            this.start = start;
+            this.end = end;
+            this.total = total;
+        }
+
+        /**
+         * @param header value of a <code>Content-Range</code> header, e.g., <code>bytes 0-499/1234</code>
+         * @return the range, or {@code null} if the header is missing, malformed or not satisfiable
+         */
+        @Nullable
+        static ContentRange parse(@Nullable final String header) {
+            final Matcher matcher = header != null ? CONTENT_RANGE.matcher(header.trim()) : null;
+            if (matcher == null || !matcher.matches()) {
+                return null;
+            }
+            try {
+                final long start = Long.parseLong(matcher.group(1));
+                final long end = Long.parseLong(matcher.group(2));
+                final long total = "*".equals(matcher.group(3)) ? -1L : Long.parseLong(matcher.group(3));
+                if (end < start || (total >= 0L && end >= total)) {
+                    return null;
+                }
+                return new ContentRange(start, end, total);
+            } catch (final NumberFormatException e) {
+                //Too large
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Layout of a parallel download, and parts completed so far, persisted if resumable.
+     * <p>
+     * The parts file starts with a line holding the offset of the first part, the part size and the file size,
+     * followed by one line per part completed, with its index.
+     */
+    private static final class Parts {
+        @Nullable
+        private final Path path;
+        private final long offset;
+        private final long partSize;
+        private final long total;
+        private final int count;
+        @NotNull
+        private final BitSet completed;
+        @NotNull
+        private final Lock lock = new ReentrantLock();
+
+        private Parts(@Nullable final Path path, final long offset, final long partSize, final long total) {
+            this.path = path;
+            this.offset = offset;
+            this.partSize = partSize;
+            this.total = total;
+            this.count = (int) ((total - offset + partSize - 1L) / partSize);
+            this.completed = new BitSet(this.count);
+        }
+
+        /**
+         * @return the parts listed in the file, or {@code null} if it cannot be made sense of
+         */
+        @Nullable
+        static Parts read(@NotNull final Path path) throws IOException {
+            final List<String> lines = Files.readAllLines(path, StandardCharsets.US_ASCII);
+            try {
+                final String[] layout = lines.isEmpty() ? new String[0] : lines.get(0).split(" ");
+                if (layout.length != 3) {
+                    return null;
+                }
+                final Parts parts = new Parts(path,
+                        Long.parseLong(layout[0]), Long.parseLong(layout[1]), Long.parseLong(layout[2]));
+                if (parts.offset < 0L || parts.partSize < 1L || parts.total <= parts.offset) {
+                    return null;
+                }
+                for (final String line : lines.subList(1, lines.size())) {
+                    final int part = Integer.parseInt(line);
+                    if (part >= 0 && part < parts.count) {
+                        parts.completed.set(part);
+                    }
+                }
+                return parts;
+            } catch (final NumberFormatException e) {
+                //Interrupted while writing a line: the part was not listed as completed
+                return null;
+            }
+        }
+
+        long start(final int part) {
+            return this.offset + part * this.partSize;
+        }
+
+        long end(final int part) {
+            return Math.min(this.start(part) + this.partSize, this.total) - 1L;
+        }
+
+        @NotNull
+        List<Integer> missing() {
+            final List<Integer> missing = new ArrayList<>(this.count);
+            for (int part = this.completed.nextClearBit(0); part < this.count;
+                 part = this.completed.nextClearBit(part + 1)) {
+                missing.add(part);
+            }
+            return missing;
+        }
+
+        void write() throws IOException {
+            if (this.path != null) {
+                Files.write(this.path, Collections.singletonList(this.offset + " " + this.partSize + " " + this.total),
+                        StandardCharsets.US_ASCII);
+            }
+        }
+
+        void complete(final int part) throws IOException {
+            this.lock.lock();
+            try {
+                this.completed.set(part);
+                if (this.path != null) {
+                    Files.write(this.path, Collections.singletonList(Integer.toString(part)),
+                            StandardCharsets.US_ASCII, StandardOpenOption.APPEND);
+                }
+            } finally {
+                this.lock.unlock();
+            }
+        }
+    }
+
+    public static final class Builder {
+
+        @NotNull
+        private final NowService nowService;
+        @NotNull
+        private final String deploymentId;
+        @NotNull
+        private final String fileId;
+        private int parallelism = 1;
+        private long partSize = DEFAULT_PART_SIZE;
+        private boolean resume = true;
+        private int maxAttempts = DEFAULT_MAX_ATTEMPTS;
+
+        private Builder(@NotNull final NowService nowService,
+                        @NotNull final String deploymentId,
+                        @NotNull final String fileId) {
+            this.nowService = nowService;
+            this.deploymentId = deploymentId;
+            this.fileId = fileId;
+        }
+
+        /**
+         * @param parallelism maximum number of ranges fetched at the same time. Defaults to 1.
+         * @return this builder
+         */
+        public Builder parallelism(final int parallelism) {
+            if (parallelism < 1) {
+                throw new IllegalArgumentException("parallelism < 1: " + parallelism);
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param partSize size in bytes of the ranges fetched concurrently. Defaults to 8 MiB.
+         *                 Files no larger than this are fetched with a single request.
+         * @return this builder
+         */
+        public Builder partSize(final long partSize) {
+            if (partSize < 1L) {
+                throw new IllegalArgumentException("partSize < 1: " + partSize);
+            }
+            this.partSize = partSize;
+            return this;
+        }
+
+        /**
+         * @param resume whether to resume from a <code>.part</code> file left over by an interrupted download.
+         *               Defaults to <code>true</code>.
+         * @return this builder
+         */
+        public Builder resume(final boolean resume) {
+            this.resume = resume;
+            return this;
+        }
+
+        /**
+         * @param maxAttempts maximum number of requests made for each range, should the network fail
+         *                    while reading it. Defaults to {@value RangedFileDownloader#DEFAULT_MAX_ATTEMPTS}.
+         * @return this builder
+         */
+        public Builder maxAttempts(final int maxAttempts) {
+            if (maxAttempts < 1) {
+                throw new IllegalArgumentException("maxAttempts < 1: " + maxAttempts);
+            }
+            this.maxAttempts = maxAttempts;
+            return this;
+        }
+
+        public RangedFileDownloader build() {
+            return new RangedFileDownloader(this);
+        }
+
+        /**
+         * Shortcut for <code>build().download(destination)</code>
+         *
+         * @param destination the local file to write
+         * @return the number of bytes fetched
+         * @throws IOException if a problem occurred writing the file or talking to the server.
+         */
+        public long download(@NotNull final Path destination) throws IOException {
+            return this.build().download(destination);
+        }
+    }
+}
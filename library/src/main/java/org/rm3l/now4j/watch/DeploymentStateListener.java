@@ -0,0 +1,53 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.watch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.resources.deployments.Deployment;
+
+/**
+ * Notified by a {@link DeploymentWatcher} about the deployments it watches.
+ * <p>
+ * Notifications come from HTTP client threads, and should therefore return quickly.
+ * Exceptions thrown by listeners are handed over to the uncaught exception handler of the notifying thread,
+ * and do not stop the deployments from being watched.
+ */
+public interface DeploymentStateListener {
+
+    /**
+     * Called when the state of a deployment is first known, then every time it changes
+     *
+     * @param deployment    the deployment, with its new state
+     * @param previousState the previous state, or {@code null} if this is the first state known
+     */
+    void onStateChanged(@NotNull Deployment deployment, @Nullable Deployment.State previousState);
+
+    /**
+     * Called when polling a deployment failed. Polling goes on, unless the deployment was not found.
+     *
+     * @param deploymentId the deployment identifier
+     * @param error        the error
+     */
+    default void onError(@NotNull String deploymentId, @NotNull Throwable error) {
+    }
+}
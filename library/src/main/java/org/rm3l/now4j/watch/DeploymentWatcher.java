@@ -0,0 +1,409 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.watch;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.rm3l.now4j.api.NowService;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import retrofit2.Call;
+import retrofit2.Callback;
+import retrofit2.Response;
+
+import java.io.Closeable;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.net.HttpURLConnection.HTTP_BAD_REQUEST;
+import static java.net.HttpURLConnection.HTTP_CLIENT_TIMEOUT;
+import static java.net.HttpURLConnection.HTTP_INTERNAL_ERROR;
+
+/**
+ * Watches the state of many deployments, until they reach a terminal state
+ * (see {@link Deployment.State#isTerminal()}), with a single scheduler thread.
+ * <p>
+ * Each deployment is polled asynchronously, at its own pace: the interval between two polls grows
+ * while its state does not change, and is reset as soon as it does. Watching a same deployment several times,
+ * e.g., by several callers awaiting it, shares a single poll.
+ */
+public final class DeploymentWatcher implements Closeable {
+
+    public static final long DEFAULT_INITIAL_INTERVAL_MILLIS = 1_000L;
+    public static final long DEFAULT_MAX_INTERVAL_MILLIS = 30_000L;
+    public static final double DEFAULT_MULTIPLIER = 1.5;
+
+    private static final int HTTP_TOO_MANY_REQUESTS = 429;
+
+    @NotNull
+    private final NowService nowService;
+    @NotNull
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final long initialIntervalMillis;
+    private final long maxIntervalMillis;
+    private final double multiplier;
+    @NotNull
+    private final List<DeploymentStateListener> listeners = new CopyOnWriteArrayList<>();
+    @NotNull
+    private final ConcurrentMap<String, Watch> watches = new ConcurrentHashMap<>();
+    @NotNull
+    private final AtomicBoolean closed = new AtomicBoolean(false);
+
+    private DeploymentWatcher(@NotNull final Builder builder) {
+        this.nowService = builder.nowService;
+        this.ownsScheduler = builder.scheduler == null;
+        this.scheduler = builder.scheduler != null ? builder.scheduler :
+                Executors.newSingleThreadScheduledExecutor(r -> {
+                    final Thread thread = new Thread(r, "now4j-deployment-watcher");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.initialIntervalMillis = builder.initialIntervalMillis;
+        this.maxIntervalMillis = Math.max(builder.maxIntervalMillis, builder.initialIntervalMillis);
+        this.multiplier = builder.multiplier;
+        this.listeners.addAll(builder.listeners);
+    }
+
+    public static Builder builder(@NotNull final NowService nowService) {
+        return new Builder(nowService);
+    }
+
+    public void addListener(@NotNull final DeploymentStateListener listener) {
+        this.listeners.add(listener);
+    }
+
+    public void removeListener(@NotNull final DeploymentStateListener listener) {
+        this.listeners.remove(listener);
+    }
+
+    /**
+     * Starts watching a deployment, if not watched already
+     *
+     * @param deploymentId the deployment identifier
+     * @return a future completed with the deployment once in a terminal state, or completed exceptionally
+     * upon client errors that retrying would not fix, e.g., if the deployment was not found, or the token revoked.
+     * Completing it stops watching the deployment.
+     */
+    @NotNull
+    public CompletableFuture<Deployment> watch(@NotNull final String deploymentId) {
+        if (this.closed.get()) {
+            throw new IllegalStateException("Watcher closed");
+        }
+        final Watch[] created = new Watch[1];
+        final Watch watch = this.watches.computeIfAbsent(deploymentId, id -> created[0] = new Watch(id));
+        if (watch == created[0]) {
+            watch.future.whenComplete((deployment, throwable) -> this.stop(watch));
+            this.poll(watch);
+        }
+        return watch.future;
+    }
+
+    /**
+     * Waits for a deployment to reach a terminal state
+     *
+     * @param deploymentId the deployment identifier
+     * @param timeout      max time to wait
+     * @param timeUnit     unit of {@code timeout}
+     * @return a future completed with the deployment once in a terminal state, or completed exceptionally
+     * with a {@link TimeoutException} if it took too long. Timing out does not stop watching the deployment,
+     * unlike completing the future returned by {@link #watch(String)}.
+     */
+    @NotNull
+    public CompletableFuture<Deployment> awaitTerminal(@NotNull final String deploymentId,
+                                                       final long timeout,
+                                                       @NotNull final TimeUnit timeUnit) {
+        final CompletableFuture<Deployment> result = new CompletableFuture<>();
+        this.watch(deploymentId).whenComplete((deployment, throwable) -> {
+            if (throwable != null) {
+                result.completeExceptionally(throwable);
+            } else {
+                result.complete(deployment);
+            }
+        });
+        if (!result.isDone()) {
+            final ScheduledFuture<?> timeoutTask = this.scheduler.schedule(
+                    () -> result.completeExceptionally(new TimeoutException(
+                            "Deployment " + deploymentId + " not in a terminal state after " + timeout + " " + timeUnit)),
+                    timeout, timeUnit);
+            result.whenComplete((deployment, throwable) -> timeoutTask.cancel(false));
+        }
+        return result;
+    }
+
+    /**
+     * Stops watching a deployment. Futures awaiting it are cancelled.
+     *
+     * @param deploymentId the deployment identifier
+     */
+    public void unwatch(@NotNull final String deploymentId) {
+        final Watch watch = this.watches.get(deploymentId);
+        if (watch != null) {
+            watch.future.cancel(false);
+        }
+    }
+
+    /**
+     * @return number of deployments currently watched
+     */
+    public int size() {
+        return this.watches.size();
+    }
+
+    /**
+     * Stops watching all deployments, cancelling the futures awaiting them
+     */
+    @Override
+    public void close() {
+        if (!this.closed.compareAndSet(false, true)) {
+            return;
+        }
+        for (final Watch watch : this.watches.values()) {
+            watch.future.cancel(false);
+        }
+        if (this.ownsScheduler) {
+            this.scheduler.shutdownNow();
+        }
+    }
+
+    private void stop(@NotNull final Watch watch) {
+        this.watches.remove(watch.deploymentId, watch);
+        final ScheduledFuture<?> nextPoll = watch.nextPoll;
+        if (nextPoll != null) {
+            nextPoll.cancel(false);
+        }
+        final Call<Deployment> call = watch.call;
+        if (call != null) {
+            call.cancel();
+        }
+    }
+
+    private void poll(@NotNull final Watch watch) {
+        if (watch.future.isDone()) {
+            return;
+        }
+        final Call<Deployment> call = this.nowService.getDeployment(watch.deploymentId);
+        watch.call = call;
+        call.enqueue(new Callback<Deployment>() {
+            @Override
+            public void onResponse(Call<Deployment> call, Response<Deployment> response) {
+                final Deployment deployment = response.body();
+                if (!response.isSuccessful() || deployment == null) {
+                    final UnsuccessfulResponseException error =
+                            new UnsuccessfulResponseException(response.code(), response.message());
+                    if (isPermanentFailure(response.code())) {
+                        DeploymentWatcher.this.notifyError(watch, error);
+                        watch.future.completeExceptionally(error);
+                    } else {
+                        DeploymentWatcher.this.onPolled(watch, null, error);
+                    }
+                    return;
+                }
+                DeploymentWatcher.this.onPolled(watch, deployment, null);
+            }
+
+            @Override
+            public void onFailure(Call<Deployment> call, Throwable t) {
+                if (!call.isCanceled()) {
+                    DeploymentWatcher.this.onPolled(watch, null, t);
+                }
+            }
+        });
+    }
+
+    /**
+     * @return whether the response code is a client error, other than the ones worth polling again after
+     */
+    private static boolean isPermanentFailure(final int responseCode) {
+        return responseCode >= HTTP_BAD_REQUEST && responseCode < HTTP_INTERNAL_ERROR
+                && responseCode != HTTP_CLIENT_TIMEOUT && responseCode != HTTP_TOO_MANY_REQUESTS;
+    }
+
+    private void onPolled(@NotNull final Watch watch,
+                          @Nullable final Deployment deployment,
+                          @Nullable final Throwable error) {
+        if (watch.future.isDone()) {
+            return;
+        }
+        boolean changed = false;
+        if (deployment != null) {
+            final Deployment.State previousState = watch.state;
+            final Deployment.State state = deployment.getState();
+            if (state != previousState) {
+                changed = true;
+                watch.state = state;
+                this.notifyStateChanged(deployment, previousState);
+            }
+            if (state != null && state.isTerminal()) {
+                watch.future.complete(deployment);
+                return;
+            }
+        } else if (error != null) {
+            this.notifyError(watch, error);
+        }
+        //Back off while nothing changes
+        watch.intervalMillis = changed ? this.initialIntervalMillis :
+                Math.min(this.maxIntervalMillis, (long) (watch.intervalMillis * this.multiplier));
+        try {
+            watch.nextPoll = this.scheduler.schedule(() -> this.poll(watch), watch.intervalMillis,
+                    TimeUnit.MILLISECONDS);
+        } catch (final RuntimeException e) {
+            //Scheduler shut down
+            watch.future.completeExceptionally(e);
+            return;
+        }
+        if (watch.future.isDone()) {
+            watch.nextPoll.cancel(false);
+        }
+    }
+
+    private void notifyStateChanged(@NotNull final Deployment deployment,
+                                    @Nullable final Deployment.State previousState) {
+        for (final DeploymentStateListener listener : this.listeners) {
+            try {
+                listener.onStateChanged(deployment, previousState);
+            } catch (final RuntimeException e) {
+                onListenerFailure(e);
+            }
+        }
+    }
+
+    private void notifyError(@NotNull final Watch watch, @NotNull final Throwable error) {
+        for (final DeploymentStateListener listener : this.listeners) {
+            try {
+                listener.onError(watch.deploymentId, error);
+            } catch (final RuntimeException e) {
+                onListenerFailure(e);
+            }
+        }
+    }
+
+    /**
+     * A failing listener neither stops the others from being notified, nor the deployment from being polled
+     */
+    private static void onListenerFailure(@NotNull final RuntimeException e) {
+        final Thread thread = Thread.currentThread();
+        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+    }
+
+    private final class Watch {
+
+        @NotNull
+        private final String deploymentId;
+        @NotNull
+        private final CompletableFuture<Deployment> future = new CompletableFuture<>();
+        @Nullable
+        private volatile Deployment.State state;
+        private volatile long intervalMillis = DeploymentWatcher.this.initialIntervalMillis;
+        @Nullable
+        private volatile ScheduledFuture<?> nextPoll;
+        @Nullable
+        private volatile Call<Deployment> call;
+
+        private Watch(@NotNull final String deploymentId) {
+            this.deploymentId = deploymentId;
+        }
+    }
+
+    public static final class Builder {
+
+        @NotNull
+        private final NowService nowService;
+        @Nullable
+        private ScheduledExecutorService scheduler;
+        private long initialIntervalMillis = DEFAULT_INITIAL_INTERVAL_MILLIS;
+        private long maxIntervalMillis = DEFAULT_MAX_INTERVAL_MILLIS;
+        private double multiplier = DEFAULT_MULTIPLIER;
+        @NotNull
+        private final List<DeploymentStateListener> listeners = new CopyOnWriteArrayList<>();
+
+        private Builder(@NotNull final NowService nowService) {
+            this.nowService = nowService;
+        }
+
+        /**
+         * @param initialInterval interval between the first polls, and after every state change
+         * @param timeUnit        unit of {@code initialInterval}
+         * @return this builder
+         */
+        public Builder initialInterval(final long initialInterval, @NotNull final TimeUnit timeUnit) {
+            if (initialInterval <= 0L) {
+                throw new IllegalArgumentException("initialInterval <= 0: " + initialInterval);
+            }
+            this.initialIntervalMillis = timeUnit.toMillis(initialInterval);
+            return this;
+        }
+
+        /**
+         * @param maxInterval max interval between two polls of a same deployment
+         * @param timeUnit    unit of {@code maxInterval}
+         * @return this builder
+         */
+        public Builder maxInterval(final long maxInterval, @NotNull final TimeUnit timeUnit) {
+            if (maxInterval <= 0L) {
+                throw new IllegalArgumentException("maxInterval <= 0: " + maxInterval);
+            }
+            this.maxIntervalMillis = timeUnit.toMillis(maxInterval);
+            return this;
+        }
+
+        /**
+         * @param multiplier factor applied to the interval between polls, while the state does not change
+         * @return this builder
+         */
+        public Builder multiplier(final double multiplier) {
+            if (multiplier < 1.0 || Double.isNaN(multiplier)) {
+                throw new IllegalArgumentException("multiplier < 1: " + multiplier);
+            }
+            this.multiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * @param scheduler scheduler to use, left running on {@link DeploymentWatcher#close()}.
+         *                  Defaults to a dedicated single daemon thread.
+         * @return this builder
+         */
+        public Builder scheduler(@NotNull final ScheduledExecutorService scheduler) {
+            this.scheduler = scheduler;
+            return this;
+        }
+
+        public Builder listener(@NotNull final DeploymentStateListener listener) {
+            this.listeners.add(listener);
+            return this;
+        }
+
+        public DeploymentWatcher build() {
+            return new DeploymentWatcher(this);
+        }
+    }
+}
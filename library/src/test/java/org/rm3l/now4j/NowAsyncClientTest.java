@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j;
+
+import okhttp3.Call;
+import okhttp3.Dispatcher;
+import okhttp3.EventListener;
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rm3l.now4j.contract.NowAsync;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.deployments.Deployment;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NowAsyncClientTest {
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    private final Dispatcher dispatcher = new Dispatcher();
+
+    private final CountDownLatch callFailed = new CountDownLatch(1);
+
+    private final AtomicBoolean failedCallCanceled = new AtomicBoolean();
+
+    private NowAsync nowAsync;
+
+    @Before
+    public void setUp() {
+        final OkHttpClient httpClient = new OkHttpClient.Builder()
+                .dispatcher(this.dispatcher)
+                .eventListener(new EventListener() {
+                    @Override
+                    public void callFailed(final Call call, final IOException ioe) {
+                        failedCallCanceled.set(call.isCanceled());
+                        callFailed.countDown();
+                    }
+                })
+                .build();
+        this.nowAsync = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .httpClient(httpClient)
+                .build()
+                .async();
+    }
+
+    private static Throwable causeOf(final CompletableFuture<?> future) throws InterruptedException {
+        try {
+            future.get(10L, TimeUnit.SECONDS);
+            fail("Completed normally");
+            return null;
+        } catch (final ExecutionException e) {
+            return e.getCause();
+        } catch (final TimeoutException e) {
+            throw new AssertionError("Not completed", e);
+        }
+    }
+
+    @Test
+    public void completesWithTheResult() throws Exception {
+        this.server.enqueue(new MockResponse().setBody(
+                "{\"deployments\":[{\"uid\":\"dpl_1\"},{\"uid\":\"dpl_2\"}]}"));
+
+        final List<Deployment> deployments = this.nowAsync.getDeployments().get(10L, TimeUnit.SECONDS);
+
+        assertEquals(2, deployments.size());
+        assertEquals("dpl_1", deployments.get(0).getUid());
+        assertEquals("dpl_2", deployments.get(1).getUid());
+    }
+
+    @Test
+    public void completesWithNullForDiscardedBodies() throws Exception {
+        this.server.enqueue(new MockResponse().setBody("{}"));
+
+        assertNull(this.nowAsync.deleteDeployment("dpl_1").get(10L, TimeUnit.SECONDS));
+        assertEquals("DELETE", this.server.takeRequest().getMethod());
+    }
+
+    @Test
+    public void failsWithUnsuccessfulResponseExceptionOnNon2xxResponses() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(403)
+                .setBody("{\"error\":{\"code\":\"forbidden\",\"message\":\"Not authorized\"}}"));
+
+        final Throwable cause = causeOf(this.nowAsync.getDeployment("dpl_1"));
+
+        assertTrue(String.valueOf(cause), cause instanceof UnsuccessfulResponseException);
+    }
+
+    @Test
+    public void failsWithTheExceptionOfTheResponseHandler() throws Exception {
+        //A domain is expected in the body
+        this.server.enqueue(new MockResponse().setBody("null"));
+
+        final Throwable cause = causeOf(this.nowAsync.addDomain("example.com", false));
+
+        assertTrue(String.valueOf(cause), cause instanceof UnsuccessfulResponseException);
+    }
+
+    @Test
+    public void failsWithTheIOExceptionOfTheCall() throws Exception {
+        this.server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY)
+                .setBody("{\"deployments\":[{\"uid\":\"dpl_1\"},{\"uid\":\"dpl_2\"}]}"));
+
+        final Throwable cause = causeOf(this.nowAsync.getDeployments());
+
+        assertTrue(String.valueOf(cause), cause instanceof IOException);
+    }
+
+    @Test
+    public void cancellingTheFutureCancelsTheCall() throws Exception {
+        //Never answered: the call stays in flight until cancelled
+        this.server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+        final CompletableFuture<List<Deployment>> future = this.nowAsync.getDeployments();
+        this.server.takeRequest(10L, TimeUnit.SECONDS);
+        assertEquals(1, this.dispatcher.runningCallsCount());
+
+        assertTrue(future.cancel(true));
+
+        assertTrue(future.isCancelled());
+        assertTrue("Call still running", this.callFailed.await(10L, TimeUnit.SECONDS));
+        assertTrue(this.failedCallCanceled.get());
+    }
+
+    @Test
+    public void cancellingACompletedFutureLeavesItCompleted() throws Exception {
+        this.server.enqueue(new MockResponse().setBody("{\"uid\":\"dpl_1\"}"));
+
+        final CompletableFuture<Deployment> future = this.nowAsync.getDeployment("dpl_1");
+        assertEquals("dpl_1", future.get(10L, TimeUnit.SECONDS).getUid());
+
+        assertFalse(future.cancel(true));
+        assertEquals("dpl_1", future.get().getUid());
+    }
+}
@@ -0,0 +1,128 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+
+public class NowClientTransportTest {
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    private static void assertSharedTransport(final NowClient expected, final NowClient actual) {
+        assertSame(expected.getTransport().connectionPool(), actual.getTransport().connectionPool());
+        assertSame(expected.getTransport().dispatcher(), actual.getTransport().dispatcher());
+    }
+
+    @Test
+    public void clientsNotConfiguredOtherwiseShareTheSameTransport() {
+        final NowClient nowClient = NowClient.builder().token("token").build();
+
+        assertSharedTransport(nowClient, NowClient.builder().token("other-token").team("team").build());
+        assertSharedTransport(nowClient, NowClient.create("token"));
+        assertSharedTransport(nowClient, NowClient.create("other-token", "team"));
+        assertSharedTransport(nowClient, nowClient.newBuilder().token("other-token").build());
+    }
+
+    @Test
+    public void tuningCreatesADedicatedTransportSharedByDerivedClients() {
+        final NowClient shared = NowClient.builder().token("token").build();
+        final NowClient nowClient = NowClient.builder()
+                .token("token")
+                .connectionPool(2, 1L, TimeUnit.MINUTES)
+                .maxRequests(3)
+                .maxRequestsPerHost(2)
+                .build();
+
+        assertNotSame(shared.getTransport().connectionPool(), nowClient.getTransport().connectionPool());
+        assertNotSame(shared.getTransport().dispatcher(), nowClient.getTransport().dispatcher());
+        assertEquals(3, nowClient.getTransport().dispatcher().getMaxRequests());
+        assertEquals(2, nowClient.getTransport().dispatcher().getMaxRequestsPerHost());
+
+        final NowClient derived = nowClient.newBuilder().token("other-token").team("team").build();
+        assertSharedTransport(nowClient, derived);
+        assertSharedTransport(nowClient, derived.newBuilder().build());
+    }
+
+    @Test
+    public void buildsFromATuningBuilderShareTheTransportItCreated() {
+        final NowClient.Builder builder = NowClient.builder().token("token").maxRequests(3);
+
+        final NowClient nowClient = builder.build();
+
+        assertSharedTransport(nowClient, builder.build());
+        assertSharedTransport(nowClient, builder.token("other-token").build());
+    }
+
+    @Test
+    public void tuningADerivedBuilderOnlyReplacesWhatIsTuned() {
+        final NowClient nowClient = NowClient.builder()
+                .token("token")
+                .connectionPool(2, 1L, TimeUnit.MINUTES)
+                .build();
+
+        final NowClient derived = nowClient.newBuilder().maxRequests(5).build();
+
+        assertSame(nowClient.getTransport().connectionPool(), derived.getTransport().connectionPool());
+        assertNotSame(nowClient.getTransport().dispatcher(), derived.getTransport().dispatcher());
+        assertEquals(5, derived.getTransport().dispatcher().getMaxRequests());
+    }
+
+    @Test
+    public void sharesTheGivenTransportAsIs() {
+        final OkHttpClient httpClient = new OkHttpClient();
+
+        final NowClient nowClient = NowClient.builder().token("token").httpClient(httpClient).build();
+
+        assertSame(httpClient, nowClient.getTransport());
+        assertSame(httpClient, nowClient.newBuilder().token("other-token").build().getTransport());
+        assertSame(httpClient, NowClient.create(httpClient).getTransport());
+    }
+
+    @Test
+    public void derivedClientsReuseTheConnectionsOfTheirTransport() throws Exception {
+        this.server.enqueue(new MockResponse().setBody("{\"uid\":\"dpl_1\"}"));
+        this.server.enqueue(new MockResponse().setBody("{\"uid\":\"dpl_2\"}"));
+        final NowClient nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .maxRequests(3)
+                .build();
+
+        nowClient.getDeployment("dpl_1");
+        nowClient.newBuilder().token("other-token").build().getDeployment("dpl_2");
+
+        assertEquals(0, this.server.takeRequest().getSequenceNumber());
+        //Second request on the same connection
+        assertEquals(1, this.server.takeRequest().getSequenceNumber());
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.calls;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.deployments.Deployment;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ListStreamTest {
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private NowClient nowClient;
+
+    @Before
+    public void setUp() {
+        this.nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        this.executor.shutdownNow();
+    }
+
+    private static List<String> readIds(final ListStream<Deployment> stream) throws IOException {
+        final List<String> ids = new ArrayList<>();
+        while (stream.hasNext()) {
+            ids.add(stream.next().getUid());
+        }
+        return ids;
+    }
+
+    @Test
+    public void executesTheCallUponTheFirstRead() throws Exception {
+        this.server.enqueue(new MockResponse()
+                .setBody("{\"pagination\":{},\"deployments\":[{\"uid\":\"dpl_1\"},{\"uid\":\"dpl_2\"}]}"));
+        try (final ListStream<Deployment> stream = this.nowClient.streamDeployments()) {
+            assertEquals(0, this.server.getRequestCount());
+            assertEquals(Arrays.asList("dpl_1", "dpl_2"), readIds(stream));
+            assertEquals(1, this.server.getRequestCount());
+            assertFalse(stream.hasNext());
+        }
+    }
+
+    @Test
+    public void readsNothingWithoutTheArray() throws Exception {
+        this.server.enqueue(new MockResponse().setBody("{\"other\":[{\"uid\":\"dpl_1\"}]}"));
+        try (final ListStream<Deployment> stream = this.nowClient.streamDeployments()) {
+            assertEquals(Collections.<String>emptyList(), readIds(stream));
+        }
+    }
+
+    @Test(expected = NoSuchElementException.class)
+    public void failsReadingPastTheLastElement() throws Exception {
+        this.server.enqueue(new MockResponse().setBody("{\"deployments\":[]}"));
+        try (final ListStream<Deployment> stream = this.nowClient.streamDeployments()) {
+            stream.next();
+        }
+    }
+
+    @Test
+    public void failsOnUnsuccessfulResponses() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(403).setBody("{\"error\":{}}"));
+        try (final ListStream<Deployment> stream = this.nowClient.streamDeployments()) {
+            stream.hasNext();
+            fail("Unsuccessful response read");
+        } catch (final UnsuccessfulResponseException expected) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void failsOnMalformedElementsAfterTheOthers() throws Exception {
+        this.server.enqueue(new MockResponse().setBody("{\"deployments\":[{\"uid\":\"dpl_1\"},42]}"));
+        try (final ListStream<Deployment> stream = this.nowClient.streamDeployments()) {
+            assertEquals("dpl_1", stream.next().getUid());
+            stream.next();
+            fail("Malformed element read");
+        } catch (final IOException expected) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void cancelUnblocksTheReadingThread() throws Exception {
+        final StringBuilder body = new StringBuilder("{\"deployments\":[{\"uid\":\"dpl_1\"},");
+        for (int i = 2; i < 100; i++) {
+            body.append("{\"uid\":\"dpl_").append(i).append("\"},");
+        }
+        //The first element is sent right away, the others one chunk per second
+        this.server.enqueue(new MockResponse()
+                .setBody(body.append("{\"uid\":\"dpl_100\"}]}").toString())
+                .throttleBody(32L, 1L, TimeUnit.SECONDS));
+        final ListStream<Deployment> stream = this.nowClient.streamDeployments();
+        assertEquals("dpl_1", stream.next().getUid());
+
+        final Future<List<String>> reading = this.executor.submit(() -> readIds(stream));
+        Thread.sleep(200L);
+        stream.cancel();
+        try {
+            reading.get(5L, TimeUnit.SECONDS);
+            fail("Cancelled stream read");
+        } catch (final ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof IOException);
+        }
+    }
+
+    @Test
+    public void closeBeforeReadingSendsNothing() throws Exception {
+        final ListStream<Deployment> stream = this.nowClient.streamDeployments();
+        stream.close();
+        assertFalse(stream.hasNext());
+        assertEquals(0, this.server.getRequestCount());
+    }
+}
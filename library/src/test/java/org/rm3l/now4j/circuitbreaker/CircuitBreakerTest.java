@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.circuitbreaker;
+
+import org.junit.Test;
+import org.rm3l.now4j.api.EndpointGroup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CircuitBreakerTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1L);
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(1L);
+
+    private static CircuitBreaker circuitBreaker(final long waitDurationInOpenStateMillis) {
+        return CircuitBreakers.builder()
+                .slidingWindowSize(4)
+                .minimumNumberOfCalls(4)
+                .failureRateThreshold(50.0f)
+                .slowCallDurationThreshold(100L, TimeUnit.MILLISECONDS)
+                .slowCallRateThreshold(75.0f)
+                .waitDurationInOpenState(waitDurationInOpenStateMillis, TimeUnit.MILLISECONDS)
+                .permittedCallsInHalfOpenState(2)
+                .build()
+                .getCircuitBreaker(EndpointGroup.DEPLOYMENTS);
+    }
+
+    private static void call(final CircuitBreaker circuitBreaker, final boolean failure, final long durationNanos) {
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        if (failure) {
+            circuitBreaker.onFailure(durationNanos);
+        } else {
+            circuitBreaker.onSuccess(durationNanos);
+        }
+    }
+
+    @Test
+    public void staysClosedBelowTheMinimumNumberOfCalls() {
+        final CircuitBreaker circuitBreaker = circuitBreaker(60_000L);
+        call(circuitBreaker, true, FAST);
+        call(circuitBreaker, true, FAST);
+        call(circuitBreaker, true, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void opensOnFailureRate() {
+        final CircuitBreaker circuitBreaker = circuitBreaker(60_000L);
+        call(circuitBreaker, false, FAST);
+        call(circuitBreaker, false, FAST);
+        call(circuitBreaker, true, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        call(circuitBreaker, true, FAST);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void opensOnSlowCallRate() {
+        final CircuitBreaker circuitBreaker = circuitBreaker(60_000L);
+        call(circuitBreaker, false, FAST);
+        call(circuitBreaker, false, SLOW);
+        call(circuitBreaker, false, SLOW);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        call(circuitBreaker, false, SLOW);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+    }
+
+    @Test
+    public void forgetsOutcomesLeavingTheSlidingWindow() {
+        final CircuitBreaker circuitBreaker = circuitBreaker(60_000L);
+        call(circuitBreaker, true, FAST);
+        for (int i = 0; i < 4; i++) {
+            call(circuitBreaker, false, FAST);
+        }
+        call(circuitBreaker, true, FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void closesAfterSuccessfulTrialCalls() {
+        final CircuitBreaker circuitBreaker = circuitBreaker(0L);
+        open(circuitBreaker);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        //No more trial calls than permitted
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onSuccess(FAST);
+        circuitBreaker.onSuccess(FAST);
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+    }
+
+    @Test
+    public void reopensAndWaitsAfterFailedTrialCalls() throws InterruptedException {
+        final CircuitBreaker circuitBreaker = circuitBreaker(200L);
+        open(circuitBreaker);
+        assertFalse(circuitBreaker.tryAcquirePermission());
+        TimeUnit.MILLISECONDS.sleep(250L);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onFailure(FAST);
+        assertEquals(CircuitBreaker.State.OPEN, circuitBreaker.getState());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void ignoredTrialCallsGiveTheirPermitBack() {
+        final CircuitBreaker circuitBreaker = circuitBreaker(0L);
+        open(circuitBreaker);
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        circuitBreaker.onIgnored();
+        assertTrue(circuitBreaker.tryAcquirePermission());
+        assertFalse(circuitBreaker.tryAcquirePermission());
+    }
+
+    @Test
+    public void resetCloses() {
+        final CircuitBreaker circuitBreaker = circuitBreaker(60_000L);
+        open(circuitBreaker);
+        circuitBreaker.reset();
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreaker.getState());
+        assertTrue(circuitBreaker.tryAcquirePermission());
+    }
+
+    private static void open(final CircuitBreaker circuitBreaker) {
+        for (int i = 0; i < 4; i++) {
+            call(circuitBreaker, true, FAST);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.circuitbreaker;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.api.EndpointGroup;
+import org.rm3l.now4j.ratelimit.RateLimits;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class CircuitBreakingCallAdapterFactoryTest {
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    @Test
+    public void timeSpentWaitingForRateLimitsIsNotSlowness() throws Exception {
+        final CircuitBreakers circuitBreakers = CircuitBreakers.builder()
+                .slidingWindowSize(3)
+                .minimumNumberOfCalls(3)
+                .slowCallDurationThreshold(150L, TimeUnit.MILLISECONDS)
+                .slowCallRateThreshold(50.0f)
+                .build();
+        final NowClient nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .rateLimits(RateLimits.builder()
+                        .limit(EndpointGroup.DEPLOYMENTS, 1, 300L, TimeUnit.MILLISECONDS, 1)
+                        .maxWait(5L, TimeUnit.SECONDS)
+                        .build())
+                .circuitBreakers(circuitBreakers)
+                .build();
+        for (int i = 0; i < 3; i++) {
+            this.server.enqueue(new MockResponse().setBody("{\"deployments\":[]}"));
+            nowClient.getDeployments();
+        }
+        assertEquals(CircuitBreaker.State.CLOSED,
+                circuitBreakers.getCircuitBreaker(EndpointGroup.DEPLOYMENTS).getState());
+    }
+
+    @Test
+    public void slowResponsesOpenTheCircuit() throws Exception {
+        final CircuitBreakers circuitBreakers = CircuitBreakers.builder()
+                .slidingWindowSize(2)
+                .minimumNumberOfCalls(2)
+                .slowCallDurationThreshold(100L, TimeUnit.MILLISECONDS)
+                .slowCallRateThreshold(50.0f)
+                .build();
+        final NowClient nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .circuitBreakers(circuitBreakers)
+                .build();
+        for (int i = 0; i < 2; i++) {
+            this.server.enqueue(new MockResponse().setBody("{\"deployments\":[]}")
+                    .setHeadersDelay(200L, TimeUnit.MILLISECONDS));
+            nowClient.getDeployments();
+        }
+        assertEquals(CircuitBreaker.State.OPEN,
+                circuitBreakers.getCircuitBreaker(EndpointGroup.DEPLOYMENTS).getState());
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.config;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rm3l.now4j.NowClient;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class NowConfigTest {
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+
+    @Before
+    public void setUp() {
+        this.file = this.folder.getRoot().toPath().resolve("now.json");
+    }
+
+    private void write(final String json) throws Exception {
+        final FileTime previous = Files.exists(this.file) ? Files.getLastModifiedTime(this.file) : null;
+        Files.write(this.file, json.getBytes(StandardCharsets.UTF_8));
+        if (previous != null) {
+            //Coarse file system timestamps must not hide the change
+            Files.setLastModifiedTime(this.file, FileTime.fromMillis(previous.toMillis() + 10_000L));
+        }
+    }
+
+    /**
+     * Lets the configuration check its file again
+     */
+    private static void awaitNextCheck() throws InterruptedException {
+        TimeUnit.MILLISECONDS.sleep(1_100L);
+    }
+
+    @Test
+    public void readsDefaultCredentialsAndProfiles() throws Exception {
+        this.write("{\"token\":\"default-token\",\"team\":\"default-team\",\"profiles\":{" +
+                "\"staging\":{\"token\":\"staging-token\"}," +
+                "\"broken\":{\"team\":\"broken-team\"}}}");
+        final NowConfig config = NowConfig.of(this.file);
+        assertEquals("default-token", config.getCredentials().getToken());
+        assertEquals("default-team", config.getCredentials().getTeam());
+        assertEquals("default-team", config.getTeam());
+        assertEquals("staging-token", config.getCredentials("staging").getToken());
+        assertNull(config.getCredentials("staging").getTeam());
+        assertEquals(new HashSet<>(Arrays.asList("staging", "broken")), config.getProfiles());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsUnknownProfiles() throws Exception {
+        this.write("{\"token\":\"default-token\"}");
+        NowConfig.of(this.file).getCredentials("unknown");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsProfilesWithoutToken() throws Exception {
+        this.write("{\"profiles\":{\"broken\":{\"team\":\"broken-team\"}}}");
+        NowConfig.of(this.file).getCredentials("broken");
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsMalformedFiles() throws Exception {
+        this.write("{\"token\":");
+        NowConfig.of(this.file).getCredentials();
+    }
+
+    @Test
+    public void handsOutTheSameClientForTheSameCredentials() throws Exception {
+        this.write("{\"token\":\"default-token\",\"profiles\":{\"staging\":{\"token\":\"staging-token\"}}}");
+        final NowConfig config = NowConfig.of(this.file);
+        assertSame(config.client(), config.client());
+        assertNotSame(config.client(), config.client("staging"));
+    }
+
+    @Test
+    public void reloadsChangedFiles() throws Exception {
+        this.write("{\"token\":\"old-token\",\"profiles\":{\"staging\":{\"token\":\"staging-token\"}}}");
+        final NowConfig config = NowConfig.of(this.file);
+        final NowClient oldClient = config.client();
+        final NowClient stagingClient = config.client("staging");
+        assertEquals("old-token", config.getCredentials().getToken());
+
+        this.write("{\"token\":\"new-token\",\"team\":\"new-team\",\"profiles\":{\"staging\":{\"token\":\"staging-token\"}}}");
+        //Checked at most once per second
+        assertEquals("old-token", config.getCredentials().getToken());
+        awaitNextCheck();
+        assertEquals("new-token", config.getCredentials().getToken());
+        assertEquals("new-team", config.getTeam());
+
+        //Clients for the credentials gone are closed, the others kept
+        assertTrue(oldClient.isClosed());
+        assertNotSame(oldClient, config.client());
+        assertFalse(stagingClient.isClosed());
+        assertSame(stagingClient, config.client("staging"));
+    }
+
+    @Test
+    public void keepsClientsOfUnchangedFiles() throws Exception {
+        this.write("{\"token\":\"default-token\"}");
+        final NowConfig config = NowConfig.of(this.file);
+        final NowClient client = config.client();
+        awaitNextCheck();
+        assertSame(client, config.client());
+        assertFalse(client.isClosed());
+    }
+
+    @Test
+    public void picksUpFilesCreatedLater() throws Exception {
+        final NowConfig config = NowConfig.of(this.file);
+        assertEquals(0, config.getProfiles().size());
+        this.write("{\"token\":\"default-token\",\"profiles\":{\"staging\":{\"token\":\"staging-token\"}}}");
+        awaitNextCheck();
+        assertEquals("default-token", config.getCredentials().getToken());
+        assertTrue(config.getProfiles().contains("staging"));
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.dns;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class DomainRecordBatchTest {
+
+    private static final String RECORDS_PATH = "/domains/example.com/records";
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    /**
+     * How long the server takes to answer each request
+     */
+    private volatile long latencyMillis = 100L;
+
+    private NowClient nowClient;
+
+    @Before
+    public void setUp() {
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) throws InterruptedException {
+                final int current = inFlight.incrementAndGet();
+                maxInFlight.accumulateAndGet(current, Math::max);
+                try {
+                    Thread.sleep(latencyMillis);
+                    return respond(request);
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+            }
+        });
+        this.nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build();
+    }
+
+    /**
+     * Creations of records named "bad" are rejected, deletions of "rec_missing" are not found,
+     * and the connection is dropped when creating records named "drop". Everything else succeeds.
+     */
+    private static MockResponse respond(final RecordedRequest request) {
+        final String path = request.getPath();
+        if ("POST".equals(request.getMethod()) && path.endsWith(RECORDS_PATH)) {
+            final String body = request.getBody().readUtf8();
+            if (body.contains("\"name\":\"bad\"")) {
+                return new MockResponse().setResponseCode(400)
+                        .setBody("{\"error\":{\"code\":\"invalid_name\",\"message\":\"Invalid name\"}}");
+            }
+            if (body.contains("\"name\":\"drop\"")) {
+                return new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AFTER_REQUEST);
+            }
+            return new MockResponse().setBody("{\"uid\":\"rec_" + body.hashCode() + "\"}");
+        }
+        if ("DELETE".equals(request.getMethod()) && path.contains(RECORDS_PATH + "/")) {
+            if (path.endsWith("/rec_missing")) {
+                return new MockResponse().setResponseCode(404)
+                        .setBody("{\"error\":{\"code\":\"not_found\",\"message\":\"Record not found\"}}");
+            }
+            return new MockResponse().setBody("{}");
+        }
+        return new MockResponse().setResponseCode(500);
+    }
+
+    private static DomainRecord record(final String name) {
+        final DomainRecord record = new DomainRecord();
+        record.setType("A");
+        record.setName(name);
+        record.setValue("1.2.3.4");
+        return record;
+    }
+
+    private static List<DomainRecord> records(final int count) {
+        final List<DomainRecord> records = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            records.add(record("host" + i));
+        }
+        return records;
+    }
+
+    @Test
+    public void keepsAtMostParallelismRequestsInFlight() throws Exception {
+        final DomainRecordBatchResult result = this.nowClient.newDomainRecordBatch("example.com")
+                .create(records(12))
+                .parallelism(3)
+                .execute();
+
+        assertTrue(result.isComplete());
+        assertEquals(12, result.getSucceededCount());
+        assertEquals(12, this.server.getRequestCount());
+        assertEquals(3, this.maxInFlight.get());
+    }
+
+    @Test
+    public void sendsOneRequestAtATimeWithAParallelismOfOne() throws Exception {
+        this.latencyMillis = 20L;
+        final DomainRecordBatchResult result = this.nowClient.newDomainRecordBatch("example.com")
+                .create(records(4))
+                .delete("rec_1")
+                .delete("rec_2")
+                .parallelism(1)
+                .execute();
+
+        assertTrue(result.isComplete());
+        assertEquals(6, this.server.getRequestCount());
+        assertEquals(1, this.maxInFlight.get());
+    }
+
+    @Test
+    public void reportsPartialFailuresOperationByOperation() throws Exception {
+        final DomainRecordBatchResult result = this.nowClient.newDomainRecordBatch("example.com")
+                .create(record("www"))
+                .create(record("bad"))
+                .delete("rec_1")
+                .delete("rec_missing")
+                .create(record("drop"))
+                .create(record("api"))
+                .parallelism(2)
+                .execute();
+
+        //Failures did not stop the other operations. The dropped creation may have been retried.
+        assertTrue(this.server.getRequestCount() >= 6);
+        assertFalse(result.isComplete());
+        assertEquals(3, result.getSucceededCount());
+        assertEquals(3, result.getFailedCount());
+
+        final List<DomainRecordBatchResult.Outcome> outcomes = result.getOutcomes();
+        assertEquals(6, outcomes.size());
+        //In the order operations were added
+        assertEquals("www", outcomes.get(0).getOperation().getRecord().getName());
+        assertEquals("bad", outcomes.get(1).getOperation().getRecord().getName());
+        assertEquals("rec_1", outcomes.get(2).getOperation().getRecordId());
+        assertEquals("rec_missing", outcomes.get(3).getOperation().getRecordId());
+        assertEquals("drop", outcomes.get(4).getOperation().getRecord().getName());
+        assertEquals("api", outcomes.get(5).getOperation().getRecord().getName());
+
+        assertTrue(outcomes.get(0).isSuccessful());
+        assertNotNull(outcomes.get(0).getCreated());
+        assertTrue(outcomes.get(2).isSuccessful());
+        assertNull(outcomes.get(2).getCreated());
+        assertTrue(outcomes.get(5).isSuccessful());
+
+        assertTrue(outcomes.get(1).getError() instanceof UnsuccessfulResponseException);
+        assertNull(outcomes.get(1).getCreated());
+        assertTrue(outcomes.get(3).getError() instanceof UnsuccessfulResponseException);
+        assertTrue(String.valueOf(outcomes.get(4).getError()), outcomes.get(4).getError() instanceof IOException);
+
+        assertEquals(Arrays.asList(outcomes.get(1), outcomes.get(3), outcomes.get(4)), result.getFailed());
+    }
+
+    @Test
+    public void completesEmptyBatchesWithoutRequests() throws Exception {
+        final DomainRecordBatchResult result = this.nowClient.newDomainRecordBatch("example.com").execute();
+
+        assertTrue(result.isComplete());
+        assertTrue(result.getOutcomes().isEmpty());
+        assertEquals(0, this.server.getRequestCount());
+    }
+
+    @Test
+    public void keepsTheOperationsOfTheBuilder() {
+        final DomainRecord toDelete = record("old");
+        toDelete.setId("rec_old");
+        final DomainRecordBatch batch = this.nowClient.newDomainRecordBatch("example.com")
+                .create(record("www"))
+                .delete(Arrays.asList(toDelete))
+                .build();
+
+        assertEquals("example.com", batch.getDomainName());
+        assertEquals(2, batch.getOperations().size());
+        assertSame(DomainRecordBatch.Operation.Type.CREATE, batch.getOperations().get(0).getType());
+        assertSame(DomainRecordBatch.Operation.Type.DELETE, batch.getOperations().get(1).getType());
+        assertEquals("rec_old", batch.getOperations().get(1).getRecordId());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsDeletionsOfRecordsWithoutId() {
+        this.nowClient.newDomainRecordBatch("example.com").delete(Arrays.asList(record("www")));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsParallelismsLowerThanOne() {
+        this.nowClient.newDomainRecordBatch("example.com").parallelism(0);
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.dns;
+
+import org.junit.Test;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ZoneSyncPlanTest {
+
+    private static DomainRecord record(final String id, final String type, final String name, final String value) {
+        final DomainRecord record = new DomainRecord();
+        record.setId(id);
+        record.setType(type);
+        record.setName(name);
+        record.setValue(value);
+        return record;
+    }
+
+    private static DomainRecord mx(final String id, final String value, final long priority) {
+        final DomainRecord record = record(id, "MX", "", value);
+        record.setMxPriority(priority);
+        return record;
+    }
+
+    @Test
+    public void identicalRecordSetsNeedNoChange() {
+        final DomainRecord live = record("rec_1", "A", "www", "1.2.3.4");
+        final ZoneSyncPlan plan = ZoneSyncPlan.of(Collections.singletonList(live),
+                Collections.singletonList(record(null, "a", "www", "1.2.3.4")), true);
+        assertTrue(plan.isEmpty());
+        assertEquals(1, plan.getUnchanged().size());
+        //Unchanged records are the live ones, with their server-assigned fields
+        assertSame(live, plan.getUnchanged().get(0));
+    }
+
+    @Test
+    public void createsMissingAndDeletesExtraRecords() {
+        final DomainRecord kept = record("rec_1", "A", "www", "1.2.3.4");
+        final DomainRecord extra = record("rec_2", "A", "www", "5.6.7.8");
+        final DomainRecord missing = record(null, "CNAME", "api", "example.com");
+        final ZoneSyncPlan plan = ZoneSyncPlan.of(Arrays.asList(kept, extra),
+                Arrays.asList(record(null, "A", "www", "1.2.3.4"), missing), true);
+        assertEquals(Collections.singletonList(missing), plan.getToCreate());
+        assertEquals(Collections.singletonList(extra), plan.getToDelete());
+        assertEquals(Collections.singletonList(kept), plan.getUnchanged());
+    }
+
+    @Test
+    public void keepsExtraRecordsWithoutPruning() {
+        final DomainRecord extra = record("rec_2", "A", "www", "5.6.7.8");
+        final ZoneSyncPlan plan = ZoneSyncPlan.of(Collections.singletonList(extra),
+                Collections.<DomainRecord>emptyList(), false);
+        assertTrue(plan.isEmpty());
+        assertTrue(plan.getUnchanged().isEmpty());
+    }
+
+    @Test
+    public void emptyDesiredRecordSetDeletesEverythingWhenPruning() {
+        final DomainRecord live = record("rec_1", "A", "www", "1.2.3.4");
+        final ZoneSyncPlan plan = ZoneSyncPlan.of(Collections.singletonList(live),
+                Collections.<DomainRecord>emptyList(), true);
+        assertEquals(Collections.singletonList(live), plan.getToDelete());
+    }
+
+    @Test
+    public void apexMatchesEmptyName() {
+        final ZoneSyncPlan plan = ZoneSyncPlan.of(
+                Collections.singletonList(record("rec_1", "TXT", "", "v=spf1 -all")),
+                Collections.singletonList(record(null, "TXT", "@", "v=spf1 -all")), true);
+        assertTrue(plan.isEmpty());
+    }
+
+    @Test
+    public void mxPriorityIsPartOfTheKey() {
+        final DomainRecord live = mx("rec_1", "mail.example.com", 10L);
+        final DomainRecord desired = mx(null, "mail.example.com", 20L);
+        final ZoneSyncPlan plan = ZoneSyncPlan.of(Collections.singletonList(live),
+                Collections.singletonList(desired), true);
+        assertEquals(Collections.singletonList(desired), plan.getToCreate());
+        assertEquals(Collections.singletonList(live), plan.getToDelete());
+    }
+
+    @Test
+    public void duplicatesAreMatchedOneForOne() {
+        final DomainRecord first = record("rec_1", "A", "www", "1.2.3.4");
+        final DomainRecord second = record("rec_2", "A", "www", "1.2.3.4");
+        final ZoneSyncPlan plan = ZoneSyncPlan.of(Arrays.asList(first, second),
+                Collections.singletonList(record(null, "A", "www", "1.2.3.4")), true);
+        assertEquals(Collections.singletonList(first), plan.getUnchanged());
+        assertEquals(Collections.singletonList(second), plan.getToDelete());
+        assertFalse(plan.isEmpty());
+
+        final ZoneSyncPlan twice = ZoneSyncPlan.of(Collections.singletonList(first),
+                Arrays.asList(record(null, "A", "www", "1.2.3.4"), record(null, "A", "www", "1.2.3.4")), true);
+        assertEquals(1, twice.getToCreate().size());
+        assertEquals(Collections.singletonList(first), twice.getUnchanged());
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.index;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.domains.Domain;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NowResourceIndexTest {
+
+    private static final String RECORDS_PREFIX = "/domains/";
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    /**
+     * Responses by path. Records of domains missing from there are empty.
+     */
+    private final Map<String, MockResponse> responses = new ConcurrentHashMap<>();
+
+    private final Map<String, AtomicInteger> recordsRequests = new ConcurrentHashMap<>();
+
+    private NowClient nowClient;
+
+    @Before
+    public void setUp() {
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) {
+                final String path = request.getPath();
+                if (path.startsWith(RECORDS_PREFIX) && path.endsWith("/records")) {
+                    recordsRequests.computeIfAbsent(
+                            path.substring(RECORDS_PREFIX.length(), path.length() - "/records".length()),
+                            name -> new AtomicInteger()).incrementAndGet();
+                }
+                final MockResponse response = responses.get(path);
+                return response != null ? response : new MockResponse().setBody("{}");
+            }
+        });
+        this.nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build();
+        this.responses.put("/now/deployments", new MockResponse().setBody(
+                "{\"deployments\":[{\"uid\":\"dpl_1\"},{\"uid\":\"dpl_2\"}]}"));
+        this.responses.put("/now/aliases", new MockResponse().setBody("{\"aliases\":["
+                + "{\"alias\":\"a.now.sh\",\"deploymentId\":\"dpl_1\"},"
+                + "{\"alias\":\"b.now.sh\",\"deploymentId\":\"dpl_1\"}]}"));
+        this.domains("example.com", "other.org");
+        this.responses.put("/now/certs", new MockResponse().setBody(
+                "{\"certs\":[{\"cn\":\"example.com\"},{\"cn\":\"*.example.com\"}]}"));
+        this.records("example.com", "www");
+    }
+
+    private void domains(final String... names) {
+        final StringBuilder body = new StringBuilder("{\"domains\":[");
+        for (int i = 0; i < names.length; i++) {
+            body.append(i > 0 ? "," : "").append("{\"name\":\"").append(names[i]).append("\"}");
+        }
+        this.responses.put("/domains", new MockResponse().setBody(body.append("]}").toString()));
+    }
+
+    private void records(final String domainName, final String recordName) {
+        this.responses.put(RECORDS_PREFIX + domainName + "/records", new MockResponse().setBody(
+                "{\"records\":[{\"type\":\"CNAME\",\"name\":\"" + recordName + "\",\"value\":\"alias.zeit.co\"}]}"));
+    }
+
+    private int recordsRequests(final String domainName) {
+        final AtomicInteger count = this.recordsRequests.get(domainName);
+        return count != null ? count.get() : 0;
+    }
+
+    @Test
+    public void looksUpTheSnapshot() throws Exception {
+        final NowResourceIndex index = this.nowClient.newResourceIndex().build();
+        assertEquals(0L, index.getLastRefreshMillis());
+        index.refresh();
+
+        assertTrue(index.getLastRefreshMillis() > 0L);
+        assertEquals(2, index.getDeployments().size());
+        assertEquals("dpl_1", index.getDeploymentForAlias("a.now.sh").getUid());
+        assertNull(index.getDeploymentForAlias("c.now.sh"));
+        assertEquals(2, index.getAliasesForDeployment("dpl_1").size());
+        assertTrue(index.getAliasesForDeployment("dpl_2").isEmpty());
+        assertEquals("*.example.com", index.findCertificate("www.example.com").getCn());
+        assertEquals("example.com", index.findCertificate("example.com").getCn());
+        assertNull(index.getCertificate("www.example.com"));
+        assertNull(index.findCertificate("www.other.org"));
+        assertEquals(1, index.getDomainsWithoutCertificate().size());
+        assertEquals("other.org", index.getDomainsWithoutCertificate().get(0).getName());
+        assertEquals("www", index.getDomainRecords("example.com").get(0).getName());
+        assertTrue(index.getDomainRecords("other.org").isEmpty());
+        assertTrue(index.getDomainRecordsErrors().isEmpty());
+    }
+
+    @Test
+    public void skipsRecordsIfNotIncluded() throws Exception {
+        final NowResourceIndex index = this.nowClient.newResourceIndex().includeRecords(false).build();
+        index.refresh();
+
+        assertTrue(index.getDomainRecords("example.com").isEmpty());
+        assertTrue(this.recordsRequests.isEmpty());
+    }
+
+    @Test
+    public void refreshesTheRecordsOfNewDomainsThenOfOthersInTurn() throws Exception {
+        final NowResourceIndex index = this.nowClient.newResourceIndex().recordsRefreshBatchSize(1).build();
+        index.refresh();
+        assertEquals(1, this.recordsRequests("example.com"));
+        assertEquals(1, this.recordsRequests("other.org"));
+
+        this.domains("example.com", "other.org", "new.io");
+        index.refresh();
+        //The new domain, plus one of the others
+        assertEquals(1, this.recordsRequests("new.io"));
+        assertEquals(3, this.recordsRequests("example.com") + this.recordsRequests("other.org"));
+
+        //The other one
+        index.refresh();
+        assertEquals(2, this.recordsRequests("example.com"));
+        assertEquals(2, this.recordsRequests("other.org"));
+        assertEquals(1, this.recordsRequests("new.io"));
+    }
+
+    @Test
+    public void keepsPreviousRecordsOfDomainsFailing() throws Exception {
+        final NowResourceIndex index = this.nowClient.newResourceIndex().build();
+        index.refresh();
+
+        this.responses.put("/now/deployments", new MockResponse().setBody("{\"deployments\":[{\"uid\":\"dpl_3\"}]}"));
+        this.responses.put(RECORDS_PREFIX + "example.com/records", new MockResponse().setResponseCode(403));
+        index.refresh();
+
+        //The rest of the snapshot got refreshed nonetheless
+        assertEquals("dpl_3", index.getDeployments().get(0).getUid());
+        assertEquals("www", index.getDomainRecords("example.com").get(0).getName());
+        assertEquals(Collections.singleton("example.com"), index.getDomainRecordsErrors().keySet());
+        assertTrue(index.getDomainRecordsErrors().get("example.com") instanceof UnsuccessfulResponseException);
+
+        this.records("example.com", "api");
+        index.refresh();
+        assertEquals("api", index.getDomainRecords("example.com").get(0).getName());
+        assertTrue(index.getDomainRecordsErrors().isEmpty());
+    }
+
+    @Test
+    public void retriesTheRecordsOfNewDomainsFailing() throws Exception {
+        this.responses.put(RECORDS_PREFIX + "example.com/records", new MockResponse().setResponseCode(500));
+        final NowResourceIndex index = this.nowClient.newResourceIndex().recordsRefreshBatchSize(0).build();
+        index.refresh();
+        assertTrue(index.getDomainRecords("example.com").isEmpty());
+        assertTrue(index.getDomainRecordsErrors().containsKey("example.com"));
+
+        this.records("example.com", "www");
+        index.refresh();
+        assertEquals(1, index.getDomainRecords("example.com").size());
+        //Fetched once only, since there is no batch
+        assertEquals(1, this.recordsRequests("other.org"));
+    }
+
+    @Test
+    public void keepsThePreviousSnapshotIfListingsFail() throws Exception {
+        final NowResourceIndex index = this.nowClient.newResourceIndex().build();
+        index.refresh();
+        final long lastRefreshMillis = index.getLastRefreshMillis();
+
+        this.responses.put("/domains", new MockResponse().setResponseCode(403));
+        try {
+            index.refresh();
+            fail("Refresh succeeded without domains");
+        } catch (final UnsuccessfulResponseException expected) {
+            //Expected
+        }
+        assertEquals(lastRefreshMillis, index.getLastRefreshMillis());
+        assertEquals(2, index.getDomains().size());
+        for (final Domain domain : index.getDomains()) {
+            assertEquals(domain, index.getDomain(domain.getName()));
+        }
+    }
+}
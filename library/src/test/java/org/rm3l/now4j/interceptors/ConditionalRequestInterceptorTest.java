@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.interceptors;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.cache.LruResponseCache;
+import org.rm3l.now4j.calls.ListStream;
+import org.rm3l.now4j.resources.deployments.Deployment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+
+public class ConditionalRequestInterceptorTest {
+
+    private static final String DEPLOYMENTS = "{\"deployments\":[{\"uid\":\"dpl_1\"},{\"uid\":\"dpl_2\"}]}";
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private NowClient nowClient;
+
+    @Before
+    public void setUp() {
+        this.nowClient = this.newClient(LruResponseCache.builder()
+                .defaultTimeToLive(1L, TimeUnit.HOURS)
+                .build());
+    }
+
+    private NowClient newClient(final LruResponseCache cache) {
+        return NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .responseCache(cache)
+                .build();
+    }
+
+    private List<String> streamDeploymentIds() throws Exception {
+        final List<String> ids = new ArrayList<>();
+        try (final ListStream<Deployment> stream = this.nowClient.streamDeployments()) {
+            while (stream.hasNext()) {
+                ids.add(stream.next().getUid());
+            }
+        }
+        return ids;
+    }
+
+    @Test
+    public void servesFreshResponsesFromTheCache() throws Exception {
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENTS));
+        assertEquals(2, this.nowClient.getDeployments().size());
+        assertEquals(2, this.nowClient.getDeployments().size());
+        assertEquals(1, this.server.getRequestCount());
+    }
+
+    @Test
+    public void servesCopiesOfTheCachedResponses() throws Exception {
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENTS));
+        final List<Deployment> deployments = this.nowClient.getDeployments();
+        deployments.get(0).setUid("changed");
+        deployments.remove(1);
+        final List<Deployment> cachedDeployments = this.nowClient.getDeployments();
+        assertEquals(2, cachedDeployments.size());
+        assertEquals("dpl_1", cachedDeployments.get(0).getUid());
+        assertNotSame(cachedDeployments, this.nowClient.getDeployments());
+        assertEquals(1, this.server.getRequestCount());
+    }
+
+    @Test
+    public void keepsCachedListingsOnHeadRequests() throws Exception {
+        final Path target = this.folder.newFolder("target").toPath();
+        Files.write(target.resolve("a.txt"), "hello world".getBytes(StandardCharsets.UTF_8));
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENTS));
+        this.server.enqueue(new MockResponse()
+                .setBody("[{\"type\":\"file\",\"name\":\"a.txt\",\"uid\":\"file-a\"}]"));
+        this.server.enqueue(new MockResponse().setHeader("Content-Length", "11"));
+        this.nowClient.getDeployments();
+        assertEquals(Collections.singletonList("a.txt"),
+                this.nowClient.downloadDeployment("dpl", target).getSkipped());
+        this.server.takeRequest();
+        this.server.takeRequest();
+        assertEquals("HEAD", this.server.takeRequest().getMethod());
+        assertEquals(2, this.nowClient.getDeployments().size());
+        assertEquals(3, this.server.getRequestCount());
+    }
+
+    @Test
+    public void streamsFreshListingsFromTheServer() throws Exception {
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENTS));
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENTS));
+        //Same URL as the listing cached
+        this.nowClient.getDeployments();
+        assertEquals(Arrays.asList("dpl_1", "dpl_2"), this.streamDeploymentIds());
+        assertEquals(2, this.server.getRequestCount());
+    }
+
+    @Test
+    public void streamsRevalidatedListingsWithoutConditionalRequests() throws Exception {
+        this.nowClient = this.newClient(LruResponseCache.builder().build());
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENTS).setHeader("ETag", "\"v1\""));
+        this.server.enqueue(new MockResponse().setResponseCode(304));
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENTS).setHeader("ETag", "\"v1\""));
+        this.nowClient.getDeployments();
+        this.server.takeRequest();
+        assertEquals(2, this.nowClient.getDeployments().size());
+        assertEquals("\"v1\"", this.server.takeRequest().getHeader("If-None-Match"));
+        assertEquals(Arrays.asList("dpl_1", "dpl_2"), this.streamDeploymentIds());
+        assertNull(this.server.takeRequest().getHeader("If-None-Match"));
+    }
+}
@@ -0,0 +1,218 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.json;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.reflect.TypeToken;
+import org.junit.Test;
+import org.rm3l.now4j.resources.aliases.Alias;
+import org.rm3l.now4j.resources.aliases.Aliases;
+import org.rm3l.now4j.resources.aliases.DeleteAliasResponse;
+import org.rm3l.now4j.resources.certs.Certificate;
+import org.rm3l.now4j.resources.certs.CertificateCreationOrUpdateRequest;
+import org.rm3l.now4j.resources.certs.CertificateCreationOrUpdateResponse;
+import org.rm3l.now4j.resources.certs.Certificates;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.deployments.DeploymentFileStructure;
+import org.rm3l.now4j.resources.deployments.DeploymentManifest;
+import org.rm3l.now4j.resources.deployments.GetDeploymentsResponse;
+import org.rm3l.now4j.resources.domains.Domain;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+import org.rm3l.now4j.resources.domains.DomainRecordCreationRequest;
+import org.rm3l.now4j.resources.domains.DomainRecords;
+import org.rm3l.now4j.resources.domains.Domains;
+import org.rm3l.now4j.resources.secrets.CreateOrUpdateSecretRequest;
+import org.rm3l.now4j.resources.secrets.GetSecretsResponse;
+import org.rm3l.now4j.resources.secrets.Secret;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Checks that the hand-written adapters produce and accept the same JSON as Gson's reflective ones,
+ * for every field of every resource class
+ */
+public class Now4jTypeAdaptersTest {
+
+    private static final List<Class<?>> RESOURCE_CLASSES = Arrays.asList(
+            Alias.class, Aliases.class, DeleteAliasResponse.class,
+            Certificate.class, CertificateCreationOrUpdateRequest.class, CertificateCreationOrUpdateResponse.class,
+            Certificates.class,
+            Deployment.class, DeploymentFileStructure.class, DeploymentFileStructure.Child.class,
+            DeploymentManifest.class, DeploymentManifest.File.class, GetDeploymentsResponse.class,
+            Domain.class, DomainRecord.class, DomainRecordCreationRequest.class, DomainRecords.class, Domains.class,
+            CreateOrUpdateSecretRequest.class, GetSecretsResponse.class, Secret.class);
+
+    private static final int MAX_DEPTH = 3;
+
+    private final Gson reflective = new Gson();
+
+    private int sequence;
+
+    /**
+     * @return an instance of the type given, with all its fields set, recursively
+     */
+    private Object populate(final Type type, final int depth) throws ReflectiveOperationException {
+        final Class<?> rawType = TypeToken.get(type).getRawType();
+        if (rawType == String.class) {
+            return "value-" + (++this.sequence);
+        }
+        if (rawType == Boolean.class || rawType == boolean.class) {
+            return (++this.sequence) % 2 == 0;
+        }
+        if (rawType == Long.class || rawType == long.class) {
+            return 1_000_000_000_000L + (++this.sequence);
+        }
+        if (rawType.isEnum()) {
+            final Object[] constants = rawType.getEnumConstants();
+            return constants[(++this.sequence) % constants.length];
+        }
+        if (rawType == List.class) {
+            final List<Object> list = new ArrayList<>();
+            if (depth < MAX_DEPTH) {
+                final Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+                list.add(this.populate(elementType, depth + 1));
+                list.add(this.populate(elementType, depth + 1));
+            }
+            return list;
+        }
+        final Object instance = rawType.getDeclaredConstructor().newInstance();
+        for (final Field field : rawType.getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers()) || Modifier.isTransient(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            field.set(instance, this.populate(field.getGenericType(), depth + 1));
+        }
+        return instance;
+    }
+
+    @Test
+    public void handlesAllResourceClasses() {
+        for (final Class<?> resourceClass : RESOURCE_CLASSES) {
+            assertNotNull(resourceClass.getName(),
+                    Now4jTypeAdapters.FACTORY.create(Now4jTypeAdapters.GSON, TypeToken.get(resourceClass)));
+        }
+    }
+
+    @Test
+    public void writesAllFieldsLikeReflection() throws Exception {
+        for (final Class<?> resourceClass : RESOURCE_CLASSES) {
+            final Object value = this.populate(resourceClass, 0);
+            assertEquals(resourceClass.getName(),
+                    this.reflective.toJsonTree(value), Now4jTypeAdapters.GSON.toJsonTree(value));
+        }
+    }
+
+    @Test
+    public void readsAllFieldsLikeReflection() throws Exception {
+        for (final Class<?> resourceClass : RESOURCE_CLASSES) {
+            final JsonElement json = this.reflective.toJsonTree(this.populate(resourceClass, 0));
+            assertEquals(resourceClass.getName(),
+                    json, this.reflective.toJsonTree(Now4jTypeAdapters.GSON.fromJson(json, resourceClass)));
+        }
+    }
+
+    @Test
+    public void handlesNullsLikeReflection() throws Exception {
+        final Gson reflectiveWithNulls = new GsonBuilder().serializeNulls().create();
+        final Gson adaptersWithNulls = Now4jTypeAdapters.GSON.newBuilder().serializeNulls().create();
+        for (final Class<?> resourceClass : RESOURCE_CLASSES) {
+            final Object empty = resourceClass.getDeclaredConstructor().newInstance();
+            assertEquals(resourceClass.getName(),
+                    this.reflective.toJsonTree(empty), Now4jTypeAdapters.GSON.toJsonTree(empty));
+            final JsonElement nulls = reflectiveWithNulls.toJsonTree(empty);
+            assertEquals(resourceClass.getName(), nulls, adaptersWithNulls.toJsonTree(empty));
+            //Explicit nulls are read as such
+            assertEquals(resourceClass.getName(),
+                    nulls, reflectiveWithNulls.toJsonTree(Now4jTypeAdapters.GSON.fromJson(nulls, resourceClass)));
+        }
+        assertEquals(null, Now4jTypeAdapters.GSON.fromJson("null", Deployment.class));
+    }
+
+    @Test
+    public void skipsUnknownFields() throws Exception {
+        final JsonElement unknown = JsonParser.parseString("{\"a\":[1,{\"b\":null,\"c\":[true]}],\"d\":\"e\"}");
+        for (final Class<?> resourceClass : RESOURCE_CLASSES) {
+            final JsonObject json = this.reflective.toJsonTree(this.populate(resourceClass, 0)).getAsJsonObject();
+            final JsonObject withUnknownFields = json.deepCopy();
+            withUnknownFields.add("unknownObject", unknown);
+            withUnknownFields.add("unknownArray", JsonParser.parseString("[[],{},null,1.5]"));
+            withUnknownFields.addProperty("unknownNumber", 1.5);
+            assertEquals(resourceClass.getName(), json,
+                    this.reflective.toJsonTree(Now4jTypeAdapters.GSON.fromJson(withUnknownFields, resourceClass)));
+        }
+    }
+
+    @Test
+    public void readsBooleansAndStringsInterchangeablyLikeReflection() {
+        final String json = "{\"uid\":true,\"verified\":\"true\",\"isExternal\":\"no\",\"name\":false}";
+        final Domain domain = Now4jTypeAdapters.GSON.fromJson(json, Domain.class);
+        assertEquals(this.reflective.toJsonTree(this.reflective.fromJson(json, Domain.class)),
+                this.reflective.toJsonTree(domain));
+        assertEquals("true", domain.getUid());
+        assertEquals(Boolean.TRUE, domain.getVerified());
+        assertEquals("false", domain.getName());
+    }
+
+    @Test
+    public void readsUnknownDeploymentStatesAsNull() {
+        final Deployment deployment =
+                Now4jTypeAdapters.GSON.fromJson("{\"uid\":\"dpl\",\"state\":\"QUEUED\"}", Deployment.class);
+        assertEquals("dpl", deployment.getUid());
+        assertEquals(null, deployment.getState());
+        assertEquals(this.reflective.toJsonTree(
+                this.reflective.fromJson("{\"uid\":\"dpl\",\"state\":\"QUEUED\"}", Deployment.class)),
+                this.reflective.toJsonTree(deployment));
+    }
+
+    @Test
+    public void readsNestedChildren() {
+        final String json = "{\"type\":\"directory\",\"name\":\"src\",\"children\":["
+                + "{\"type\":\"directory\",\"name\":\"main\",\"children\":["
+                + "{\"type\":\"directory\",\"name\":\"java\",\"children\":["
+                + "{\"type\":\"file\",\"name\":\"Main.java\",\"uid\":\"file-1\"}]}]},"
+                + "{\"type\":\"file\",\"name\":\"README.md\",\"uid\":\"file-2\"}]}";
+        final DeploymentFileStructure structure = Now4jTypeAdapters.GSON.fromJson(json, DeploymentFileStructure.class);
+
+        assertEquals(JsonParser.parseString(json), this.reflective.toJsonTree(structure));
+        final DeploymentFileStructure.Child leaf =
+                structure.getChildren().get(0).getChildren().get(0).getChildren().get(0);
+        assertEquals("Main.java", leaf.getName());
+        assertEquals("file-1", leaf.getUid());
+        assertTrue(leaf.getChildren() == null);
+        assertEquals(JsonParser.parseString(json), Now4jTypeAdapters.GSON.toJsonTree(structure));
+    }
+}
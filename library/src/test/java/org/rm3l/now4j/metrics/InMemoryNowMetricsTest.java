@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.metrics;
+
+import okhttp3.OkHttpClient;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.retry.RetryPolicy;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InMemoryNowMetricsTest {
+
+    private static final String DEPLOYMENT = "{\"uid\":\"dpl_1\",\"state\":\"READY\"}";
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    private final InMemoryNowMetrics metrics = new InMemoryNowMetrics();
+
+    private NowClient nowClient;
+
+    @Before
+    public void setUp() {
+        this.nowClient = this.newClientBuilder().build();
+    }
+
+    private NowClient.Builder newClientBuilder() {
+        return NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .metrics(this.metrics);
+    }
+
+    @Test
+    public void groupsRequestsByEndpointRatherThanUrl() throws Exception {
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENT));
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENT));
+        this.nowClient.getDeployment("dpl_1");
+        this.nowClient.getDeployment("dpl_2");
+
+        assertEquals(Collections.singleton("getDeployment"), this.metrics.snapshot().keySet());
+        final EndpointSnapshot snapshot = this.metrics.snapshot("getDeployment");
+        assertNotNull(snapshot);
+        assertEquals("getDeployment", snapshot.getEndpoint());
+        assertEquals(2L, snapshot.getRequests());
+        assertEquals(0L, snapshot.getInFlight());
+        assertNull(this.metrics.snapshot("getDeployments"));
+    }
+
+    @Test
+    public void countsResponseCodes() throws Exception {
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENT));
+        this.server.enqueue(new MockResponse().setResponseCode(404));
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENT));
+        this.nowClient.getDeployment("dpl_1");
+        try {
+            this.nowClient.getDeployment("dpl_2");
+            fail("Unsuccessful response read");
+        } catch (final UnsuccessfulResponseException expected) {
+            //Expected
+        }
+        this.nowClient.getDeployment("dpl_1");
+
+        final Map<Integer, Long> expectedCodes = new HashMap<>();
+        expectedCodes.put(200, 2L);
+        expectedCodes.put(404, 1L);
+        final EndpointSnapshot snapshot = this.metrics.snapshot("getDeployment");
+        assertEquals(expectedCodes, snapshot.getResponseCodes());
+        assertEquals(3L, snapshot.getRequests());
+        assertEquals(0L, snapshot.getFailures());
+    }
+
+    @Test
+    public void countsBytesSentAndReceived() throws Exception {
+        final String secret = "{\"uid\":\"sec_1\",\"name\":\"my-secret\"}";
+        this.server.enqueue(new MockResponse().setBody(secret));
+        this.nowClient.createSecret("my-secret", "my-value");
+
+        final RecordedRequest request = this.server.takeRequest();
+        final EndpointSnapshot snapshot = this.metrics.snapshot("createSecret");
+        assertTrue(request.getBodySize() > 0L);
+        assertEquals(request.getBodySize(), snapshot.getBytesOut());
+        assertEquals(secret.getBytes(StandardCharsets.UTF_8).length, snapshot.getBytesIn());
+    }
+
+    @Test
+    public void countsFailuresAndRetries() throws Exception {
+        this.nowClient = this.newClientBuilder()
+                .httpClient(new OkHttpClient.Builder().readTimeout(200L, TimeUnit.MILLISECONDS).build())
+                .retryPolicy(RetryPolicy.builder()
+                        .maxRetries(1)
+                        .initialBackoff(1L, TimeUnit.MILLISECONDS)
+                        .build())
+                .build();
+        this.server.enqueue(new MockResponse().setResponseCode(503));
+        this.server.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+        try {
+            this.nowClient.getDeployment("dpl_1");
+            fail("Failed request succeeded");
+        } catch (final IOException expected) {
+            //Expected
+        }
+
+        final EndpointSnapshot snapshot = this.metrics.snapshot("getDeployment");
+        //Both attempts
+        assertEquals(2L, snapshot.getRequests());
+        assertEquals(1L, snapshot.getRetries());
+        assertEquals(1L, snapshot.getFailures());
+        assertEquals(Collections.singletonMap(503, 1L), snapshot.getResponseCodes());
+        assertEquals(0L, snapshot.getInFlight());
+    }
+
+    @Test
+    public void recordsLatencies() throws Exception {
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENT).setHeadersDelay(100L, TimeUnit.MILLISECONDS));
+        this.nowClient.getDeployment("dpl_1");
+
+        final EndpointSnapshot snapshot = this.metrics.snapshot("getDeployment");
+        assertEquals(1L, snapshot.getLatencyHistogram().getTotalCount());
+        assertTrue(snapshot.getMaxLatency(TimeUnit.MILLISECONDS) >= 99L);
+        assertTrue(snapshot.getLatencyAtPercentile(50.0, TimeUnit.MILLISECONDS) >= 99L);
+    }
+
+    @Test
+    public void resetForgetsEverything() throws Exception {
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENT));
+        this.nowClient.getDeployment("dpl_1");
+        this.metrics.reset();
+
+        final EndpointSnapshot snapshot = this.metrics.snapshot("getDeployment");
+        assertEquals(0L, snapshot.getRequests());
+        assertEquals(0L, snapshot.getBytesIn());
+        assertTrue(snapshot.getResponseCodes().isEmpty());
+    }
+}
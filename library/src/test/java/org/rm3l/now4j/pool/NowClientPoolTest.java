@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.pool;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.resources.deployments.Deployment;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class NowClientPoolTest {
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    private NowClientPool pool;
+
+    @Before
+    public void setUp() {
+        this.pool = this.newPool(2, 1L, TimeUnit.HOURS);
+    }
+
+    @After
+    public void tearDown() {
+        this.pool.close();
+    }
+
+    private NowClientPool newPool(final int maxSize, final long idleTimeout, final TimeUnit timeUnit) {
+        return NowClientPool.builder()
+                .template(NowClient.builder().token("template").baseUrl(this.server.url("/").toString()).build())
+                .maxSize(maxSize)
+                .idleTimeout(idleTimeout, timeUnit)
+                .build();
+    }
+
+    @Test
+    public void reusesClientsByTokenAndTeam() {
+        final NowClient client = this.pool.get("token", "team");
+        assertSame(client, this.pool.get("token", "team"));
+        assertNotSame(client, this.pool.get("token", null));
+        assertEquals(1L, this.pool.getHitCount());
+        assertEquals(2L, this.pool.getMissCount());
+        assertEquals(2, this.pool.size());
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedClients() {
+        final NowClient first = this.pool.get("first", null);
+        final NowClient second = this.pool.get("second", null);
+        assertSame(first, this.pool.get("first", null));
+        this.pool.get("third", null);
+        assertEquals(2, this.pool.size());
+        assertEquals(1L, this.pool.getEvictionCount());
+        assertTrue(second.isClosed());
+        assertFalse(first.isClosed());
+        assertNotSame(second, this.pool.get("second", null));
+    }
+
+    @Test
+    public void evictsIdleClients() throws InterruptedException {
+        this.pool.close();
+        this.pool = this.newPool(2, 50L, TimeUnit.MILLISECONDS);
+        final NowClient client = this.pool.get("token", null);
+        TimeUnit.MILLISECONDS.sleep(100L);
+        this.pool.evictIdle();
+        assertEquals(0, this.pool.size());
+        assertEquals(1L, this.pool.getEvictionCount());
+        assertTrue(client.isClosed());
+    }
+
+    @Test
+    public void evictionLetsCallsInProgressComplete() throws Exception {
+        this.server.enqueue(new MockResponse().setBody("{\"deployments\":[]}")
+                .setHeadersDelay(300L, TimeUnit.MILLISECONDS));
+        final NowClient evicted = this.pool.get("first", null);
+        final CompletableFuture<List<Deployment>> deployments = CompletableFuture.supplyAsync(() -> {
+            try {
+                return evicted.getDeployments();
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        this.server.takeRequest();
+        this.pool.get("second", null);
+        this.pool.get("third", null);
+        assertTrue(evicted.isClosed());
+        assertTrue(deployments.get(5L, TimeUnit.SECONDS).isEmpty());
+        try {
+            evicted.getDeployments();
+            fail("Client closed");
+        } catch (final IOException expected) {
+            //New calls are rejected
+        }
+        assertEquals(1, this.server.getRequestCount());
+    }
+
+    @Test
+    public void closingClosesAllClients() {
+        final NowClient client = this.pool.get("token", null);
+        this.pool.close();
+        assertTrue(client.isClosed());
+        try {
+            this.pool.get("token", null);
+            fail("Pool closed");
+        } catch (final IllegalStateException expected) {
+            //Pool closed
+        }
+    }
+
+    @Test
+    public void poolsNeverClosedCanBeCollected() throws InterruptedException {
+        final WeakReference<NowClientPool> reference = new WeakReference<>(this.newPool(2, 1L, TimeUnit.HOURS));
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            TimeUnit.MILLISECONDS.sleep(20L);
+        }
+        assertNull(reference.get());
+    }
+}
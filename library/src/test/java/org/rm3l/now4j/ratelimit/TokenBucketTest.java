@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.ratelimit;
+
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TokenBucketTest {
+
+    private static final long HOUR_NANOS = TimeUnit.HOURS.toNanos(1L);
+
+    @Test
+    public void grantsTheBurstWithoutWaiting() {
+        final TokenBucket bucket = new TokenBucket(1, 1L, TimeUnit.HOURS, 3);
+        assertEquals(0L, bucket.reserve(0L));
+        assertEquals(0L, bucket.reserve(0L));
+        assertEquals(0L, bucket.reserve(0L));
+        assertEquals(-1L, bucket.reserve(0L));
+    }
+
+    @Test
+    public void reservesPermitsAheadOfTime() {
+        final TokenBucket bucket = new TokenBucket(1, 1L, TimeUnit.HOURS, 1);
+        assertEquals(0L, bucket.reserve(0L));
+        final long first = bucket.reserve(Long.MAX_VALUE);
+        assertTrue(first > HOUR_NANOS - TimeUnit.MINUTES.toNanos(1L) && first <= HOUR_NANOS);
+        //The next permit comes one period after the one already reserved
+        final long second = bucket.reserve(Long.MAX_VALUE);
+        assertTrue(second > 2L * HOUR_NANOS - TimeUnit.MINUTES.toNanos(1L) && second <= 2L * HOUR_NANOS);
+    }
+
+    @Test
+    public void reservesNothingBeyondTheMaxWait() {
+        final TokenBucket bucket = new TokenBucket(1, 1L, TimeUnit.HOURS, 1);
+        assertEquals(0L, bucket.reserve(0L));
+        assertEquals(-1L, bucket.reserve(TimeUnit.MINUTES.toNanos(1L)));
+        //A rejected reservation does not take anything from the bucket
+        final long wait = bucket.reserve(Long.MAX_VALUE);
+        assertTrue(wait > HOUR_NANOS - TimeUnit.MINUTES.toNanos(1L) && wait <= HOUR_NANOS);
+    }
+
+    @Test
+    public void refillsOverTime() throws InterruptedException {
+        final TokenBucket bucket = new TokenBucket(1000, 1L, TimeUnit.SECONDS, 1);
+        assertEquals(0L, bucket.reserve(0L));
+        Thread.sleep(10L);
+        assertEquals(0L, bucket.reserve(0L));
+    }
+
+    @Test
+    public void neverHoldsMoreThanTheBurst() throws InterruptedException {
+        final TokenBucket bucket = new TokenBucket(10, 1L, TimeUnit.SECONDS, 2);
+        Thread.sleep(300L);
+        assertEquals(0L, bucket.reserve(0L));
+        assertEquals(0L, bucket.reserve(0L));
+        assertTrue(bucket.reserve(Long.MAX_VALUE) > 0L);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoPermits() {
+        new TokenBucket(0, 1L, TimeUnit.SECONDS, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsEmptyPeriod() {
+        new TokenBucket(1, 0L, TimeUnit.SECONDS, 1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNoBurst() {
+        new TokenBucket(1, 1L, TimeUnit.SECONDS, 0);
+    }
+}
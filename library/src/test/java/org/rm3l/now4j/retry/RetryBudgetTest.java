@@ -0,0 +1,86 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.retry;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RetryBudgetTest {
+
+    @Test
+    public void startsFull() {
+        final RetryBudget budget = RetryBudget.create(0.2, 3);
+        assertEquals(3, budget.available());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+        assertEquals(0, budget.available());
+    }
+
+    @Test
+    public void refillsWithRequests() {
+        final RetryBudget budget = RetryBudget.create(0.2, 1);
+        assertTrue(budget.tryAcquire());
+        for (int i = 0; i < 4; i++) {
+            budget.onRequest();
+            assertFalse(budget.tryAcquire());
+        }
+        budget.onRequest();
+        assertTrue(budget.tryAcquire());
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test
+    public void neverExceedsItsCapacity() {
+        final RetryBudget budget = RetryBudget.create(0.5, 2);
+        for (int i = 0; i < 100; i++) {
+            budget.onRequest();
+        }
+        assertEquals(2, budget.available());
+    }
+
+    @Test
+    public void emptyBudgetDisablesRetries() {
+        final RetryBudget budget = RetryBudget.create(1.0, 0);
+        budget.onRequest();
+        assertFalse(budget.tryAcquire());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeRatio() {
+        RetryBudget.create(-0.1, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNaNRatio() {
+        RetryBudget.create(Double.NaN, 10);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectsNegativeCapacity() {
+        RetryBudget.create(0.2, -1);
+    }
+}
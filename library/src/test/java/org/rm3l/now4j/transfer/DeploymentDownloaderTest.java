@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okhttp3.mockwebserver.SocketPolicy;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rm3l.now4j.NowClient;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class DeploymentDownloaderTest {
+
+    private static final String TREE = "[{\"type\":\"file\",\"name\":\"a.txt\",\"uid\":\"file-a\"}]";
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final List<String> requests = new CopyOnWriteArrayList<>();
+
+    private NowClient nowClient;
+
+    private Path target;
+
+    private volatile MockResponse headResponse = new MockResponse().setResponseCode(405);
+
+    private volatile MockResponse fileResponse = new MockResponse().setBody("hello world");
+
+    @Before
+    public void setUp() throws Exception {
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) {
+                requests.add(request.getMethod() + " " + request.getPath());
+                if (request.getPath().endsWith("/files")) {
+                    return new MockResponse().setBody(TREE);
+                }
+                return "HEAD".equals(request.getMethod()) ? headResponse : fileResponse;
+            }
+        });
+        this.nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build();
+        this.target = this.folder.newFolder("target").toPath();
+    }
+
+    @Test
+    public void downloadsMissingFiles() throws Exception {
+        final DownloadSummary summary = this.nowClient.downloadDeployment("dpl", this.target);
+
+        assertEquals(Collections.singletonList("a.txt"), summary.getDownloaded());
+        assertEquals(11L, summary.getBytesDownloaded());
+        assertEquals("hello world",
+                new String(Files.readAllBytes(this.target.resolve("a.txt")), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void skipsFilesOfSameSizeWithoutDownloadingThem() throws Exception {
+        Files.write(this.target.resolve("a.txt"), "hello world".getBytes(StandardCharsets.UTF_8));
+        this.headResponse = new MockResponse().setHeader("Content-Length", "11");
+
+        final DownloadSummary summary = this.nowClient.downloadDeployment("dpl", this.target);
+
+        assertEquals(Collections.singletonList("a.txt"), summary.getSkipped());
+        assertEquals(0L, summary.getBytesDownloaded());
+        assertFalse(this.requests.toString(), this.requests.contains("GET /now/deployments/dpl/files/file-a"));
+    }
+
+    @Test
+    public void downloadsFilesOfDifferentSize() throws Exception {
+        Files.write(this.target.resolve("a.txt"), "hello".getBytes(StandardCharsets.UTF_8));
+        this.headResponse = new MockResponse().setHeader("Content-Length", "11");
+
+        final DownloadSummary summary = this.nowClient.downloadDeployment("dpl", this.target);
+
+        assertEquals(Collections.singletonList("a.txt"), summary.getDownloaded());
+        assertEquals(11L, Files.size(this.target.resolve("a.txt")));
+    }
+
+    @Test
+    public void failedDownloadsLeaveNoPartialFileBehind() throws Exception {
+        this.fileResponse = new MockResponse()
+                .setBody(new String(new char[256 * 1024]).replace('\0', 'x'))
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY);
+
+        final DownloadSummary summary = this.nowClient.downloadDeployment("dpl", this.target);
+
+        assertTrue(summary.getFailed().containsKey("a.txt"));
+        final File[] files = this.target.toFile().listFiles();
+        assertEquals(0, files != null ? files.length : -1);
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import com.google.gson.reflect.TypeToken;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.json.Now4jTypeAdapters;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DeploymentRequestBodyTest {
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        this.directory = this.folder.newFolder("site").toPath();
+    }
+
+    private void write(final String relativePath, final byte[] contents) throws IOException {
+        final Path path = this.directory.resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        Files.write(path, contents);
+    }
+
+    private void write(final String relativePath, final String contents) throws IOException {
+        this.write(relativePath, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static LinkedHashMap<String, String> parse(final String json) {
+        return Now4jTypeAdapters.GSON.fromJson(json, new TypeToken<LinkedHashMap<String, String>>() {
+        }.getType());
+    }
+
+    private static String writeToString(final DeploymentRequestBody body) throws IOException {
+        final Buffer buffer = new Buffer();
+        body.writeTo(buffer);
+        return buffer.readUtf8();
+    }
+
+    /**
+     * @return the contents of every file under the directory, decoded as UTF-8, by path relative to it
+     */
+    private Map<String, String> directoryContents() throws IOException {
+        final Map<String, String> contents = new HashMap<>();
+        try (final Stream<Path> walk = Files.walk(this.directory)) {
+            for (final Path path : (Iterable<Path>) walk.filter(Files::isRegularFile)::iterator) {
+                contents.put(this.directory.relativize(path).toString().replace(File.separatorChar, '/'),
+                        new String(Files.readAllBytes(path), StandardCharsets.UTF_8));
+            }
+        }
+        return contents;
+    }
+
+    @Test
+    public void writesEveryFileOfTheDirectoryKeyedByItsRelativePath() throws Exception {
+        this.write("index.html", "<html></html>");
+        this.write("assets/css/style.css", "body { color: red; }");
+        this.write("assets/js/app.js", "console.log('hello');");
+        this.write("empty.txt", "");
+
+        final Map<String, String> parsed = parse(writeToString(
+                DeploymentRequestBody.builder().directory(this.directory).build()));
+
+        assertEquals(this.directoryContents(), parsed);
+        //Walked in a stable order
+        assertEquals(Arrays.asList("assets/css/style.css", "assets/js/app.js", "empty.txt", "index.html"),
+                new ArrayList<>(parsed.keySet()));
+    }
+
+    @Test
+    public void escapesFileContents() throws Exception {
+        final String contents = "quote: \" backslash: \\ slash: /\nnew line\r\ttab\b\f"
+                + "\u0000\u0001\u001f separators: \u2028\u2029 non-ASCII: \u00e9\u20ac\ud83d\ude00 </script>";
+        this.write("tricky.txt", contents);
+        //Escaped characters straddling the read buffer boundaries
+        final StringBuilder large = new StringBuilder();
+        while (large.length() < 3 * 8 * 1024) {
+            large.append("\"\\\n\u0001\u00e9\ud83d\ude00");
+        }
+        this.write("large.txt", large.toString());
+
+        final String json = writeToString(DeploymentRequestBody.builder().directory(this.directory).build());
+
+        assertEquals(this.directoryContents(), parse(json));
+        assertTrue(json, !json.contains("\u2028") && !json.contains("\u2029"));
+    }
+
+    @Test
+    public void writesBinaryFilesDecodedAsUtf8() throws Exception {
+        final byte[] binary = new byte[256];
+        for (int i = 0; i < binary.length; i++) {
+            binary[i] = (byte) i;
+        }
+        this.write("binary.bin", binary);
+        this.write("binary.b64", Base64.getEncoder().encodeToString(binary));
+
+        final Map<String, String> parsed = parse(writeToString(
+                DeploymentRequestBody.builder().directory(this.directory).build()));
+
+        //Malformed sequences are replaced, as documented; base64-encoded contents go through as is
+        assertEquals(this.directoryContents(), parsed);
+        assertEquals(Base64.getEncoder().encodeToString(binary), parsed.get("binary.b64"));
+        assertTrue(parsed.get("binary.bin").startsWith(
+                new String(Arrays.copyOf(binary, 0x80), StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void mixesFilesAndInlineContents() throws Exception {
+        this.write("nested/deeply/file.txt", "from disk");
+        final Path outside = this.folder.newFile("outside.txt").toPath();
+        Files.write(outside, "from elsewhere \"quoted\"".getBytes(StandardCharsets.UTF_8));
+
+        final Map<String, String> parsed = parse(writeToString(DeploymentRequestBody.builder()
+                .directory(this.directory)
+                .file("package.json", "{\"name\": \"site\"}")
+                .file("lib/outside.txt", outside)
+                .build()));
+
+        final Map<String, String> expected = new LinkedHashMap<>();
+        expected.put("nested/deeply/file.txt", "from disk");
+        expected.put("package.json", "{\"name\": \"site\"}");
+        expected.put("lib/outside.txt", "from elsewhere \"quoted\"");
+        assertEquals(expected, parsed);
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(parsed.keySet()));
+    }
+
+    @Test
+    public void canBeWrittenMoreThanOnce() throws Exception {
+        this.write("a.txt", "a");
+        final DeploymentRequestBody body = DeploymentRequestBody.builder().directory(this.directory).build();
+
+        assertEquals(writeToString(body), writeToString(body));
+    }
+
+    @Test
+    public void isPostedAsJson() throws Exception {
+        this.write("index.html", "<p>\"hi\"</p>\n");
+        this.write("static/logo.txt", "logo");
+        this.server.enqueue(new MockResponse().setBody("{\"uid\":\"dpl_1\",\"host\":\"site.now.sh\"}"));
+        final NowClient nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build();
+
+        assertEquals("dpl_1", nowClient.createDeployment(
+                DeploymentRequestBody.builder().directory(this.directory).build()).getUid());
+
+        final RecordedRequest request = this.server.takeRequest();
+        assertEquals("POST", request.getMethod());
+        assertEquals("application/json; charset=UTF-8", request.getHeader("Content-Type"));
+        assertEquals(this.directoryContents(), parse(request.getBody().readUtf8()));
+    }
+}
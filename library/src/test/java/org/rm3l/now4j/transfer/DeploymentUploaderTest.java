@@ -0,0 +1,236 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.json.Now4jTypeAdapters;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.deployments.DeploymentManifest;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeploymentUploaderTest {
+
+    private static final String DEPLOYMENT = "{\"uid\":\"dpl_1\",\"host\":\"app.now.sh\"}";
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Responses to the successive manifests posted
+     */
+    private final Queue<MockResponse> manifestResponses = new ConcurrentLinkedQueue<>();
+
+    private final List<DeploymentManifest> manifests = new CopyOnWriteArrayList<>();
+
+    /**
+     * Bodies uploaded, by digest
+     */
+    private final Map<String, String> uploads = new ConcurrentHashMap<>();
+
+    private final List<String> uploadSizes = new CopyOnWriteArrayList<>();
+
+    private volatile MockResponse uploadResponse = new MockResponse();
+
+    private NowClient nowClient;
+
+    private Path directory;
+
+    @Before
+    public void setUp() throws Exception {
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) {
+                if ("/v3/now/deployments".equals(request.getPath())) {
+                    manifests.add(Now4jTypeAdapters.GSON.fromJson(
+                            request.getBody().readUtf8(), DeploymentManifest.class));
+                    final MockResponse response = manifestResponses.poll();
+                    return response != null ? response : new MockResponse().setResponseCode(500);
+                }
+                if ("/v2/now/files".equals(request.getPath())) {
+                    uploads.put(request.getHeader("x-now-digest"), request.getBody().readUtf8());
+                    uploadSizes.add(request.getHeader("x-now-size"));
+                    return uploadResponse;
+                }
+                return new MockResponse().setResponseCode(404);
+            }
+        });
+        this.nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build();
+        this.directory = this.folder.newFolder("my-app").toPath();
+        this.write("a.txt", "same contents");
+        this.write("b/c.txt", "other contents");
+        this.write("d.txt", "same contents");
+    }
+
+    private void write(final String relativePath, final String contents) throws IOException {
+        final Path path = this.directory.resolve(relativePath);
+        Files.createDirectories(path.getParent());
+        Files.write(path, contents.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String sha1(final String contents) throws Exception {
+        final StringBuilder hex = new StringBuilder();
+        for (final byte b : MessageDigest.getInstance("SHA-1").digest(contents.getBytes(StandardCharsets.UTF_8))) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    private static MockResponse missingFiles(final String... shas) {
+        final StringBuilder missing = new StringBuilder();
+        for (final String sha : shas) {
+            missing.append(missing.length() > 0 ? "," : "").append('"').append(sha).append('"');
+        }
+        return new MockResponse().setResponseCode(400)
+                .setBody("{\"error\":{\"code\":\"missing_files\",\"message\":\"Missing files\",\"missing\":["
+                        + missing + "]}}");
+    }
+
+    private void assertManifest(final DeploymentManifest manifest) throws Exception {
+        assertEquals("my-app", manifest.getName());
+        assertEquals("NPM", manifest.getDeploymentType());
+        final Map<String, String> shas = new HashMap<>();
+        for (final DeploymentManifest.File file : manifest.getFiles()) {
+            shas.put(file.getFile(), file.getSha());
+            assertEquals(file.getFile(), Files.size(this.directory.resolve(file.getFile())), file.getSize());
+        }
+        final Map<String, String> expectedShas = new HashMap<>();
+        expectedShas.put("a.txt", sha1("same contents"));
+        expectedShas.put("b/c.txt", sha1("other contents"));
+        expectedShas.put("d.txt", sha1("same contents"));
+        assertEquals(expectedShas, shas);
+    }
+
+    @Test
+    public void uploadsNothingIfTheServerHasEverything() throws Exception {
+        this.manifestResponses.add(new MockResponse().setBody(DEPLOYMENT));
+
+        final Deployment deployment = this.nowClient.newDeployment(this.directory).deploy();
+
+        assertEquals("dpl_1", deployment.getUid());
+        assertEquals(1, this.manifests.size());
+        this.assertManifest(this.manifests.get(0));
+        assertTrue(this.uploads.isEmpty());
+    }
+
+    @Test
+    public void uploadsOnlyTheMissingFilesThenPostsTheManifestAgain() throws Exception {
+        this.manifestResponses.add(missingFiles(sha1("other contents")));
+        this.manifestResponses.add(new MockResponse().setBody(DEPLOYMENT));
+
+        final Deployment deployment = this.nowClient.newDeployment(this.directory).deploy();
+
+        assertEquals("dpl_1", deployment.getUid());
+        assertEquals(Collections.singletonMap(sha1("other contents"), "other contents"), this.uploads);
+        assertEquals(Collections.singletonList("14"), this.uploadSizes);
+        assertEquals(2, this.manifests.size());
+        this.assertManifest(this.manifests.get(0));
+        this.assertManifest(this.manifests.get(1));
+    }
+
+    @Test
+    public void uploadsIdenticalFilesOnce() throws Exception {
+        this.manifestResponses.add(missingFiles(sha1("same contents"), sha1("other contents")));
+        this.manifestResponses.add(new MockResponse().setBody(DEPLOYMENT));
+
+        this.nowClient.newDeployment(this.directory).parallelism(2).deploy();
+
+        assertEquals(new HashSet<>(Arrays.asList(sha1("same contents"), sha1("other contents"))),
+                this.uploads.keySet());
+        assertEquals(2, this.uploadSizes.size());
+    }
+
+    @Test
+    public void failsOnFilesNeverListed() throws Exception {
+        this.manifestResponses.add(missingFiles(sha1("unknown contents")));
+        try {
+            this.nowClient.newDeployment(this.directory).deploy();
+            fail("Deployed with an unknown file missing");
+        } catch (final IOException expected) {
+            //Expected
+        }
+        assertTrue(this.uploads.isEmpty());
+        assertEquals(1, this.manifests.size());
+    }
+
+    @Test
+    public void failsOnOtherErrorsWithoutUploading() throws Exception {
+        this.manifestResponses.add(new MockResponse().setResponseCode(400)
+                .setBody("{\"error\":{\"code\":\"bad_request\",\"message\":\"Invalid name\"}}"));
+        try {
+            this.nowClient.newDeployment(this.directory).deploy();
+            fail("Deployed despite an error");
+        } catch (final UnsuccessfulResponseException expected) {
+            //Expected
+        }
+        assertTrue(this.uploads.isEmpty());
+        assertEquals(1, this.manifests.size());
+    }
+
+    @Test
+    public void failsOnFailedUploadsWithoutPostingTheManifestAgain() throws Exception {
+        this.manifestResponses.add(missingFiles(sha1("other contents")));
+        this.manifestResponses.add(new MockResponse().setBody(DEPLOYMENT));
+        this.uploadResponse = new MockResponse().setResponseCode(403);
+        try {
+            this.nowClient.newDeployment(this.directory).deploy();
+            fail("Deployed despite a failed upload");
+        } catch (final UnsuccessfulResponseException expected) {
+            //Expected
+        }
+        assertEquals(Collections.singleton(sha1("other contents")), this.uploads.keySet());
+        assertEquals(1, this.manifests.size());
+    }
+}
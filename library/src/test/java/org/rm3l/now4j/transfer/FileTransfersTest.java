@@ -0,0 +1,237 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import okhttp3.MediaType;
+import okhttp3.ResponseBody;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.SocketPolicy;
+import okio.Buffer;
+import okio.ForwardingSource;
+import okio.Okio;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class FileTransfersTest {
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Several times the size of the transfer buffers
+     */
+    private final byte[] contents = new byte[300 * 1024];
+
+    private NowClient nowClient;
+
+    @Before
+    public void setUp() {
+        new Random(42L).nextBytes(this.contents);
+        this.nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build();
+    }
+
+    private void enqueueContents() {
+        this.server.enqueue(new MockResponse().setBody(new Buffer().write(this.contents)));
+    }
+
+    /**
+     * Sends the headers announcing all contents, but only half of the body
+     */
+    private void enqueueTruncatedContents() {
+        this.server.enqueue(new MockResponse()
+                .setBody(new Buffer().write(this.contents))
+                .setSocketPolicy(SocketPolicy.DISCONNECT_DURING_RESPONSE_BODY));
+    }
+
+    private static Path partialFile(final Path destination) {
+        return destination.resolveSibling(destination.getFileName() + ".part");
+    }
+
+    @Test
+    public void downloadsFilesCreatingTheirParentDirectories() throws Exception {
+        this.enqueueContents();
+        final Path destination = this.folder.getRoot().toPath().resolve("a/b/file.bin");
+
+        assertEquals(this.contents.length, this.nowClient.downloadFile("dpl_1", "file_1", destination));
+
+        assertArrayEquals(this.contents, Files.readAllBytes(destination));
+        assertFalse(Files.exists(partialFile(destination)));
+        assertTrue(this.server.takeRequest().getPath().contains("dpl_1"));
+    }
+
+    @Test
+    public void replacesFilesOnlyOnceFullyWritten() throws Exception {
+        final Path destination = this.folder.newFile("file.bin").toPath();
+        Files.write(destination, "previous".getBytes(StandardCharsets.UTF_8));
+        final AtomicBoolean checkedMidway = new AtomicBoolean();
+        final Buffer buffer = new Buffer().write(this.contents);
+        final ResponseBody body = ResponseBody.create(MediaType.parse("application/octet-stream"),
+                this.contents.length,
+                Okio.buffer(new ForwardingSource(buffer) {
+                    @Override
+                    public long read(final Buffer sink, final long byteCount) throws IOException {
+                        if (buffer.size() < contents.length / 2 && !checkedMidway.getAndSet(true)) {
+                            //Bytes go to the partial file, the destination is still the previous file
+                            assertTrue(Files.size(partialFile(destination)) > 0L);
+                            assertEquals("previous",
+                                    new String(Files.readAllBytes(destination), StandardCharsets.UTF_8));
+                        }
+                        return super.read(sink, byteCount);
+                    }
+                }));
+
+        assertEquals(this.contents.length, FileTransfers.writeTo(body, destination));
+
+        assertTrue(checkedMidway.get());
+        assertArrayEquals(this.contents, Files.readAllBytes(destination));
+        assertFalse(Files.exists(partialFile(destination)));
+    }
+
+    @Test
+    public void failsOnTruncatedBodiesLeavingTheDestinationUntouched() throws Exception {
+        this.enqueueTruncatedContents();
+        final Path destination = this.folder.newFile("file.bin").toPath();
+        Files.write(destination, "previous".getBytes(StandardCharsets.UTF_8));
+        try {
+            this.nowClient.downloadFile("dpl_1", "file_1", destination);
+            fail("Truncated body taken for a complete one");
+        } catch (final IOException expected) {
+            //Expected
+        }
+        assertEquals("previous", new String(Files.readAllBytes(destination), StandardCharsets.UTF_8));
+        assertFalse(Files.exists(partialFile(destination)));
+    }
+
+    @Test
+    public void failsOnTruncatedBodiesWrittenToChannels() throws Exception {
+        this.enqueueTruncatedContents();
+        try (final FileChannel channel = FileChannel.open(this.folder.newFile().toPath(), StandardOpenOption.WRITE)) {
+            this.nowClient.downloadFile("dpl_1", "file_1", channel);
+            fail("Truncated body taken for a complete one");
+        } catch (final IOException expected) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void failsOnTruncatedBodiesWrittenToStreams() throws Exception {
+        this.enqueueTruncatedContents();
+        try {
+            this.nowClient.downloadFile("dpl_1", "file_1", new ByteArrayOutputStream());
+            fail("Truncated body taken for a complete one");
+        } catch (final IOException expected) {
+            //Expected
+        }
+    }
+
+    @Test
+    public void failsOnUnsuccessfulResponsesWithoutCreatingTheFile() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(404)
+                .setBody("{\"error\":{\"code\":\"not_found\",\"message\":\"File not found\"}}"));
+        final Path destination = this.folder.getRoot().toPath().resolve("file.bin");
+        try {
+            this.nowClient.downloadFile("dpl_1", "file_1", destination);
+            fail("Downloaded a missing file");
+        } catch (final UnsuccessfulResponseException expected) {
+            //Expected
+        }
+        assertFalse(Files.exists(destination));
+        assertFalse(Files.exists(partialFile(destination)));
+    }
+
+    @Test
+    public void writesToFileChannelsFromTheirCurrentPosition() throws Exception {
+        this.enqueueContents();
+        final Path file = this.folder.newFile().toPath();
+        final byte[] header = "header".getBytes(StandardCharsets.UTF_8);
+        Files.write(file, header);
+
+        try (final FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.position(header.length);
+            assertEquals(this.contents.length, this.nowClient.downloadFile("dpl_1", "file_1", channel));
+            assertEquals(header.length + this.contents.length, channel.position());
+            assertTrue(channel.isOpen());
+        }
+
+        final byte[] written = Files.readAllBytes(file);
+        assertArrayEquals(header, Arrays.copyOf(written, header.length));
+        assertArrayEquals(this.contents, Arrays.copyOfRange(written, header.length, written.length));
+    }
+
+    @Test
+    public void writesToOtherChannels() throws Exception {
+        this.enqueueContents();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        assertEquals(this.contents.length,
+                this.nowClient.downloadFile("dpl_1", "file_1", Channels.newChannel(outputStream)));
+
+        assertArrayEquals(this.contents, outputStream.toByteArray());
+    }
+
+    @Test
+    public void writesToStreamsLeavingThemOpen() throws Exception {
+        this.enqueueContents();
+        final AtomicBoolean closed = new AtomicBoolean();
+        final ByteArrayOutputStream outputStream = new ByteArrayOutputStream() {
+            @Override
+            public void close() throws IOException {
+                closed.set(true);
+                super.close();
+            }
+        };
+
+        assertEquals(this.contents.length, this.nowClient.downloadFile("dpl_1", "file_1", outputStream));
+
+        assertArrayEquals(this.contents, outputStream.toByteArray());
+        assertFalse(closed.get());
+    }
+}
@@ -0,0 +1,223 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.transfer;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class RangedFileDownloaderTest {
+
+    private static final int PART_SIZE = 1000;
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    @Rule
+    public final TemporaryFolder folder = new TemporaryFolder();
+
+    private final byte[] content = new byte[4500];
+
+    private final List<String> ranges = new CopyOnWriteArrayList<>();
+
+    private final Set<Long> failingStarts = Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private NowClient nowClient;
+
+    private Path destination;
+
+    @Before
+    public void setUp() throws Exception {
+        new Random(42L).nextBytes(this.content);
+        this.server.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(final RecordedRequest request) {
+                final String range = request.getHeader("Range");
+                ranges.add(range);
+                final String[] bounds = range.substring("bytes=".length()).split("-", -1);
+                final long start = Long.parseLong(bounds[0]);
+                if (failingStarts.contains(start)) {
+                    return new MockResponse().setResponseCode(503);
+                }
+                if (start >= content.length) {
+                    return new MockResponse().setResponseCode(416);
+                }
+                final long end = bounds[1].isEmpty() ? content.length - 1 :
+                        Math.min(Long.parseLong(bounds[1]), content.length - 1);
+                return new MockResponse()
+                        .setResponseCode(206)
+                        .setHeader("Content-Range", "bytes " + start + "-" + end + "/" + content.length)
+                        .setBody(new Buffer().write(content, (int) start, (int) (end - start + 1)));
+            }
+        });
+        this.nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build();
+        this.destination = this.folder.getRoot().toPath().resolve("file");
+    }
+
+    private RangedFileDownloader.Builder downloader() {
+        return this.nowClient.newRangedFileDownload("dpl", "sha").partSize(PART_SIZE).maxAttempts(1);
+    }
+
+    private Path sibling(final String suffix) {
+        return this.destination.resolveSibling(this.destination.getFileName() + suffix);
+    }
+
+    @Test
+    public void parsesContentRanges() {
+        final RangedFileDownloader.ContentRange range = RangedFileDownloader.ContentRange.parse("bytes 0-499/1234");
+        assertEquals(0L, range.start);
+        assertEquals(499L, range.end);
+        assertEquals(1234L, range.total);
+        assertEquals(-1L, RangedFileDownloader.ContentRange.parse(" bytes 500-999/* ").total);
+        assertNull(RangedFileDownloader.ContentRange.parse(null));
+        assertNull(RangedFileDownloader.ContentRange.parse(""));
+        assertNull(RangedFileDownloader.ContentRange.parse("bytes */1234"));
+        assertNull(RangedFileDownloader.ContentRange.parse("items 0-499/1234"));
+        assertNull(RangedFileDownloader.ContentRange.parse("bytes 500-499/1234"));
+        assertNull(RangedFileDownloader.ContentRange.parse("bytes 0-1234/1234"));
+        assertNull(RangedFileDownloader.ContentRange.parse("bytes 0-99999999999999999999/*"));
+    }
+
+    @Test
+    public void downloadsSequentially() throws Exception {
+        assertEquals(this.content.length, this.downloader().download(this.destination));
+        assertArrayEquals(this.content, Files.readAllBytes(this.destination));
+        assertEquals(Collections.singletonList("bytes=0-"), this.ranges);
+    }
+
+    @Test
+    public void resumesSequentialDownloads() throws Exception {
+        Files.write(this.sibling(".part"), Arrays.copyOf(this.content, 1234));
+        assertEquals(this.content.length - 1234, this.downloader().download(this.destination));
+        assertArrayEquals(this.content, Files.readAllBytes(this.destination));
+        assertEquals(Collections.singletonList("bytes=1234-"), this.ranges);
+    }
+
+    @Test
+    public void downloadsPartsInParallel() throws Exception {
+        assertEquals(this.content.length, this.downloader().parallelism(3).download(this.destination));
+        assertArrayEquals(this.content, Files.readAllBytes(this.destination));
+        assertEquals(5, this.ranges.size());
+        assertTrue(this.ranges.containsAll(Arrays.asList(
+                "bytes=0-", "bytes=1000-1999", "bytes=2000-2999", "bytes=3000-3999", "bytes=4000-4499")));
+        assertFalse(Files.exists(this.sibling(".part")));
+        assertFalse(Files.exists(this.sibling(".parts")));
+    }
+
+    @Test
+    public void resumesParallelDownloadsFromTheirMissingParts() throws Exception {
+        this.failingStarts.add(2000L);
+        this.failingStarts.add(4000L);
+        try {
+            this.downloader().parallelism(3).download(this.destination);
+            fail("Parts failed");
+        } catch (final UnsuccessfulResponseException expected) {
+            //Parts starting at 2000 and 4000 not fetched
+        }
+        //The partial file is preallocated: its size tells nothing about what is missing
+        assertEquals(this.content.length, Files.size(this.sibling(".part")));
+        //Other parts may or may not have completed before the download got aborted
+        final List<String> completed = Files.readAllLines(this.sibling(".parts"));
+        assertEquals("0 1000 4500", completed.get(0));
+        assertTrue(completed.contains("0"));
+        assertFalse(completed.contains("2"));
+        assertFalse(completed.contains("4"));
+        final Set<String> missing = new HashSet<>();
+        long missingBytes = 0L;
+        for (int part = 0; part < 5; part++) {
+            if (!completed.contains(Integer.toString(part))) {
+                final int end = Math.min((part + 1) * PART_SIZE, this.content.length) - 1;
+                missing.add("bytes=" + part * PART_SIZE + "-" + end);
+                missingBytes += end - part * PART_SIZE + 1;
+            }
+        }
+
+        this.failingStarts.clear();
+        this.ranges.clear();
+        assertEquals(missingBytes, this.downloader().parallelism(3).download(this.destination));
+        assertArrayEquals(this.content, Files.readAllBytes(this.destination));
+        //Requests for the parts aborted may still reach the server after the first download failed
+        assertEquals(missing, new HashSet<>(this.ranges));
+        assertFalse(Files.exists(this.sibling(".parts")));
+    }
+
+    @Test
+    public void resumesParallelDownloadsSequentially() throws Exception {
+        this.failingStarts.add(3000L);
+        try {
+            this.downloader().parallelism(2).download(this.destination);
+            fail("Part failed");
+        } catch (final UnsuccessfulResponseException expected) {
+            //Part starting at 3000 not fetched
+        }
+        this.failingStarts.clear();
+        this.ranges.clear();
+        this.downloader().download(this.destination);
+        assertArrayEquals(this.content, Files.readAllBytes(this.destination));
+        assertTrue(this.ranges.contains("bytes=3000-3999"));
+        assertFalse(this.ranges.contains("bytes=0-"));
+    }
+
+    @Test
+    public void startsOverWithoutResume() throws Exception {
+        this.failingStarts.add(1000L);
+        try {
+            this.downloader().parallelism(2).download(this.destination);
+            fail("Part failed");
+        } catch (final UnsuccessfulResponseException expected) {
+            //Part starting at 1000 not fetched
+        }
+        this.failingStarts.clear();
+        assertEquals(this.content.length, this.downloader().resume(false).download(this.destination));
+        assertArrayEquals(this.content, Files.readAllBytes(this.destination));
+        assertFalse(Files.exists(this.sibling(".parts")));
+    }
+}
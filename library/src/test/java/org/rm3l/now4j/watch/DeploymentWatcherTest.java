@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.watch;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.deployments.Deployment;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class DeploymentWatcherTest {
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    private final List<Throwable> uncaught = new CopyOnWriteArrayList<>();
+
+    private Thread.UncaughtExceptionHandler defaultHandler;
+
+    private DeploymentWatcher watcher;
+
+    @Before
+    public void setUp() {
+        this.defaultHandler = Thread.getDefaultUncaughtExceptionHandler();
+        Thread.setDefaultUncaughtExceptionHandler((thread, e) -> this.uncaught.add(e));
+        this.watcher = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build()
+                .newDeploymentWatcher()
+                .initialInterval(10L, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    @After
+    public void tearDown() {
+        this.watcher.close();
+        Thread.setDefaultUncaughtExceptionHandler(this.defaultHandler);
+    }
+
+    private static MockResponse deployment(@NotNull final String state) {
+        return new MockResponse().setBody("{\"uid\":\"dpl\",\"state\":\"" + state + "\"}");
+    }
+
+    @Test
+    public void failingListenersDoNotStopPolling() throws Exception {
+        this.server.enqueue(deployment("BUILDING"));
+        this.server.enqueue(new MockResponse().setResponseCode(503));
+        this.server.enqueue(deployment("DEPLOYING"));
+        this.server.enqueue(deployment("READY"));
+        final List<Deployment.State> states = new CopyOnWriteArrayList<>();
+        this.watcher.addListener(new DeploymentStateListener() {
+            @Override
+            public void onStateChanged(@NotNull final Deployment deployment,
+                                       @Nullable final Deployment.State previousState) {
+                throw new IllegalStateException("Listener failure");
+            }
+
+            @Override
+            public void onError(@NotNull final String deploymentId, @NotNull final Throwable error) {
+                throw new IllegalStateException("Listener failure");
+            }
+        });
+        this.watcher.addListener((deployment, previousState) -> states.add(deployment.getState()));
+
+        final Deployment deployment = this.watcher.watch("dpl").get(10L, TimeUnit.SECONDS);
+
+        assertEquals(Deployment.State.READY, deployment.getState());
+        //Listeners after the failing one still got notified
+        assertEquals(3, states.size());
+        assertEquals(Deployment.State.READY, states.get(2));
+        assertEquals(4, this.uncaught.size());
+    }
+
+    @Test
+    public void stopsOnClientErrors() throws Exception {
+        this.server.enqueue(deployment("BUILDING"));
+        this.server.enqueue(new MockResponse().setResponseCode(403));
+        this.server.enqueue(deployment("READY"));
+        final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        this.watcher.addListener(new DeploymentStateListener() {
+            @Override
+            public void onStateChanged(@NotNull final Deployment deployment,
+                                       @Nullable final Deployment.State previousState) {
+            }
+
+            @Override
+            public void onError(@NotNull final String deploymentId, @NotNull final Throwable error) {
+                errors.add(error);
+            }
+        });
+
+        try {
+            this.watcher.watch("dpl").get(10L, TimeUnit.SECONDS);
+            fail("Watch not stopped by a client error");
+        } catch (final ExecutionException e) {
+            assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof UnsuccessfulResponseException);
+        }
+        assertEquals(1, errors.size());
+        assertEquals(0, this.watcher.size());
+        Thread.sleep(100L);
+        assertEquals(2, this.server.getRequestCount());
+    }
+
+    @Test
+    public void keepsPollingOnClientErrorsWorthRetrying() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(408));
+        this.server.enqueue(new MockResponse().setResponseCode(429));
+        this.server.enqueue(deployment("READY"));
+
+        final Deployment deployment = this.watcher.watch("dpl").get(10L, TimeUnit.SECONDS);
+
+        assertEquals(Deployment.State.READY, deployment.getState());
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.reactive;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * {@link Subscription} emitting elements as long as there is demand for them.
+ * <p>
+ * All signals to the subscriber are sent from a drain loop, run on the executor, which never runs concurrently
+ * with itself. Sources thus only have to make elements available, then call {@link #drain()}.
+ *
+ * @param <T> the element type
+ */
+abstract class AbstractSubscription<T> implements Subscription, Runnable {
+
+    @NotNull
+    private final Subscriber<? super T> subscriber;
+    @NotNull
+    private final Executor executor;
+
+    private final AtomicLong requested = new AtomicLong();
+    private final AtomicInteger pendingDrains = new AtomicInteger();
+    private final AtomicBoolean started = new AtomicBoolean();
+    @Nullable
+    private volatile Throwable error;
+    private volatile boolean cancelled;
+
+    //Only accessed from the drain loop
+    private boolean terminated;
+
+    AbstractSubscription(@NotNull final Subscriber<? super T> subscriber, @NotNull final Executor executor) {
+        this.subscriber = subscriber;
+        this.executor = executor;
+    }
+
+    /**
+     * Starts producing elements. Called once, upon the first request, from the requesting thread.
+     */
+    protected abstract void onStart();
+
+    /**
+     * @return the next element available, or {@code null} if none is for now. Called from the drain loop.
+     */
+    @Nullable
+    protected abstract T poll() throws Exception;
+
+    /**
+     * @return whether no other element will ever be available. Called from the drain loop.
+     */
+    protected abstract boolean isExhausted() throws Exception;
+
+    /**
+     * Stops producing elements. May be called from any thread, possibly before {@link #onStart()}.
+     */
+    protected abstract void onCancel();
+
+    /**
+     * Releases resources, once the subscription is over. Called from the drain loop.
+     */
+    protected void release() {
+    }
+
+    @Override
+    public final void request(final long n) {
+        if (n <= 0L) {
+            //Rule 3.9 of the Reactive Streams specification
+            this.signalError(new IllegalArgumentException("Non-positive number of elements requested: " + n));
+            return;
+        }
+        long current;
+        long next;
+        do {
+            current = this.requested.get();
+            if (current == Long.MAX_VALUE) {
+                break;
+            }
+            next = current + n;
+            if (next < 0L) {
+                next = Long.MAX_VALUE;
+            }
+        } while (!this.requested.compareAndSet(current, next));
+        if (this.started.compareAndSet(false, true)) {
+            this.onStart();
+        }
+        this.drain();
+    }
+
+    @Override
+    public final void cancel() {
+        if (!this.cancelled) {
+            this.cancelled = true;
+            this.onCancel();
+            this.drain();
+        }
+    }
+
+    final boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * Ends the subscription with an error, after the elements already emitted
+     */
+    final void signalError(@NotNull final Throwable t) {
+        if (this.error == null) {
+            this.error = unwrap(t);
+        }
+        this.drain();
+    }
+
+    /**
+     * Schedules the drain loop, unless it is already running, in which case it will go through another pass
+     */
+    final void drain() {
+        if (this.pendingDrains.getAndIncrement() == 0) {
+            try {
+                this.executor.execute(this);
+            } catch (final RejectedExecutionException e) {
+                this.run();
+            }
+        }
+    }
+
+    @Override
+    public final void run() {
+        int missed = 1;
+        do {
+            this.drainLoop();
+            missed = this.pendingDrains.addAndGet(-missed);
+        } while (missed != 0);
+    }
+
+    private void drainLoop() {
+        while (!this.terminated) {
+            if (this.cancelled) {
+                this.terminate();
+                return;
+            }
+            final Throwable failure = this.error;
+            if (failure != null) {
+                this.onCancel();
+                this.terminate();
+                this.subscriber.onError(failure);
+                return;
+            }
+            final T next;
+            try {
+                next = this.requested.get() > 0L ? this.poll() : null;
+                if (next == null) {
+                    if (this.isExhausted()) {
+                        this.terminate();
+                        this.subscriber.onComplete();
+                    }
+                    return;
+                }
+            } catch (final Exception e) {
+                if (this.error == null && !this.cancelled) {
+                    this.error = unwrap(e);
+                }
+                continue;
+            }
+            this.subscriber.onNext(next);
+            if (this.requested.get() != Long.MAX_VALUE) {
+                this.requested.decrementAndGet();
+            }
+        }
+    }
+
+    private void terminate() {
+        this.terminated = true;
+        this.release();
+    }
+
+    @NotNull
+    private static Throwable unwrap(@NotNull final Throwable t) {
+        if ((t instanceof CompletionException || t instanceof ExecutionException) && t.getCause() != null) {
+            return t.getCause();
+        }
+        return t;
+    }
+}
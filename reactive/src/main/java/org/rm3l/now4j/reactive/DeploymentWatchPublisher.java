@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.reactive;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.rm3l.now4j.contract.NowAsync;
+import org.rm3l.now4j.resources.deployments.Deployment;
+
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * {@link Publisher} of the changes of state of a deployment, found by polling it.
+ * <p>
+ * The deployment is emitted once first, then every time its state changes, and the publisher completes once
+ * that state is terminal. A subscriber that does not keep up only gets the latest change.
+ * Polling stops as soon as the subscription is cancelled.
+ */
+final class DeploymentWatchPublisher implements Publisher<Deployment> {
+
+    @NotNull
+    private final NowAsync nowAsync;
+    @NotNull
+    private final String deploymentId;
+    private final long intervalMillis;
+    @NotNull
+    private final ScheduledExecutorService scheduler;
+    @NotNull
+    private final Executor executor;
+
+    DeploymentWatchPublisher(@NotNull final NowAsync nowAsync,
+                             @NotNull final String deploymentId,
+                             final long intervalMillis,
+                             @NotNull final ScheduledExecutorService scheduler,
+                             @NotNull final Executor executor) {
+        this.nowAsync = nowAsync;
+        this.deploymentId = deploymentId;
+        this.intervalMillis = intervalMillis;
+        this.scheduler = scheduler;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super Deployment> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new WatchSubscription(subscriber));
+    }
+
+    private final class WatchSubscription extends AbstractSubscription<Deployment> {
+
+        private final AtomicReference<Deployment> latest = new AtomicReference<>();
+        @Nullable
+        private volatile CompletableFuture<Deployment> inFlight;
+        @Nullable
+        private volatile ScheduledFuture<?> nextPoll;
+        private volatile boolean finished;
+
+        //Only accessed by the poll in progress, as there is never more than one at a time
+        private boolean observed;
+        @Nullable
+        private Deployment.State lastState;
+
+        private WatchSubscription(@NotNull final Subscriber<? super Deployment> subscriber) {
+            super(subscriber, DeploymentWatchPublisher.this.executor);
+        }
+
+        @Override
+        protected void onStart() {
+            this.pollDeployment();
+        }
+
+        private void pollDeployment() {
+            if (this.isCancelled()) {
+                return;
+            }
+            final CompletableFuture<Deployment> future =
+                    DeploymentWatchPublisher.this.nowAsync.getDeployment(DeploymentWatchPublisher.this.deploymentId);
+            this.inFlight = future;
+            if (this.isCancelled()) {
+                future.cancel(true);
+                return;
+            }
+            future.whenComplete((deployment, t) -> {
+                if (t != null) {
+                    this.signalError(t);
+                    return;
+                }
+                if (deployment == null) {
+                    this.finished = true;
+                    this.drain();
+                    return;
+                }
+                final Deployment.State state = deployment.getState();
+                if (!this.observed || state != this.lastState) {
+                    this.observed = true;
+                    this.lastState = state;
+                    this.latest.set(deployment);
+                }
+                if (state != null && state.isTerminal()) {
+                    this.finished = true;
+                } else {
+                    this.scheduleNextPoll();
+                }
+                this.drain();
+            });
+        }
+
+        private void scheduleNextPoll() {
+            try {
+                this.nextPoll = DeploymentWatchPublisher.this.scheduler.schedule(this::pollDeployment,
+                        DeploymentWatchPublisher.this.intervalMillis, TimeUnit.MILLISECONDS);
+            } catch (final RejectedExecutionException e) {
+                this.signalError(e);
+                return;
+            }
+            if (this.isCancelled()) {
+                this.onCancel();
+            }
+        }
+
+        @Nullable
+        @Override
+        protected Deployment poll() {
+            return this.latest.getAndSet(null);
+        }
+
+        @Override
+        protected boolean isExhausted() {
+            return this.finished && this.latest.get() == null;
+        }
+
+        @Override
+        protected void onCancel() {
+            final ScheduledFuture<?> scheduled = this.nextPoll;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            final CompletableFuture<Deployment> future = this.inFlight;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+    }
+}
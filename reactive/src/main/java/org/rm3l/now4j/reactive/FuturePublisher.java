@@ -0,0 +1,142 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.reactive;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * {@link Publisher} of the elements of the result of an asynchronous call.
+ * <p>
+ * Each subscription starts its own call, upon the first request. Cancelling the subscription
+ * cancels the future of the result, hence the underlying call.
+ *
+ * @param <R> the result type
+ * @param <T> the element type
+ */
+final class FuturePublisher<R, T> implements Publisher<T> {
+
+    @NotNull
+    private final Supplier<CompletableFuture<R>> futures;
+    @NotNull
+    private final Function<R, ? extends Collection<? extends T>> elements;
+    @NotNull
+    private final Executor executor;
+
+    FuturePublisher(@NotNull final Supplier<CompletableFuture<R>> futures,
+                    @NotNull final Function<R, ? extends Collection<? extends T>> elements,
+                    @NotNull final Executor executor) {
+        this.futures = futures;
+        this.elements = elements;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new FutureSubscription(subscriber));
+    }
+
+    private final class FutureSubscription extends AbstractSubscription<T> {
+
+        @Nullable
+        private volatile CompletableFuture<R> future;
+        @Nullable
+        private volatile Iterator<? extends T> iterator;
+
+        private FutureSubscription(@NotNull final Subscriber<? super T> subscriber) {
+            super(subscriber, FuturePublisher.this.executor);
+        }
+
+        @Override
+        protected void onStart() {
+            final CompletableFuture<R> result;
+            try {
+                result = FuturePublisher.this.futures.get();
+            } catch (final RuntimeException e) {
+                this.signalError(e);
+                return;
+            }
+            this.future = result;
+            if (this.isCancelled()) {
+                result.cancel(true);
+                return;
+            }
+            result.whenComplete((value, t) -> {
+                if (t != null) {
+                    this.signalError(t);
+                    return;
+                }
+                final Collection<? extends T> collection;
+                try {
+                    collection = value != null ? FuturePublisher.this.elements.apply(value) : null;
+                } catch (final RuntimeException e) {
+                    this.signalError(e);
+                    return;
+                }
+                this.iterator = collection != null ? collection.iterator() : Collections.<T>emptyIterator();
+                this.drain();
+            });
+        }
+
+        @Nullable
+        @Override
+        protected T poll() {
+            final Iterator<? extends T> it = this.iterator;
+            if (it == null) {
+                return null;
+            }
+            while (it.hasNext()) {
+                final T next = it.next();
+                if (next != null) {
+                    return next;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected boolean isExhausted() {
+            final Iterator<? extends T> it = this.iterator;
+            return it != null && !it.hasNext();
+        }
+
+        @Override
+        protected void onCancel() {
+            final CompletableFuture<R> result = this.future;
+            if (result != null) {
+                result.cancel(true);
+            }
+        }
+    }
+}
@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.reactive;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.rm3l.now4j.calls.ListStream;
+
+import java.io.IOException;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * {@link Publisher} of the elements of a {@link ListStream}, emitted as they are decoded.
+ * <p>
+ * Each subscription sends its own request. Elements are only read from the response as they are requested,
+ * so that a slow subscriber slows down the server rather than filling up memory.
+ *
+ * @param <T> the element type
+ */
+final class ListStreamPublisher<T> implements Publisher<T> {
+
+    @NotNull
+    private final Supplier<ListStream<T>> streams;
+    @NotNull
+    private final Executor executor;
+
+    ListStreamPublisher(@NotNull final Supplier<ListStream<T>> streams, @NotNull final Executor executor) {
+        this.streams = streams;
+        this.executor = executor;
+    }
+
+    @Override
+    public void subscribe(final Subscriber<? super T> subscriber) {
+        Objects.requireNonNull(subscriber, "subscriber");
+        subscriber.onSubscribe(new ListStreamSubscription(subscriber));
+    }
+
+    private final class ListStreamSubscription extends AbstractSubscription<T> {
+
+        @Nullable
+        private volatile ListStream<T> stream;
+
+        private ListStreamSubscription(@NotNull final Subscriber<? super T> subscriber) {
+            super(subscriber, ListStreamPublisher.this.executor);
+        }
+
+        @Override
+        protected void onStart() {
+            final ListStream<T> listStream;
+            try {
+                listStream = ListStreamPublisher.this.streams.get();
+            } catch (final RuntimeException e) {
+                this.signalError(e);
+                return;
+            }
+            this.stream = listStream;
+            if (this.isCancelled()) {
+                listStream.cancel();
+            }
+        }
+
+        @Nullable
+        @Override
+        protected T poll() throws IOException {
+            final ListStream<T> listStream = this.stream;
+            if (listStream == null) {
+                return null;
+            }
+            while (listStream.hasNext()) {
+                final T next = listStream.next();
+                if (next != null) {
+                    return next;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        protected boolean isExhausted() throws IOException {
+            final ListStream<T> listStream = this.stream;
+            return listStream != null && !listStream.hasNext();
+        }
+
+        @Override
+        protected void onCancel() {
+            final ListStream<T> listStream = this.stream;
+            if (listStream != null) {
+                listStream.cancel();
+            }
+        }
+
+        @Override
+        protected void release() {
+            final ListStream<T> listStream = this.stream;
+            if (listStream != null) {
+                try {
+                    listStream.close();
+                } catch (final IOException ignored) {
+                    //Nothing more to read from it anyway
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.reactive;
+
+import org.jetbrains.annotations.NotNull;
+import org.reactivestreams.Publisher;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.contract.NowAsync;
+import org.rm3l.now4j.resources.aliases.Alias;
+import org.rm3l.now4j.resources.certs.Certificate;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.deployments.DeploymentFileStructure;
+import org.rm3l.now4j.resources.domains.Domain;
+import org.rm3l.now4j.resources.domains.DomainRecord;
+import org.rm3l.now4j.resources.secrets.Secret;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Reactive Streams {@link Publisher} versions of the operations of a {@link NowClient}.
+ * <p>
+ * Publishers are cold: each subscription sends its own requests, upon the first demand.
+ * Cancelling a subscription cancels the underlying call. Deployments and DNS records are emitted one by one,
+ * as they are decoded from the response, and only as fast as they are requested.
+ * <p>
+ * Signals are sent from the executor given, which reads responses in a blocking fashion
+ * while elements are requested. Defaults to a shared pool of daemon threads.
+ */
+public final class NowPublishers {
+
+    public static final long DEFAULT_WATCH_INTERVAL_MILLIS = 2000L;
+
+    @NotNull
+    private final NowClient nowClient;
+    @NotNull
+    private final NowAsync nowAsync;
+    @NotNull
+    private final Executor executor;
+
+    private NowPublishers(@NotNull final NowClient nowClient, @NotNull final Executor executor) {
+        this.nowClient = nowClient;
+        this.nowAsync = nowClient.async();
+        this.executor = executor;
+    }
+
+    /**
+     * @param nowClient the client to send requests with
+     * @return publishers signalling from a shared pool of daemon threads
+     */
+    @NotNull
+    public static NowPublishers create(@NotNull final NowClient nowClient) {
+        return new NowPublishers(nowClient, Schedulers.EXECUTOR);
+    }
+
+    /**
+     * @param nowClient the client to send requests with
+     * @param executor  where to read responses and send signals from,
+     *                  e.g., {@link org.rm3l.now4j.concurrent.VirtualThreads#newExecutor()}
+     * @return publishers signalling from the executor given
+     */
+    @NotNull
+    public static NowPublishers create(@NotNull final NowClient nowClient, @NotNull final Executor executor) {
+        return new NowPublishers(nowClient, executor);
+    }
+
+    /**
+     * @return all deployments, emitted as they are decoded
+     */
+    @NotNull
+    public Publisher<Deployment> getDeployments() {
+        return new ListStreamPublisher<>(this.nowClient::streamDeployments, this.executor);
+    }
+
+    @NotNull
+    public Publisher<Deployment> getDeployment(@NotNull final String deploymentId) {
+        return this.single(() -> this.nowAsync.getDeployment(deploymentId));
+    }
+
+    @NotNull
+    public Publisher<DeploymentFileStructure> getFiles(@NotNull final String deploymentId) {
+        return this.list(() -> this.nowAsync.getFiles(deploymentId));
+    }
+
+    @NotNull
+    public Publisher<Domain> getDomains() {
+        return this.list(this.nowAsync::getDomains);
+    }
+
+    /**
+     * @param domainName Domain name
+     * @return all DNS records configured for the domain name, emitted as they are decoded
+     */
+    @NotNull
+    public Publisher<DomainRecord> getDomainRecords(@NotNull final String domainName) {
+        return new ListStreamPublisher<>(() -> this.nowClient.streamDomainRecords(domainName), this.executor);
+    }
+
+    @NotNull
+    public Publisher<Certificate> getCertificates() {
+        return this.list(this.nowAsync::getCertificates);
+    }
+
+    @NotNull
+    public Publisher<Alias> getAliases() {
+        return this.list(this.nowAsync::getAliases);
+    }
+
+    @NotNull
+    public Publisher<Secret> getSecrets() {
+        return this.list(this.nowAsync::getSecrets);
+    }
+
+    /**
+     * Shortcut for <code>watchDeployment(deploymentId, {@value #DEFAULT_WATCH_INTERVAL_MILLIS},
+     * TimeUnit.MILLISECONDS)</code>
+     *
+     * @param deploymentId ID of deployment
+     * @return the successive states of the deployment
+     */
+    @NotNull
+    public Publisher<Deployment> watchDeployment(@NotNull final String deploymentId) {
+        return this.watchDeployment(deploymentId, DEFAULT_WATCH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Polls a deployment, emitting it first, then every time its state changes.
+     * Completes once the deployment reaches a terminal state, such as <code>READY</code> or <code>ERROR</code>.
+     *
+     * @param deploymentId ID of deployment
+     * @param interval     how long to wait between two polls
+     * @param unit         unit of {@code interval}
+     * @return the successive states of the deployment
+     */
+    @NotNull
+    public Publisher<Deployment> watchDeployment(@NotNull final String deploymentId,
+                                                 final long interval,
+                                                 @NotNull final TimeUnit unit) {
+        if (interval <= 0L) {
+            throw new IllegalArgumentException("interval <= 0: " + interval);
+        }
+        return new DeploymentWatchPublisher(this.nowAsync, deploymentId, unit.toMillis(interval),
+                Schedulers.WATCH_SCHEDULER, this.executor);
+    }
+
+    @NotNull
+    private <T> Publisher<T> single(@NotNull final Supplier<CompletableFuture<T>> futures) {
+        return new FuturePublisher<T, T>(futures, Collections::singletonList, this.executor);
+    }
+
+    @NotNull
+    private <T> Publisher<T> list(@NotNull final Supplier<CompletableFuture<List<T>>> futures) {
+        return new FuturePublisher<List<T>, T>(futures, Function.identity(), this.executor);
+    }
+
+    /**
+     * Created upon first use only
+     */
+    private static final class Schedulers {
+
+        private static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(r -> {
+            final Thread thread = new Thread(r, "now4j-reactive");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private static final ScheduledExecutorService WATCH_SCHEDULER =
+                Executors.newSingleThreadScheduledExecutor(r -> {
+                    final Thread thread = new Thread(r, "now4j-reactive-watch");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+}
@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.reactive;
+
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.rm3l.now4j.NowClient;
+import org.rm3l.now4j.exceptions.UnsuccessfulResponseException;
+import org.rm3l.now4j.resources.deployments.Deployment;
+import org.rm3l.now4j.resources.domains.Domain;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class NowPublishersTest {
+
+    private static final String DEPLOYMENTS =
+            "{\"deployments\":[{\"uid\":\"dpl_1\"},{\"uid\":\"dpl_2\"},{\"uid\":\"dpl_3\"}]}";
+
+    @Rule
+    public final MockWebServer server = new MockWebServer();
+
+    /**
+     * Number of drain loops running
+     */
+    private final AtomicInteger running = new AtomicInteger();
+
+    private NowPublishers publishers;
+
+    @Before
+    public void setUp() {
+        final NowClient nowClient = NowClient.builder()
+                .token("token")
+                .baseUrl(this.server.url("/").toString())
+                .build();
+        final Executor executor = r -> {
+            this.running.incrementAndGet();
+            final Thread thread = new Thread(() -> {
+                try {
+                    r.run();
+                } finally {
+                    this.running.decrementAndGet();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        };
+        this.publishers = NowPublishers.create(nowClient, executor);
+    }
+
+    private static List<String> uids(final List<Deployment> deployments) {
+        final List<String> uids = new ArrayList<>();
+        for (final Deployment deployment : deployments) {
+            uids.add(deployment.getUid());
+        }
+        return uids;
+    }
+
+    @Test
+    public void failsOnNonPositiveRequests() throws Exception {
+        final RecordingSubscriber<Deployment> subscriber = new RecordingSubscriber<>();
+        this.publishers.getDeployments().subscribe(subscriber);
+        subscriber.subscription().request(0L);
+        //Rule 3.9
+        assertTrue(String.valueOf(subscriber.awaitError()), subscriber.awaitError() instanceof IllegalArgumentException);
+        assertEquals(0, this.server.getRequestCount());
+    }
+
+    @Test
+    public void emitsElementsOnDemandOnly() throws Exception {
+        this.server.enqueue(new MockResponse().setBody(DEPLOYMENTS));
+        final RecordingSubscriber<Deployment> subscriber = new RecordingSubscriber<>();
+        this.publishers.getDeployments().subscribe(subscriber);
+        assertEquals(0, this.server.getRequestCount());
+
+        subscriber.subscription().request(1L);
+        subscriber.awaitElements(1);
+        assertEquals(Arrays.asList("dpl_1"), uids(subscriber.elements));
+        assertFalse(subscriber.awaitTerminated(0L));
+
+        subscriber.subscription().request(2L);
+        subscriber.awaitCompleted();
+        assertEquals(Arrays.asList("dpl_1", "dpl_2", "dpl_3"), uids(subscriber.elements));
+        assertEquals(1, this.server.getRequestCount());
+    }
+
+    @Test
+    public void cancelCancelsTheCallBlockedReading() throws Exception {
+        final StringBuilder body = new StringBuilder("{\"deployments\":[{\"uid\":\"dpl_1\"},");
+        for (int i = 2; i < 100; i++) {
+            body.append("{\"uid\":\"dpl_").append(i).append("\"},");
+        }
+        //The first element is sent right away, the others one chunk per second
+        this.server.enqueue(new MockResponse()
+                .setBody(body.append("{\"uid\":\"dpl_100\"}]}").toString())
+                .throttleBody(32L, 1L, TimeUnit.SECONDS));
+        final RecordingSubscriber<Deployment> subscriber = new RecordingSubscriber<>();
+        this.publishers.getDeployments().subscribe(subscriber);
+        subscriber.subscription().request(2L);
+        subscriber.awaitElements(1);
+        assertEquals(1, this.running.get());
+
+        subscriber.subscription().cancel();
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (this.running.get() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        assertEquals("Drain loop still blocked reading", 0, this.running.get());
+        assertEquals(Arrays.asList("dpl_1"), uids(subscriber.elements));
+        //No signal after cancellation
+        assertFalse(subscriber.awaitTerminated(100L));
+    }
+
+    @Test
+    public void signalsErrorsAfterTheElementsRead() throws Exception {
+        this.server.enqueue(new MockResponse()
+                .setBody("{\"deployments\":[{\"uid\":\"dpl_1\"},{\"uid\":\"dpl_2\"},42]}"));
+        final RecordingSubscriber<Deployment> subscriber = new RecordingSubscriber<>();
+        this.publishers.getDeployments().subscribe(subscriber);
+        subscriber.subscription().request(Long.MAX_VALUE);
+        assertTrue(String.valueOf(subscriber.awaitError()), subscriber.awaitError() instanceof IOException);
+        assertEquals(Arrays.asList("dpl_1", "dpl_2"), uids(subscriber.elements));
+    }
+
+    @Test
+    public void signalsUnsuccessfulResponsesUnwrapped() throws Exception {
+        this.server.enqueue(new MockResponse().setResponseCode(500));
+        final RecordingSubscriber<Domain> subscriber = new RecordingSubscriber<>();
+        this.publishers.getDomains().subscribe(subscriber);
+        subscriber.subscription().request(1L);
+        assertTrue(String.valueOf(subscriber.awaitError()),
+                subscriber.awaitError() instanceof UnsuccessfulResponseException);
+        assertTrue(subscriber.elements.isEmpty());
+    }
+
+    @Test
+    public void watchCompletesOnTerminalStates() throws Exception {
+        this.server.enqueue(new MockResponse().setBody("{\"uid\":\"dpl_1\",\"state\":\"BUILDING\"}"));
+        this.server.enqueue(new MockResponse().setBody("{\"uid\":\"dpl_1\",\"state\":\"BUILDING\"}"));
+        this.server.enqueue(new MockResponse().setBody("{\"uid\":\"dpl_1\",\"state\":\"READY\"}"));
+        final RecordingSubscriber<Deployment> subscriber = new RecordingSubscriber<>();
+        this.publishers.watchDeployment("dpl_1", 10L, TimeUnit.MILLISECONDS).subscribe(subscriber);
+        subscriber.subscription().request(Long.MAX_VALUE);
+        subscriber.awaitCompleted();
+
+        final List<Deployment.State> states = new ArrayList<>();
+        for (final Deployment deployment : subscriber.elements) {
+            states.add(deployment.getState());
+        }
+        assertEquals(Arrays.asList(Deployment.State.BUILDING, Deployment.State.READY), states);
+        assertEquals(3, this.server.getRequestCount());
+    }
+}
@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2017 Armel Soro
+ *
+ * Permission is hereby granted, free of charge, to any person obtaining a copy
+ * of this software and associated documentation files (the "Software"), to deal
+ * in the Software without restriction, including without limitation the rights
+ * to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ * copies of the Software, and to permit persons to whom the Software is
+ * furnished to do so, subject to the following conditions:
+ *
+ * The above copyright notice and this permission notice shall be included in all
+ * copies or substantial portions of the Software.
+ *
+ * THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ * IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ * FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ * AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ * LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ * OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN THE
+ * SOFTWARE.
+ */
+package org.rm3l.now4j.reactive;
+
+import org.jetbrains.annotations.Nullable;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * {@link Subscriber} recording the signals it gets, and requesting nothing by itself
+ */
+final class RecordingSubscriber<T> implements Subscriber<T> {
+
+    final List<T> elements = new CopyOnWriteArrayList<>();
+
+    private final CountDownLatch terminated = new CountDownLatch(1);
+    private volatile Subscription subscription;
+    @Nullable
+    private volatile Throwable error;
+    private volatile boolean completed;
+
+    @Override
+    public void onSubscribe(final Subscription subscription) {
+        this.subscription = subscription;
+    }
+
+    @Override
+    public void onNext(final T element) {
+        this.elements.add(element);
+    }
+
+    @Override
+    public void onError(final Throwable t) {
+        this.error = t;
+        this.terminated.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+        this.completed = true;
+        this.terminated.countDown();
+    }
+
+    Subscription subscription() {
+        assertNotNull("Not subscribed", this.subscription);
+        return this.subscription;
+    }
+
+    boolean awaitTerminated(final long timeoutMillis) throws InterruptedException {
+        return this.terminated.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    void awaitCompleted() throws InterruptedException {
+        assertTrue("Not terminated", this.awaitTerminated(5000L));
+        assertTrue("Failed: " + this.error, this.completed);
+    }
+
+    Throwable awaitError() throws InterruptedException {
+        assertTrue("Not terminated", this.awaitTerminated(5000L));
+        assertNotNull("Completed", this.error);
+        return this.error;
+    }
+
+    /**
+     * Waits for the number of elements specified, and a bit longer to catch any extra one
+     */
+    void awaitElements(final int count) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + 5000L;
+        while (this.elements.size() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10L);
+        }
+        Thread.sleep(100L);
+    }
+}